@@ -170,7 +170,11 @@ def calculateExpectedProfit(q: List[int], params: List[Dict[str, float]]) -> flo
                for i in range(len(q)))
 
 # --- GA Runner ---
-def run_ga(excel_path, productionBudget, marketingBudget, logisticsBudget, storageSum, d_base, bits_per_chromosome, col_map):
+def run_ga(excel_path, productionBudget, marketingBudget, logisticsBudget, storageSum, d_base, bits_per_chromosome, col_map, stop_at=None, deadline_ms=None):
+    # stop_at: penalised profit within the requested gap of the LP bound; the run ends once the best chromosome reaches it
+    # deadline_ms: wall-clock budget; once it runs out the best chromosome so far is returned, flagged as partial
+    deadline = time.time() + deadline_ms / 1000.0 if deadline_ms is not None else None
+    partial = False
     try:
         logger.info(f"Reading Excel file: {excel_path}")
         df = pd.read_excel(excel_path)
@@ -245,6 +249,15 @@ def run_ga(excel_path, productionBudget, marketingBudget, logisticsBudget, stora
             if fits[idx] > best_f:
                 best, best_f = pop[idx].clone(), fits[idx]
 
+            if stop_at is not None and best_f >= stop_at:
+                logger.info(f"Reached the optimality gap at generation {g+1}.")
+                break
+
+            if deadline is not None and g < gens - 1 and time.time() >= deadline:
+                logger.info(f"Deadline reached at generation {g+1}, returning the best solution so far.")
+                partial = True
+                break
+
             # Create new generation
             new_pop = [best.clone()]
             while len(new_pop) < pop_size:
@@ -298,10 +311,13 @@ def run_ga(excel_path, productionBudget, marketingBudget, logisticsBudget, stora
                 "total_cost": unit_cost * quantity
             })
 
-        return {
+        results = {
             "total_profit": realProfit,
             "products": products
         }
+        if partial:
+            results["partial"] = True
+        return results
 
     except Exception as e:
         logger.error(f"GA Error: {str(e)}")
@@ -35,6 +35,9 @@ def ant_colony_optimization(data, params):
     iterations = params.get('n_iterations')
     Q = params.get('pheromone_coefficient')
     max_no_improvement = params.get('max_no_improvement')
+    stop_at = params.get('stop_at')
+    deadline = params.get('deadline')
+    partial = False
 
     price = data['Price'].values
     Cp = data['Production_Cost_Per_Unit'].values
@@ -171,6 +174,15 @@ def ant_colony_optimization(data, params):
             no_improvement_count = 0
             best_profit = iteration_best_profit # Update best_profit here if it was truly better
 
+        if stop_at is not None and best_solution is not None and best_profit >= stop_at:
+            logger.info(f"Reached the optimality gap at iteration {it+1}.")
+            break
+
+        if deadline is not None and it < iterations - 1 and time.time() >= deadline:
+            logger.info(f"Deadline reached at iteration {it+1}, returning the best solution so far.")
+            partial = True
+            break
+
         if no_improvement_count >= max_no_improvement:
             logger.info(f"Early stopping at iteration {it+1}, no improvement in {max_no_improvement} iterations.")
             break
@@ -196,10 +208,11 @@ def ant_colony_optimization(data, params):
         'Penalty': pe
     })
 
+    best_details['partial'] = partial
     return best_q, final_profit, report, best_details
 
 
-def run_aco(excel_path: str, productionBudget: float, marketingBudget: float, logisticsBudget: float, shelf_capacity: float, d_base: float, col_map: Dict[str, str]):
+def run_aco(excel_path: str, productionBudget: float, marketingBudget: float, logisticsBudget: float, shelf_capacity: float, d_base: float, col_map: Dict[str, str], stop_at: float = None, deadline_ms: int = None):
     try:
         logger.info(f"Reading Excel file: {excel_path}")
         df = pd.read_excel(excel_path)
@@ -246,7 +259,9 @@ def run_aco(excel_path: str, productionBudget: float, marketingBudget: float, lo
             'budget_marketing': marketingBudget,
             'budget_logistics': logisticsBudget,
             'shelf_capacity': shelf_capacity, # Renamed from storageSum to shelf_capacity for clarity
-            'd_base': d_base
+            'd_base': d_base,
+            'stop_at': stop_at, # Penalised profit within the requested gap of the LP bound, or None
+            'deadline': time.time() + deadline_ms / 1000.0 if deadline_ms is not None else None # Return the best so far after this
         }
 
         # Call the core ACO function
@@ -290,10 +305,13 @@ def run_aco(excel_path: str, productionBudget: float, marketingBudget: float, lo
         overall_real_profit_no_penalty = float(sum(p['total_profit'] for p in products_results))
 
 
-        return {
+        results = {
             "total_profit": overall_real_profit_no_penalty, # Reporting actual profit without penalty for user
             "products": products_results
         }
+        if details.get('partial'):
+            results["partial"] = True
+        return results
 
     except Exception as e:
         logger.error(f"Ant Colony Optimization Error: {str(e)}")
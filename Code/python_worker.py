@@ -0,0 +1,94 @@
+# Long-lived worker for GA.py and ant.py, driven by line-delimited JSON on stdin.
+# pandas/numpy are imported once when the worker starts instead of once per simulation.
+#
+# Requests:  {"type": "ping"}
+#            {"type": "job", "id": ..., "algorithm": "GA" | "ACO", "file_path": ..., "bp": ..., "bm": ...,
+#             "bl": ..., "s_max": ..., "d_base": ..., "chromosome_bits": ..., "col_map": {...}}
+# Responses: {"type": "ready"} once at start-up, {"type": "pong"},
+#            {"type": "progress", "id": ..., "progress": ..., "eta": ...} while a job runs,
+#            {"type": "result", "id": ..., "result": {...}} or {"type": "error", "id": ..., "message": ...}
+import json
+import os
+import re
+import sys
+import traceback
+
+PROTOCOL_OUT = sys.stdout
+PROGRESS_PATTERN = re.compile(r"\[PROGRESS\] (GA|ACO): (\d+\.?\d*)% completed, estimated (\d+\.?\d*)s remaining")
+
+sys.path.insert(0, os.path.dirname(os.path.abspath(__file__)))
+import GA  # noqa: E402
+import ant  # noqa: E402
+
+
+def send(message):
+    PROTOCOL_OUT.write(json.dumps(message) + "\n")
+    PROTOCOL_OUT.flush()
+
+
+class ProgressRelay:
+    """Stands in for sys.stdout while a job runs and turns [PROGRESS] lines into protocol messages."""
+
+    def __init__(self, job_id):
+        self.job_id = job_id
+        self.buffer = ""
+
+    def write(self, text):
+        self.buffer += text
+        while "\n" in self.buffer:
+            line, self.buffer = self.buffer.split("\n", 1)
+            match = PROGRESS_PATTERN.search(line)
+            if match:
+                send({"type": "progress", "id": self.job_id,
+                      "progress": float(match.group(2)), "eta": float(match.group(3))})
+        return len(text)
+
+    def flush(self):
+        pass
+
+
+def run_job(job):
+    col_map = job["col_map"]
+    # Validate that no 'null' strings were passed for required columns from Java
+    for key, value in col_map.items():
+        if value is None or value == "null" or value == "":
+            raise ValueError(f"Column mapping for '{key}' is missing or invalid (received '{value}'). Please select all required columns in the UI.")
+
+    if job["algorithm"] == "GA":
+        return GA.run_ga(job["file_path"], job["bp"], job["bm"], job["bl"], job["s_max"], job["d_base"],
+                         job["chromosome_bits"], col_map, stop_at=job.get("stop_at"),
+                         deadline_ms=job.get("deadline_ms"))
+    if job["algorithm"] == "ACO":
+        return ant.run_aco(job["file_path"], job["bp"], job["bm"], job["bl"], job["s_max"], job["d_base"], col_map,
+                           stop_at=job.get("stop_at"), deadline_ms=job.get("deadline_ms"))
+    raise ValueError(f"Unknown algorithm: {job['algorithm']}")
+
+
+def main():
+    send({"type": "ready"})
+    for line in sys.stdin:
+        line = line.strip()
+        if not line:
+            continue
+        try:
+            message = json.loads(line)
+        except ValueError:
+            send({"type": "error", "id": None, "message": "Malformed request: " + line})
+            continue
+
+        if message.get("type") == "ping":
+            send({"type": "pong"})
+        elif message.get("type") == "job":
+            job_id = message.get("id")
+            sys.stdout = ProgressRelay(job_id)
+            try:
+                send({"type": "result", "id": job_id, "result": run_job(message)})
+            except Exception as e:
+                traceback.print_exc(file=sys.stderr)
+                send({"type": "error", "id": job_id, "message": str(e)})
+            finally:
+                sys.stdout = PROTOCOL_OUT
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,113 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the in-process engines: one GA generation (breed, repair and evaluate a population), one
+ * complete ACO run of {@link AntColonyEngine#ITERATIONS} iterations and one exact branch-and-bound solve.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EngineBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class GaState {
+        @Param({"10", "1000", "10000", "100000"})
+        int products;
+
+        @Param({"10", "16", "32"})
+        int chromosomeBits;
+
+        @Param({"UNIT_DECREMENT", "GREEDY"})
+        RepairPolicy repairPolicy;
+
+        GeneticAlgorithmEngine.Island island;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            SyntheticCatalog catalog = new SyntheticCatalog(products, 42);
+            OptimizationProblem problem = catalog.table(chromosomeBits).toProblem(catalog.request(chromosomeBits));
+
+            // Same bounds as GeneticAlgorithmEngine.optimize
+            int segmentMax = chromosomeBits >= 31 ? Integer.MAX_VALUE : (1 << chromosomeBits) - 1;
+            int[] upperBound = new int[problem.size()];
+            for (int i = 0; i < upperBound.length; i++) {
+                upperBound[i] = Math.min(problem.getMaxQuantity()[i], segmentMax);
+            }
+            RepairOperator repair = RepairOperator.forPolicy(repairPolicy, problem, upperBound, CancellationToken.NONE);
+            island = new GeneticAlgorithmEngine.Island(problem, chromosomeBits, repair, new SplittableRandom(42),
+                    CancellationToken.NONE);
+            island.evaluate();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AcoState {
+        @Param({"10", "1000", "10000", "100000"})
+        int products;
+
+        @Param({"NONE", "GREEDY"})
+        RepairPolicy repairPolicy;
+
+        OptimizationProblem problem;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            // ACO ignores the chromosome width
+            SyntheticCatalog catalog = new SyntheticCatalog(products, 42);
+            problem = catalog.table(16).toProblem(catalog.request(16));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExactState {
+        // The exact solver is only used on small and medium catalogs
+        @Param({"10", "100", "200"})
+        int products;
+
+        OptimizationProblem problem;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            SyntheticCatalog catalog = new SyntheticCatalog(products, 42);
+            problem = catalog.table(16).toProblem(catalog.request(16));
+        }
+    }
+
+    @Benchmark
+    public GeneticAlgorithmEngine.Island gaGeneration(GaState state) {
+        state.island.breed();
+        state.island.evaluate();
+        return state.island;
+    }
+
+    @Benchmark
+    public SimulationResult acoRun(AcoState state) {
+        return new AntColonyEngine(new SplittableRandom(42), null, state.repairPolicy)
+                .optimize(state.problem, ProgressListener.NONE);
+    }
+
+    @Benchmark
+    public SimulationResult exactRun(ExactState state) {
+        return new ExactKnapsackEngine(2_000_000).optimize(state.problem, ProgressListener.NONE);
+    }
+}
@@ -0,0 +1,77 @@
+package com.fashionopt.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fitness evaluation: a full pass over the catalog against a single incremental update of the running
+ * totals, and decoding a fresh random chromosome at each bit width.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EvaluationBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    int products;
+
+    @Param({"10", "16", "32"})
+    int chromosomeBits;
+
+    private OptimizationProblem problem;
+    private double shelfLimit;
+    private int[] offsets;
+    private int[] quantities;
+    private SolutionState state;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticCatalog catalog = new SyntheticCatalog(products, 42);
+        problem = catalog.table(chromosomeBits).toProblem(catalog.request(chromosomeBits));
+        shelfLimit = problem.getShelfCapacity() - problem.getExistingShelfUse();
+        offsets = GeneticAlgorithmEngine.segmentOffsets(problem, chromosomeBits);
+        random = new SplittableRandom(42);
+        quantities = new int[problem.size()];
+        state = new SolutionState(problem, shelfLimit);
+        for (int i = 0; i < quantities.length; i++) {
+            quantities[i] = random.nextInt(problem.getMaxQuantity()[i] + 1);
+            state.set(i, quantities[i]);
+        }
+    }
+
+    @Benchmark
+    public double fullObjective() {
+        return problem.objective(quantities);
+    }
+
+    @Benchmark
+    public double incrementalUpdate() {
+        int i = random.nextInt(quantities.length);
+        state.set(i, random.nextInt(problem.getMaxQuantity()[i] + 1));
+        return state.getObjective();
+    }
+
+    @Benchmark
+    public double decodeRandomChromosome() {
+        return GeneticAlgorithmEngine.Chromosome.random(offsets, new SolutionState(problem, shelfLimit), random)
+                .fitness();
+    }
+}
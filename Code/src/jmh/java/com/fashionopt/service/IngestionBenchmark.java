@@ -0,0 +1,65 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing an uploaded catalog into a {@link ProductTable}, from CSV and from XLSX.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class IngestionBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    int products;
+
+    @Param({"csv", "xlsx"})
+    String format;
+
+    private final ProductDataLoader loader = new ProductDataLoader();
+    private SimulationRequest request;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticCatalog catalog = new SyntheticCatalog(products, 42);
+        request = catalog.request(16);
+        file = Files.createTempFile("fashionopt-bench", "." + format);
+        if (format.equals("csv")) {
+            catalog.writeCsv(file);
+        } else {
+            catalog.writeXlsx(file);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public ProductTable load() throws IOException {
+        return loader.load(file, request);
+    }
+}
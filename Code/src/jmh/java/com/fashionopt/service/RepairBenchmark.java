@@ -0,0 +1,66 @@
+package com.fashionopt.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repairs the same random, over-budget solution with each policy. The solution is drawn up to the bit
+ * width's segment maximum, so wider chromosomes start further from feasibility.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RepairBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    int products;
+
+    @Param({"10", "16", "32"})
+    int chromosomeBits;
+
+    @Param({"UNIT_DECREMENT", "GREEDY"})
+    RepairPolicy repairPolicy;
+
+    private SolutionState infeasible;
+    private RepairOperator repair;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticCatalog catalog = new SyntheticCatalog(products, 42);
+        OptimizationProblem problem = catalog.table(chromosomeBits).toProblem(catalog.request(chromosomeBits));
+
+        int segmentMax = chromosomeBits >= 31 ? Integer.MAX_VALUE : (1 << chromosomeBits) - 1;
+        int[] upperBound = new int[problem.size()];
+        infeasible = new SolutionState(problem, problem.getShelfCapacity() - problem.getExistingShelfUse());
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < upperBound.length; i++) {
+            upperBound[i] = Math.min(problem.getMaxQuantity()[i], segmentMax);
+            infeasible.set(i, random.nextInt(upperBound[i] + 1));
+        }
+        repair = RepairOperator.forPolicy(repairPolicy, problem, upperBound, CancellationToken.NONE);
+    }
+
+    @Benchmark
+    public double repair() {
+        SolutionState state = infeasible.copy();
+        repair.repair(state, i -> { });
+        return state.getObjective();
+    }
+}
@@ -0,0 +1,128 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationRequest;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates catalogs in the shape of test_products.csv for the benchmarks. Each product is one of the sample
+ * products with every numeric column jittered by up to 30%, so catalogs of any size have realistic margins,
+ * costs and demand. Generation is seeded, so every run benchmarks the same data.
+ */
+final class SyntheticCatalog {
+
+    static final String[] HEADER = {"Product Name", "Price", "Production Cost", "Marketing Cost", "Logistics Cost",
+            "Shelf Space Cost", "Age", "Remaining Products", "Demand", "Shelf Space"};
+
+    // Numeric columns of the rows in test_products.csv
+    private static final double[][] TEMPLATES = {
+            {25.99, 8.50, 2.00, 1.50, 0.25, 30, 100, 150, 2},
+            {79.99, 25.00, 5.00, 3.00, 0.50, 45, 80, 120, 3},
+            {59.99, 18.00, 4.00, 2.50, 0.40, 20, 60, 90, 2.5},
+            {129.99, 40.00, 8.00, 5.00, 0.75, 60, 50, 80, 4},
+            {199.99, 65.00, 12.00, 8.00, 1.00, 90, 30, 50, 5},
+    };
+
+    private final String[][] rows;
+    private final double totalCost;
+    private final double totalShelf;
+
+    SyntheticCatalog(int products, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        rows = new String[products][];
+        double cost = 0.0;
+        double shelf = 0.0;
+        for (int i = 0; i < products; i++) {
+            double[] template = TEMPLATES[random.nextInt(TEMPLATES.length)];
+            String[] row = new String[HEADER.length];
+            row[0] = "Product " + i;
+            double[] values = new double[template.length];
+            for (int k = 0; k < template.length; k++) {
+                values[k] = template[k] * (0.7 + 0.6 * random.nextDouble());
+                // Age, stock and demand are whole numbers in the sample file
+                boolean whole = k >= 5 && k <= 7;
+                row[k + 1] = whole ? Long.toString(Math.round(values[k])) : String.format(Locale.ROOT, "%.2f", values[k]);
+            }
+            cost += (values[1] + values[2] + values[3]) * values[7];
+            shelf += values[8];
+            rows[i] = row;
+        }
+        totalCost = cost;
+        totalShelf = shelf;
+    }
+
+    /**
+     * A request mapping the generated columns, with each budget covering a third of the cost of meeting all
+     * demand, so repair always has work to do, and room for twice the catalog's shelf space.
+     */
+    SimulationRequest request(int chromosomeBits) {
+        SimulationRequest request = new SimulationRequest();
+        request.setColName(HEADER[0]);
+        request.setColPrice(HEADER[1]);
+        request.setColCp(HEADER[2]);
+        request.setColCm(HEADER[3]);
+        request.setColCl(HEADER[4]);
+        request.setColShelfCost(HEADER[5]);
+        request.setColAge(HEADER[6]);
+        request.setColStock(HEADER[7]);
+        request.setColDemand(HEADER[8]);
+        request.setColShelf(HEADER[9]);
+        request.setProductionBudget(totalCost / 3 * 0.7);
+        request.setMarketingBudget(totalCost / 3 * 0.2);
+        request.setLogisticsBudget(totalCost / 3 * 0.1);
+        request.setShelfSpace(totalShelf * 2);
+        request.setDiscountBase(0.2);
+        request.setChromosomeBits(chromosomeBits);
+        return request;
+    }
+
+    ProductTable table(int chromosomeBits) throws IOException {
+        Path csv = writeCsv(Files.createTempFile("fashionopt-bench", ".csv"));
+        try {
+            return new ProductDataLoader().load(csv, request(chromosomeBits));
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    Path writeCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write(String.join(",", HEADER));
+            writer.newLine();
+            for (String[] row : rows) {
+                writer.write(String.join(",", row));
+                writer.newLine();
+            }
+        }
+        return path;
+    }
+
+    Path writeXlsx(Path path) throws IOException {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000); OutputStream out = Files.newOutputStream(path)) {
+            Sheet sheet = workbook.createSheet("Products");
+            Row header = sheet.createRow(0);
+            for (int k = 0; k < HEADER.length; k++) {
+                header.createCell(k).setCellValue(HEADER[k]);
+            }
+            for (int i = 0; i < rows.length; i++) {
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(rows[i][0]);
+                for (int k = 1; k < HEADER.length; k++) {
+                    row.createCell(k).setCellValue(Double.parseDouble(rows[i][k]));
+                }
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+        return path;
+    }
+}
@@ -0,0 +1,116 @@
+package com.fashionopt.controller;
+
+import com.fashionopt.service.ClusterCoordinator;
+import com.fashionopt.service.ClusterProtocol;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Endpoints cluster workers call on the coordinator, see {@link ClusterProtocol}. They answer 404 unless this
+ * server runs with {@code fashionopt.cluster.role=coordinator}, and 403 if the caller's token does not match.
+ * A 409 tells a worker that the job is no longer its own.
+ */
+@RestController
+@RequestMapping({"/api/cluster"})
+public class ClusterController {
+    @Autowired
+    private ClusterCoordinator clusterCoordinator;
+
+    @PostMapping("/poll")
+    public ResponseEntity<List<ClusterProtocol.Job>> poll(@RequestHeader(value = ClusterProtocol.TOKEN_HEADER, required = false) String token,
+                                                          @RequestBody ClusterProtocol.Poll poll) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).build();
+        }
+        try {
+            return ResponseEntity.ok(clusterCoordinator.poll(poll));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.ok(List.of());
+        }
+    }
+
+    @PostMapping("/jobs/{jobId}/claim")
+    public ResponseEntity<ClusterProtocol.Grant> claim(@RequestHeader(value = ClusterProtocol.TOKEN_HEADER, required = false) String token,
+                                                       @PathVariable String jobId, @RequestBody ClusterProtocol.WorkerRef worker) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).build();
+        }
+        ClusterProtocol.Grant grant = clusterCoordinator.claim(jobId, worker);
+        return grant != null ? ResponseEntity.ok(grant) : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @PostMapping("/jobs/{jobId}/progress")
+    public ResponseEntity<Void> progress(@RequestHeader(value = ClusterProtocol.TOKEN_HEADER, required = false) String token,
+                                         @PathVariable String jobId, @RequestBody ClusterProtocol.Progress progress) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).build();
+        }
+        return ResponseEntity.status(clusterCoordinator.progress(jobId, progress) ? HttpStatus.OK : HttpStatus.CONFLICT).build();
+    }
+
+    @PostMapping("/jobs/{jobId}/result")
+    public ResponseEntity<Void> result(@RequestHeader(value = ClusterProtocol.TOKEN_HEADER, required = false) String token,
+                                       @PathVariable String jobId, @RequestBody ClusterProtocol.Outcome outcome) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).build();
+        }
+        return ResponseEntity.status(clusterCoordinator.complete(jobId, outcome) ? HttpStatus.OK : HttpStatus.CONFLICT).build();
+    }
+
+    @PostMapping("/heartbeat")
+    public ResponseEntity<ClusterProtocol.HeartbeatReply> heartbeat(@RequestHeader(value = ClusterProtocol.TOKEN_HEADER, required = false) String token,
+                                                                    @RequestBody ClusterProtocol.Heartbeat heartbeat) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).build();
+        }
+        return ResponseEntity.ok(clusterCoordinator.heartbeat(heartbeat));
+    }
+
+    @PostMapping("/leave")
+    public ResponseEntity<Void> leave(@RequestHeader(value = ClusterProtocol.TOKEN_HEADER, required = false) String token,
+                                      @RequestBody ClusterProtocol.WorkerRef worker) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).build();
+        }
+        clusterCoordinator.leave(worker);
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Workers with a recent heartbeat and the jobs each holds.
+     */
+    @GetMapping("/workers")
+    public ResponseEntity<List<ClusterProtocol.WorkerInfo>> getWorkers(@RequestHeader(value = ClusterProtocol.TOKEN_HEADER, required = false) String token) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).build();
+        }
+        return ResponseEntity.ok(clusterCoordinator.getWorkers());
+    }
+
+    /**
+     * @return The status to refuse a worker request with, or null if it may proceed.
+     */
+    private HttpStatus reject(String token) {
+        if (!clusterCoordinator.isCoordinator()) {
+            return HttpStatus.NOT_FOUND;
+        }
+        return clusterCoordinator.isAuthorized(token) ? null : HttpStatus.FORBIDDEN;
+    }
+}
@@ -1,19 +1,36 @@
 package com.fashionopt.controller;
 
+import com.fashionopt.dto.BatchSweepResult;
 import com.fashionopt.dto.CombinedSimulationResult;
 import com.fashionopt.dto.SimulationRequest;
 import com.fashionopt.dto.SimulationResult;
+import com.fashionopt.dto.SimulationState;
 import com.fashionopt.dto.SimulationStatus; // Import the new DTO
+import com.fashionopt.dto.SimulationSummary;
 import com.fashionopt.service.AntColonyService;
+import com.fashionopt.service.BatchSweepService;
+import com.fashionopt.service.ExactSolverService;
 import com.fashionopt.service.FileStorageService;
 import com.fashionopt.service.GAService;
+import com.fashionopt.service.OptimizationProblem;
+import com.fashionopt.service.Presolve;
+import com.fashionopt.service.ProductTable;
+import com.fashionopt.service.ProductTableCache;
+import com.fashionopt.service.SimulationEventService;
+import com.fashionopt.service.SimulationMetrics;
+import com.fashionopt.service.SimulationResultCache;
+import com.fashionopt.service.SimulationScheduler;
 import com.fashionopt.service.SimulationStatusService; // Import the new service
+import com.fashionopt.service.StoredUpload;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors; // For creating a dedicated thread pool
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -21,7 +38,9 @@ import org.springframework.web.bind.annotation.PathVariable; // For new GET endp
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping; // For new GET endpoint
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @CrossOrigin(
@@ -36,25 +55,55 @@ public class SimulationController {
     @Autowired
     private AntColonyService antColonyService;
     @Autowired
+    private ProductTableCache productTableCache;
+    @Autowired
+    private SimulationResultCache simulationResultCache;
+    @Autowired
+    private SimulationEventService simulationEventService;
+    @Autowired
+    private ExactSolverService exactSolverService; // Branch-and-bound reference for small catalogs
+    @Autowired
+    private BatchSweepService batchSweepService; // Parameter sweeps over one upload
+    @Autowired
+    private SimulationMetrics simulationMetrics;
+    @Autowired
+    private SimulationScheduler simulationScheduler; // Bounded queue and worker threads for simulation tasks
+    @Autowired
     private SimulationStatusService simulationStatusService; // Autowire the new service
-
-    // Create a dedicated thread pool for long-running simulation tasks
-    // Adjust pool size based on expected concurrency and system resources
-    private final ExecutorService simulationExecutor = Executors.newFixedThreadPool(2);
+    @Value("${fashionopt.presolve.enabled:true}")
+    private boolean presolveEnabled;
 
 
     @PostMapping({"/simulate"})
     public ResponseEntity<String> runSimulation(@ModelAttribute SimulationRequest request) {
+        long receivedAt = System.nanoTime();
         String simulationId = simulationStatusService.createSimulation(); // Create a new simulation entry
+        StoredUpload leasedUpload = null; // Released here unless a submitted simulation takes over the lease
 
         try {
             System.out.println("Received simulation request for ID: " + simulationId + " with details: " + String.valueOf(request));
-            Path filePath = this.fileStorageService.storeFile(request.getFile());
+            long storeStart = System.nanoTime();
+            StoredUpload upload = this.fileStorageService.storeFile(request.getFile());
+            long storeNanos = System.nanoTime() - storeStart;
+            leasedUpload = upload;
+            Path filePath = upload.path();
             System.out.println("File stored at: " + String.valueOf(filePath));
 
+            // Parse the upload once (or reuse the table parsed for an identical earlier upload);
+            // validation and both in-process engines share the resulting table
+            ProductTable catalog;
+            try {
+                catalog = productTableCache.load(upload, request);
+            } catch (IllegalArgumentException e) {
+                simulationMetrics.recordUpload(SimulationMetrics.UNKNOWN_SIZE, storeNanos);
+                simulationStatusService.setValidationError(simulationId, e.getMessage());
+                return ResponseEntity.ok(simulationId);
+            }
+            simulationMetrics.recordUpload(SimulationMetrics.catalogSize(catalog.size()), storeNanos);
+
             // Validate shelf space before starting simulation
-            // Calculate required shelf space from the uploaded data
-            double requiredShelfSpace = calculateRequiredShelfSpace(filePath);
+            // Required shelf space is the total of the mapped shelf space column
+            double requiredShelfSpace = catalog.getTotalShelfSpace();
             double totalShelfSpace = request.getShelfSpace();
             
             if (!simulationStatusService.validateShelfSpace(totalShelfSpace, requiredShelfSpace)) {
@@ -78,16 +127,48 @@ public class SimulationController {
                 return ResponseEntity.ok(simulationId);
             }
 
-            // Set initial time estimates (these will be updated as algorithms progress)
-            simulationStatusService.updateProgress(simulationId, "GA", 0.0, 120.0); // Initial estimate: 2 minutes
-            simulationStatusService.updateProgress(simulationId, "ACO", 0.0, 120.0); // Initial estimate: 2 minutes
+            // Validate GA island and ACO colony settings
+            String engineSettingsError = validateEngineSettings(request);
+            if (engineSettingsError != null) {
+                simulationStatusService.setValidationError(simulationId, engineSettingsError);
+                return ResponseEntity.ok(simulationId);
+            }
+
+            // Reuse the result of an identical finished simulation, or attach to an identical running one
+            String fingerprint = simulationResultCache.fingerprint(upload, request);
+            SimulationResultCache.Lookup lookup = simulationResultCache.lookup(fingerprint, simulationId);
+            if (lookup.cachedResult() != null) {
+                simulationStatusService.completeFromCache(simulationId, lookup.cachedResult());
+                return ResponseEntity.ok(simulationId);
+            }
+            if (lookup.runningSimulationId() != null && simulationStatusService.attachWatcher(lookup.runningSimulationId())) {
+                simulationStatusService.cleanupSimulation(simulationId);
+                return ResponseEntity.ok(lookup.runningSimulationId());
+            }
 
-            // Run both algorithms in parallel in the dedicated thread pool
-            CompletableFuture<Void> gaFuture = CompletableFuture.runAsync(() -> {
+            // Every engine works on the same problem, so the LP bounds behind their optimality gap are solved only once
+            // and the in-process engines only search the products that pre-solve left free
+            OptimizationProblem catalogProblem = catalog.toProblem(request);
+            int segmentMax = chromosomeBits >= 31 ? Integer.MAX_VALUE : (1 << chromosomeBits) - 1;
+            OptimizationProblem problem = presolveEnabled ? Presolve.reduce(catalogProblem, segmentMax) : catalogProblem;
+            // The deadline counts from when the request arrived, so time spent queued is part of the budget
+            Long deadline = request.getDeadlineMillis() != null ? receivedAt + request.getDeadlineMillis() * 1_000_000 : null;
+
+            // Both algorithms are queued with the scheduler; the simulation stays PENDING until one of them starts
+            long submittedAt = System.nanoTime();
+            Runnable gaTask = () -> {
+                if (!isStartable(simulationId)) {
+                    return;
+                }
+                simulationMetrics.recordQueueWait("GA", catalog.size(), System.nanoTime() - submittedAt);
+                // Set initial time estimates (these will be updated as algorithms progress)
+                simulationStatusService.updateProgress(simulationId, "GA", 0.0, initialEstimate(deadline));
                 try {
+                    // The exact reference runs first on the GA lane, within its own small time budget so the GA is not held up
+                    exactSolverService.runReference(simulationId, problem, deadline);
                     System.out.println("Starting Genetic Algorithm optimization for ID: " + simulationId);
                     // The runOptimization method is now responsible for calling updateResult for GA
-                    this.gaService.runOptimization(simulationId, filePath, request);
+                    this.gaService.runOptimization(simulationId, filePath, problem, request, deadline);
                 } catch (Exception e) {
                     System.err.println("GA optimization error for ID: " + simulationId + ": " + e.getMessage());
                     e.printStackTrace();
@@ -96,13 +177,19 @@ public class SimulationController {
                     // Even if runOptimization fails to return a result, ensure the status is eventually marked as completed for this algorithm
                     // This is now handled within GAService.runOptimization, which always returns a SimulationResult
                 }
-            }, simulationExecutor); // Use the dedicated executor
+                recordLatency(simulationId, "GA", catalog.size(), receivedAt);
+            };
 
-            CompletableFuture<Void> antFuture = CompletableFuture.runAsync(() -> {
+            Runnable antTask = () -> {
+                if (!isStartable(simulationId)) {
+                    return;
+                }
+                simulationMetrics.recordQueueWait("ACO", catalog.size(), System.nanoTime() - submittedAt);
+                simulationStatusService.updateProgress(simulationId, "ACO", 0.0, initialEstimate(deadline));
                 try {
                     System.out.println("Starting Ant Colony optimization for ID: " + simulationId);
                     // The runOptimization method is now responsible for calling updateResult for ACO
-                    this.antColonyService.runOptimization(simulationId, filePath, request);
+                    this.antColonyService.runOptimization(simulationId, filePath, problem, request, deadline);
                 } catch (Exception e) {
                     System.err.println("Ant Colony optimization error for ID: " + simulationId + ": " + e.getMessage());
                     e.printStackTrace();
@@ -110,7 +197,34 @@ public class SimulationController {
                     simulationStatusService.updateError(simulationId, "ACO", e.getMessage());
                     // This is now handled within AntColonyService.runOptimization, which always returns a SimulationResult
                 }
-            }, simulationExecutor); // Use the dedicated executor
+                recordLatency(simulationId, "ACO", catalog.size(), receivedAt);
+            };
+
+            CompletableFuture<Void> simulationFuture;
+            try {
+                simulationFuture = simulationScheduler.submit(simulationId, parsePriority(request.getPriority()), gaTask, antTask);
+            } catch (SimulationScheduler.SchedulerSaturatedException e) {
+                // Admission control: reject now rather than queue work that would wait too long
+                simulationStatusService.cleanupSimulation(simulationId);
+                simulationResultCache.abandon(simulationId);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                        .body(e.getMessage());
+            }
+
+            // Cache the result once both algorithms are done; failed, terminated or deadline-cut runs are not cached
+            leasedUpload = null; // The Python engines read the stored file until the simulation is done
+            simulationFuture.whenComplete((ignored, error) -> {
+                fileStorageService.release(upload);
+                SimulationStatus status = simulationStatusService.getStatus(simulationId);
+                if (status != null && (status.getOverallStatus() == SimulationState.COMPLETED
+                        || status.getOverallStatus() == SimulationState.INVISIBLE_SOLUTION)
+                        && !isPartial(status.getResult())) {
+                    simulationResultCache.complete(fingerprint, simulationId, status.getResult());
+                } else {
+                    simulationResultCache.abandon(simulationId);
+                }
+            });
 
             // Do NOT call .join() here. Return the simulation ID immediately.
             // The frontend will poll the status endpoint using this ID.
@@ -120,38 +234,174 @@ public class SimulationController {
             System.err.println("Simulation setup error for ID: " + simulationId + ": " + e.getMessage());
             e.printStackTrace();
             simulationStatusService.updateError(simulationId, "Setup", e.getMessage()); // Report setup errors too
+            simulationResultCache.abandon(simulationId);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error starting simulation: " + e.getMessage());
+        } finally {
+            if (leasedUpload != null) {
+                fileStorageService.release(leasedUpload);
+            }
         }
     }
 
     /**
-     * Calculate required shelf space from uploaded data file
-     * This is a simplified calculation - you may need to adjust based on your data format
+     * Runs a parameter sweep over one upload as a single job. The request's budgets, discount base and shelf space
+     * are the defaults of every point; {@code points} (a JSON list of objects with any of productionBudget,
+     * marketingBudget, logisticsBudget, discountBase and shelfSpace) or {@code grid} (a JSON object mapping those
+     * names to lists of values, combined in every way) sets them per point. Only the in-process engines run.
+     * @return The batch ID to poll with {@code /simulate/batch/{batchId}}, or 400 with the reason the sweep is invalid.
      */
-    private double calculateRequiredShelfSpace(Path filePath) {
+    @PostMapping({"/simulate/batch"})
+    public ResponseEntity<String> runBatch(@ModelAttribute SimulationRequest request,
+                                           @RequestParam(value = "points", required = false) String points,
+                                           @RequestParam(value = "grid", required = false) String grid) {
+        StoredUpload upload = null;
         try {
-            // Read the CSV file and calculate total shelf space required
-            // This is a basic implementation - adjust according to your CSV structure
-            java.util.List<String> lines = java.nio.file.Files.readAllLines(filePath);
-            double totalRequired = 0.0;
-            
-            // Skip header line if present
-            for (int i = 1; i < lines.size(); i++) {
-                String[] columns = lines.get(i).split(",");
-                if (columns.length > 8) { // Assuming shelf space is in column 9 (index 8)
-                    try {
-                        double shelfSpace = Double.parseDouble(columns[8].trim());
-                        totalRequired += shelfSpace;
-                    } catch (NumberFormatException e) {
-                        // Skip invalid entries
-                    }
-                }
+            int chromosomeBits = request.getChromosomeBits();
+            if (chromosomeBits < 10 || chromosomeBits > 100) {
+                return ResponseEntity.badRequest().body(String.format("Invalid chromosome bits: %d. Must be between 10 and 100", chromosomeBits));
+            }
+            String engineSettingsError = validateEngineSettings(request);
+            if (engineSettingsError != null) {
+                return ResponseEntity.badRequest().body(engineSettingsError);
             }
-            return totalRequired;
+            List<double[]> sweep = batchSweepService.resolvePoints(request, points, grid);
+
+            long storeStart = System.nanoTime();
+            upload = fileStorageService.storeFile(request.getFile());
+            long storeNanos = System.nanoTime() - storeStart;
+            ProductTable catalog = productTableCache.load(upload, request);
+            simulationMetrics.recordUpload(SimulationMetrics.catalogSize(catalog.size()), storeNanos);
+            String pointError = batchSweepService.validatePoints(sweep, catalog.getTotalShelfSpace());
+            if (pointError != null) {
+                return ResponseEntity.badRequest().body(pointError);
+            }
+            return ResponseEntity.ok(batchSweepService.submit(catalog, request, sweep, parsePriority(request.getPriority())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (SimulationScheduler.SchedulerSaturatedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
         } catch (Exception e) {
-            System.err.println("Error calculating required shelf space: " + e.getMessage());
-            return 0.0; // Return 0 if calculation fails (allows simulation to proceed)
+            System.err.println("Batch setup error: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error starting batch: " + e.getMessage());
+        } finally {
+            if (upload != null) {
+                fileStorageService.release(upload); // The sweep only uses the parsed table
+            }
+        }
+    }
+
+    @GetMapping("/simulate/batch/{batchId}")
+    public ResponseEntity<BatchSweepResult> getBatchResult(@PathVariable String batchId) {
+        BatchSweepResult result = batchSweepService.getResult(batchId);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/simulate/batch/terminate/{batchId}")
+    public ResponseEntity<String> terminateBatch(@PathVariable String batchId) {
+        if (batchSweepService.terminate(batchId)) {
+            return ResponseEntity.ok("Batch terminated successfully");
+        }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Batch not found or not running");
+    }
+
+    /**
+     * Validate the optional GA island-mode and ACO colony-mode settings.
+     * @return An error message, or null if the settings are valid
+     */
+    private String validateEngineSettings(SimulationRequest request) {
+        String gaMode = request.getGaMode();
+        if (gaMode != null && !gaMode.isEmpty() && !"STANDARD".equalsIgnoreCase(gaMode) && !"ISLAND".equalsIgnoreCase(gaMode)) {
+            return "Invalid GA mode: " + gaMode + ". Must be STANDARD or ISLAND";
+        }
+        if (request.getIslandCount() != null && (request.getIslandCount() < 1 || request.getIslandCount() > 64)) {
+            return String.format("Invalid island count: %d. Must be between 1 and 64", request.getIslandCount());
+        }
+        if (request.getMigrationInterval() != null && (request.getMigrationInterval() < 1 || request.getMigrationInterval() > 100)) {
+            return String.format("Invalid migration interval: %d. Must be between 1 and 100", request.getMigrationInterval());
+        }
+        String acoMode = request.getAcoMode();
+        if (acoMode != null && !acoMode.isEmpty() && !"SEQUENTIAL".equalsIgnoreCase(acoMode) && !"PARALLEL".equalsIgnoreCase(acoMode)) {
+            return "Invalid ACO mode: " + acoMode + ". Must be SEQUENTIAL or PARALLEL";
+        }
+        String topology = request.getMigrationTopology();
+        if (topology != null && !topology.isEmpty() && !"RING".equalsIgnoreCase(topology) && !"RANDOM".equalsIgnoreCase(topology)) {
+            return "Invalid migration topology: " + topology + ". Must be RING or RANDOM";
+        }
+        String repairPolicy = request.getRepairPolicy();
+        if (repairPolicy != null && !repairPolicy.isEmpty() && !"UNIT_DECREMENT".equalsIgnoreCase(repairPolicy) && !"GREEDY".equalsIgnoreCase(repairPolicy)) {
+            return "Invalid repair policy: " + repairPolicy + ". Must be UNIT_DECREMENT or GREEDY";
+        }
+        if (request.getDeadlineMillis() != null && request.getDeadlineMillis() < 1) {
+            return String.format("Invalid deadline: %d ms. Must be at least 1", request.getDeadlineMillis());
+        }
+        if (request.getOptimalityGap() != null && (request.getOptimalityGap() < 0 || request.getOptimalityGap() > 100)) {
+            return String.format("Invalid optimality gap: %.2f. Must be between 0 and 100", request.getOptimalityGap());
+        }
+        String priority = request.getPriority();
+        if (priority != null && !priority.isEmpty() && !"HIGH".equalsIgnoreCase(priority) && !"NORMAL".equalsIgnoreCase(priority) && !"LOW".equalsIgnoreCase(priority)) {
+            return "Invalid priority: " + priority + ". Must be HIGH, NORMAL or LOW";
+        }
+        return null;
+    }
+
+    /**
+     * @return Seconds an algorithm is expected to take before it reports any progress: 2 minutes, or less if the
+     * request's deadline comes sooner.
+     */
+    private static double initialEstimate(Long deadline) {
+        if (deadline == null) {
+            return 120.0;
+        }
+        return Math.min(120.0, Math.max(0L, deadline - System.nanoTime()) / 1e9);
+    }
+
+    private static SimulationScheduler.Priority parsePriority(String priority) {
+        return priority == null || priority.isEmpty()
+                ? SimulationScheduler.Priority.NORMAL
+                : SimulationScheduler.Priority.valueOf(priority.toUpperCase());
+    }
+
+    /**
+     * Records the time from receiving the request until an algorithm finished, by how it ended.
+     */
+    private void recordLatency(String simulationId, String algorithm, int products, long receivedAt) {
+        SimulationStatus status = simulationStatusService.getStatus(simulationId);
+        String outcome;
+        if (status == null || status.getOverallStatus() == SimulationState.TERMINATED) {
+            outcome = "terminated";
+        } else if ("GA".equals(algorithm) ? status.isGaHasError() : status.isAcoHasError()) {
+            outcome = "error";
+        } else {
+            outcome = "success";
+        }
+        simulationMetrics.recordEndToEnd(algorithm, products, outcome, System.nanoTime() - receivedAt);
+    }
+
+    /**
+     * The deadline counts from arrival, queueing included, so a plan it cut short depends on the server's load
+     * and is not a result to replay for identical requests.
+     */
+    private static boolean isPartial(CombinedSimulationResult result) {
+        return result != null && (isPartial(result.getGaResult()) || isPartial(result.getAntColonyResult())
+                || isPartial(result.getExactResult()));
+    }
+
+    private static boolean isPartial(SimulationResult result) {
+        return result != null && Boolean.TRUE.equals(result.getPartial());
+    }
+
+    /**
+     * A queued task is skipped if its simulation was terminated or cleaned up while it waited.
+     */
+    private boolean isStartable(String simulationId) {
+        SimulationStatus status = simulationStatusService.getStatus(simulationId);
+        return status != null && !status.getOverallStatus().isTerminal();
     }
 
     /**
@@ -168,6 +418,49 @@ public class SimulationController {
         }
     }
 
+    /**
+     * Stored simulations, newest first, optionally only those in one state. Finished simulations are kept for
+     * {@code fashionopt.store.retention-days}, also across restarts.
+     */
+    @GetMapping("/simulate/history")
+    public ResponseEntity<List<SimulationSummary>> getSimulationHistory(@RequestParam(value = "state", required = false) SimulationState state,
+                                                                        @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(simulationStatusService.getHistory(state, Math.max(1, Math.min(limit, 500))));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Server-Sent Events stream of a simulation's progress: "state" and "progress" deltas while it runs,
+     * then a single "complete" event carrying the full status and result.
+     */
+    @GetMapping(path = "/simulate/stream/{simulationId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSimulationStatus(@PathVariable String simulationId) {
+        SimulationStatus status = simulationStatusService.getStatus(simulationId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(simulationEventService.subscribe(status));
+    }
+
+    /**
+     * Hit/miss statistics of the parsed dataset cache.
+     */
+    @GetMapping("/cache/datasets")
+    public ResponseEntity<ProductTableCache.Stats> getDatasetCacheStats() {
+        return ResponseEntity.ok(productTableCache.getStats());
+    }
+
+    /**
+     * Hit, coalescing and miss statistics of the simulation result cache.
+     */
+    @GetMapping("/cache/results")
+    public ResponseEntity<SimulationResultCache.Stats> getResultCacheStats() {
+        return ResponseEntity.ok(simulationResultCache.getStats());
+    }
+
     @PostMapping("/simulate/cleanup/{simulationId}")
     public ResponseEntity<Void> cleanupSimulation(@PathVariable String simulationId) {
         simulationStatusService.cleanupSimulation(simulationId);
@@ -179,9 +472,15 @@ public class SimulationController {
      */
     @PostMapping("/simulate/terminate/{simulationId}")
     public ResponseEntity<String> terminateSimulation(@PathVariable String simulationId) {
-        boolean terminated = simulationStatusService.terminateSimulation(simulationId);
-        if (terminated) {
+        SimulationStatusService.Termination termination = simulationStatusService.terminateSimulation(simulationId);
+        if (termination == SimulationStatusService.Termination.TERMINATED) {
+            simulationScheduler.cancel(simulationId); // Drop any half that has not started yet
+            simulationResultCache.abandon(simulationId); // New identical submissions start a fresh run
+
             return ResponseEntity.ok("Simulation terminated successfully");
+        } else if (termination == SimulationStatusService.Termination.DETACHED) {
+            // Identical submissions were coalesced into this simulation, and another client still waits for it
+            return ResponseEntity.ok("Simulation terminated for this client; it keeps running for other clients");
         } else {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Simulation not found or not running");
         }
@@ -0,0 +1,25 @@
+package com.fashionopt.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Snapshot of a batch parameter sweep. Results are a matrix: one row per point, in submission order, with the
+ * point's parameters followed by what each engine reached and how long it took. Cells of points an engine has
+ * not finished yet are null.
+ */
+@Value
+@Builder(toBuilder = true)
+public class BatchSweepResult {
+    String batchId;
+    SimulationState status; // PENDING, RUNNING, COMPLETED, ERROR or TERMINATED
+    int totalPoints;
+    int gaCompletedPoints;
+    int acoCompletedPoints;
+    List<String> columns;
+    List<Double[]> rows;
+    Long elapsedMillis; // From submission until the sweep finished, or until now while it runs
+    String errorMessage;
+}
@@ -10,5 +10,6 @@ import java.util.List;
 public class CombinedSimulationResult {
     private SimulationResult gaResult;
     private SimulationResult antColonyResult;
+    private SimulationResult exactResult; // Branch-and-bound reference for small catalogs, null when not run
 
 }
@@ -25,4 +25,33 @@ public class SimulationRequest {
     private String colStock;
     private String colShelf;
     private String colDemand;
+
+    // GA mode: "STANDARD" (single population, default) or "ISLAND" (parallel sub-populations)
+    private String gaMode;
+    private Integer islandCount; // Defaults to the number of available cores
+    private Integer migrationInterval; // Generations between elite exchanges
+    private String migrationTopology; // "RING" (default) or "RANDOM"
+
+    // ACO mode: "SEQUENTIAL" (default) or "PARALLEL" (ants built concurrently)
+    private String acoMode;
+
+    // Repair policy for both in-process engines: "UNIT_DECREMENT" or "GREEDY". When unset, GA repairs one
+    // unit at a time and ACO discards infeasible ants, as the Python scripts do
+    private String repairPolicy;
+
+    // Engines stop once their best plan is within this percentage (0-100) of the LP upper bound.
+    // Defaults to fashionopt.engine.optimality-gap-percent
+    private Double optimalityGap;
+
+    // Wall-clock budget in milliseconds from submission; engines then return their best plan so far as partial
+    private Long deadlineMillis;
+
+    // Random seed for the in-process engines; the same seed reproduces the same result
+    private Long seed;
+
+    // Earlier simulation whose retained GA plan and ACO pheromone the in-process engines start from
+    private String baseSimulationId;
+
+    // Scheduling priority: "HIGH", "NORMAL" (default) or "LOW"
+    private String priority;
 }
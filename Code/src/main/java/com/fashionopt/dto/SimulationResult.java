@@ -12,4 +12,8 @@ public class SimulationResult {
     private double totalProfit;
     private int productCount;
     private List<ProductResult> products;
+    private Boolean optimal; // True once the exact solver has proved no better plan exists; null for the metaheuristics
+    private Double upperBound; // LP relaxation bound on the penalised profit the engines maximise
+    private Double optimalityGap; // Percentage between this plan's penalised profit and upperBound
+    private Boolean partial; // True if the request's deadline stopped the engine and this is its best plan so far
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.fashionopt.dto;
+
+/**
+ * Lifecycle of a simulation. A simulation starts PENDING, becomes RUNNING once an algorithm reports progress,
+ * and ends in exactly one terminal state, which never changes again.
+ */
+public enum SimulationState {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    INVISIBLE_SOLUTION, // Finished, but an algorithm returned zero or negative profit
+    ERROR,
+    TERMINATED,
+    SHELF_SPACE_ERROR,
+    VALIDATION_ERROR;
+
+    public boolean isTerminal() {
+        return this != PENDING && this != RUNNING;
+    }
+
+    /**
+     * @return Whether a simulation in this state may move to {@code next}. Staying in a non-terminal state is
+     * allowed, so progress updates pass through; request validation only fails before anything has started.
+     */
+    public boolean canTransitionTo(SimulationState next) {
+        return switch (this) {
+            case PENDING -> true;
+            case RUNNING -> next != PENDING && next != SHELF_SPACE_ERROR && next != VALIDATION_ERROR;
+            default -> false;
+        };
+    }
+}
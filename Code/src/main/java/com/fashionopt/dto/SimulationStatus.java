@@ -1,25 +1,37 @@
 package com.fashionopt.dto;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Builder;
+import lombok.Value;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * Immutable snapshot of a simulation. {@code SimulationStatusService} replaces the snapshot on every change,
+ * so readers never see a half-applied update.
+ */
+@Value
+@Builder(toBuilder = true)
 public class SimulationStatus {
-    private String simulationId;
-    private String overallStatus; // PENDING, RUNNING, COMPLETED, ERROR
-    private Double gaProgress; // Percentage 0-100
-    private Double gaEstimatedTimeRemaining; // Seconds
-    private Double acoProgress; // Percentage 0-100
-    private Double acoEstimatedTimeRemaining; // Seconds
-    private CombinedSimulationResult result; // Final results, null until COMPLETED
-    private String errorMessage; // Stores error message if status is ERROR
+    String simulationId;
+    SimulationState overallStatus;
+    Double gaProgress; // Percentage 0-100
+    Double gaEstimatedTimeRemaining; // Seconds
+    Double acoProgress; // Percentage 0-100
+    Double acoEstimatedTimeRemaining; // Seconds
+    CombinedSimulationResult result; // Final results, null until an algorithm finishes
+    SimulationResult gaIncumbent; // Best GA plan so far while the GA runs
+    SimulationResult acoIncumbent; // Best ACO plan so far while the ACO runs
+    String errorMessage; // Stores error message if status is ERROR
 
-    // New fields to track individual algorithm completion and error status
-    private boolean gaFinished;
-    private boolean acoFinished;
-    private boolean gaHasError;
-    private boolean acoHasError;
+    // Track individual algorithm completion and error status
+    boolean gaFinished;
+    boolean acoFinished;
+    boolean gaHasError;
+    boolean acoHasError;
+
+    Integer queuePosition; // 1-based place in the scheduler queue while PENDING, null once running
+
+    @JsonIgnore
+    long version; // Incremented on every change, so stale snapshots can be recognised
+    @JsonIgnore
+    long updatedAt; // Time of the last change in epoch milliseconds
 }
@@ -0,0 +1,19 @@
+package com.fashionopt.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * One stored simulation as listed by {@code GET /api/simulate/history}: its outcome without the product plans.
+ */
+@Value
+@Builder
+public class SimulationSummary {
+    String simulationId;
+    SimulationState overallStatus;
+    long updatedAt; // Time of the last change in epoch milliseconds
+    Double gaProfit; // Null if the GA has no result
+    Double acoProfit; // Null if the ACO has no result
+    Double exactProfit; // Null if the exact solver did not run
+    String errorMessage;
+}
@@ -0,0 +1,18 @@
+package com.fashionopt.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One point of a batch parameter sweep. Unset values are taken from the batch's base request.
+ */
+@lombok.Data
+@Getter
+@Setter
+public class SweepPoint {
+    private Double productionBudget;
+    private Double marketingBudget;
+    private Double logisticsBudget;
+    private Double discountBase;
+    private Double shelfSpace;
+}
@@ -0,0 +1,397 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * In-process port of ant_colony_optimization in ant.py. Every product i may take a quantity in
+ * 0..maxQuantity[i]; pheromone and heuristic values for all products live in flat {@code double[]} tables,
+ * with product i occupying the slice starting at {@code offsets[i]}, so a quantity is its own table index.
+ * <p>
+ * Every ant draws from its own generator, split from the engine's generator in ant order, so a seeded run
+ * produces the same colony whether the ants are built one after another or spread over a {@link ForkJoinPool}.
+ * <p>
+ * Once a valid solution exists, a passed {@link StoppingRule} deadline stops the colony between ants, and the
+ * best solution so far is returned as a partial result.
+ * <p>
+ * A {@link WarmStart} from an earlier run biases the initial pheromone towards the quantities that run reinforced
+ * most, without ruling any quantity out. Such a colony starts close to the earlier result, so improvements
+ * below STALL_TOLERANCE do not count against early stopping and it stops after fewer idle iterations.
+ */
+public class AntColonyEngine implements OptimizationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AntColonyEngine.class);
+
+    // ACO Configuration (same values as ant.py)
+    static final double ALPHA = 5.0;
+    static final double BETA = 10.0;
+    static final double EVAPORATION_RATE = 0.3;
+    static final int ANTS = 100;
+    static final int ITERATIONS = 10;
+    static final double PHEROMONE_COEFFICIENT = 0.5;
+    static final int MAX_NO_IMPROVEMENT = 5;
+
+    // Initial pheromone added to each product's most reinforced quantity of a warm start, scaled down for the others
+    static final double WARM_START_WEIGHT = 1.0;
+    static final int WARM_START_MAX_NO_IMPROVEMENT = 2;
+    static final double STALL_TOLERANCE = 1e-3;
+
+    private final SplittableRandom random;
+    private final ForkJoinPool pool; // null builds the ants on the calling thread
+    private final RepairPolicy repairPolicy;
+    private final StoppingRule stoppingRule;
+    private final WarmStart warmStart;
+    private volatile long completedIterations;
+    private volatile long evaluations;
+    private volatile boolean partial;
+    private volatile WarmStart finalState;
+
+    public AntColonyEngine() {
+        this(new SplittableRandom(), null);
+    }
+
+    public AntColonyEngine(SplittableRandom random, ForkJoinPool pool) {
+        this(random, pool, RepairPolicy.NONE);
+    }
+
+    /**
+     * @param repairPolicy NONE discards ants that break a constraint, as ant.py does; any other policy repairs
+     *                     them so they still count towards the iteration best.
+     */
+    public AntColonyEngine(SplittableRandom random, ForkJoinPool pool, RepairPolicy repairPolicy) {
+        this(random, pool, repairPolicy, StoppingRule.NONE);
+    }
+
+    /**
+     * @param stoppingRule Ends the run once the best valid ant is close enough to the LP bound.
+     */
+    public AntColonyEngine(SplittableRandom random, ForkJoinPool pool, RepairPolicy repairPolicy,
+                           StoppingRule stoppingRule) {
+        this(random, pool, repairPolicy, stoppingRule, null);
+    }
+
+    /**
+     * @param warmStart State of an earlier run to take the initial pheromone from, or null for uniform pheromone.
+     */
+    public AntColonyEngine(SplittableRandom random, ForkJoinPool pool, RepairPolicy repairPolicy,
+                           StoppingRule stoppingRule, WarmStart warmStart) {
+        this.random = random;
+        this.pool = pool;
+        this.repairPolicy = repairPolicy;
+        this.stoppingRule = stoppingRule;
+        this.warmStart = warmStart;
+    }
+
+    @Override
+    public String getAlgorithmType() {
+        return "ACO";
+    }
+
+    /**
+     * @return The final pheromone table of the last run, for a later run to start from, or null before the first
+     * run ends.
+     */
+    public WarmStart getFinalState() {
+        return finalState;
+    }
+
+    @Override
+    public long getCompletedIterations() {
+        return completedIterations;
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    @Override
+    public SimulationResult optimize(OptimizationProblem problem, ProgressListener progressListener,
+                                     CancellationToken cancellation) {
+        completedIterations = 0;
+        evaluations = 0;
+        partial = false;
+        finalState = null;
+        int n = problem.size();
+        double[] netProfit = problem.getNetProfit();
+        int[] maxQuantity = problem.getMaxQuantity();
+
+        // Products that cannot make a profit, or have no demand left, are pinned to a quantity of 0
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int domainSize = netProfit[i] <= 0 || maxQuantity[i] <= 0 ? 1 : maxQuantity[i] + 1;
+            offsets[i + 1] = offsets[i] + domainSize;
+        }
+        int tableSize = offsets[n];
+        double[] pheromone = new double[tableSize];
+        double[] heuristic = new double[tableSize]; // eta^beta, fixed for the whole run
+        double[] cumulative = new double[tableSize];
+        double[][] seed = warmStart != null ? warmStart.seedPheromone(problem) : null;
+
+        for (int i = 0; i < n; i++) {
+            int start = offsets[i];
+            int domainSize = offsets[i + 1] - start;
+            if (domainSize == 1) {
+                pheromone[start] = 1.0;
+                heuristic[start] = 1.0;
+                continue;
+            }
+            // h(x) = net profit of x units (1e-6 for x = 0), normalised by its maximum
+            double hMax = Math.max(1e-6, netProfit[i] * (domainSize - 1));
+            for (int x = 0; x < domainSize; x++) {
+                double h = x == 0 ? 1e-6 : netProfit[i] * x;
+                heuristic[start + x] = Math.pow(h / hMax, BETA);
+                pheromone[start + x] = 0.9 + 0.2 * random.nextDouble();
+            }
+            if (seed != null && seed[i] != null) {
+                double seedMax = 0.0;
+                for (double p : seed[i]) {
+                    seedMax = Math.max(seedMax, p);
+                }
+                // Quantities beyond the earlier run's cap, if pre-solve now allows more, get no extra pheromone
+                for (int x = 0; seedMax > 0 && x < Math.min(domainSize, seed[i].length); x++) {
+                    pheromone[start + x] += WARM_START_WEIGHT * seed[i][x] / seedMax;
+                }
+            }
+        }
+
+        // Pinned products keep their quantity of 0 under repair: both operators only raise profitable products
+        RepairOperator repair = RepairOperator.forPolicy(repairPolicy, problem, maxQuantity, cancellation);
+
+        int[] best = null;
+        double bestProfit = Double.NEGATIVE_INFINITY;
+        int noImprovementCount = 0;
+        int workers = pool == null ? 1 : Math.max(1, Math.min(ANTS, pool.getParallelism()));
+        long startTime = System.nanoTime();
+
+        for (int it = 0; it < ITERATIONS; it++) {
+            cancellation.throwIfCancelled();
+            // Pheromone only changes between iterations, so selection weights are accumulated once per
+            // iteration and each ant picks its quantity with a binary search instead of a full scan
+            for (int i = 0; i < n; i++) {
+                double sum = 0.0;
+                for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                    sum += Math.pow(pheromone[k], ALPHA) * heuristic[k];
+                    cumulative[k] = sum;
+                }
+            }
+
+            SplittableRandom[] antRandoms = new SplittableRandom[ANTS];
+            for (int a = 0; a < ANTS; a++) {
+                antRandoms[a] = random.split();
+            }
+
+            // Each worker keeps the best of its own ants; the workers' bests are then reduced in ant order,
+            // so ties always go to the lowest ant index regardless of how the ants were split up
+            // Each batch waits for its first valid solution unless an earlier iteration found one; after that the
+            // deadline may cut the iteration short
+            boolean mayStop = best != null;
+            List<Callable<AntBatch>> batches = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                int from = w * ANTS / workers;
+                int to = (w + 1) * ANTS / workers;
+                batches.add(() -> buildAnts(problem, offsets, cumulative, repair, antRandoms, from, to, mayStop, cancellation));
+            }
+            AntBatch iterationBest = null;
+            int built = 0;
+            for (AntBatch batch : runBatches(batches)) {
+                built += batch.built;
+                if (batch.solution != null && (iterationBest == null || batch.profit > iterationBest.profit)) {
+                    iterationBest = batch;
+                }
+            }
+            double iterationBestProfit = iterationBest == null ? Double.NEGATIVE_INFINITY : iterationBest.profit;
+            completedIterations = it + 1;
+            evaluations += built;
+
+            // Evaporation
+            for (int k = 0; k < tableSize; k++) {
+                pheromone[k] *= 1 - EVAPORATION_RATE;
+            }
+            // Deposit on the iteration-best solution (valid solutions have no violation to divide by)
+            if (iterationBest != null) {
+                double deposit = PHEROMONE_COEFFICIENT * iterationBestProfit;
+                for (int i = 0; i < n; i++) {
+                    pheromone[offsets[i] + iterationBest.solution[i]] += deposit;
+                }
+            }
+
+            if (iterationBestProfit > bestProfit) {
+                boolean significant = seed == null || best == null
+                        || iterationBestProfit > bestProfit + Math.abs(bestProfit) * STALL_TOLERANCE;
+                bestProfit = iterationBestProfit;
+                best = iterationBest.solution;
+                noImprovementCount = significant ? 0 : noImprovementCount + 1;
+                progressListener.onIncumbent(bestProfit, best);
+            } else {
+                noImprovementCount++;
+            }
+            logger.debug("ACO iteration " + (it + 1) + "/" + ITERATIONS + ", best penalized profit = " + iterationBestProfit);
+
+            double elapsed = (System.nanoTime() - startTime) / 1e9;
+            progressListener.onProgress((it + 1) * 100.0 / ITERATIONS,
+                    stoppingRule.capEstimate(elapsed / (it + 1) * (ITERATIONS - it - 1)));
+
+            if (best != null && stoppingRule.isSatisfied(bestProfit)) {
+                logger.debug("ACO reached the optimality gap at iteration " + (it + 1));
+                break;
+            }
+            if (built < ANTS || (it < ITERATIONS - 1 && stoppingRule.isPastDeadline())) {
+                logger.debug("ACO deadline passed at iteration " + (it + 1) + " after " + built + " ants");
+                partial = true;
+                break;
+            }
+            if (noImprovementCount >= (seed == null ? MAX_NO_IMPROVEMENT : WARM_START_MAX_NO_IMPROVEMENT)) {
+                logger.debug("ACO early stopping at iteration " + (it + 1) + ", no improvement in " + noImprovementCount + " iterations");
+                break;
+            }
+        }
+        progressListener.onProgress(100.0, 0.0);
+
+        double[][] finalPheromone = new double[n][];
+        for (int i = 0; i < n; i++) {
+            if (offsets[i + 1] - offsets[i] > 1) {
+                finalPheromone[i] = Arrays.copyOfRange(pheromone, offsets[i], offsets[i + 1]);
+            }
+        }
+        finalState = WarmStart.ofPheromone(problem, finalPheromone);
+
+        if (best == null) {
+            logger.warn("No valid solution found during ACO optimization.");
+            SimulationResult empty = new SimulationResult();
+            empty.setTotalProfit(0.0);
+            empty.setProducts(new ArrayList<>());
+            if (partial) {
+                empty.setPartial(true);
+            }
+            return empty;
+        }
+        SimulationResult result = problem.toResult(best);
+        if (partial) {
+            result.setPartial(true);
+        }
+        return result;
+    }
+
+    /**
+     * Builds ants {@code from} (inclusive) to {@code to} (exclusive) and keeps the best valid solution.
+     * @param repair Applied to every ant before it is checked, or null to discard the invalid ones.
+     * @param mayStop Whether a passed deadline stops the batch before all its ants are built, even if none of them
+     *                was valid yet.
+     * @param cancellation Checked before every ant, since one ant over a large catalog already takes a while.
+     */
+    private AntBatch buildAnts(OptimizationProblem problem, int[] offsets, double[] cumulative, RepairOperator repair,
+                               SplittableRandom[] antRandoms, int from, int to, boolean mayStop,
+                               CancellationToken cancellation) {
+        AntBatch batch = new AntBatch();
+        SolutionState solution = new SolutionState(problem, problem.getShelfCapacity());
+        for (int a = from; a < to; a++) {
+            cancellation.throwIfCancelled();
+            if ((mayStop || batch.solution != null) && stoppingRule.isPastDeadline()) {
+                break;
+            }
+            batch.built++;
+            constructSolution(offsets, cumulative, solution, antRandoms[a]);
+            if (repair != null) {
+                repair.repair(solution, i -> { });
+            }
+            if (solution.isFeasible()) {
+                double profit = solution.getObjective();
+                if (batch.solution == null || profit > batch.profit) {
+                    batch.profit = profit;
+                    batch.solution = solution.quantities().clone();
+                }
+            }
+        }
+        return batch;
+    }
+
+    private List<AntBatch> runBatches(List<Callable<AntBatch>> batches) {
+        List<AntBatch> results = new ArrayList<>(batches.size());
+        try {
+            if (pool == null) {
+                for (Callable<AntBatch> batch : batches) {
+                    results.add(batch.call());
+                }
+            } else {
+                for (Future<AntBatch> future : pool.invokeAll(batches)) {
+                    results.add(future.get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ACO ant construction was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            throw new IllegalStateException("ACO ant construction failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("ACO ant construction failed: " + e.getMessage(), e);
+        }
+        return results;
+    }
+
+    /**
+     * Builds one ant's solution by roulette-wheel selection over the cumulative weights. The state keeps the
+     * costs and shelf use up to date, so the caller checks the constraints of ant.py without another pass.
+     */
+    private static void constructSolution(int[] offsets, double[] cumulative, SolutionState solution,
+                                          SplittableRandom random) {
+        for (int i = 0; i < solution.size(); i++) {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            int quantity;
+            if (end - start == 1) {
+                quantity = 0;
+            } else {
+                double total = cumulative[end - 1];
+                if (total > 0 && Double.isFinite(total)) {
+                    quantity = upperBound(cumulative, start, end - 1, random.nextDouble() * total) - start;
+                } else {
+                    quantity = random.nextInt(end - start); // Fall back to a uniform distribution
+                }
+            }
+            solution.set(i, quantity);
+        }
+    }
+
+    /**
+     * Best valid solution found by one worker's share of the colony; solution is null if none was valid.
+     */
+    private static final class AntBatch {
+        double profit = Double.NEGATIVE_INFINITY;
+        int[] solution;
+        int built; // Ants built before the batch finished or the deadline passed
+    }
+
+    /**
+     * @return The first index in [from, last] whose cumulative weight is greater than target.
+     */
+    private static int upperBound(double[] cumulative, int from, int last, double target) {
+        int lo = from;
+        int hi = last;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] > target) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+}
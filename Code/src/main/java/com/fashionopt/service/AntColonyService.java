@@ -4,21 +4,21 @@ import com.fashionopt.dto.ProductResult;
 import com.fashionopt.dto.SimulationResult;
 import com.fashionopt.dto.SimulationRequest;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.File;
+import jakarta.annotation.PreDestroy;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 public class AntColonyService {
@@ -28,169 +28,221 @@ public class AntColonyService {
     @Autowired
     private SimulationStatusService simulationStatusService;
 
-    // Pattern to parse progress messages from Python scripts
-    private static final Pattern PROGRESS_PATTERN = Pattern.compile("\\[PROGRESS\\] ACO: (\\d+\\.?\\d*)% completed, estimated (\\d+\\.?\\d*)s remaining");
-
-    public SimulationResult runOptimization(String simulationId, Path filePath, SimulationRequest request) throws IOException, InterruptedException {
-        String scriptDir = System.getProperty("user.dir"); // Use current working directory instead of hardcoded path
-
-        // Try different Python executable names in order of preference
-        String[] pythonCommands = {"python3.11", "python3", "python"};
-        String pythonExecutable = null;
-        
-        // Find the first available Python executable
-        for (String cmd : pythonCommands) {
-            try {
-                ProcessBuilder testPb = new ProcessBuilder(cmd, "--version");
-                Process testProcess = testPb.start();
-                int exitCode = testProcess.waitFor();
-                if (exitCode == 0) {
-                    pythonExecutable = cmd;
-                    logger.info("Found Python executable: " + cmd);
-                    break;
-                }
-            } catch (Exception e) {
-                // Continue to next command
-                logger.debug("Python command '" + cmd + "' not found: " + e.getMessage());
-            }
+    @Autowired
+    private PythonWorkerPool pythonWorkerPool;
+
+    @Autowired
+    private SimulationMetrics simulationMetrics;
+
+    @Autowired
+    private EngineStateStore engineStateStore;
+
+    @Autowired
+    private ClusterCoordinator clusterCoordinator;
+
+    // "java" runs the in-process engine, "python" sends jobs to the Python worker pool running ant.py
+    @Value("${fashionopt.engine.aco:java}")
+    private String engineMode;
+
+    // Default optimality gap in percent; the request's optimalityGap overrides it
+    @Value("${fashionopt.engine.optimality-gap-percent:1.0}")
+    private double defaultGapPercent;
+
+    // Parallel-mode ants are built on this pool, sized to the available cores
+    private final ForkJoinPool colonyPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    @PreDestroy
+    public void shutdown() {
+        colonyPool.shutdownNow();
+    }
+
+    /**
+     * @param problem The uploaded file already parsed by {@link ProductDataLoader} and combined with the request's
+     *                budgets; the Python engine reads {@code filePath} itself and only uses the problem's LP bound.
+     * @param deadline {@link System#nanoTime()} value by which the engine returns its best plan so far, or null.
+     */
+    public SimulationResult runOptimization(String simulationId, Path filePath, OptimizationProblem problem, SimulationRequest request,
+                                            Long deadline) throws IOException, InterruptedException {
+        StoppingRule stoppingRule = stoppingRule(problem, request, deadline);
+        if ("python".equalsIgnoreCase(engineMode)) {
+            return runPythonOptimization(simulationId, filePath, problem, request, stoppingRule);
         }
-        
-        if (pythonExecutable == null) {
-            String errorMsg = "No Python executable found. Please install Python and ensure it's in your system PATH. Tried: " + String.join(", ", pythonCommands);
-            simulationStatusService.updateError(simulationId, "ACO", errorMsg);
-            SimulationResult errorResult = new SimulationResult();
-            errorResult.setTotalProfit(0.0);
-            errorResult.setProducts(new ArrayList<>());
-            simulationStatusService.updateResult(simulationId, "ACO", errorResult);
-            return errorResult;
+        if (clusterCoordinator.isCoordinator()) {
+            return runRemoteOptimization(simulationId, problem, request, stoppingRule);
         }
+        return runNativeOptimization(simulationId, problem, request, stoppingRule);
+    }
 
-        ProcessBuilder pb = new ProcessBuilder(new String[]{
-                pythonExecutable,
-                scriptDir + File.separator + "ant.py", // Use File.separator for cross-platform compatibility
-                filePath.toString(),
-                "--bp", String.valueOf(request.getProductionBudget()),
-                "--bm", String.valueOf(request.getMarketingBudget()),
-                "--bl", String.valueOf(request.getLogisticsBudget()),
-                "--s_max", String.valueOf(request.getShelfSpace()),
-                "--d_base", String.valueOf(request.getDiscountBase()),
-                "--col_name", request.getColName(),
-                "--col_price", request.getColPrice(),
-                "--col_cp", request.getColCp(),
-                "--col_cm", request.getColCm(),
-                "--col_cl", request.getColCl(),
-                "--col_shelf_cost", request.getColShelfCost(),
-                "--col_age", request.getColAge(),
-                "--col_stock", request.getColStock(),
-                "--col_shelf", request.getColShelf(),
-                "--col_demand", request.getColDemand()
-        });
-
-        pb.directory(new File(scriptDir));
-        pb.redirectErrorStream(true);
-        logger.info("Preparing to execute Ant Colony script with command: " + String.join(" ", pb.command()));
-
-        Process process = pb.start();
-        logger.info("Ant Colony process started successfully. Waiting for output...");
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        StringBuilder rawOutput = new StringBuilder();
-        String line;
-        String jsonOutput = ""; // To store the extracted JSON
-        long startTime = System.currentTimeMillis();
-        int progressCount = 0;
-
-        while((line = reader.readLine()) != null) {
-            if (rawOutput.length() < 1024 * 1024) { // Limit raw output to 1MB
-                rawOutput.append(line).append("\n");
-            }
-            logger.debug("Python output: " + line); // Log each line for debugging
-
-            // Check for progress messages
-            Matcher matcher = PROGRESS_PATTERN.matcher(line);
-            if (matcher.find()) {
-                try {
-                    double progress = Double.parseDouble(matcher.group(1));
-                    double estimatedTime = Double.parseDouble(matcher.group(2));
-                    simulationStatusService.updateProgress(simulationId, "ACO", progress, estimatedTime);
-                    progressCount++;
-                } catch (NumberFormatException e) {
-                    logger.error("Error parsing ACO progress line: " + line, e);
-                }
-            } else if (line.trim().startsWith("{") && line.trim().endsWith("}")) {
-                // Heuristic: if a line looks like a complete JSON object, capture it as the final result
-                jsonOutput = line;
-            } else if (line.contains("Error:") || line.contains("Exception:") || line.contains("Traceback")) {
-                // Capture error messages from Python script
-                logger.error("Python ACO script error: " + line);
-            }
+    private SimulationResult runNativeOptimization(String simulationId, OptimizationProblem problem, SimulationRequest request,
+                                                   StoppingRule stoppingRule) {
+        SimulationResult finalResult;
+        CancellationToken cancellation = simulationStatusService.getCancellationToken(simulationId);
+        try {
+            AntColonyEngine engine = createEngine(request, stoppingRule, warmStart(simulationId, request));
+            logger.info("Running in-process Ant Colony for simulation " + simulationId + " over " + problem.size() + " products");
+            ProgressListener progressListener = simulationMetrics.timeToFirstProgress("ACO", problem.getCatalog().size(),
+                    simulationStatusService.progressListener(simulationId, "ACO", problem, shelfLimit(problem)));
+            long startTime = System.nanoTime();
+            finalResult = problem.withBound(engine.optimize(problem, progressListener, cancellation), shelfLimit(problem));
+            simulationMetrics.recordEngineRun(engine, problem.getCatalog().size(), System.nanoTime() - startTime);
+            engineStateStore.record(simulationId, engine.getFinalState());
+        } catch (CancellationException e) {
+            logger.info("In-process Ant Colony for simulation " + simulationId + " stopped after it was terminated");
+            return emptyResult();
+        } catch (IllegalArgumentException e) {
+            simulationStatusService.updateError(simulationId, "ACO", e.getMessage());
+            finalResult = new SimulationResult();
+            finalResult.setTotalProfit(0.0);
+            finalResult.setProducts(new ArrayList<>());
+        }
 
-            // Provide time estimates based on progress if no explicit progress messages
-            if (progressCount == 0) {
-                long elapsed = System.currentTimeMillis() - startTime;
-                if (elapsed > 5000) { // After 5 seconds, start providing estimates
-                    double estimatedProgress = Math.min(50.0, (elapsed / 1000.0) / 2.0); // Rough estimate
-                    double estimatedRemaining = Math.max(30.0, 120.0 - (elapsed / 1000.0));
-                    simulationStatusService.updateProgress(simulationId, "ACO", estimatedProgress, estimatedRemaining);
-                }
-            }
+        // Always update the result for ACO, even if it's an empty/error one.
+        simulationStatusService.updateResult(simulationId, "ACO", finalResult);
+        return finalResult;
+    }
+
+    /**
+     * Sends the run to a cluster worker and records its result, progress and final state as if it ran here.
+     */
+    private SimulationResult runRemoteOptimization(String simulationId, OptimizationProblem problem, SimulationRequest request,
+                                                   StoppingRule stoppingRule) throws InterruptedException {
+        SimulationResult finalResult;
+        try {
+            ProgressListener progressListener = simulationMetrics.timeToFirstProgress("ACO", problem.getCatalog().size(),
+                    simulationStatusService.progressListener(simulationId, "ACO", problem, shelfLimit(problem)));
+            EngineRun run = clusterCoordinator.execute(simulationId, "ACO", problem, request, stoppingRule,
+                    warmStart(simulationId, request), progressListener, simulationStatusService.getCancellationToken(simulationId));
+            finalResult = problem.withBound(run.result(), shelfLimit(problem));
+            engineStateStore.record(simulationId, run.finalState());
+        } catch (CancellationException e) {
+            logger.info("Remote Ant Colony job for simulation " + simulationId + " was dropped after it was terminated");
+            return emptyResult();
+        } catch (IOException e) {
+            simulationStatusService.updateError(simulationId, "ACO", "Remote ACO job failed. " + e.getMessage());
+            finalResult = emptyResult();
         }
 
-        int exitCode = process.waitFor();
-        logger.info("Ant Colony process completed with exit code: " + exitCode);
-        logger.debug("Full Python script raw output: \n" + rawOutput.toString());
+        // Always update the result for ACO, even if it's an empty/error one.
+        simulationStatusService.updateResult(simulationId, "ACO", finalResult);
+        return finalResult;
+    }
+
+    /**
+     * Runs the in-process Ant Colony on one point of a parameter sweep, whatever the configured engine mode. No simulation
+     * status is involved; the request only supplies the engine settings, and its deadline applies to this run.
+     * @param warmStart Final state of an earlier run to start from, or null.
+     */
+    public EngineRun runSweepPoint(OptimizationProblem problem, SimulationRequest request, WarmStart warmStart,
+                                   CancellationToken cancellation) {
+        Long deadline = request.getDeadlineMillis() != null ? System.nanoTime() + request.getDeadlineMillis() * 1_000_000 : null;
+        EngineRun run = runInProcess(problem, request, stoppingRule(problem, request, deadline), warmStart,
+                ProgressListener.NONE, cancellation);
+        problem.withBound(run.result(), shelfLimit(problem));
+        return run;
+    }
+
+    /**
+     * Runs the in-process Ant Colony with the given stopping rule, whatever the configured engine mode, e.g. for a job a
+     * cluster worker took from the coordinator. The result carries no LP bound.
+     */
+    public EngineRun runInProcess(OptimizationProblem problem, SimulationRequest request, StoppingRule stoppingRule,
+                                  WarmStart warmStart, ProgressListener progressListener, CancellationToken cancellation) {
+        AntColonyEngine engine = createEngine(request, stoppingRule, warmStart);
+        long startTime = System.nanoTime();
+        SimulationResult result = engine.optimize(problem, progressListener, cancellation);
+        long elapsed = System.nanoTime() - startTime;
+        simulationMetrics.recordEngineRun(engine, problem.getCatalog().size(), elapsed);
+        return new EngineRun(result, engine.getFinalState(), elapsed);
+    }
 
+    /**
+     * Stops the colony once its best valid ant is within the requested optimality gap of the LP bound, or at the
+     * deadline. Like the GA's, the bound only gets a share of the time left.
+     */
+    private StoppingRule stoppingRule(OptimizationProblem problem, SimulationRequest request, Long deadline) {
+        double gapPercent = request.getOptimalityGap() != null ? request.getOptimalityGap() : defaultGapPercent;
+        double bound = problem.getUpperBound(shelfLimit(problem), StoppingRule.boundDeadline(deadline));
+        return StoppingRule.withinGap(bound, gapPercent).withDeadline(deadline);
+    }
+
+    private static double shelfLimit(OptimizationProblem problem) {
+        return problem.getShelfCapacity(); // ant.py only counts the new quantities against the shelf capacity
+    }
+
+    /**
+     * @return The retained state of the request's base simulation, or null to start from scratch.
+     */
+    private WarmStart warmStart(String simulationId, SimulationRequest request) {
+        if (request.getBaseSimulationId() == null || request.getBaseSimulationId().isEmpty()) {
+            return null;
+        }
+        WarmStart warmStart = engineStateStore.get(request.getBaseSimulationId());
+        if (warmStart == null) {
+            logger.info("No engine state retained for base simulation " + request.getBaseSimulationId()
+                    + ", starting Ant Colony for simulation " + simulationId + " from scratch");
+        } else {
+            logger.info("Warm-starting Ant Colony for simulation " + simulationId + " from " + request.getBaseSimulationId());
+        }
+        return warmStart;
+    }
+
+    private AntColonyEngine createEngine(SimulationRequest request, StoppingRule stoppingRule, WarmStart warmStart) {
+        SplittableRandom random = request.getSeed() != null ? new SplittableRandom(request.getSeed()) : new SplittableRandom();
+        ForkJoinPool pool = "PARALLEL".equalsIgnoreCase(request.getAcoMode()) ? colonyPool : null;
+        RepairPolicy repairPolicy = request.getRepairPolicy() != null && !request.getRepairPolicy().isEmpty()
+                ? RepairPolicy.valueOf(request.getRepairPolicy().toUpperCase())
+                : RepairPolicy.NONE;
+        return new AntColonyEngine(random, pool, repairPolicy, stoppingRule, warmStart);
+    }
+
+    private SimulationResult runPythonOptimization(String simulationId, Path filePath, OptimizationProblem problem, SimulationRequest request,
+                                                   StoppingRule stoppingRule) throws InterruptedException {
         SimulationResult finalResult = new SimulationResult(); // Initialize a result object
+        try {
+            JsonNode root = pythonWorkerPool.execute(simulationId, "ACO", filePath, request, stoppingRule,
+                    simulationMetrics.timeToFirstProgress("ACO", problem.getCatalog().size(), (progress, estimatedTime) ->
+                            simulationStatusService.updateProgress(simulationId, "ACO", progress, estimatedTime)),
+                    simulationStatusService.getCancellationToken(simulationId));
+            logger.info("Ant Colony job completed on Python worker for simulation " + simulationId);
 
-        if (exitCode == 0 && !jsonOutput.isEmpty()) {
-            ObjectMapper mapper = new ObjectMapper();
-            try {
-                JsonNode root = mapper.readTree(jsonOutput);
-
-                if (root.has("error")) {
-                    String errorMsg = root.get("error").asText();
-                    simulationStatusService.updateError(simulationId, "ACO", errorMsg);
-                    // Return an empty or error-flagged SimulationResult if the Python script itself returned an error
-                    finalResult.setTotalProfit(0.0);
-                    finalResult.setProducts(new ArrayList<>());
-                } else {
-                    finalResult = parseResults(jsonOutput);
-                    simulationStatusService.updateProgress(simulationId, "ACO", 100.0, 0.0); // Ensure 100% on completion
-                }
-            } catch (com.fasterxml.jackson.core.JsonParseException e) {
-                String errorMsg = "Failed to parse JSON output from Python ACO script. Error: " + e.getMessage();
+            if (root.has("error")) {
+                String errorMsg = root.get("error").asText();
                 simulationStatusService.updateError(simulationId, "ACO", errorMsg);
-                // On JSON parsing error, return an empty result
+                // Return an empty result if the Python script itself returned an error
                 finalResult.setTotalProfit(0.0);
                 finalResult.setProducts(new ArrayList<>());
+            } else {
+                finalResult = problem.withBound(parseResults(root), shelfLimit(problem));
+                simulationStatusService.updateProgress(simulationId, "ACO", 100.0, 0.0); // Ensure 100% on completion
             }
-        } else {
-            String errorMessage = "Python ACO script failed with exit code " + exitCode + ".";
-            if (jsonOutput.isEmpty()) {
-                errorMessage += " No valid JSON output found.";
-            }
-            if (rawOutput.toString().contains("Traceback")) {
-                errorMessage += " Python script encountered an unhandled error (traceback detected).";
-            }
-            if (rawOutput.toString().contains("ModuleNotFoundError")) {
-                errorMessage += " Missing Python dependencies. Please install required modules.";
-            }
-            simulationStatusService.updateError(simulationId, "ACO", errorMessage);
-            // On script failure, return an empty result
+        } catch (CancellationException e) {
+            logger.info("Python Ant Colony job for simulation " + simulationId + " was killed after it was terminated");
+            return emptyResult();
+        } catch (IOException e) {
+            simulationStatusService.updateError(simulationId, "ACO", "Python Ant Colony worker failed. " + e.getMessage());
+            // On worker failure, return an empty result
             finalResult.setTotalProfit(0.0);
             finalResult.setProducts(new ArrayList<>());
         }
 
         // Always update the result for ACO, even if it's an empty/error one.
-        // This is crucial to ensure both GA and ACO update their results and trigger overall completion.
         simulationStatusService.updateResult(simulationId, "ACO", finalResult);
         return finalResult;
     }
 
-    private SimulationResult parseResults(String jsonOutput) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode root = mapper.readTree(jsonOutput);
+    private static SimulationResult emptyResult() {
+        SimulationResult result = new SimulationResult();
+        result.setTotalProfit(0.0);
+        result.setProducts(new ArrayList<>());
+        return result;
+    }
+
+    private SimulationResult parseResults(JsonNode root) {
         SimulationResult result = new SimulationResult();
         result.setTotalProfit(root.has("total_profit") ? root.get("total_profit").asDouble(0.0) : 0.0);
+        if (root.has("partial") && root.get("partial").asBoolean(false)) {
+            result.setPartial(true); // ant.py stopped at the deadline
+        }
         List<ProductResult> products = new ArrayList<>();
 
         if (root.has("products") && root.get("products").isArray()) {
@@ -0,0 +1,412 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.BatchSweepResult;
+import com.fashionopt.dto.SimulationRequest;
+import com.fashionopt.dto.SimulationState;
+import com.fashionopt.dto.SweepPoint;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs a parameter sweep over one upload as a single scheduler job: the GA lane runs the in-process GA on every
+ * point in order and the ACO lane does the same with ACO. The points share the parsed catalog and, per discount
+ * base, the catalog's product arrays; each point is pre-solved once for both lanes, and each engine warm-starts
+ * from its own final state at the previous point, so neighbouring points of a grid converge in a few generations.
+ */
+@Service
+public class BatchSweepService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchSweepService.class);
+
+    // Parameters a sweep can vary, in the order of a resolved point's values and of the leading result columns
+    static final List<String> PARAMETERS = List.of("productionBudget", "marketingBudget", "logisticsBudget",
+            "discountBase", "shelfSpace");
+    static final List<String> COLUMNS = List.of("productionBudget", "marketingBudget", "logisticsBudget",
+            "discountBase", "shelfSpace", "freeProducts", "presolveMillis", "upperBound",
+            "gaProfit", "gaGap", "gaMillis", "acoProfit", "acoGap", "acoMillis");
+
+    private static final int PRODUCTION = 0;
+    private static final int MARKETING = 1;
+    private static final int LOGISTICS = 2;
+    private static final int DISCOUNT_BASE = 3;
+    private static final int SHELF = 4;
+    private static final int FREE_PRODUCTS = 5;
+    private static final int PRESOLVE_MILLIS = 6;
+    private static final int UPPER_BOUND = 7;
+    private static final int GA_COLUMNS = 8; // Profit, gap and milliseconds of the GA, then of ACO
+    private static final int ACO_COLUMNS = 11;
+
+    @Autowired
+    private GAService gaService;
+
+    @Autowired
+    private AntColonyService antColonyService;
+
+    @Autowired
+    private SimulationScheduler simulationScheduler;
+
+    @Autowired
+    private EngineStateStore engineStateStore;
+
+    @Value("${fashionopt.batch.max-points:200}")
+    private int maxPoints;
+
+    // Finished sweeps are kept this long for their results to be fetched
+    @Value("${fashionopt.batch.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${fashionopt.presolve.enabled:true}")
+    private boolean presolveEnabled;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * @param points JSON list of {@link SweepPoint}s, or null if {@code grid} is used.
+     * @param grid JSON object from parameter name to the values it takes; every combination is a point, with the
+     *             last parameter varying fastest. Null if {@code points} is used.
+     * @return The values of each point in {@link #PARAMETERS} order, defaulting to those of {@code request}.
+     * @throws IllegalArgumentException If neither or both are given, they do not parse, or there are too many points.
+     */
+    public List<double[]> resolvePoints(SimulationRequest request, String points, String grid) {
+        boolean hasPoints = points != null && !points.isBlank();
+        boolean hasGrid = grid != null && !grid.isBlank();
+        if (hasPoints == hasGrid) {
+            throw new IllegalArgumentException("A batch needs either points or grid");
+        }
+        double[] defaults = {request.getProductionBudget(), request.getMarketingBudget(), request.getLogisticsBudget(),
+                request.getDiscountBase(), request.getShelfSpace()};
+        List<double[]> resolved = new ArrayList<>();
+        try {
+            if (hasPoints) {
+                for (SweepPoint point : mapper.readValue(points, new TypeReference<List<SweepPoint>>() { })) {
+                    resolved.add(new double[]{
+                            orDefault(point.getProductionBudget(), defaults[PRODUCTION]),
+                            orDefault(point.getMarketingBudget(), defaults[MARKETING]),
+                            orDefault(point.getLogisticsBudget(), defaults[LOGISTICS]),
+                            orDefault(point.getDiscountBase(), defaults[DISCOUNT_BASE]),
+                            orDefault(point.getShelfSpace(), defaults[SHELF])});
+                    if (resolved.size() > maxPoints) {
+                        break;
+                    }
+                }
+            } else {
+                resolved.add(defaults);
+                Map<String, List<Double>> axes = mapper.readValue(grid, new TypeReference<LinkedHashMap<String, List<Double>>>() { });
+                for (Map.Entry<String, List<Double>> axis : axes.entrySet()) {
+                    int parameter = PARAMETERS.indexOf(axis.getKey());
+                    if (parameter < 0) {
+                        throw new IllegalArgumentException("Unknown sweep parameter: " + axis.getKey()
+                                + ". Must be one of " + String.join(", ", PARAMETERS));
+                    }
+                    List<Double> values = axis.getValue();
+                    if (values == null || values.isEmpty() || values.contains(null)) {
+                        throw new IllegalArgumentException("Sweep parameter " + axis.getKey() + " needs at least one value");
+                    }
+                    if ((long) resolved.size() * values.size() > maxPoints) {
+                        resolved = null;
+                        break;
+                    }
+                    List<double[]> combined = new ArrayList<>(resolved.size() * values.size());
+                    for (double[] point : resolved) {
+                        for (double value : values) {
+                            double[] next = point.clone();
+                            next[parameter] = value;
+                            combined.add(next);
+                        }
+                    }
+                    resolved = combined;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid sweep: " + e.getOriginalMessage());
+        }
+        if (resolved == null || resolved.size() > maxPoints) {
+            throw new IllegalArgumentException("A batch can have at most " + maxPoints + " points");
+        }
+        if (resolved.isEmpty()) {
+            throw new IllegalArgumentException("A batch needs at least one point");
+        }
+        return resolved;
+    }
+
+    /**
+     * Applies the checks of a single simulation to every point.
+     * @return An error message naming the first invalid point, or null if all are valid.
+     */
+    public String validatePoints(List<double[]> points, double requiredShelfSpace) {
+        for (int k = 0; k < points.size(); k++) {
+            double[] point = points.get(k);
+            if (point[DISCOUNT_BASE] < 0.1 || point[DISCOUNT_BASE] > 0.5) {
+                return String.format("Point %d: invalid discount base: %.2f. Must be between 0.1 and 0.5", k, point[DISCOUNT_BASE]);
+            }
+            if (point[PRODUCTION] < 0 || point[MARKETING] < 0 || point[LOGISTICS] < 0) {
+                return String.format("Point %d: budgets must not be negative", k);
+            }
+            if (requiredShelfSpace > point[SHELF]) {
+                return String.format("Point %d: No Space in total shelf space - Required: %.2f, Available: %.2f",
+                        k, requiredShelfSpace, point[SHELF]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Queues the sweep as one job. The request supplies the engine settings of every point; its deadline applies
+     * to each engine run separately and its baseSimulationId warm-starts the first point.
+     * @return The batch ID.
+     * @throws SimulationScheduler.SchedulerSaturatedException If the scheduler queue is full.
+     */
+    public String submit(ProductTable catalog, SimulationRequest request, List<double[]> points,
+                         SimulationScheduler.Priority priority) throws SimulationScheduler.SchedulerSaturatedException {
+        String batchId = "batch-" + UUID.randomUUID();
+        Job job = new Job(batchId, catalog, request, points);
+        jobs.put(batchId, job);
+        try {
+            simulationScheduler.submit(batchId, priority, () -> runLane(job, true), () -> runLane(job, false));
+        } catch (SimulationScheduler.SchedulerSaturatedException e) {
+            jobs.remove(batchId);
+            throw e;
+        }
+        logger.info("Queued batch " + batchId + " with " + points.size() + " points over " + catalog.size() + " products");
+        return batchId;
+    }
+
+    /**
+     * @return A snapshot of the sweep, or null if it is unknown or has expired.
+     */
+    public BatchSweepResult getResult(String batchId) {
+        Job job = jobs.get(batchId);
+        if (job == null) {
+            return null;
+        }
+        synchronized (job) {
+            List<Double[]> rows = new ArrayList<>(job.rows.length);
+            for (Double[] row : job.rows) {
+                rows.add(row.clone());
+            }
+            long end = job.finishedAt != 0 ? job.finishedAt : System.nanoTime();
+            return BatchSweepResult.builder()
+                    .batchId(batchId)
+                    .status(job.state)
+                    .totalPoints(job.rows.length)
+                    .gaCompletedPoints(job.gaDone)
+                    .acoCompletedPoints(job.acoDone)
+                    .columns(COLUMNS)
+                    .rows(rows)
+                    .elapsedMillis((end - job.submittedAt) / 1_000_000)
+                    .errorMessage(job.errorMessage)
+                    .build();
+        }
+    }
+
+    /**
+     * Stops a queued or running sweep; the points finished so far stay available.
+     * @return false if the sweep is unknown or already over.
+     */
+    public boolean terminate(String batchId) {
+        Job job = jobs.get(batchId);
+        if (job == null || !finish(job, SimulationState.TERMINATED, "Batch was terminated by user")) {
+            return false;
+        }
+        job.cancellation.cancel();
+        simulationScheduler.cancel(batchId);
+        return true;
+    }
+
+    /**
+     * Removes sweeps that finished longer ago than the TTL.
+     * @return The number of sweeps removed.
+     */
+    public int evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000;
+        int evicted = 0;
+        for (Job job : jobs.values()) {
+            synchronized (job) {
+                if (job.state.isTerminal() && job.finishedAtMillis < cutoff) {
+                    jobs.remove(job.batchId);
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    private void runLane(Job job, boolean ga) {
+        String engine = ga ? "GA" : "ACO";
+        synchronized (job) {
+            if (job.state.isTerminal()) {
+                laneFinished(job);
+                return;
+            }
+            job.state = SimulationState.RUNNING;
+        }
+        WarmStart warmStart = engineStateStore.get(job.request.getBaseSimulationId());
+        try {
+            for (int k = 0; k < job.points.size(); k++) {
+                job.cancellation.throwIfCancelled();
+                OptimizationProblem problem = problem(job, k);
+                EngineRun run = ga
+                        ? gaService.runSweepPoint(problem, job.request, warmStart, job.cancellation)
+                        : antColonyService.runSweepPoint(problem, job.request, warmStart, job.cancellation);
+                // The next point differs from this one in a parameter or two, so it starts where this one ended
+                if (run.finalState() != null) {
+                    warmStart = run.finalState();
+                }
+                record(job, k, ga, run);
+            }
+        } catch (CancellationException e) {
+            logger.info(engine + " lane of batch " + job.batchId + " stopped after it was terminated");
+        } catch (RuntimeException e) {
+            logger.error(engine + " lane of batch " + job.batchId + " failed: " + e.getMessage(), e);
+            if (finish(job, SimulationState.ERROR, engine + ": " + e.getMessage())) {
+                job.cancellation.cancel(); // The other lane's results would be incomplete anyway
+            }
+        } finally {
+            synchronized (job) {
+                laneFinished(job);
+            }
+        }
+    }
+
+    /**
+     * @return Point k's pre-solved problem, built by whichever lane reaches the point first. Pre-solve and the LP
+     * bound run outside the job's lock, so the other lane and status polls are not held up; if both lanes build the
+     * point at once, the first to finish publishes it.
+     */
+    private OptimizationProblem problem(Job job, int k) {
+        synchronized (job) {
+            if (job.problems[k] != null) {
+                return job.problems[k];
+            }
+        }
+        double[] point = job.points.get(k);
+        OptimizationProblem catalogProblem = job.byDiscountBase.computeIfAbsent(point[DISCOUNT_BASE], discountBase -> {
+            SimulationRequest penalty = new SimulationRequest();
+            penalty.setDiscountBase(discountBase);
+            return job.catalog.toProblem(penalty);
+        });
+        OptimizationProblem full = catalogProblem.withLimits(point[PRODUCTION], point[MARKETING], point[LOGISTICS],
+                point[SHELF]);
+        long startTime = System.nanoTime();
+        int chromosomeBits = job.request.getChromosomeBits();
+        int segmentMax = chromosomeBits >= 31 ? Integer.MAX_VALUE : (1 << chromosomeBits) - 1;
+        OptimizationProblem problem = presolveEnabled ? Presolve.reduce(full, segmentMax) : full;
+        double bound = full.getUpperBound(full.getShelfCapacity() - full.getExistingShelfUse());
+        double presolveMillis = (System.nanoTime() - startTime) / 1e6;
+
+        synchronized (job) {
+            if (job.problems[k] != null) {
+                return job.problems[k];
+            }
+            Double[] row = job.rows[k];
+            row[FREE_PRODUCTS] = (double) problem.size();
+            row[PRESOLVE_MILLIS] = presolveMillis;
+            row[UPPER_BOUND] = Double.isNaN(bound) ? null : bound;
+            job.problems[k] = problem;
+            return problem;
+        }
+    }
+
+    private void record(Job job, int k, boolean ga, EngineRun run) {
+        synchronized (job) {
+            Double[] row = job.rows[k];
+            int column = ga ? GA_COLUMNS : ACO_COLUMNS;
+            row[column] = run.result().getTotalProfit();
+            row[column + 1] = run.result().getOptimalityGap();
+            row[column + 2] = run.elapsedNanos() / 1e6;
+            if (ga) {
+                job.gaDone = k + 1;
+            } else {
+                job.acoDone = k + 1;
+            }
+            if (job.gaDone > k && job.acoDone > k) {
+                job.problems[k] = null; // Both lanes are past the point
+            }
+        }
+    }
+
+    /**
+     * Called with the job's lock held.
+     */
+    private void laneFinished(Job job) {
+        job.lanesFinished++;
+        if (job.lanesFinished == 2 && finish(job, SimulationState.COMPLETED, null)) {
+            logger.info("Batch " + job.batchId + " finished " + job.rows.length + " points in "
+                    + (job.finishedAt - job.submittedAt) / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Moves the sweep to a terminal state unless it is in one already.
+     */
+    private boolean finish(Job job, SimulationState state, String errorMessage) {
+        synchronized (job) {
+            if (job.state.isTerminal()) {
+                return false;
+            }
+            job.state = state;
+            job.errorMessage = errorMessage;
+            job.finishedAt = System.nanoTime();
+            job.finishedAtMillis = System.currentTimeMillis();
+            Arrays.fill(job.problems, null);
+            return true;
+        }
+    }
+
+    private static double orDefault(Double value, double fallback) {
+        return value != null ? value : fallback;
+    }
+
+    /**
+     * A sweep and its results so far. Everything mutable is guarded by the job's own lock.
+     */
+    private static final class Job {
+        final String batchId;
+        final ProductTable catalog;
+        final SimulationRequest request;
+        final List<double[]> points;
+        final Double[][] rows;
+        final OptimizationProblem[] problems; // Pre-solved problem of each point while a lane still needs it
+        final Map<Double, OptimizationProblem> byDiscountBase = new ConcurrentHashMap<>(); // Penalised catalog per discount base
+        final CancellationToken cancellation = new CancellationToken();
+        final long submittedAt = System.nanoTime();
+        SimulationState state = SimulationState.PENDING;
+        String errorMessage;
+        int gaDone;
+        int acoDone;
+        int lanesFinished;
+        long finishedAt; // System.nanoTime() value, 0 while the sweep runs
+        long finishedAtMillis;
+
+        Job(String batchId, ProductTable catalog, SimulationRequest request, List<double[]> points) {
+            this.batchId = batchId;
+            this.catalog = catalog;
+            this.request = request;
+            this.points = points;
+            this.rows = new Double[points.size()][];
+            this.problems = new OptimizationProblem[points.size()];
+            for (int k = 0; k < rows.length; k++) {
+                rows[k] = new Double[COLUMNS.size()];
+                for (int p = 0; p < PARAMETERS.size(); p++) {
+                    rows[k][p] = points.get(k)[p];
+                }
+            }
+        }
+    }
+}
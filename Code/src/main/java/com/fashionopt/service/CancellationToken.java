@@ -0,0 +1,68 @@
+package com.fashionopt.service;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cooperative cancellation flag shared between a simulation and the work running for it. In-process engines
+ * poll it between generations and iterations; blocking work such as a Python job registers an action that
+ * interrupts it when the token is cancelled.
+ */
+public final class CancellationToken {
+
+    /**
+     * A token that is never cancelled, for runs that cannot be terminated (e.g. benchmarks).
+     */
+    public static final CancellationToken NONE = new CancellationToken();
+
+    private final List<Runnable> actions = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException If the token has been cancelled.
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Simulation was cancelled");
+        }
+    }
+
+    /**
+     * Cancels the token and runs every registered action once.
+     */
+    public void cancel() {
+        if (this == NONE) {
+            return;
+        }
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
+        actions.clear();
+    }
+
+    /**
+     * Registers an action to run when the token is cancelled, or runs it right away if it already is.
+     * @return Removes the action again once the work it interrupts has finished.
+     */
+    public Runnable onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                actions.add(action);
+                return () -> actions.remove(action);
+            }
+        }
+        action.run();
+        return () -> { };
+    }
+}
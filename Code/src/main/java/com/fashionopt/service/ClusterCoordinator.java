@@ -0,0 +1,532 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationRequest;
+import com.fashionopt.dto.SimulationResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coordinator side of the cluster mode ({@code fashionopt.cluster.role=coordinator}): instead of running the
+ * in-process engines itself, the server hands each GA and ACO run to a {@link ClusterWorker} over HTTP (see
+ * {@link ClusterProtocol}) and blocks the simulation's scheduler thread until the result comes back.
+ * <p>
+ * Jobs wait in one FIFO queue. Workers long-poll for as many jobs as they have free slots plus a small prefetch
+ * and claim each one just before it starts. A worker that asks for work while the queue is empty steals the newest
+ * unclaimed job of the worker holding the most of them. Workers send heartbeats; one that misses them for
+ * {@code fashionopt.cluster.heartbeat-timeout-seconds} is dropped and its jobs go back to the front of the queue,
+ * up to {@code fashionopt.cluster.max-attempts} runs per job; so does a running job missing from two heartbeats
+ * in a row of the worker that claimed it. While no worker is connected, a job that has waited in the queue for
+ * {@code fashionopt.cluster.dispatch-timeout-seconds} fails, so that its simulation does not hang. Progress and
+ * incumbents reported by a worker are passed to the simulation's {@link ProgressListener}.
+ */
+@Service
+public class ClusterCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    // Unclaimed jobs younger than this are left to the worker they were assigned to, which is about to claim them
+    private static final long STEAL_MIN_AGE_MILLIS = 1000;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // "standalone" (default) runs the engines in-process, "coordinator" dispatches them, "worker" runs them for one
+    @Value("${fashionopt.cluster.role:standalone}")
+    private String role;
+
+    @Value("${fashionopt.cluster.token:}")
+    private String token;
+
+    @Value("${fashionopt.cluster.heartbeat-timeout-seconds:15}")
+    private long heartbeatTimeoutSeconds;
+
+    @Value("${fashionopt.cluster.poll-wait-seconds:10}")
+    private long pollWaitSeconds;
+
+    @Value("${fashionopt.cluster.max-attempts:3}")
+    private int maxAttempts;
+
+    // Queued jobs fail after waiting this long while no worker is connected; 0 waits for a worker indefinitely
+    @Value("${fashionopt.cluster.dispatch-timeout-seconds:60}")
+    private long dispatchTimeoutSeconds;
+
+    // Guarded by this
+    private final Map<String, Member> workers = new LinkedHashMap<>();
+    private final Map<String, RemoteJob> jobs = new HashMap<>();
+    private final Deque<RemoteJob> queue = new ArrayDeque<>();
+
+    private final AtomicLong stolenJobs = new AtomicLong();
+    private final AtomicLong redispatchedJobs = new AtomicLong();
+    private ScheduledExecutorService monitor;
+
+    private enum JobState {
+        QUEUED, ASSIGNED, RUNNING
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isCoordinator()) {
+            return;
+        }
+        Gauge.builder("fashionopt.cluster.workers", this, ClusterCoordinator::getWorkerCount)
+                .description("Cluster workers with a recent heartbeat").register(meterRegistry);
+        Gauge.builder("fashionopt.cluster.jobs.queued", this, ClusterCoordinator::getQueuedCount)
+                .description("Engine jobs waiting for a cluster worker").register(meterRegistry);
+        FunctionCounter.builder("fashionopt.cluster.jobs.stolen", stolenJobs, AtomicLong::get)
+                .description("Unclaimed jobs moved to an idle worker").register(meterRegistry);
+        FunctionCounter.builder("fashionopt.cluster.jobs.redispatched", redispatchedJobs, AtomicLong::get)
+                .description("Jobs queued again after their worker was lost or left").register(meterRegistry);
+
+        monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cluster-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, heartbeatTimeoutSeconds / 3);
+        monitor.scheduleWithFixedDelay(this::checkWorkers, interval, interval, TimeUnit.SECONDS);
+        logger.info("Cluster coordinator started, workers are dropped after " + heartbeatTimeoutSeconds
+                + " s without a heartbeat");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+        }
+    }
+
+    public boolean isCoordinator() {
+        return "coordinator".equalsIgnoreCase(role);
+    }
+
+    /**
+     * @param presented The {@link ClusterProtocol#TOKEN_HEADER} a worker sent, or null.
+     */
+    public boolean isAuthorized(String presented) {
+        if (token.isEmpty()) {
+            return true;
+        }
+        return presented != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Queues one engine run and waits until a worker has finished it.
+     * @param algorithm "GA" or "ACO".
+     * @param problem The problem the in-process engine would have run on; the result is reported against it.
+     * @param stoppingRule Gap target and deadline; the worker gets the target and the time left when it starts.
+     * @param warmStart State to start from, or null.
+     * @param progressListener Receives the progress and incumbents the worker reports.
+     * @throws CancellationException If the token was cancelled first.
+     * @throws IOException If the worker's engine failed, no worker took the job before the deadline or, with no
+     * worker connected, within the dispatch timeout, or the job was lost with its worker too often.
+     */
+    public EngineRun execute(String simulationId, String algorithm, OptimizationProblem problem, SimulationRequest request,
+                             StoppingRule stoppingRule, WarmStart warmStart, ProgressListener progressListener,
+                             CancellationToken cancellation) throws IOException, InterruptedException {
+        ClusterProtocol.Job payload = new ClusterProtocol.Job(UUID.randomUUID().toString(), simulationId, algorithm,
+                ClusterProtocol.Problem.of(problem), ClusterProtocol.Settings.of(request), stoppingRule.getTarget(),
+                warmStart != null ? warmStart.seedPlan(problem) : null,
+                warmStart != null ? warmStart.seedPheromone(problem) : null);
+        RemoteJob job = new RemoteJob(payload, problem.size(), stoppingRule, progressListener);
+        long startTime = System.nanoTime();
+        synchronized (this) {
+            jobs.put(payload.jobId(), job);
+            queue.addLast(job);
+            notifyAll();
+        }
+        logger.info("Queued " + algorithm + " job " + payload.jobId() + " of simulation " + simulationId
+                + " for the cluster");
+
+        Runnable unregister = cancellation.onCancel(() -> cancel(job));
+        ClusterProtocol.Outcome outcome;
+        try {
+            outcome = job.done.get();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            cancel(job);
+            throw e;
+        } finally {
+            unregister.run();
+        }
+
+        SimulationResult result = problem.toResult(outcome.quantities());
+        if (outcome.partial()) {
+            result.setPartial(true);
+        }
+        return new EngineRun(result, WarmStart.of(problem, outcome.finalPlan(), outcome.finalPheromone()),
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Hands out up to {@code capacity} queued jobs, or a stolen one if the queue is empty, waiting up to
+     * {@code fashionopt.cluster.poll-wait-seconds} for one to become available.
+     */
+    public synchronized List<ClusterProtocol.Job> poll(ClusterProtocol.Poll poll) throws InterruptedException {
+        long waitUntil = System.currentTimeMillis() + pollWaitSeconds * 1000;
+        List<ClusterProtocol.Job> assigned = new ArrayList<>();
+        while (true) {
+            Member member = touch(poll.workerId(), poll.slots());
+            while (assigned.size() < poll.capacity() && !queue.isEmpty()) {
+                assign(queue.pollFirst(), member, assigned);
+            }
+            if (assigned.isEmpty() && poll.capacity() > 0) {
+                RemoteJob stolen = steal(member);
+                if (stolen != null) {
+                    assign(stolen, member, assigned);
+                }
+            }
+            long remaining = waitUntil - System.currentTimeMillis();
+            if (!assigned.isEmpty() || poll.capacity() <= 0 || remaining <= 0) {
+                return assigned;
+            }
+            // Wake up at least once per steal age, since unclaimed jobs become stealable without any notification
+            wait(Math.min(remaining, STEAL_MIN_AGE_MILLIS));
+        }
+    }
+
+    /**
+     * @return The time left for the job, or null if it is no longer assigned to the worker.
+     */
+    public synchronized ClusterProtocol.Grant claim(String jobId, ClusterProtocol.WorkerRef worker) {
+        RemoteJob job = jobs.get(jobId);
+        if (job == null || job.state != JobState.ASSIGNED || !job.worker.workerId.equals(worker.workerId())) {
+            return null;
+        }
+        job.state = JobState.RUNNING;
+        job.missedHeartbeats = 0;
+        job.worker.assigned.remove(job);
+        job.worker.running.add(job);
+        job.attempts++;
+        return new ClusterProtocol.Grant(job.stoppingRule.getRemainingMillis());
+    }
+
+    /**
+     * Relays a worker's progress report to the simulation.
+     * @return false if the job is no longer running on the worker, which should then cancel it.
+     */
+    public boolean progress(String jobId, ClusterProtocol.Progress progress) {
+        RemoteJob job;
+        synchronized (this) {
+            job = runningJob(jobId, progress.workerId());
+            if (job == null) {
+                return false;
+            }
+            job.worker.lastSeen = System.currentTimeMillis();
+        }
+        job.progressListener.onProgress(progress.progress(), progress.estimatedTimeRemaining());
+        if (progress.incumbent() != null && progress.objective() != null && progress.incumbent().length == job.products) {
+            job.progressListener.onIncumbent(progress.objective(), progress.incumbent());
+        }
+        return true;
+    }
+
+    /**
+     * Completes a job with a worker's result, or fails it with the worker's error.
+     * @return false if the job is no longer running on the worker, so the result was discarded.
+     */
+    public boolean complete(String jobId, ClusterProtocol.Outcome outcome) {
+        RemoteJob job;
+        synchronized (this) {
+            job = runningJob(jobId, outcome.workerId());
+            if (job == null) {
+                return false;
+            }
+            job.worker.running.remove(job);
+            job.worker.lastSeen = System.currentTimeMillis();
+            jobs.remove(jobId);
+        }
+        String algorithm = job.payload.algorithm();
+        if (outcome.error() != null) {
+            job.done.completeExceptionally(new IOException(algorithm + " failed on worker " + outcome.workerId()
+                    + ": " + outcome.error()));
+        } else if (outcome.quantities() == null || outcome.quantities().length != job.products) {
+            job.done.completeExceptionally(new IOException("Worker " + outcome.workerId() + " returned a plan for "
+                    + (outcome.quantities() == null ? 0 : outcome.quantities().length) + " products instead of " + job.products));
+        } else {
+            logger.info(algorithm + " job " + jobId + " of simulation " + job.payload.simulationId()
+                    + " finished on worker " + outcome.workerId());
+            job.done.complete(outcome);
+        }
+        return true;
+    }
+
+    /**
+     * Records a worker's heartbeat, registering it if it is new.
+     */
+    public synchronized ClusterProtocol.HeartbeatReply heartbeat(ClusterProtocol.Heartbeat heartbeat) {
+        Member member = touch(heartbeat.workerId(), heartbeat.slots());
+        Set<String> held = heartbeat.jobIds() != null ? new HashSet<>(heartbeat.jobIds()) : Set.of();
+
+        // A poll answer the worker never received leaves jobs assigned to it that it does not know about
+        long cutoff = System.currentTimeMillis() - heartbeatTimeoutSeconds * 1000;
+        for (RemoteJob job : new ArrayList<>(member.assigned)) {
+            if (!held.contains(job.payload.jobId()) && job.assignedAt < cutoff) {
+                logger.warn("Worker " + member.workerId + " never picked up job " + job.payload.jobId() + ", queuing it again");
+                requeue(job);
+            }
+        }
+        // A running job the worker no longer lists was lost: its claim answer or its result went missing, or its
+        // engine died. One heartbeat may have been built just before the claim, so it takes two in a row.
+        for (RemoteJob job : new ArrayList<>(member.running)) {
+            if (held.contains(job.payload.jobId())) {
+                job.missedHeartbeats = 0;
+            } else if (++job.missedHeartbeats >= 2) {
+                logger.warn("Worker " + member.workerId + " no longer holds running job " + job.payload.jobId()
+                        + ", queuing it again");
+                requeue(job);
+            }
+        }
+
+        List<String> drop = new ArrayList<>(member.dropped);
+        member.dropped.clear();
+        for (String jobId : held) {
+            RemoteJob job = jobs.get(jobId);
+            if ((job == null || job.worker != member) && !drop.contains(jobId)) {
+                drop.add(jobId);
+            }
+        }
+        if (!drop.isEmpty()) {
+            notifyAll();
+        }
+        return new ClusterProtocol.HeartbeatReply(drop);
+    }
+
+    /**
+     * Removes a worker that is shutting down and queues its jobs again straight away.
+     */
+    public synchronized void leave(ClusterProtocol.WorkerRef worker) {
+        Member member = workers.remove(worker.workerId());
+        if (member != null) {
+            logger.info("Worker " + member.workerId + " left the cluster");
+            release(member);
+        }
+    }
+
+    public synchronized List<ClusterProtocol.WorkerInfo> getWorkers() {
+        long now = System.currentTimeMillis();
+        List<ClusterProtocol.WorkerInfo> info = new ArrayList<>();
+        for (Member member : workers.values()) {
+            info.add(new ClusterProtocol.WorkerInfo(member.workerId, member.slots, member.assigned.size(),
+                    member.running.size(), now - member.lastSeen));
+        }
+        return info;
+    }
+
+    public synchronized int getWorkerCount() {
+        return workers.size();
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Drops workers whose heartbeats stopped, re-dispatching their jobs, and fails queued jobs whose deadline
+     * passed before any worker took them, or that waited out the dispatch timeout with no worker connected.
+     */
+    synchronized void checkWorkers() {
+        try {
+            long now = System.currentTimeMillis();
+            long cutoff = now - heartbeatTimeoutSeconds * 1000;
+            Iterator<Member> members = workers.values().iterator();
+            while (members.hasNext()) {
+                Member member = members.next();
+                if (member.lastSeen < cutoff) {
+                    members.remove();
+                    logger.warn("Worker " + member.workerId + " missed its heartbeats for " + heartbeatTimeoutSeconds
+                            + " s, re-dispatching " + (member.assigned.size() + member.running.size()) + " jobs");
+                    release(member);
+                }
+            }
+            Iterator<RemoteJob> queued = queue.iterator();
+            while (queued.hasNext()) {
+                RemoteJob job = queued.next();
+                String failure = null;
+                if (job.stoppingRule.isPastDeadline()) {
+                    failure = "No cluster worker was free before the deadline";
+                } else if (workers.isEmpty() && dispatchTimeoutSeconds > 0
+                        && job.queuedAt < now - dispatchTimeoutSeconds * 1000) {
+                    failure = "No cluster worker connected within " + dispatchTimeoutSeconds + " s";
+                }
+                if (failure != null) {
+                    queued.remove();
+                    jobs.remove(job.payload.jobId());
+                    logger.warn("Failing queued " + job.payload.algorithm() + " job " + job.payload.jobId() + " of simulation "
+                            + job.payload.simulationId() + ": " + failure);
+                    job.done.completeExceptionally(new IOException(failure));
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to check cluster workers: " + e.getMessage(), e);
+        }
+    }
+
+    private Member touch(String workerId, int slots) {
+        Member member = workers.get(workerId);
+        if (member == null) {
+            member = new Member(workerId);
+            workers.put(workerId, member);
+            logger.info("Worker " + workerId + " joined the cluster with " + slots + " slots");
+        }
+        member.slots = slots;
+        member.lastSeen = System.currentTimeMillis();
+        return member;
+    }
+
+    private void assign(RemoteJob job, Member member, List<ClusterProtocol.Job> assigned) {
+        job.state = JobState.ASSIGNED;
+        job.worker = member;
+        job.assignedAt = System.currentTimeMillis();
+        member.assigned.add(job);
+        assigned.add(job.payload);
+    }
+
+    /**
+     * @return The newest unclaimed job of the worker holding the most, taken away from it, or null if there is none.
+     */
+    private RemoteJob steal(Member thief) {
+        long cutoff = System.currentTimeMillis() - STEAL_MIN_AGE_MILLIS;
+        Member victim = null;
+        for (Member member : workers.values()) {
+            if (member != thief && (victim == null || member.assigned.size() > victim.assigned.size())) {
+                victim = member;
+            }
+        }
+        if (victim == null) {
+            return null;
+        }
+        RemoteJob newest = null;
+        for (RemoteJob job : victim.assigned) {
+            if (job.assignedAt <= cutoff) {
+                newest = job;
+            }
+        }
+        if (newest == null) {
+            return null;
+        }
+        victim.assigned.remove(newest);
+        victim.dropped.add(newest.payload.jobId());
+        stolenJobs.incrementAndGet();
+        logger.info("Worker " + thief.workerId + " stole job " + newest.payload.jobId() + " from " + victim.workerId);
+        return newest;
+    }
+
+    /**
+     * Puts the jobs of a worker that is gone back at the front of the queue, oldest first.
+     */
+    private void release(Member member) {
+        List<RemoteJob> held = new ArrayList<>(member.running);
+        held.addAll(member.assigned);
+        for (int i = held.size() - 1; i >= 0; i--) {
+            requeue(held.get(i));
+        }
+    }
+
+    private void requeue(RemoteJob job) {
+        job.worker.assigned.remove(job);
+        job.worker.running.remove(job);
+        job.worker.dropped.add(job.payload.jobId());
+        job.worker = null;
+        if (job.attempts >= maxAttempts) {
+            jobs.remove(job.payload.jobId());
+            job.done.completeExceptionally(new IOException("Lost the workers of " + job.attempts + " attempts"));
+            return;
+        }
+        job.state = JobState.QUEUED;
+        job.queuedAt = System.currentTimeMillis();
+        queue.addFirst(job);
+        redispatchedJobs.incrementAndGet();
+        notifyAll();
+    }
+
+    private void cancel(RemoteJob job) {
+        synchronized (this) {
+            if (jobs.remove(job.payload.jobId()) != null) {
+                if (job.state == JobState.QUEUED) {
+                    queue.remove(job);
+                } else {
+                    // The worker learns at its next heartbeat that it must stop the job
+                    job.worker.assigned.remove(job);
+                    job.worker.running.remove(job);
+                    job.worker.dropped.add(job.payload.jobId());
+                }
+            }
+        }
+        job.done.cancel(false);
+    }
+
+    private RemoteJob runningJob(String jobId, String workerId) {
+        RemoteJob job = jobs.get(jobId);
+        if (job == null || job.state != JobState.RUNNING || !job.worker.workerId.equals(workerId)) {
+            return null;
+        }
+        return job;
+    }
+
+    private static final class RemoteJob {
+        final ClusterProtocol.Job payload;
+        final int products;
+        final StoppingRule stoppingRule;
+        final ProgressListener progressListener;
+        final CompletableFuture<ClusterProtocol.Outcome> done = new CompletableFuture<>();
+        JobState state = JobState.QUEUED;
+        long queuedAt = System.currentTimeMillis(); // When the job last entered the queue
+        Member worker;
+        long assignedAt;
+        int attempts; // Times the job was claimed
+        int missedHeartbeats; // Heartbeats in a row from its worker that did not list the running job
+
+        RemoteJob(ClusterProtocol.Job payload, int products, StoppingRule stoppingRule, ProgressListener progressListener) {
+            this.payload = payload;
+            this.products = products;
+            this.stoppingRule = stoppingRule;
+            this.progressListener = progressListener;
+        }
+    }
+
+    private static final class Member {
+        final String workerId;
+        int slots;
+        long lastSeen;
+        final Set<RemoteJob> assigned = new LinkedHashSet<>(); // In the order they were handed out
+        final Set<RemoteJob> running = new LinkedHashSet<>();
+        final Set<String> dropped = new LinkedHashSet<>(); // Job IDs to return with the next heartbeat reply
+
+        Member(String workerId) {
+            this.workerId = workerId;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationRequest;
+
+import java.util.List;
+
+/**
+ * Messages exchanged as JSON between the coordinator and cluster workers (see {@link ClusterCoordinator} and
+ * {@link ClusterWorker}). Workers always call the coordinator, never the other way round:
+ * <ul>
+ *     <li>{@code POST /api/cluster/poll} long-polls for up to {@code capacity} {@link Job}s;</li>
+ *     <li>{@code POST /api/cluster/jobs/{jobId}/claim} is sent just before a job starts and is refused (409) if
+ *     the job was stolen by another worker or dropped in the meantime;</li>
+ *     <li>{@code POST /api/cluster/jobs/{jobId}/progress} and {@code .../result} report on a claimed job;</li>
+ *     <li>{@code POST /api/cluster/heartbeat} lists the jobs the worker holds and returns those it must drop;</li>
+ *     <li>{@code POST /api/cluster/leave} hands a stopping worker's jobs back.</li>
+ * </ul>
+ * Quantity vectors and pheromone tables are indexed by the products of the job's {@link Problem}.
+ */
+public final class ClusterProtocol {
+
+    // Shared secret a worker sends with every request when fashionopt.cluster.token is set
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+
+    private ClusterProtocol() {
+    }
+
+    /**
+     * One GA or ACO run of a simulation.
+     * @param stopAt Penalised profit at which the engine stops, see {@link StoppingRule#getTarget()}; null for none.
+     * @param seedPlan Warm-start GA plan, or null.
+     * @param seedPheromone Warm-start ACO pheromone, or null.
+     */
+    public record Job(String jobId, String simulationId, String algorithm, Problem problem, Settings settings,
+                      Double stopAt, int[] seedPlan, double[][] seedPheromone) {
+    }
+
+    /**
+     * The arrays and limits of an {@link OptimizationProblem}, usually one already reduced by {@link Presolve}.
+     */
+    public record Problem(String[] names, double[] price, double[] unitCost, double[] productionCost,
+                          double[] marketingCost, double[] logisticsCost, double[] shelfSpace, double[] stock,
+                          double[] netProfit, int[] maxQuantity, double productionBudget, double marketingBudget,
+                          double logisticsBudget, double shelfCapacity, double existingShelfUse) {
+
+        static Problem of(OptimizationProblem problem) {
+            return new Problem(problem.getNames(), problem.getPrice(), problem.getUnitCost(),
+                    problem.getProductionCost(), problem.getMarketingCost(), problem.getLogisticsCost(),
+                    problem.getShelfSpace(), problem.getStock(), problem.getNetProfit(), problem.getMaxQuantity(),
+                    problem.getProductionBudget(), problem.getMarketingBudget(), problem.getLogisticsBudget(),
+                    problem.getShelfCapacity(), problem.getExistingShelfUse());
+        }
+
+        OptimizationProblem toProblem() {
+            return OptimizationProblem.of(names, price, unitCost, productionCost, marketingCost, logisticsCost,
+                    shelfSpace, stock, netProfit, maxQuantity, productionBudget, marketingBudget, logisticsBudget,
+                    shelfCapacity, existingShelfUse);
+        }
+    }
+
+    /**
+     * The engine settings of a {@link SimulationRequest}; the gap and deadline travel as {@code stopAt} and
+     * {@link Grant#remainingMillis()}.
+     */
+    public record Settings(int chromosomeBits, String gaMode, Integer islandCount, Integer migrationInterval,
+                           String migrationTopology, String acoMode, String repairPolicy, Long seed) {
+
+        static Settings of(SimulationRequest request) {
+            return new Settings(request.getChromosomeBits(), request.getGaMode(), request.getIslandCount(),
+                    request.getMigrationInterval(), request.getMigrationTopology(), request.getAcoMode(),
+                    request.getRepairPolicy(), request.getSeed());
+        }
+
+        SimulationRequest toRequest() {
+            SimulationRequest request = new SimulationRequest();
+            request.setChromosomeBits(chromosomeBits);
+            request.setGaMode(gaMode);
+            request.setIslandCount(islandCount);
+            request.setMigrationInterval(migrationInterval);
+            request.setMigrationTopology(migrationTopology);
+            request.setAcoMode(acoMode);
+            request.setRepairPolicy(repairPolicy);
+            request.setSeed(seed);
+            return request;
+        }
+    }
+
+    /**
+     * @param capacity Jobs the worker can take now: free slots plus prefetch, minus the jobs it already holds.
+     */
+    public record Poll(String workerId, int slots, int capacity) {
+    }
+
+    /**
+     * @param jobIds Every job the worker holds, waiting or running.
+     */
+    public record Heartbeat(String workerId, int slots, List<String> jobIds) {
+    }
+
+    /**
+     * @param dropJobIds Jobs of the heartbeat the worker must drop or cancel: stolen, re-dispatched, terminated
+     *                   or unknown to the coordinator.
+     */
+    public record HeartbeatReply(List<String> dropJobIds) {
+    }
+
+    /**
+     * Identifies the worker sending a claim or leaving the cluster.
+     */
+    public record WorkerRef(String workerId) {
+    }
+
+    /**
+     * @param remainingMillis Time left until the simulation's deadline, or null if it has none.
+     */
+    public record Grant(Long remainingMillis) {
+    }
+
+    /**
+     * @param objective Penalised profit of {@code incumbent}, or null if there is no new incumbent.
+     * @param incumbent Best plan so far, if it improved since the last report; otherwise null.
+     */
+    public record Progress(String workerId, double progress, double estimatedTimeRemaining, Double objective,
+                           int[] incumbent) {
+    }
+
+    /**
+     * @param quantities Final plan, or null if the engine failed with {@code error}.
+     * @param finalPlan GA plan to keep for warm starts, or null.
+     * @param finalPheromone ACO pheromone to keep for warm starts, or null.
+     */
+    public record Outcome(String workerId, int[] quantities, boolean partial, String error, int[] finalPlan,
+                          double[][] finalPheromone) {
+    }
+
+    /**
+     * A worker as the coordinator sees it, for {@code GET /api/cluster/workers}.
+     */
+    public record WorkerInfo(String workerId, int slots, int assignedJobs, int runningJobs, long lastSeenMillisAgo) {
+    }
+}
@@ -0,0 +1,426 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.ProductResult;
+import com.fashionopt.dto.SimulationResult;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker side of the cluster mode ({@code fashionopt.cluster.role=worker}): takes GA and ACO jobs from the
+ * {@link ClusterCoordinator} at {@code fashionopt.cluster.coordinator-url} and runs them on the in-process engines,
+ * {@code fashionopt.cluster.worker.slots} at a time. It keeps up to {@code fashionopt.cluster.worker.prefetch}
+ * further jobs waiting locally, which the coordinator may hand to an idle worker instead. Progress and
+ * incumbents are reported at most every {@code fashionopt.cluster.worker.progress-interval-ms}, and a heartbeat
+ * tells the coordinator which jobs this worker holds and which of them it must drop.
+ */
+@Service
+public class ClusterWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterWorker.class);
+
+    private static final int RESULT_ATTEMPTS = 5;
+    private static final TypeReference<List<ClusterProtocol.Job>> JOB_LIST = new TypeReference<>() {
+    };
+
+    @Autowired
+    private GAService gaService;
+
+    @Autowired
+    private AntColonyService antColonyService;
+
+    @Value("${fashionopt.cluster.role:standalone}")
+    private String role;
+
+    @Value("${fashionopt.cluster.token:}")
+    private String token;
+
+    @Value("${fashionopt.cluster.coordinator-url:http://localhost:8080}")
+    private String coordinatorUrl;
+
+    @Value("${fashionopt.cluster.worker.id:}")
+    private String configuredId;
+
+    @Value("${fashionopt.cluster.worker.slots:2}")
+    private int slots;
+
+    @Value("${fashionopt.cluster.worker.prefetch:1}")
+    private int prefetch;
+
+    @Value("${fashionopt.cluster.heartbeat-interval-seconds:3}")
+    private long heartbeatIntervalSeconds;
+
+    @Value("${fashionopt.cluster.poll-wait-seconds:10}")
+    private long pollWaitSeconds;
+
+    @Value("${fashionopt.cluster.worker.progress-interval-ms:500}")
+    private long progressIntervalMillis;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final BlockingDeque<ClusterProtocol.Job> waiting = new LinkedBlockingDeque<>();
+    private final Map<String, CancellationToken> running = new ConcurrentHashMap<>();
+    private final AtomicInteger held = new AtomicInteger(); // Jobs taken from the coordinator and not finished yet
+    private String workerId;
+    private ExecutorService runners;
+    private ScheduledExecutorService heartbeats;
+    private ExecutorService progressSender;
+    private Thread poller;
+    private volatile boolean stopped;
+    private volatile boolean coordinatorReachable = true;
+
+    @PostConstruct
+    public void start() {
+        if (!"worker".equalsIgnoreCase(role)) {
+            return;
+        }
+        workerId = configuredId.isEmpty() ? "worker-" + UUID.randomUUID() : configuredId;
+        slots = Math.max(1, slots);
+        prefetch = Math.max(0, prefetch);
+        runners = Executors.newFixedThreadPool(slots, r -> {
+            Thread thread = new Thread(r, "cluster-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int slot = 0; slot < slots; slot++) {
+            runners.execute(this::runJobs);
+        }
+        heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cluster-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatIntervalSeconds, TimeUnit.SECONDS);
+        progressSender = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "cluster-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller = new Thread(this::pollJobs, "cluster-poll");
+        poller.setDaemon(true);
+        poller.start();
+        logger.info("Cluster worker " + workerId + " started with " + slots + " slots, coordinator " + coordinatorUrl);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (workerId == null) {
+            return;
+        }
+        stopped = true;
+        poller.interrupt();
+        heartbeats.shutdownNow();
+        progressSender.shutdownNow();
+        waiting.clear();
+        running.values().forEach(CancellationToken::cancel);
+        runners.shutdownNow();
+        try {
+            send("/leave", new ClusterProtocol.WorkerRef(workerId));
+        } catch (IOException e) {
+            logger.warn("Could not tell the coordinator that worker " + workerId + " leaves: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * Asks the coordinator for as many jobs as there are free slots plus the prefetch.
+     */
+    private void pollJobs() {
+        while (!stopped) {
+            try {
+                int capacity;
+                synchronized (this) {
+                    capacity = slots + prefetch - held.get();
+                    if (capacity <= 0) {
+                        wait(1000); // Woken up when a job finishes
+                        continue;
+                    }
+                }
+                byte[] body = send("/poll", new ClusterProtocol.Poll(workerId, slots, capacity));
+                if (body != null && body.length > 0) {
+                    List<ClusterProtocol.Job> jobs = mapper.readValue(body, JOB_LIST);
+                    held.addAndGet(jobs.size());
+                    waiting.addAll(jobs);
+                }
+            } catch (IOException e) {
+                unreachable(e);
+                sleep(heartbeatIntervalSeconds * 1000);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void runJobs() {
+        while (!stopped) {
+            try {
+                run(waiting.take());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Cluster job failed on worker " + workerId + ": " + e.getMessage(), e);
+            }
+            held.decrementAndGet();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private void run(ClusterProtocol.Job job) throws InterruptedException {
+        String jobId = job.jobId();
+        ClusterProtocol.Grant grant;
+        CancellationToken cancellation = new CancellationToken();
+        try {
+            byte[] body = send("/jobs/" + jobId + "/claim", new ClusterProtocol.WorkerRef(workerId));
+            if (body == null) {
+                logger.info("Job " + jobId + " was taken by another worker or dropped before it started");
+                return;
+            }
+            grant = mapper.readValue(body, ClusterProtocol.Grant.class);
+        } catch (IOException e) {
+            // The job is handed out again once the coordinator drops this worker or its heartbeats omit the job
+            unreachable(e);
+            return;
+        }
+
+        // Listed in the heartbeats until its result is delivered; a job they omit is queued again by the coordinator
+        running.put(jobId, cancellation);
+        try {
+            ClusterProtocol.Outcome outcome = execute(job, grant, cancellation);
+            if (outcome != null) {
+                deliver(jobId, outcome);
+            }
+        } finally {
+            running.remove(jobId);
+        }
+    }
+
+    /**
+     * @return The job's result or the error its engine failed with, or null if the coordinator dropped the job.
+     */
+    private ClusterProtocol.Outcome execute(ClusterProtocol.Job job, ClusterProtocol.Grant grant,
+                                            CancellationToken cancellation) {
+        String jobId = job.jobId();
+        try {
+            OptimizationProblem problem = job.problem().toProblem();
+            Long deadline = grant.remainingMillis() != null ? System.nanoTime() + grant.remainingMillis() * 1_000_000 : null;
+            StoppingRule stoppingRule = StoppingRule.atTarget(job.stopAt()).withDeadline(deadline);
+            WarmStart warmStart = WarmStart.of(problem, job.seedPlan(), job.seedPheromone());
+            ProgressListener relay = new ProgressRelay(jobId, cancellation);
+            logger.info("Running " + job.algorithm() + " job " + jobId + " of simulation " + job.simulationId()
+                    + " over " + problem.size() + " products");
+            EngineRun run = "GA".equalsIgnoreCase(job.algorithm())
+                    ? gaService.runInProcess(problem, job.settings().toRequest(), stoppingRule, warmStart, relay, cancellation)
+                    : antColonyService.runInProcess(problem, job.settings().toRequest(), stoppingRule, warmStart, relay, cancellation);
+            WarmStart finalState = run.finalState();
+            return new ClusterProtocol.Outcome(workerId, quantities(run.result()),
+                    Boolean.TRUE.equals(run.result().getPartial()), null,
+                    finalState != null ? finalState.seedPlan(problem) : null,
+                    finalState != null ? finalState.seedPheromone(problem) : null);
+        } catch (CancellationException e) {
+            logger.info("Job " + jobId + " was dropped by the coordinator while it ran");
+            return null;
+        } catch (RuntimeException e) {
+            // Any engine failure is the job's result, so the simulation fails instead of waiting for it forever
+            logger.error(job.algorithm() + " job " + jobId + " failed on worker " + workerId + ": " + e.getMessage(), e);
+            return new ClusterProtocol.Outcome(workerId, null, false,
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), null, null);
+        }
+    }
+
+    /**
+     * Sends a result, retrying with backoff while the coordinator is unreachable.
+     */
+    private void deliver(String jobId, ClusterProtocol.Outcome outcome) throws InterruptedException {
+        long backoff = 1000;
+        for (int attempt = 1; attempt <= RESULT_ATTEMPTS; attempt++) {
+            try {
+                if (send("/jobs/" + jobId + "/result", outcome) == null) {
+                    logger.info("Result of job " + jobId + " was discarded, the job had been handed to another worker");
+                }
+                return;
+            } catch (IOException e) {
+                unreachable(e);
+                Thread.sleep(backoff);
+                backoff *= 2;
+            }
+        }
+        // The job is dropped from the heartbeats once this returns, so the coordinator runs it again
+        logger.error("Gave up delivering the result of job " + jobId + " after " + RESULT_ATTEMPTS + " attempts");
+    }
+
+    private void heartbeat() {
+        List<String> jobIds = new ArrayList<>(running.keySet());
+        for (ClusterProtocol.Job job : waiting) {
+            jobIds.add(job.jobId());
+        }
+        try {
+            byte[] body = send("/heartbeat", new ClusterProtocol.Heartbeat(workerId, slots, jobIds));
+            if (!coordinatorReachable) {
+                coordinatorReachable = true;
+                logger.info("Coordinator " + coordinatorUrl + " is reachable again");
+            }
+            ClusterProtocol.HeartbeatReply reply = mapper.readValue(body, ClusterProtocol.HeartbeatReply.class);
+            for (String jobId : reply.dropJobIds()) {
+                if (waiting.removeIf(job -> job.jobId().equals(jobId))) {
+                    held.decrementAndGet();
+                }
+                CancellationToken cancellation = running.get(jobId);
+                if (cancellation != null) {
+                    cancellation.cancel();
+                }
+            }
+        } catch (IOException e) {
+            unreachable(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The response body, or null if the coordinator answered 409 because the job is no longer this worker's.
+     * @throws IOException If the coordinator could not be reached or answered with another error.
+     */
+    private byte[] send(String path, Object message) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(coordinatorUrl + "/api/cluster" + path))
+                .timeout(Duration.ofSeconds(pollWaitSeconds + 30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(message)));
+        if (!token.isEmpty()) {
+            request.header(ClusterProtocol.TOKEN_HEADER, token);
+        }
+        HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 409) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Coordinator answered " + response.statusCode() + " to " + path);
+        }
+        return response.body();
+    }
+
+    private void unreachable(IOException e) {
+        if (coordinatorReachable) {
+            coordinatorReachable = false;
+            logger.warn("Coordinator " + coordinatorUrl + " is unreachable: " + e.getMessage());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The engines list every product of the problem in order, so the plan is read back by position.
+     */
+    private static int[] quantities(SimulationResult result) {
+        List<ProductResult> products = result.getProducts();
+        int[] quantities = new int[products.size()];
+        for (int j = 0; j < quantities.length; j++) {
+            quantities[j] = products.get(j).getQuantity();
+        }
+        return quantities;
+    }
+
+    /**
+     * Forwards an engine's progress, together with its latest incumbent, at most once per progress interval.
+     * The engine thread only records the report; the progress sender posts it, so a slow coordinator never holds
+     * up the engine. A report that is still waiting is replaced by the newer one, keeping any unsent incumbent.
+     * Cancels the job if the coordinator no longer counts it as this worker's.
+     */
+    private final class ProgressRelay implements ProgressListener {
+        private final String jobId;
+        private final CancellationToken cancellation;
+        // Guarded by this
+        private long lastReportedAt;
+        private double progress;
+        private double estimatedTimeRemaining;
+        private Double objective;
+        private int[] incumbent;
+        private boolean pending; // A report waits for the progress sender
+
+        ProgressRelay(String jobId, CancellationToken cancellation) {
+            this.jobId = jobId;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        public void onProgress(double progress, double estimatedTimeRemaining) {
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (lastReportedAt != 0 && now - lastReportedAt < progressIntervalMillis * 1_000_000 && progress < 100.0) {
+                    return;
+                }
+                lastReportedAt = now;
+                this.progress = progress;
+                this.estimatedTimeRemaining = estimatedTimeRemaining;
+                if (pending) {
+                    return;
+                }
+                pending = true;
+            }
+            progressSender.execute(this::post);
+        }
+
+        @Override
+        public synchronized void onIncumbent(double objective, int[] quantities) {
+            this.objective = objective;
+            this.incumbent = quantities.clone();
+        }
+
+        private void post() {
+            ClusterProtocol.Progress report;
+            synchronized (this) {
+                pending = false;
+                report = new ClusterProtocol.Progress(workerId, progress, estimatedTimeRemaining, objective, incumbent);
+                objective = null;
+                incumbent = null;
+            }
+            try {
+                if (send("/jobs/" + jobId + "/progress", report) == null) {
+                    cancellation.cancel();
+                }
+            } catch (IOException e) {
+                unreachable(e); // Progress is best effort; the result is retried
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // The worker is stopping
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationResult;
+
+/**
+ * Outcome of one in-process engine run outside a simulation, e.g. one point of a parameter sweep.
+ * @param finalState What the engine left for a later run to warm-start from, or null.
+ * @param elapsedNanos Wall-clock time of the run.
+ */
+public record EngineRun(SimulationResult result, WarmStart finalState, long elapsedNanos) {
+}
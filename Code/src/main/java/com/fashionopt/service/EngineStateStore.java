@@ -0,0 +1,97 @@
+package com.fashionopt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the final engine state of recent simulations, so a request naming one as its {@code baseSimulationId}
+ * can warm-start from it. The GA and ACO parts of a simulation are recorded as each engine finishes and merged.
+ * States are dropped once the retention window has passed since they were last recorded, and the least recently
+ * used ones go first while they take more than the size limit.
+ */
+@Service
+public class EngineStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(EngineStateStore.class);
+
+    @Value("${fashionopt.warm-start.retention-minutes:30}")
+    private long retentionMinutes;
+
+    @Value("${fashionopt.warm-start.max-megabytes:256}")
+    private long maxMegabytes;
+
+    // Access-ordered, so iteration starts at the least recently used state
+    private final LinkedHashMap<String, Entry> states = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private record Entry(WarmStart state, long recordedAt) {
+    }
+
+    /**
+     * @param state The final state of one engine of the simulation; ignored if null.
+     */
+    public synchronized void record(String simulationId, WarmStart state) {
+        if (state == null) {
+            return;
+        }
+        Entry previous = states.get(simulationId);
+        WarmStart merged = previous != null ? previous.state().merge(state) : state;
+        states.put(simulationId, new Entry(merged, System.currentTimeMillis()));
+        bytes += merged.estimatedBytes() - (previous != null ? previous.state().estimatedBytes() : 0);
+
+        long maxBytes = maxMegabytes * 1024 * 1024;
+        Iterator<Map.Entry<String, Entry>> eldest = states.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> entry = eldest.next();
+            if (entry.getKey().equals(simulationId)) {
+                continue;
+            }
+            bytes -= entry.getValue().state().estimatedBytes();
+            eldest.remove();
+            logger.debug("Dropped engine state of simulation " + entry.getKey() + " to stay within the size limit");
+        }
+    }
+
+    /**
+     * @return The retained state of the simulation, or null if it never finished an in-process run or has expired.
+     */
+    public synchronized WarmStart get(String simulationId) {
+        if (simulationId == null) {
+            return null;
+        }
+        Entry entry = states.get(simulationId);
+        if (entry == null || entry.recordedAt() < System.currentTimeMillis() - retentionMinutes * 60_000) {
+            return null;
+        }
+        return entry.state();
+    }
+
+    /**
+     * Removes the states recorded longer ago than the retention window.
+     * @return The number of states removed.
+     */
+    public synchronized int evictExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMinutes * 60_000;
+        int evicted = 0;
+        Iterator<Entry> it = states.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.recordedAt() < cutoff) {
+                bytes -= entry.state().estimatedBytes();
+                it.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public synchronized int size() {
+        return states.size();
+    }
+}
@@ -0,0 +1,444 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationResult;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Exact branch-and-bound solver for the bounded multi-constraint knapsack behind every simulation: maximise
+ * penalised profit subject to the production, marketing and logistics budgets, the shelf space left after
+ * remaining stock (as GA.py counts it) and each product's demand cap.
+ * <p>
+ * The {@link LinearRelaxation} is solved once and its dual prices fold the four resources into one surrogate
+ * resource. Products are branched on in order of profit per unit of that resource, trying the largest quantity
+ * first, and a node is pruned with the LP bounds of surrogate problems: the fractional knapsack over the combined
+ * resource, which equals the LP bound at the root, and the fractional knapsack over each resource alone. Every
+ * surrogate is a relaxation of the real constraints, so the smallest of their bounds is still an upper bound.
+ * The search starts from the rounded LP optimum and gives up after a node limit, in which case the best plan
+ * found so far is returned without the optimality flag. A passed {@link StoppingRule} deadline ends it the same
+ * way and also flags the plan as partial; the rule's optimality gap is ignored, since the point is the optimum.
+ */
+public class ExactKnapsackEngine implements OptimizationEngine {
+
+    private static final int RESOURCES = 4;
+    private static final int CANCELLATION_CHECK_INTERVAL = 4096; // Nodes between cancellation and deadline checks
+    private static final double EPSILON = 1e-9;
+
+    private final long nodeLimit;
+    private final StoppingRule stoppingRule;
+    private volatile long exploredNodes;
+    private volatile long evaluations;
+
+    /**
+     * @param nodeLimit Search nodes after which the solver stops and returns its best plan as not optimal.
+     */
+    public ExactKnapsackEngine(long nodeLimit) {
+        this(nodeLimit, StoppingRule.NONE);
+    }
+
+    public ExactKnapsackEngine(long nodeLimit, StoppingRule stoppingRule) {
+        this.nodeLimit = nodeLimit;
+        this.stoppingRule = stoppingRule;
+    }
+
+    @Override
+    public String getAlgorithmType() {
+        return "EXACT";
+    }
+
+    @Override
+    public long getCompletedIterations() {
+        return exploredNodes;
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @throws IllegalArgumentException If a product has a negative cost or shelf space, which the bounds cannot handle.
+     */
+    @Override
+    public SimulationResult optimize(OptimizationProblem problem, ProgressListener progressListener,
+                                     CancellationToken cancellation) {
+        exploredNodes = 0;
+        evaluations = 0;
+        Search search = new Search(problem, nodeLimit, stoppingRule, cancellation);
+        boolean optimal = search.run();
+        exploredNodes = search.nodes;
+        evaluations = search.leaves;
+        progressListener.onProgress(100.0, 0.0);
+
+        SimulationResult result = problem.toResult(search.best);
+        result.setOptimal(optimal);
+        if (search.pastDeadline) {
+            result.setPartial(true);
+        }
+        return result;
+    }
+
+    /**
+     * State of one depth-first search. Arrays indexed by position hold the products still free after bound
+     * tightening, in branching order, as units above their floor; {@code items} maps a position back to the product.
+     */
+    private static final class Search {
+
+        private final OptimizationProblem problem;
+        private final long nodeLimit;
+        private final StoppingRule stoppingRule;
+        private final CancellationToken cancellation;
+
+        private final double[] limit = new double[RESOURCES];
+        private final double[] weight = new double[RESOURCES]; // Surrogate multiplier of each resource: its LP dual price
+        private int[] items;
+        private double[] profit;
+        private int[] upper;
+        private double[][] usage; // Per resource, by position
+        private double[] combinedUsage; // Weighted sum of usage, by position
+        private int[][] resourceOrder; // Per resource, positions by profit per unit of that resource
+        private int[] caps; // Largest quantity of each product worth trying
+        private int[] floors; // Smallest quantity of each product worth trying
+
+        private final double[] used = new double[RESOURCES];
+        private double value;
+        private int[] quantities; // By position
+        private final int[] best; // By product
+        private double bestValue;
+
+        private long nodes;
+        private long leaves;
+        private boolean aborted;
+        private boolean pastDeadline;
+
+        Search(OptimizationProblem problem, long nodeLimit, StoppingRule stoppingRule, CancellationToken cancellation) {
+            this.problem = problem;
+            this.nodeLimit = nodeLimit;
+            this.stoppingRule = stoppingRule;
+            this.cancellation = cancellation;
+            this.best = new int[problem.size()];
+        }
+
+        /**
+         * @return true if the search finished, so {@link #best} is optimal.
+         */
+        boolean run() {
+            limit[0] = problem.getProductionBudget();
+            limit[1] = problem.getMarketingBudget();
+            limit[2] = problem.getLogisticsBudget();
+            limit[3] = problem.getShelfCapacity() - problem.getExistingShelfUse();
+            for (double l : limit) {
+                if (l < 0) {
+                    return false; // Not even the empty plan fits
+                }
+            }
+            int[] candidates = tightenBounds();
+            LinearRelaxation relaxation = LinearRelaxation.solve(problem, limit[3], toDouble(caps));
+            startFromRelaxation(relaxation.getQuantities());
+            fixByReducedCost(candidates, relaxation);
+            prepare(candidates, relaxation.getDuals());
+
+            if (!fitsBase()) {
+                return true; // Products fixed by reduced cost cannot all fit, so nothing beats the incumbent
+            }
+            if (items.length > 0 && value + bound(0) > bestValue + tolerance()) {
+                search(0);
+            }
+            return !aborted;
+        }
+
+        /**
+         * Caps every product by its demand and by how many units each limit allows on its own.
+         * @return The products that earn money and fit at least once; all others stay at zero.
+         */
+        private int[] tightenBounds() {
+            double[][] productUsage = {problem.getProductionCost(), problem.getMarketingCost(),
+                    problem.getLogisticsCost(), problem.getShelfSpace()};
+            double[] netProfit = problem.getNetProfit();
+            int[] maxQuantity = problem.getMaxQuantity();
+            int n = problem.size();
+            int[] candidates = new int[n];
+            int count = 0;
+            caps = new int[n];
+            floors = new int[n];
+            for (int i = 0; i < n; i++) {
+                double cap = maxQuantity[i];
+                for (int k = 0; k < RESOURCES; k++) {
+                    double a = productUsage[k][i];
+                    if (a < 0) {
+                        throw new IllegalArgumentException("The exact solver needs non-negative costs and shelf space, but product '"
+                                + problem.getNames()[i] + "' has a negative value");
+                    }
+                    if (a > 0) {
+                        cap = Math.min(cap, Math.floor(limit[k] / a));
+                    }
+                }
+                if (netProfit[i] > 0 && cap >= 1) {
+                    caps[i] = (int) cap;
+                    candidates[count++] = i;
+                }
+            }
+            return Arrays.copyOf(candidates, count);
+        }
+
+        /**
+         * Starts from the LP optimum rounded down and filled greedily. At most four LP quantities are fractional, so
+         * this plan is usually within a few units of the optimum and weak branches are pruned from the start.
+         */
+        private void startFromRelaxation(double[] relaxedQuantities) {
+            SolutionState rounded = new SolutionState(problem, limit[3]);
+            for (int i = 0; i < rounded.size(); i++) {
+                rounded.set(i, (int) Math.floor(relaxedQuantities[i] + EPSILON));
+            }
+            new GreedyRepair(problem, caps).repair(rounded, i -> { });
+            if (rounded.isFeasible()) {
+                System.arraycopy(rounded.quantities(), 0, best, 0, best.length);
+                bestValue = rounded.getObjective();
+            }
+        }
+
+        /**
+         * Reduced-cost fixing: moving a product away from its LP bound by one unit costs at least its reduced cost,
+         * so no plan that beats the incumbent moves it further than the gap to the LP bound allows. Products the LP
+         * takes fully keep a floor, products it leaves out get a lower cap. The gap is measured from the dual bound of
+         * the same prices the reduced costs use, so the fixing stays valid when the LP stopped before its optimum.
+         */
+        private void fixByReducedCost(int[] candidates, LinearRelaxation relaxation) {
+            double gap = relaxation.getBound() - bestValue + tolerance(); // The dual bound, not the LP's primal value
+            double[] duals = relaxation.getDuals();
+            double[][] productUsage = {problem.getProductionCost(), problem.getMarketingCost(),
+                    problem.getLogisticsCost(), problem.getShelfSpace()};
+            for (int i : candidates) {
+                double reducedCost = problem.getNetProfit()[i];
+                for (int k = 0; k < RESOURCES; k++) {
+                    reducedCost -= duals[k] * productUsage[k][i];
+                }
+                if (reducedCost > EPSILON) {
+                    floors[i] = (int) Math.max(0.0, caps[i] - Math.floor(gap / reducedCost));
+                } else if (reducedCost < -EPSILON) {
+                    caps[i] = (int) Math.min(caps[i], Math.floor(gap / -reducedCost));
+                }
+            }
+        }
+
+        /**
+         * Moves the floors into the starting totals and lays out the products left to branch on.
+         */
+        private void prepare(int[] candidates, double[] duals) {
+            double[][] productUsage = {problem.getProductionCost(), problem.getMarketingCost(),
+                    problem.getLogisticsCost(), problem.getShelfSpace()};
+            double[] netProfit = problem.getNetProfit();
+            System.arraycopy(duals, 0, weight, 0, RESOURCES);
+
+            int count = 0;
+            double[] ratio = new double[problem.size()];
+            for (int i : candidates) {
+                value += netProfit[i] * floors[i];
+                double s = 0.0;
+                for (int k = 0; k < RESOURCES; k++) {
+                    used[k] += productUsage[k][i] * floors[i];
+                    s += weight[k] * productUsage[k][i];
+                }
+                ratio[i] = s > 0 ? netProfit[i] / s : Double.POSITIVE_INFINITY;
+                if (caps[i] > floors[i]) {
+                    candidates[count++] = i;
+                }
+            }
+            items = IntStream.of(Arrays.copyOf(candidates, count)).boxed()
+                    .sorted(Comparator.<Integer>comparingDouble(i -> -ratio[i]).thenComparingInt(i -> i))
+                    .mapToInt(Integer::intValue).toArray();
+
+            int m = items.length;
+            profit = new double[m];
+            upper = new int[m];
+            usage = new double[RESOURCES][m];
+            combinedUsage = new double[m];
+            quantities = new int[m];
+            for (int j = 0; j < m; j++) {
+                int i = items[j];
+                profit[j] = netProfit[i];
+                upper[j] = caps[i] - floors[i]; // Units above the floor
+                for (int k = 0; k < RESOURCES; k++) {
+                    usage[k][j] = productUsage[k][i];
+                    combinedUsage[j] += weight[k] * productUsage[k][i];
+                }
+            }
+            resourceOrder = new int[RESOURCES][];
+            for (int k = 0; k < RESOURCES; k++) {
+                double[] a = usage[k];
+                resourceOrder[k] = IntStream.range(0, m).boxed()
+                        .sorted(Comparator.<Integer>comparingDouble(j -> a[j] > 0 ? -profit[j] / a[j] : Double.NEGATIVE_INFINITY)
+                                .thenComparingInt(j -> j))
+                        .mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        private boolean fitsBase() {
+            for (int k = 0; k < RESOURCES; k++) {
+                if (used[k] > limit[k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static double[] toDouble(int[] values) {
+            double[] result = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = values[i];
+            }
+            return result;
+        }
+
+        /**
+         * Branches on the product at {@code depth}, whose suffix bound is known to beat the incumbent.
+         */
+        private void search(int depth) {
+            if (++nodes % CANCELLATION_CHECK_INTERVAL == 0) {
+                cancellation.throwIfCancelled();
+                if (stoppingRule.isPastDeadline()) {
+                    pastDeadline = true;
+                    aborted = true;
+                    return;
+                }
+            }
+            if (nodes > nodeLimit) {
+                aborted = true;
+                return;
+            }
+            if (depth == items.length) {
+                leaves++;
+                if (value > bestValue) {
+                    bestValue = value;
+                    System.arraycopy(floors, 0, best, 0, best.length);
+                    for (int j = 0; j < items.length; j++) {
+                        best[items[j]] += quantities[j];
+                    }
+                }
+                return;
+            }
+
+            int j = depth;
+            int max = upper[j];
+            for (int k = 0; k < RESOURCES; k++) {
+                if (usage[k][j] > 0) {
+                    max = (int) Math.min(max, Math.floor((limit[k] - used[k]) / usage[k][j]));
+                }
+            }
+            while (max > 0 && !fits(j, max)) {
+                max--; // The division can round up by one unit
+            }
+
+            for (int q = max; q >= 0 && !aborted; q--) {
+                apply(j, q);
+                double target = bestValue + tolerance() - value;
+                if (combinedBound(depth + 1) <= target) {
+                    // Lowering q only frees capacity for products earning less per unit, so no later q can win
+                    apply(j, 0);
+                    break;
+                }
+                if (resourceBound(depth + 1, target)) {
+                    search(depth + 1);
+                }
+                apply(j, 0);
+            }
+        }
+
+        private boolean fits(int j, int quantity) {
+            for (int k = 0; k < RESOURCES; k++) {
+                if (used[k] + usage[k][j] * quantity > limit[k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void apply(int j, int quantity) {
+            int delta = quantity - quantities[j];
+            if (delta == 0) {
+                return;
+            }
+            quantities[j] = quantity;
+            value += profit[j] * delta;
+            for (int k = 0; k < RESOURCES; k++) {
+                used[k] += usage[k][j] * delta;
+            }
+        }
+
+        private double tolerance() {
+            return EPSILON * Math.max(1.0, Math.abs(bestValue));
+        }
+
+        /**
+         * @return The smallest surrogate bound on the profit the products from {@code from} onwards can add.
+         */
+        private double bound(int from) {
+            double bound = combinedBound(from);
+            for (int k = 0; k < RESOURCES; k++) {
+                bound = Math.min(bound, singleResourceBound(k, from));
+            }
+            return bound;
+        }
+
+        /**
+         * @return true if no single-resource bound of the suffix is at or below {@code target}.
+         */
+        private boolean resourceBound(int from, double target) {
+            for (int k = 0; k < RESOURCES; k++) {
+                if (singleResourceBound(k, from) <= target) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Fractional knapsack over the combined resource; positions are already sorted by its profit ratio.
+         */
+        private double combinedBound(int from) {
+            double capacity = 0.0;
+            for (int k = 0; k < RESOURCES; k++) {
+                capacity += weight[k] * Math.max(0.0, limit[k] - used[k]);
+            }
+            double bound = 0.0;
+            for (int j = from; j < items.length; j++) {
+                double s = combinedUsage[j];
+                if (s <= 0) {
+                    bound += profit[j] * upper[j];
+                    continue;
+                }
+                if (capacity <= 0) {
+                    break;
+                }
+                double take = Math.min(upper[j], capacity / s);
+                bound += profit[j] * take;
+                capacity -= s * take;
+            }
+            return bound;
+        }
+
+        private double singleResourceBound(int k, int from) {
+            double capacity = Math.max(0.0, limit[k] - used[k]);
+            double[] a = usage[k];
+            double bound = 0.0;
+            for (int j : resourceOrder[k]) {
+                if (j < from) {
+                    continue;
+                }
+                if (a[j] <= 0) {
+                    bound += profit[j] * upper[j];
+                    continue;
+                }
+                if (capacity <= 0) {
+                    break;
+                }
+                double take = Math.min(upper[j], capacity / a[j]);
+                bound += profit[j] * take;
+                capacity -= a[j] * take;
+            }
+            return bound;
+        }
+    }
+}
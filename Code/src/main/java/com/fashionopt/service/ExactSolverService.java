@@ -0,0 +1,78 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Solves small and medium catalogs exactly with {@link ExactKnapsackEngine} and stores the plan next to the GA and
+ * ACO results, as a reference for how close the metaheuristics got. Larger catalogs are skipped.
+ */
+@Service
+public class ExactSolverService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExactSolverService.class);
+
+    @Autowired
+    private SimulationStatusService simulationStatusService;
+
+    @Autowired
+    private SimulationMetrics simulationMetrics;
+
+    @Value("${fashionopt.exact.enabled:true}")
+    private boolean enabled;
+
+    // Catalogs with more products than this are left to the metaheuristics
+    @Value("${fashionopt.exact.max-products:200}")
+    private int maxProducts;
+
+    @Value("${fashionopt.exact.node-limit:2000000}")
+    private long nodeLimit;
+
+    // The GA waits for the reference on its lane, so the search gets only this long before it returns its best plan
+    @Value("${fashionopt.exact.time-budget-ms:1000}")
+    private long timeBudgetMillis;
+
+    /**
+     * Runs the exact solver if the catalog is small enough and records its result with the simulation.
+     * @param deadline {@link System#nanoTime()} value by which the simulation must finish, or null. The GA runs
+     *                 after the reference on the same lane, so the reference gets its own time budget and never more
+     *                 than half of the time left.
+     * @return The reference result, or null if the solver was skipped, failed or the simulation was terminated.
+     */
+    public SimulationResult runReference(String simulationId, OptimizationProblem problem, Long deadline) {
+        if (!enabled || problem.size() > maxProducts) {
+            return null;
+        }
+        try {
+            long budget = timeBudgetMillis * 1_000_000;
+            if (deadline != null) {
+                budget = Math.min(budget, Math.max(0L, deadline - System.nanoTime()) / 2);
+            }
+            Long ownDeadline = System.nanoTime() + budget;
+            ExactKnapsackEngine engine = new ExactKnapsackEngine(nodeLimit, StoppingRule.NONE.withDeadline(ownDeadline));
+            long startTime = System.nanoTime();
+            // The reference always runs to proven optimality, so it ignores the engines' optimality gap
+            SimulationResult result = problem.withBound(engine.optimize(problem, ProgressListener.NONE,
+                    simulationStatusService.getCancellationToken(simulationId)),
+                    problem.getShelfCapacity() - problem.getExistingShelfUse()); // Same shelf limit as the GA
+            long elapsed = System.nanoTime() - startTime;
+            simulationMetrics.recordEngineRun(engine, problem.getCatalog().size(), elapsed);
+            logger.info("Exact solver for simulation " + simulationId + " explored " + engine.getCompletedIterations()
+                    + " nodes in " + elapsed / 1_000_000 + " ms" + (Boolean.TRUE.equals(result.getOptimal()) ? "" : " without proving optimality"));
+            simulationStatusService.updateReference(simulationId, result);
+            return result;
+        } catch (CancellationException e) {
+            logger.info("Exact solver for simulation " + simulationId + " stopped after it was terminated");
+        } catch (IllegalArgumentException e) {
+            // The reference is optional, so a catalog it cannot handle does not fail the simulation
+            logger.warn("Skipping exact solver for simulation " + simulationId + ": " + e.getMessage());
+        }
+        return null;
+    }
+}
@@ -1,19 +1,154 @@
 package com.fashionopt.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Stores uploads by content: each file is hashed with SHA-256 while it streams to disk and kept as
+ * {@code <hash>.<extension>}, so uploading the same catalog again reuses the stored copy.
+ * <p>
+ * Every stored upload is leased to the simulation that stored it until {@link #release(StoredUpload)}.
+ * {@link #deleteExpired()} removes files that are not leased and have not been uploaded again for the TTL.
+ */
 @Service
 public class FileStorageService {
 
-    public Path storeFile(MultipartFile file) throws IOException {
-        Path tempDir = Files.createTempDirectory("fashionopt");
-        Path filePath = tempDir.resolve(file.getOriginalFilename());
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        return filePath;
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+
+    // Defaults to a fashionopt-uploads directory under the system temp directory
+    @Value("${fashionopt.storage.upload-dir:}")
+    private String uploadDir;
+
+    @Value("${fashionopt.storage.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final Map<Path, Integer> leases = new HashMap<>(); // Stored file -> simulations still using it
+    private final AtomicLong deletedFiles = new AtomicLong();
+
+    /**
+     * Disk usage of the upload directory as of the last sweep.
+     */
+    public record Usage(long files, long bytes) {
+    }
+
+    /**
+     * Stores the upload, or reuses the stored copy of identical content, and leases it to the caller.
+     */
+    public StoredUpload storeFile(MultipartFile file) throws IOException {
+        Path dir = uploadDirectory();
+        Path tempFile = Files.createTempFile(dir, "upload", ".part");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            // The Python scripts pick their reader from the extension, so it is kept
+            Path filePath = dir.resolve(hash + extension(file.getOriginalFilename()));
+            synchronized (leases) {
+                if (Files.exists(filePath)) {
+                    Files.setLastModifiedTime(filePath, FileTime.fromMillis(System.currentTimeMillis())); // Restart its TTL
+                } else {
+                    try {
+                        Files.move(tempFile, filePath, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // Stored concurrently by an identical upload
+                    }
+                }
+                leases.merge(filePath, 1, Integer::sum);
+            }
+            return new StoredUpload(filePath, hash);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Ends the lease taken by {@link #storeFile(MultipartFile)} once the simulation no longer reads the file.
+     */
+    public void release(StoredUpload upload) {
+        synchronized (leases) {
+            leases.computeIfPresent(upload.path(), (path, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Deletes stored uploads, and partial files left by failed uploads, that are not leased and were last
+     * written more than the TTL ago.
+     * @return The files left in the upload directory.
+     */
+    public Usage deleteExpired() throws IOException {
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000;
+        long files = 0;
+        long bytes = 0;
+        synchronized (leases) {
+            try (DirectoryStream<Path> stored = Files.newDirectoryStream(uploadDirectory())) {
+                for (Path path : stored) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (!attributes.isRegularFile()) {
+                        continue;
+                    }
+                    if (!leases.containsKey(path) && attributes.lastModifiedTime().toMillis() < cutoff
+                            && Files.deleteIfExists(path)) {
+                        deletedFiles.incrementAndGet();
+                        logger.debug("Deleted expired upload " + path.getFileName());
+                    } else {
+                        files++;
+                        bytes += attributes.size();
+                    }
+                }
+            }
+        }
+        return new Usage(files, bytes);
+    }
+
+    /**
+     * @return The number of uploads deleted by {@link #deleteExpired()} since start-up.
+     */
+    public long getDeletedCount() {
+        return deletedFiles.get();
+    }
+
+    private Path uploadDirectory() throws IOException {
+        Path dir = uploadDir == null || uploadDir.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "fashionopt-uploads")
+                : Path.of(uploadDir);
+        return Files.createDirectories(dir);
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase();
+        return extension.matches("[a-z0-9]{1,8}") ? "." + extension : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,726 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process port of GA.py: same demand/budget/shelf repair, penalised fitness, tournament selection,
+ * one-point crossover and bit-flip mutation. Chromosomes are packed into {@code long[]} words instead of
+ * '0'/'1' strings and decoded straight into {@code int[]} quantities, whose costs and fitness are maintained
+ * incrementally as the operators change them.
+ * <p>
+ * With an {@link IslandModel} the engine evolves several independent populations in parallel on a
+ * {@link ForkJoinPool} and exchanges their elites every few generations.
+ * <p>
+ * A {@link StoppingRule} ends the run before GENERATIONS once the best chromosome is close enough to the
+ * LP bound; in island mode the first island to get there stops the others at their next generation. When the
+ * rule's deadline passes, the best chromosome so far is returned as a partial result.
+ * <p>
+ * A {@link WarmStart} from an earlier run fills half of every initial population with that run's best plan and
+ * mutated copies of it; the rest is random as usual, so the population keeps its diversity. A warm-started run
+ * begins close to where the earlier one ended, so it also stops once its best has stalled for a few generations,
+ * much like ant.py's early stopping.
+ */
+public class GeneticAlgorithmEngine implements OptimizationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneticAlgorithmEngine.class);
+
+    // GA Configuration (same values as GA.py)
+    static final int POPULATION_SIZE = 50;
+    static final int GENERATIONS = 100;
+    static final double CROSSOVER_RATE = 0.7;
+    static final double MUTATION_RATE = 0.01;
+    static final int TOURNAMENT_SIZE = 3;
+
+    // Number of elites each island sends to its neighbour on every migration
+    static final int MIGRANTS = 2;
+
+    // Chromosomes of a warm-started population taken from the previous best plan and its neighbours
+    static final int WARM_START_SEEDS = POPULATION_SIZE / 2;
+    // A warm-started run stops after this many generations without improving its best by STALL_TOLERANCE
+    static final int WARM_START_STALL_GENERATIONS = 10;
+    static final double STALL_TOLERANCE = 1e-3;
+
+    public enum MigrationTopology {
+        RING, RANDOM
+    }
+
+    /**
+     * Island mode settings: how many sub-populations to run, how often they migrate and where to.
+     */
+    public record IslandModel(int islandCount, int migrationInterval, MigrationTopology topology, ForkJoinPool pool) {
+    }
+
+    private final int bitsPerProduct;
+    private final SplittableRandom random;
+    private final IslandModel islandModel;
+    private final RepairPolicy repairPolicy;
+    private final StoppingRule stoppingRule;
+    private final WarmStart warmStart;
+    private volatile long completedGenerations;
+    private volatile long evaluations;
+    private volatile boolean partial;
+    private volatile WarmStart finalState;
+
+    public GeneticAlgorithmEngine(int bitsPerProduct) {
+        this(bitsPerProduct, new SplittableRandom(), null);
+    }
+
+    public GeneticAlgorithmEngine(int bitsPerProduct, SplittableRandom random, IslandModel islandModel) {
+        this(bitsPerProduct, random, islandModel, RepairPolicy.UNIT_DECREMENT);
+    }
+
+    /**
+     * @param repairPolicy How chromosomes over the budgets or shelf capacity are repaired; NONE is treated as
+     *                     UNIT_DECREMENT, since every chromosome must be feasible to compete.
+     */
+    public GeneticAlgorithmEngine(int bitsPerProduct, SplittableRandom random, IslandModel islandModel,
+                                  RepairPolicy repairPolicy) {
+        this(bitsPerProduct, random, islandModel, repairPolicy, StoppingRule.NONE);
+    }
+
+    public GeneticAlgorithmEngine(int bitsPerProduct, SplittableRandom random, IslandModel islandModel,
+                                  RepairPolicy repairPolicy, StoppingRule stoppingRule) {
+        this(bitsPerProduct, random, islandModel, repairPolicy, stoppingRule, null);
+    }
+
+    /**
+     * @param warmStart State of an earlier run to seed the populations with, or null to start from random ones.
+     */
+    public GeneticAlgorithmEngine(int bitsPerProduct, SplittableRandom random, IslandModel islandModel,
+                                  RepairPolicy repairPolicy, StoppingRule stoppingRule, WarmStart warmStart) {
+        this.bitsPerProduct = bitsPerProduct;
+        this.random = random;
+        this.islandModel = islandModel;
+        this.repairPolicy = repairPolicy == RepairPolicy.NONE ? RepairPolicy.UNIT_DECREMENT : repairPolicy;
+        this.stoppingRule = stoppingRule;
+        this.warmStart = warmStart;
+    }
+
+    @Override
+    public String getAlgorithmType() {
+        return "GA";
+    }
+
+    /**
+     * @return The best plan of the last run, for a later run to start from, or null before the first run ends.
+     */
+    public WarmStart getFinalState() {
+        return finalState;
+    }
+
+    @Override
+    public long getCompletedIterations() {
+        return completedGenerations;
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    @Override
+    public SimulationResult optimize(OptimizationProblem problem, ProgressListener progressListener,
+                                     CancellationToken cancellation) {
+        completedGenerations = 0;
+        evaluations = 0;
+        partial = false;
+        finalState = null;
+        if (problem.size() == 0) {
+            return problem.toResult(new int[0]);
+        }
+        // A segment cannot hold more than its bit width allows, so filling stops there as well as at demand
+        int segmentMax = bitsPerProduct >= 31 ? Integer.MAX_VALUE : (1 << bitsPerProduct) - 1;
+        int[] upperBound = new int[problem.size()];
+        for (int i = 0; i < upperBound.length; i++) {
+            upperBound[i] = Math.min(problem.getMaxQuantity()[i], segmentMax);
+        }
+        RepairOperator repair = RepairOperator.forPolicy(repairPolicy, problem, upperBound, cancellation);
+        int[] seed = warmStart != null ? warmStart.seedPlan(problem) : null;
+        if (seed != null) {
+            for (int i = 0; i < seed.length; i++) {
+                seed[i] = Math.min(seed[i], upperBound[i]);
+            }
+        }
+
+        Island best = islandModel == null
+                ? runSinglePopulation(problem, repair, seed, progressListener, cancellation)
+                : runIslands(problem, repair, seed, progressListener, cancellation);
+        progressListener.onProgress(100.0, 0.0);
+
+        logger.debug("GA finished with best penalised profit " + best.bestFitness);
+        finalState = WarmStart.ofPlan(problem, best.best.quantities());
+        SimulationResult result = problem.toResult(best.best.quantities());
+        if (partial) {
+            result.setPartial(true);
+        }
+        return result;
+    }
+
+    private Island runSinglePopulation(OptimizationProblem problem, RepairOperator repair, int[] seed,
+                                       ProgressListener progressListener, CancellationToken cancellation) {
+        Island island = new Island(problem, bitsPerProduct, repair, random, stoppingRule, seed, cancellation);
+        long startTime = System.nanoTime();
+        double reported = Double.NEGATIVE_INFINITY;
+        double stallReference = Double.NEGATIVE_INFINITY;
+        int stalled = 0;
+        for (int g = 0; g < GENERATIONS; g++) {
+            cancellation.throwIfCancelled();
+            reportProgress(progressListener, g, startTime);
+            island.evaluate();
+            completedGenerations = g + 1;
+            evaluations += POPULATION_SIZE;
+            if (island.bestFitness > reported) {
+                reported = island.bestFitness;
+                progressListener.onIncumbent(reported, island.best.quantities());
+            }
+            if (stoppingRule.isSatisfied(island.bestFitness)) {
+                logger.debug("GA reached the optimality gap after " + (g + 1) + " generations");
+                break;
+            }
+            if (seed != null) {
+                if (improves(island.bestFitness, stallReference)) {
+                    stallReference = island.bestFitness;
+                    stalled = 0;
+                } else if (++stalled >= WARM_START_STALL_GENERATIONS) {
+                    logger.debug("Warm-started GA stalled after " + (g + 1) + " generations");
+                    break;
+                }
+            }
+            if (g < GENERATIONS - 1 && stoppingRule.isPastDeadline()) {
+                logger.debug("GA deadline passed after " + (g + 1) + " generations");
+                partial = true;
+                break;
+            }
+            if (g < GENERATIONS - 1) {
+                island.breed();
+            }
+        }
+        return island;
+    }
+
+    private Island runIslands(OptimizationProblem problem, RepairOperator repair, int[] seed,
+                              ProgressListener progressListener, CancellationToken cancellation) {
+        int islandCount = Math.max(1, islandModel.islandCount());
+        int interval = Math.max(1, islandModel.migrationInterval());
+        List<Island> islands = new ArrayList<>(islandCount);
+        for (int i = 0; i < islandCount; i++) {
+            islands.add(new Island(problem, bitsPerProduct, repair, random.split(), stoppingRule, seed, cancellation));
+        }
+        logger.debug("GA island mode: " + islandCount + " islands, migration every " + interval
+                + " generations, " + islandModel.topology() + " topology");
+
+        long startTime = System.nanoTime();
+        AtomicBoolean gapReached = new AtomicBoolean();
+        double reported = Double.NEGATIVE_INFINITY;
+        double stallReference = Double.NEGATIVE_INFINITY;
+        int stalled = 0;
+        int generation = 0;
+        while (generation < GENERATIONS && !gapReached.get() && !partial && stalled < WARM_START_STALL_GENERATIONS) {
+            reportProgress(progressListener, generation, startTime);
+            // Each island evolves on its own until the next migration. Every generation but the very first starts
+            // by breeding, so the breed after a migration also runs in the pool rather than on this thread
+            int epochEnd = Math.min(GENERATIONS, generation + interval);
+            int from = generation;
+            List<Callable<Integer>> epoch = new ArrayList<>(islandCount);
+            for (Island island : islands) {
+                epoch.add(() -> {
+                    int evaluated = 0;
+                    for (int g = from; g < epochEnd && !gapReached.get(); g++) {
+                        cancellation.throwIfCancelled();
+                        if (g > 0) {
+                            island.breed();
+                        }
+                        island.evaluate();
+                        evaluated++;
+                        if (stoppingRule.isSatisfied(island.bestFitness)) {
+                            gapReached.set(true);
+                        }
+                        if (stoppingRule.isPastDeadline()) {
+                            break; // Every island has evaluated at least once, so each has a best to offer
+                        }
+                    }
+                    return evaluated;
+                });
+            }
+            int furthest = 0;
+            for (int evaluated : invokeAll(epoch)) {
+                evaluations += (long) evaluated * POPULATION_SIZE;
+                furthest = Math.max(furthest, evaluated);
+            }
+            generation += furthest; // Short of epochEnd only if the islands stopped early
+            completedGenerations = generation;
+            Island leader = fittest(islands);
+            if (leader.bestFitness > reported) {
+                reported = leader.bestFitness;
+                progressListener.onIncumbent(reported, leader.best.quantities());
+            }
+            partial = generation < GENERATIONS && !gapReached.get() && stoppingRule.isPastDeadline();
+            if (seed != null) {
+                // Checked per epoch, so a stall is only noticed at the next migration
+                if (improves(leader.bestFitness, stallReference)) {
+                    stallReference = leader.bestFitness;
+                    stalled = 0;
+                } else {
+                    stalled += furthest;
+                }
+            }
+
+            if (generation < GENERATIONS && !gapReached.get() && !partial && stalled < WARM_START_STALL_GENERATIONS) {
+                migrate(islands);
+            }
+        }
+        if (gapReached.get()) {
+            logger.debug("GA islands reached the optimality gap after " + generation + " generations");
+        } else if (partial) {
+            logger.debug("GA island deadline passed after " + generation + " generations");
+        } else if (stalled >= WARM_START_STALL_GENERATIONS) {
+            logger.debug("Warm-started GA islands stalled after " + generation + " generations");
+        }
+        return fittest(islands);
+    }
+
+    /**
+     * @return Whether {@code fitness} beats {@code reference} by more than STALL_TOLERANCE of its size.
+     */
+    private static boolean improves(double fitness, double reference) {
+        return reference == Double.NEGATIVE_INFINITY || fitness > reference + Math.abs(reference) * STALL_TOLERANCE;
+    }
+
+    private static Island fittest(List<Island> islands) {
+        Island best = islands.get(0);
+        for (Island island : islands) {
+            if (island.bestFitness > best.bestFitness) {
+                best = island;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return Each task's result: the number of generations its island evaluated.
+     */
+    private int[] invokeAll(List<Callable<Integer>> tasks) {
+        try {
+            List<Future<Integer>> futures = islandModel.pool().invokeAll(tasks);
+            int[] results = new int[futures.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = futures.get(i).get();
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("GA island evolution was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            throw new IllegalStateException("GA island evolution failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Copies the elites of every island over the worst individuals of its target island. Emigrants are
+     * collected before any island is modified, so the outcome does not depend on iteration order.
+     */
+    private void migrate(List<Island> islands) {
+        int k = islands.size();
+        if (k < 2) {
+            return;
+        }
+        List<Chromosome[]> emigrants = new ArrayList<>(k);
+        for (Island island : islands) {
+            emigrants.add(island.elites(MIGRANTS));
+        }
+        for (int i = 0; i < k; i++) {
+            int target;
+            if (islandModel.topology() == MigrationTopology.RANDOM) {
+                target = random.nextInt(k - 1);
+                if (target >= i) {
+                    target++; // Never migrate to the source island
+                }
+            } else {
+                target = (i + 1) % k;
+            }
+            islands.get(target).accept(emigrants.get(i));
+        }
+    }
+
+    private void reportProgress(ProgressListener progressListener, int generation, long startTime) {
+        double progress = (double) generation / GENERATIONS * 100;
+        double remaining = 120; // Initial estimate of 2 minutes, same as GA.py
+        if (generation > 0) {
+            double elapsed = (System.nanoTime() - startTime) / 1e9;
+            remaining = Math.max(0, elapsed * GENERATIONS / generation - elapsed);
+        }
+        progressListener.onProgress(progress, stoppingRule.capEstimate(remaining));
+    }
+
+    /**
+     * One population of POPULATION_SIZE chromosomes with its own random generator. The standard mode runs
+     * a single island; island mode runs several and only touches them from one thread at a time.
+     */
+    static final class Island {
+        private final RepairOperator repair;
+        private final SplittableRandom random;
+        private final CancellationToken cancellation; // Checked per chromosome: repairing one can take a while on large catalogs
+        private Chromosome[] population;
+        private final double[] fitness = new double[POPULATION_SIZE];
+        private Chromosome best;
+        private double bestFitness = Double.NEGATIVE_INFINITY;
+
+        Island(OptimizationProblem problem, int bitsPerProduct, RepairOperator repair, SplittableRandom random,
+               CancellationToken cancellation) {
+            this(problem, bitsPerProduct, repair, random, StoppingRule.NONE, cancellation);
+        }
+
+        Island(OptimizationProblem problem, int bitsPerProduct, RepairOperator repair, SplittableRandom random,
+               StoppingRule stoppingRule, CancellationToken cancellation) {
+            this(problem, bitsPerProduct, repair, random, stoppingRule, null, cancellation);
+        }
+
+        /**
+         * @param stoppingRule Once its deadline has passed, the rest of the initial population is filled with
+         *                     copies instead of repaired random chromosomes: the run stops after the first
+         *                     evaluation, so they only pad the population out.
+         * @param seed Plan the first WARM_START_SEEDS chromosomes are built from, or null for a random population.
+         */
+        Island(OptimizationProblem problem, int bitsPerProduct, RepairOperator repair, SplittableRandom random,
+               StoppingRule stoppingRule, int[] seed, CancellationToken cancellation) {
+            this.repair = repair;
+            this.random = random;
+            this.cancellation = cancellation;
+            this.population = new Chromosome[POPULATION_SIZE];
+            // GA.py counts the remaining stock against the shelf capacity
+            double shelfLimit = problem.getShelfCapacity() - problem.getExistingShelfUse();
+            int[] offsets = segmentOffsets(problem, bitsPerProduct);
+            for (int i = 0; i < POPULATION_SIZE; i++) {
+                cancellation.throwIfCancelled();
+                if (i > 0 && stoppingRule.isPastDeadline()) {
+                    population[i] = population[i - 1].copy();
+                    continue;
+                }
+                if (seed != null && i < WARM_START_SEEDS) {
+                    // The seed itself, then neighbours one mutation away from its repaired form
+                    population[i] = i == 0 ? Chromosome.of(offsets, new SolutionState(problem, shelfLimit), seed)
+                            : population[0].copy();
+                    if (i > 0) {
+                        population[i].mutate(MUTATION_RATE, random);
+                    }
+                } else {
+                    population[i] = Chromosome.random(offsets, new SolutionState(problem, shelfLimit), random);
+                }
+                population[i].repair(repair);
+            }
+        }
+
+        /**
+         * Evaluates fitness of the current population and tracks the best solution.
+         */
+        void evaluate() {
+            int bestIndex = 0;
+            for (int i = 0; i < POPULATION_SIZE; i++) {
+                fitness[i] = population[i].fitness();
+                if (fitness[i] > fitness[bestIndex]) {
+                    bestIndex = i;
+                }
+            }
+            if (fitness[bestIndex] > bestFitness) {
+                best = population[bestIndex].copy();
+                bestFitness = fitness[bestIndex];
+            }
+        }
+
+        /**
+         * Creates the next generation, keeping the best solution so far (elitism).
+         */
+        void breed() {
+            Chromosome[] next = new Chromosome[POPULATION_SIZE];
+            next[0] = best.copy();
+            int size = 1;
+            while (size < POPULATION_SIZE) {
+                Chromosome p1 = tournamentSelection();
+                Chromosome p2 = tournamentSelection();
+                Chromosome c1;
+                Chromosome c2;
+                if (random.nextDouble() < CROSSOVER_RATE) {
+                    int point = 1 + random.nextInt(Math.max(1, p1.totalBits - 1));
+                    c1 = p1.crossover(p2, point);
+                    c2 = p2.crossover(p1, point);
+                } else {
+                    c1 = p1.copy();
+                    c2 = p2.copy();
+                }
+                cancellation.throwIfCancelled();
+                for (Chromosome child : new Chromosome[]{c1, c2}) {
+                    child.mutate(MUTATION_RATE, random);
+                    child.repair(repair);
+                    if (size < POPULATION_SIZE) {
+                        next[size++] = child;
+                    }
+                }
+            }
+            population = next;
+        }
+
+        private Chromosome tournamentSelection() {
+            // Sample TOURNAMENT_SIZE distinct individuals, like random.sample in GA.py
+            int[] candidates = new int[TOURNAMENT_SIZE];
+            int winner = -1;
+            for (int k = 0; k < TOURNAMENT_SIZE; k++) {
+                int candidate;
+                boolean duplicate;
+                do {
+                    candidate = random.nextInt(POPULATION_SIZE);
+                    duplicate = false;
+                    for (int j = 0; j < k; j++) {
+                        duplicate |= candidates[j] == candidate;
+                    }
+                } while (duplicate);
+                candidates[k] = candidate;
+                if (winner < 0 || fitness[candidate] > fitness[winner]) {
+                    winner = candidate;
+                }
+            }
+            return population[winner];
+        }
+
+        /**
+         * @return Copies of the {@code count} fittest individuals of the evaluated population.
+         */
+        Chromosome[] elites(int count) {
+            Integer[] order = rankByFitness();
+            Chromosome[] elites = new Chromosome[Math.min(count, POPULATION_SIZE)];
+            for (int i = 0; i < elites.length; i++) {
+                elites[i] = population[order[POPULATION_SIZE - 1 - i]].copy();
+            }
+            return elites;
+        }
+
+        /**
+         * Replaces the worst individuals of the evaluated population with immigrants.
+         */
+        void accept(Chromosome[] immigrants) {
+            Integer[] order = rankByFitness();
+            for (int i = 0; i < immigrants.length; i++) {
+                int slot = order[i];
+                population[slot] = immigrants[i];
+                fitness[slot] = immigrants[i].fitness();
+                if (fitness[slot] > bestFitness) {
+                    best = immigrants[i].copy();
+                    bestFitness = fitness[slot];
+                }
+            }
+        }
+
+        private Integer[] rankByFitness() {
+            Integer[] order = new Integer[POPULATION_SIZE];
+            for (int i = 0; i < POPULATION_SIZE; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(fitness[a], fitness[b]));
+            return order;
+        }
+    }
+
+    /**
+     * @return Where each product's segment starts, followed by the total number of bits. Unlike GA.py, which gives
+     * every product {@code bitsPerProduct} bits, a segment is only as wide as the product's quantity cap needs, up
+     * to {@code bitsPerProduct}: a product that pre-solve capped at a few units takes a few bits.
+     */
+    static int[] segmentOffsets(OptimizationProblem problem, int bitsPerProduct) {
+        int[] maxQuantity = problem.getMaxQuantity();
+        int[] offsets = new int[maxQuantity.length + 1];
+        for (int i = 0; i < maxQuantity.length; i++) {
+            int width = Math.max(1, Math.min(bitsPerProduct, 32 - Integer.numberOfLeadingZeros(maxQuantity[i])));
+            offsets[i + 1] = offsets[i] + width;
+        }
+        return offsets;
+    }
+
+    /**
+     * Bit-packed chromosome. Bit k of the genome is stored big-endian in {@code words[k / 64]} so that a
+     * product's segment reads back as an ordinary binary number, matching int(segment, 2) in GA.py. Segments
+     * have per-product widths, see {@link #segmentOffsets}; none is wider than 31 bits, since no quantity cap is.
+     * <p>
+     * The decoded, demand-capped quantities live in a {@link SolutionState} that every operator keeps in
+     * step with the bits: crossover and mutation only re-decode the segments they touch, and repair works
+     * on the running totals instead of re-summing the catalog.
+     */
+    static final class Chromosome {
+        final int[] offsets; // Shared by the whole population
+        final int totalBits;
+        final long[] words;
+        final SolutionState state;
+
+        private Chromosome(int[] offsets, long[] words, SolutionState state) {
+            this.offsets = offsets;
+            this.totalBits = offsets[offsets.length - 1];
+            this.words = words;
+            this.state = state;
+        }
+
+        static Chromosome random(int[] offsets, SolutionState empty, SplittableRandom random) {
+            int totalBits = offsets[offsets.length - 1];
+            long[] words = new long[(totalBits + 63) >>> 6];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = random.nextLong();
+            }
+            int tail = totalBits & 63;
+            if (tail != 0) {
+                words[words.length - 1] &= -1L << (64 - tail); // Keep padding bits at zero
+            }
+            Chromosome chromosome = new Chromosome(offsets, words, empty);
+            for (int i = 0; i < empty.size(); i++) {
+                chromosome.decodeInto(i);
+            }
+            return chromosome;
+        }
+
+        /**
+         * @param quantities A plan for the products of the state's problem, each within what its segment holds.
+         */
+        static Chromosome of(int[] offsets, SolutionState empty, int[] quantities) {
+            Chromosome chromosome = new Chromosome(offsets, new long[(offsets[offsets.length - 1] + 63) >>> 6], empty);
+            for (int i = 0; i < empty.size(); i++) {
+                chromosome.encode(i, quantities[i]);
+                chromosome.state.set(i, quantities[i]);
+            }
+            return chromosome;
+        }
+
+        Chromosome copy() {
+            return new Chromosome(offsets, words.clone(), state.copy());
+        }
+
+        double fitness() {
+            return state.getObjective();
+        }
+
+        int[] quantities() {
+            return state.quantities();
+        }
+
+        /**
+         * @return A child made of this chromosome's bits before {@code point} and the other's from there on.
+         * Only the products after the crossover point change, and their repaired quantities are copied
+         * straight from the other parent.
+         */
+        Chromosome crossover(Chromosome other, int point) {
+            long[] child = words.clone();
+            int w = point >>> 6;
+            long tailMask = -1L >>> (point & 63);
+            child[w] = (child[w] & ~tailMask) | (other.words[w] & tailMask);
+            System.arraycopy(other.words, w + 1, child, w + 1, words.length - w - 1);
+
+            Chromosome offspring = new Chromosome(offsets, child, state.copy());
+            int first = segmentOf(point);
+            if (offsets[first] != point && first < state.size()) {
+                offspring.decodeInto(first); // The segment split by the crossover point
+                first++;
+            }
+            for (int j = first; j < state.size(); j++) {
+                offspring.state.set(j, other.state.get(j));
+            }
+            return offspring;
+        }
+
+        /**
+         * Flips each bit independently with the given probability. Instead of drawing one random number per
+         * bit, the gap to the next flipped bit is drawn from the matching geometric distribution.
+         */
+        void mutate(double rate, SplittableRandom random) {
+            double logKeep = Math.log1p(-rate);
+            long k = -1;
+            while (true) {
+                k += 1 + (long) Math.floor(Math.log(1.0 - random.nextDouble()) / logKeep);
+                if (k >= totalBits) {
+                    return;
+                }
+                words[(int) (k >>> 6)] ^= 1L << (63 - (k & 63));
+                decodeInto(segmentOf((int) k));
+            }
+        }
+
+        /**
+         * @return The product whose segment holds bit k, or the number of products if k is the total length.
+         */
+        private int segmentOf(int k) {
+            int i = Arrays.binarySearch(offsets, k);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        /**
+         * Reads product i's segment into the state, capped by demand (the first step of GA.py's repair).
+         */
+        private void decodeInto(int i) {
+            int maxQuantity = state.getProblem().getMaxQuantity()[i];
+            int decoded = decode(i);
+            if (decoded > maxQuantity) {
+                decoded = maxQuantity;
+                encode(i, decoded);
+            }
+            state.set(i, decoded);
+        }
+
+        /**
+         * Repairs the decoded quantities and writes every changed quantity back into its segment.
+         */
+        void repair(RepairOperator repair) {
+            repair.repair(state, i -> encode(i, state.get(i)));
+        }
+
+        /**
+         * @return The segment of product i as an integer.
+         */
+        int decode(int i) {
+            return (int) read(offsets[i], offsets[i + 1] - offsets[i]);
+        }
+
+        void encode(int i, int value) {
+            write(offsets[i], offsets[i + 1] - offsets[i], value);
+        }
+
+        private long read(int start, int length) {
+            int w = start >>> 6;
+            int offset = start & 63;
+            long bits = words[w] << offset;
+            if (offset + length > 64) {
+                bits |= words[w + 1] >>> (64 - offset);
+            }
+            return bits >>> (64 - length);
+        }
+
+        private void write(int start, int length, long value) {
+            int w = start >>> 6;
+            int offset = start & 63;
+            long mask = -1L >>> (64 - length);
+            value &= mask;
+            int shift = 64 - offset - length;
+            if (shift >= 0) {
+                words[w] = (words[w] & ~(mask << shift)) | (value << shift);
+            } else {
+                int spill = -shift;
+                words[w] = (words[w] & ~(mask >>> spill)) | (value >>> spill);
+                words[w + 1] = (words[w + 1] & ~(mask << (64 - spill))) | (value << (64 - spill));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(state.quantities());
+        }
+    }
+}
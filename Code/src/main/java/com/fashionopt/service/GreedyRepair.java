@@ -0,0 +1,151 @@
+package com.fashionopt.service;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Greedy repair over the four resources (production, marketing and logistics budget, shelf space).
+ * <p>
+ * While a resource is over its limit, the product that earns the least per unit of the violated resources
+ * is taken from a min-heap and loses, in one step, exactly as many units as it takes to clear every violated
+ * resource it uses (or all of its units, if that is not enough). Once the solution is feasible, products are
+ * taken from a max-heap of profit per unit of all resources and raised as far as the remaining slack and
+ * their upper bound allow. Each product is touched at most once per phase, so a repair costs O(n log n)
+ * no matter how large the excess is.
+ */
+final class GreedyRepair implements RepairOperator {
+
+    private static final int RESOURCES = 4;
+
+    private final double[] netProfit;
+    private final int[] upperBound;
+    private final double[][] usage; // Per resource: units of the resource used by one unit of each product
+    private final double[] fillScore; // Negated profit per unit of all resources, relative to their limits
+
+    GreedyRepair(OptimizationProblem problem, int[] upperBound) {
+        this.netProfit = problem.getNetProfit();
+        this.upperBound = upperBound;
+        this.usage = new double[][]{problem.getProductionCost(), problem.getMarketingCost(),
+                problem.getLogisticsCost(), problem.getShelfSpace()};
+
+        double[] limit = {problem.getProductionBudget(), problem.getMarketingBudget(), problem.getLogisticsBudget(),
+                problem.getShelfCapacity()};
+        int n = problem.size();
+        fillScore = new double[n];
+        for (int i = 0; i < n; i++) {
+            double relativeUsage = 0.0;
+            for (int k = 0; k < RESOURCES; k++) {
+                relativeUsage += Math.max(0.0, usage[k][i]) / Math.max(limit[k], 1e-9);
+            }
+            fillScore[i] = relativeUsage > 0 ? -(netProfit[i] / relativeUsage) : Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    @Override
+    public void repair(SolutionState state, IntConsumer changed) {
+        if (!state.isFeasible()) {
+            removeExcess(state, changed);
+        }
+        if (state.isFeasible()) {
+            fillSlack(state, changed);
+        }
+    }
+
+    private void removeExcess(SolutionState state, IntConsumer changed) {
+        int n = state.size();
+        double[] excess = new double[RESOURCES];
+        for (int k = 0; k < RESOURCES; k++) {
+            excess[k] = Math.max(0.0, used(state, k) - limit(state, k));
+        }
+
+        // Profit per unit of the violated resources, each weighted by how far it is over its limit
+        double[] score = new double[n];
+        int[] items = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (state.get(i) <= 0) {
+                continue;
+            }
+            double relativeUsage = 0.0;
+            for (int k = 0; k < RESOURCES; k++) {
+                if (excess[k] > 0 && usage[k][i] > 0) {
+                    relativeUsage += usage[k][i] / excess[k];
+                }
+            }
+            if (relativeUsage > 0) {
+                score[i] = netProfit[i] / relativeUsage;
+                items[size++] = i;
+            }
+        }
+
+        IndexHeap heap = new IndexHeap(score, items, size);
+        while (!state.isFeasible() && !heap.isEmpty()) {
+            int i = heap.poll();
+            int quantity = state.get(i);
+            double remove = 0.0;
+            for (int k = 0; k < RESOURCES; k++) {
+                double over = used(state, k) - limit(state, k);
+                if (over > 0 && usage[k][i] > 0) {
+                    remove = Math.max(remove, Math.ceil(over / usage[k][i]));
+                }
+            }
+            if (remove > 0) {
+                state.set(i, quantity - (int) Math.min(quantity, remove));
+                changed.accept(i);
+            }
+        }
+    }
+
+    private void fillSlack(SolutionState state, IntConsumer changed) {
+        int n = state.size();
+        int[] items = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (netProfit[i] > 0 && state.get(i) < upperBound[i]) {
+                items[size++] = i;
+            }
+        }
+
+        IndexHeap heap = new IndexHeap(fillScore, items, size);
+        while (!heap.isEmpty()) {
+            int i = heap.poll();
+            int quantity = state.get(i);
+            double add = upperBound[i] - quantity;
+            for (int k = 0; k < RESOURCES && add > 0; k++) {
+                if (usage[k][i] > 0) {
+                    add = Math.min(add, Math.floor((limit(state, k) - used(state, k)) / usage[k][i]));
+                }
+            }
+            if (add <= 0) {
+                continue;
+            }
+            int added = (int) add;
+            state.set(i, quantity + added);
+            // The division can round up by one unit, so step back until the totals agree
+            while (added > 0 && !state.isFeasible()) {
+                state.set(i, quantity + --added);
+            }
+            if (added > 0) {
+                changed.accept(i);
+            }
+        }
+    }
+
+    private static double used(SolutionState state, int resource) {
+        return switch (resource) {
+            case 0 -> state.getProductionCost();
+            case 1 -> state.getMarketingCost();
+            case 2 -> state.getLogisticsCost();
+            default -> state.getShelfUsed();
+        };
+    }
+
+    private static double limit(SolutionState state, int resource) {
+        OptimizationProblem problem = state.getProblem();
+        return switch (resource) {
+            case 0 -> problem.getProductionBudget();
+            case 1 -> problem.getMarketingBudget();
+            case 2 -> problem.getLogisticsBudget();
+            default -> state.getShelfLimit();
+        };
+    }
+}
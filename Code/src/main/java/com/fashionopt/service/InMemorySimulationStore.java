@@ -0,0 +1,137 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationState;
+import com.fashionopt.dto.SimulationStatus;
+import com.fashionopt.dto.SimulationSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SimulationStore} in the heap, selected with {@code fashionopt.store.type=none} and always on a cluster
+ * worker ({@code fashionopt.cluster.role=worker}). A worker only runs engine jobs for the coordinator, so it has
+ * nothing to recover, and a store of its own in a shared directory would fail the coordinator's running
+ * simulations as interrupted. Finished simulations are kept as {@link SimulationStatusCodec} records for
+ * {@code fashionopt.status.ttl-minutes} and are lost on restart.
+ */
+@Component
+@ConditionalOnExpression("'${fashionopt.store.type:log}'.equalsIgnoreCase('none')"
+        + " or '${fashionopt.cluster.role:standalone}'.equalsIgnoreCase('worker')")
+public class InMemorySimulationStore implements SimulationStore {
+
+    @Value("${fashionopt.status.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    // Guarded by this
+    private final Map<String, Entry> records = new HashMap<>();
+    private final Tombstones tombstones = new Tombstones();
+    private long sizeBytes;
+
+    private record Entry(byte[] record, SimulationState state, long version, long updatedAt) {
+    }
+
+    @Override
+    public void save(SimulationStatus status) throws IOException {
+        byte[] record = SimulationStatusCodec.encode(status);
+        synchronized (this) {
+            Entry previous = records.get(status.getSimulationId());
+            if (previous != null && previous.version() >= status.getVersion()) {
+                return; // A later snapshot was saved first
+            }
+            if (tombstones.covers(status.getSimulationId(), status.getVersion())) {
+                return; // Deleted while this snapshot was being saved
+            }
+            records.put(status.getSimulationId(), new Entry(record, status.getOverallStatus(), status.getVersion(),
+                    status.getUpdatedAt()));
+            sizeBytes += record.length - (previous == null ? 0 : previous.record().length);
+        }
+    }
+
+    @Override
+    public SimulationStatus load(String simulationId) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = records.get(simulationId);
+        }
+        return entry == null ? null : SimulationStatusCodec.decode(ByteBuffer.wrap(entry.record()));
+    }
+
+    @Override
+    public synchronized void delete(String simulationId, long version) {
+        tombstones.add(simulationId, version);
+        Entry removed = records.remove(simulationId);
+        if (removed != null) {
+            sizeBytes -= removed.record().length;
+        }
+    }
+
+    @Override
+    public List<SimulationStatus> loadUnfinished() throws IOException {
+        List<SimulationStatus> unfinished = new ArrayList<>();
+        for (Entry entry : snapshot()) {
+            if (!entry.state().isTerminal()) {
+                unfinished.add(SimulationStatusCodec.decode(ByteBuffer.wrap(entry.record())));
+            }
+        }
+        return unfinished;
+    }
+
+    @Override
+    public List<SimulationSummary> history(SimulationState state, int limit) throws IOException {
+        List<Entry> matching = new ArrayList<>();
+        for (Entry entry : snapshot()) {
+            if (state == null || entry.state() == state) {
+                matching.add(entry);
+            }
+        }
+        matching.sort(Comparator.comparingLong(Entry::updatedAt).reversed());
+        List<SimulationSummary> summaries = new ArrayList<>();
+        for (Entry entry : matching.subList(0, Math.min(limit, matching.size()))) {
+            summaries.add(SimulationStatusCodec.decodeSummary(ByteBuffer.wrap(entry.record())));
+        }
+        return summaries;
+    }
+
+    /**
+     * Deletes finished simulations older than {@code fashionopt.status.ttl-minutes}.
+     */
+    @Override
+    public synchronized int compact() {
+        tombstones.rotate();
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000;
+        int expired = 0;
+        Iterator<Entry> entries = records.values().iterator();
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (entry.state().isTerminal() && entry.updatedAt() < cutoff) {
+                entries.remove();
+                sizeBytes -= entry.record().length;
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public synchronized int size() {
+        return records.size();
+    }
+
+    @Override
+    public synchronized long sizeBytes() {
+        return sizeBytes;
+    }
+
+    private synchronized List<Entry> snapshot() {
+        return new ArrayList<>(records.values());
+    }
+}
@@ -0,0 +1,69 @@
+package com.fashionopt.service;
+
+/**
+ * Binary min-heap of product indices ordered by a caller-owned key array, ties broken by the lower index.
+ * Callers that need a max-heap store negated keys. When the key of the top index changes, the caller updates
+ * the array and calls {@link #topChanged()}.
+ */
+final class IndexHeap {
+
+    private final double[] key;
+    private final int[] heap;
+    private int size;
+
+    /**
+     * @param items Indices to put in the heap; the array is taken over by the heap.
+     */
+    IndexHeap(double[] key, int[] items, int size) {
+        this.key = key;
+        this.heap = items;
+        this.size = size;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    int poll() {
+        int top = heap[0];
+        heap[0] = heap[--size];
+        if (size > 0) {
+            siftDown(0);
+        }
+        return top;
+    }
+
+    void topChanged() {
+        siftDown(0);
+    }
+
+    private boolean before(int a, int b) {
+        return key[a] < key[b] || (key[a] == key[b] && a < b);
+    }
+
+    private void siftDown(int pos) {
+        int item = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], item)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = item;
+    }
+}
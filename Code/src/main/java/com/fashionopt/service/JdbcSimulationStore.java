@@ -0,0 +1,232 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationState;
+import com.fashionopt.dto.SimulationStatus;
+import com.fashionopt.dto.SimulationSummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link SimulationStore} in an embedded database, selected with {@code fashionopt.store.type=jdbc}. By default
+ * it is an H2 file database in the store directory; {@code fashionopt.store.jdbc-url} can point it at any
+ * database whose driver is on the class path. Each simulation is one row holding its
+ * {@link SimulationStatusCodec} record, next to the columns the history and the recovery query by.
+ * All statements share one connection, so they run one at a time.
+ */
+@Component
+@ConditionalOnExpression("'${fashionopt.store.type:log}'.equalsIgnoreCase('jdbc')"
+        + " and !'${fashionopt.cluster.role:standalone}'.equalsIgnoreCase('worker')")
+public class JdbcSimulationStore implements SimulationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcSimulationStore.class);
+
+    private static final String UNFINISHED = "('" + SimulationState.PENDING + "', '" + SimulationState.RUNNING + "')";
+
+    @Value("${fashionopt.store.dir:}")
+    private String storeDir;
+
+    // Blank for an H2 database in the store directory
+    @Value("${fashionopt.store.jdbc-url:}")
+    private String jdbcUrl;
+
+    @Value("${fashionopt.store.jdbc-user:sa}")
+    private String jdbcUser;
+
+    @Value("${fashionopt.store.jdbc-password:}")
+    private String jdbcPassword;
+
+    @Value("${fashionopt.store.retention-days:30}")
+    private long retentionDays;
+
+    private Connection connection;
+    private final Tombstones tombstones = new Tombstones(); // Guarded by this
+
+    @PostConstruct
+    public void open() throws IOException {
+        String url = jdbcUrl;
+        if (url == null || url.isBlank()) {
+            // H2 locks the database file itself, so a second server on the same directory fails to start
+            url = "jdbc:h2:file:" + SimulationStore.directory(storeDir).toAbsolutePath().resolve("simulations");
+        }
+        try {
+            connection = DriverManager.getConnection(url, jdbcUser, jdbcPassword);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS simulation_status ("
+                        + "simulation_id VARCHAR(64) PRIMARY KEY, "
+                        + "overall_status VARCHAR(32) NOT NULL, "
+                        + "version BIGINT NOT NULL, "
+                        + "updated_at BIGINT NOT NULL, "
+                        + "status BLOB NOT NULL)");
+                statement.execute("CREATE INDEX IF NOT EXISTS simulation_status_updated_at ON simulation_status (updated_at)");
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to open simulation store " + url + ": " + e.getMessage(), e);
+        }
+        logger.info("Opened simulation store " + url + " with " + size() + " simulations");
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to close simulation store: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void save(SimulationStatus status) throws IOException {
+        byte[] record = SimulationStatusCodec.encode(status);
+        try {
+            Long storedVersion = null;
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT version FROM simulation_status WHERE simulation_id = ?")) {
+                select.setString(1, status.getSimulationId());
+                try (ResultSet rows = select.executeQuery()) {
+                    if (rows.next()) {
+                        storedVersion = rows.getLong(1);
+                    }
+                }
+            }
+            if (storedVersion != null && storedVersion >= status.getVersion()) {
+                return; // A later snapshot was saved first
+            }
+            if (tombstones.covers(status.getSimulationId(), status.getVersion())) {
+                return; // Deleted while this snapshot was being saved
+            }
+            String sql = storedVersion == null
+                    ? "INSERT INTO simulation_status (overall_status, version, updated_at, status, simulation_id) VALUES (?, ?, ?, ?, ?)"
+                    : "UPDATE simulation_status SET overall_status = ?, version = ?, updated_at = ?, status = ? WHERE simulation_id = ?";
+            try (PreparedStatement write = connection.prepareStatement(sql)) {
+                write.setString(1, status.getOverallStatus().name());
+                write.setLong(2, status.getVersion());
+                write.setLong(3, status.getUpdatedAt());
+                write.setBytes(4, record);
+                write.setString(5, status.getSimulationId());
+                write.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to save simulation " + status.getSimulationId() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized SimulationStatus load(String simulationId) throws IOException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT status FROM simulation_status WHERE simulation_id = ?")) {
+            select.setString(1, simulationId);
+            try (ResultSet rows = select.executeQuery()) {
+                return rows.next() ? SimulationStatusCodec.decode(ByteBuffer.wrap(rows.getBytes(1))) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to load simulation " + simulationId + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void delete(String simulationId, long version) throws IOException {
+        tombstones.add(simulationId, version);
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM simulation_status WHERE simulation_id = ?")) {
+            delete.setString(1, simulationId);
+            delete.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Failed to delete simulation " + simulationId + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized List<SimulationStatus> loadUnfinished() throws IOException {
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery(
+                     "SELECT status FROM simulation_status WHERE overall_status IN " + UNFINISHED)) {
+            List<SimulationStatus> unfinished = new ArrayList<>();
+            while (rows.next()) {
+                unfinished.add(SimulationStatusCodec.decode(ByteBuffer.wrap(rows.getBytes(1))));
+            }
+            return unfinished;
+        } catch (SQLException e) {
+            throw new IOException("Failed to load unfinished simulations: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized List<SimulationSummary> history(SimulationState state, int limit) throws IOException {
+        String sql = "SELECT status FROM simulation_status"
+                + (state == null ? "" : " WHERE overall_status = ?")
+                + " ORDER BY updated_at DESC";
+        try (PreparedStatement select = connection.prepareStatement(sql)) {
+            if (state != null) {
+                select.setString(1, state.name());
+            }
+            select.setMaxRows(limit);
+            try (ResultSet rows = select.executeQuery()) {
+                List<SimulationSummary> summaries = new ArrayList<>();
+                while (rows.next()) {
+                    summaries.add(SimulationStatusCodec.decodeSummary(ByteBuffer.wrap(rows.getBytes(1))));
+                }
+                return summaries;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to list simulations: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Only deletes expired simulations; the database reclaims the space of deleted rows itself.
+     */
+    @Override
+    public synchronized int compact() throws IOException {
+        tombstones.rotate();
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM simulation_status WHERE updated_at < ? AND overall_status NOT IN " + UNFINISHED)) {
+            delete.setLong(1, System.currentTimeMillis() - retentionDays * 86_400_000L);
+            return delete.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Failed to delete expired simulations: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT COUNT(*) FROM simulation_status")) {
+            return rows.next() ? rows.getInt(1) : 0;
+        } catch (SQLException e) {
+            logger.warn("Failed to count stored simulations: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * @return The size of the stored records; the database's own overhead is not included.
+     */
+    @Override
+    public synchronized long sizeBytes() {
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT COALESCE(SUM(OCTET_LENGTH(status)), 0) FROM simulation_status")) {
+            return rows.next() ? rows.getLong(1) : 0;
+        } catch (SQLException e) {
+            logger.warn("Failed to measure stored simulations: " + e.getMessage());
+            return -1;
+        }
+    }
+}
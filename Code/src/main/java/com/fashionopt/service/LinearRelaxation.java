@@ -0,0 +1,694 @@
+package com.fashionopt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * LP relaxation of a simulation: maximise penalised profit over real quantities {@code 0 <= x[i] <= upper[i]}
+ * subject to the three budgets and a shelf limit. With only four rows, a bounded-variable primal simplex over an
+ * explicit 4x4 basis inverse solves it in a handful of passes over the catalog: pricing scans blocks of columns
+ * rather than the whole catalog, products that can go straight to their other bound are flipped while pricing,
+ * and the basic values follow from a right-hand side that is updated as products change bounds.
+ * <p>
+ * Besides the bound itself, the optimal dual prices of the four resources are kept: weighting each resource by
+ * its price folds the constraints into one surrogate knapsack whose fractional bound equals the LP bound.
+ * <p>
+ * A solve can be given a deadline. Cut short by it, like by the iteration cap, the relaxation still returns the
+ * dual bound of the prices it reached, which is valid but looser than the LP optimum.
+ */
+final class LinearRelaxation {
+
+    static final int RESOURCES = 4;
+
+    private static final Logger logger = LoggerFactory.getLogger(LinearRelaxation.class);
+
+    private static final double EPSILON = 1e-9;
+    private static final int REINVERT_INTERVAL = 32; // Pivots between rebuilding the basis inverse
+    private static final int DEGENERATE_STEPS_BEFORE_BLAND = 50; // Switch to Bland's rule to avoid cycling
+    private static final int SIFTING_ABOVE = 4000; // Products from which the LP is solved by sifting
+    private static final int SAMPLE_STRIDE = 8; // Every 8th product estimates the prices sifting starts from
+    private static final int MIN_PRICING_BLOCK = 64; // Columns priced per block, at least; sqrt(n) for larger catalogs
+
+    private static final byte AT_LOWER = 0;
+    private static final byte AT_UPPER = 1;
+    private static final byte BASIC = 2;
+
+    private final double bound;
+    private final double[] quantities;
+    private final double[] duals;
+    private final boolean optimal;
+
+    private LinearRelaxation(double bound, double[] quantities, double[] duals, boolean optimal) {
+        this.bound = bound;
+        this.quantities = quantities;
+        this.duals = duals;
+        this.optimal = optimal;
+    }
+
+    /**
+     * @param shelfLimit Shelf space available to the new quantities, as the engine being bounded counts it.
+     * @return The relaxation with every product bounded by its demand cap.
+     */
+    static LinearRelaxation solve(OptimizationProblem problem, double shelfLimit) {
+        return solve(problem, shelfLimit, (Long) null);
+    }
+
+    /**
+     * @param deadline {@link System#nanoTime()} value after which the solve stops with the bound reached so far,
+     *                 or null to solve to the optimum.
+     */
+    static LinearRelaxation solve(OptimizationProblem problem, double shelfLimit, Long deadline) {
+        return solve(problem, shelfLimit, caps(problem), deadline);
+    }
+
+    /**
+     * @param upper Upper bound of each product's quantity.
+     * @throws IllegalArgumentException If a limit is negative, so that not even the empty plan is feasible.
+     */
+    static LinearRelaxation solve(OptimizationProblem problem, double shelfLimit, double[] upper) {
+        return solve(problem, shelfLimit, upper, null);
+    }
+
+    /**
+     * Solves with the simplex over the whole catalog, however large, which is what sifting must agree with.
+     */
+    static LinearRelaxation solveWithoutSifting(OptimizationProblem problem, double shelfLimit) {
+        return new Simplex(problem.getNetProfit(), usage(problem), limits(problem, shelfLimit), caps(problem), null).run();
+    }
+
+    private static LinearRelaxation solve(OptimizationProblem problem, double shelfLimit, double[] upper, Long deadline) {
+        return solve(problem.getNetProfit(), usage(problem), limits(problem, shelfLimit), upper, deadline);
+    }
+
+    private static double[] caps(OptimizationProblem problem) {
+        int[] maxQuantity = problem.getMaxQuantity();
+        double[] upper = new double[maxQuantity.length];
+        for (int i = 0; i < upper.length; i++) {
+            upper[i] = maxQuantity[i];
+        }
+        return upper;
+    }
+
+    private static double[] limits(OptimizationProblem problem, double shelfLimit) {
+        double[] limit = {problem.getProductionBudget(), problem.getMarketingBudget(), problem.getLogisticsBudget(),
+                shelfLimit};
+        for (double l : limit) {
+            if (l < 0) {
+                throw new IllegalArgumentException("No plan fits the budgets and shelf space");
+            }
+        }
+        return limit;
+    }
+
+    private static double[][] usage(OptimizationProblem problem) {
+        return new double[][]{problem.getProductionCost(), problem.getMarketingCost(), problem.getLogisticsCost(),
+                problem.getShelfSpace()};
+    }
+
+    /**
+     * Large catalogs are solved by sifting. Prices estimated from every {@link #SAMPLE_STRIDE}-th product (solved
+     * the same way) fix the products whose reduced cost is clearly positive at their cap and those clearly
+     * negative at zero; the simplex then only solves the products in between. Fixed products that its prices
+     * disagree with join them, until none is left, which proves the combined plan optimal. Past the deadline, the
+     * last restricted prices give the bound.
+     */
+    private static LinearRelaxation solve(double[] profit, double[][] usage, double[] limit, double[] upper, Long deadline) {
+        int n = profit.length;
+        if (n < SIFTING_ABOVE) {
+            return new Simplex(profit, usage, limit, upper, deadline).run();
+        }
+        double[] y = solve(sample(profit), sample(usage), scale(limit, (double) sampleSize(n) / n), sample(upper),
+                deadline).getDuals();
+
+        // Start with the products whose reduced cost is closest to zero; the others are fixed by its sign
+        double[] reducedCost = new double[n];
+        double[] magnitude = new double[n];
+        for (int i = 0; i < n; i++) {
+            reducedCost[i] = profit[i] - dot(y, usage, i);
+            magnitude[i] = Math.abs(reducedCost[i]);
+        }
+        double[] sorted = magnitude.clone();
+        Arrays.sort(sorted);
+        int batch = Math.min(n - 1, Math.max(SIFTING_ABOVE / 2, (int) (8 * Math.sqrt(n))));
+        double band = sorted[batch];
+        boolean[] free = new boolean[n];
+        boolean[] fixedAtUpper = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            free[i] = magnitude[i] <= band && upper[i] > 0;
+            fixedAtUpper[i] = !free[i] && reducedCost[i] > 0 && upper[i] > 0;
+        }
+
+        while (true) {
+            if (isPast(deadline)) {
+                return new LinearRelaxation(dualBound(profit, usage, limit, upper, y), new double[n], y, false);
+            }
+            double[] rest = limit.clone();
+            for (int i = 0; i < n; i++) {
+                if (fixedAtUpper[i]) {
+                    for (int k = 0; k < RESOURCES; k++) {
+                        rest[k] -= usage[k][i] * upper[i];
+                    }
+                }
+            }
+            if (Arrays.stream(rest).anyMatch(l -> l < 0)) {
+                // The products fixed at their cap do not fit together: free the less profitable half of them
+                double[] fixed = IntStream.range(0, n).filter(i -> fixedAtUpper[i]).mapToDouble(i -> magnitude[i]).sorted().toArray();
+                double median = fixed[fixed.length / 2];
+                for (int i = 0; i < n; i++) {
+                    if (fixedAtUpper[i] && (magnitude[i] <= median || fixed.length == 1)) {
+                        fixedAtUpper[i] = false;
+                        free[i] = true;
+                    }
+                }
+                continue;
+            }
+
+            int[] columns = IntStream.range(0, n).filter(i -> free[i]).toArray();
+            double[][] subUsage = new double[RESOURCES][];
+            for (int k = 0; k < RESOURCES; k++) {
+                subUsage[k] = pick(usage[k], columns);
+            }
+            LinearRelaxation restricted = new Simplex(pick(profit, columns), subUsage, rest, pick(upper, columns), deadline).run();
+            y = restricted.getDuals();
+
+            // Fixed products the restricted prices disagree with join, the most violated first, at most as many as
+            // the start had: prices from a small restricted problem can be far off, and should not flood the next one
+            List<double[]> violations = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (!free[i] && upper[i] > 0) {
+                    double cost = profit[i] - dot(y, usage, i);
+                    if (fixedAtUpper[i] ? cost < -EPSILON : cost > EPSILON) {
+                        violations.add(new double[]{Math.abs(cost), i});
+                    }
+                }
+            }
+            violations.sort((a, b) -> Double.compare(b[0], a[0]));
+            int joined = Math.min(violations.size(), batch);
+            for (int v = 0; v < joined; v++) {
+                int i = (int) violations.get(v)[1];
+                free[i] = true;
+                fixedAtUpper[i] = false;
+            }
+            if (joined == 0 || columns.length == n || isPast(deadline)) {
+                double[] quantities = new double[n];
+                double[] restrictedQuantities = restricted.getQuantities();
+                for (int c = 0; c < columns.length; c++) {
+                    quantities[columns[c]] = restrictedQuantities[c];
+                }
+                for (int i = 0; i < n; i++) {
+                    if (fixedAtUpper[i]) {
+                        quantities[i] = upper[i];
+                    }
+                }
+                return new LinearRelaxation(dualBound(profit, usage, limit, upper, y), quantities, y,
+                        restricted.isOptimal() && joined == 0);
+            }
+        }
+    }
+
+    private static boolean isPast(Long deadline) {
+        return deadline != null && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * Weak duality: for any prices y >= 0, y.b plus every product's positive reduced cost at its cap bounds every
+     * feasible plan. At the LP optimum this equals the LP value; if the simplex hit its iteration cap or deadline
+     * first, it is still a valid, if looser, bound, unlike the objective of the plan reached so far.
+     */
+    private static double dualBound(double[] profit, double[][] usage, double[] limit, double[] upper, double[] y) {
+        double bound = 0.0;
+        for (int k = 0; k < RESOURCES; k++) {
+            bound += y[k] * limit[k];
+        }
+        for (int i = 0; i < profit.length; i++) {
+            bound += Math.max(0.0, profit[i] - dot(y, usage, i)) * upper[i];
+        }
+        return bound;
+    }
+
+    private static double dot(double[] y, double[][] usage, int j) {
+        double sum = 0.0;
+        for (int k = 0; k < RESOURCES; k++) {
+            sum += y[k] * usage[k][j];
+        }
+        return sum;
+    }
+
+    private static int sampleSize(int n) {
+        return (n + SAMPLE_STRIDE - 1) / SAMPLE_STRIDE;
+    }
+
+    private static double[] sample(double[] values) {
+        double[] sampled = new double[sampleSize(values.length)];
+        for (int s = 0; s < sampled.length; s++) {
+            sampled[s] = values[s * SAMPLE_STRIDE];
+        }
+        return sampled;
+    }
+
+    private static double[][] sample(double[][] rows) {
+        double[][] sampled = new double[rows.length][];
+        for (int k = 0; k < rows.length; k++) {
+            sampled[k] = sample(rows[k]);
+        }
+        return sampled;
+    }
+
+    private static double[] scale(double[] values, double factor) {
+        double[] scaled = new double[values.length];
+        for (int k = 0; k < values.length; k++) {
+            scaled[k] = values[k] * factor;
+        }
+        return scaled;
+    }
+
+    private static double[] pick(double[] values, int[] columns) {
+        double[] picked = new double[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            picked[c] = values[columns[c]];
+        }
+        return picked;
+    }
+
+    /**
+     * @return Upper bound on the penalised profit of any feasible plan: the dual bound of {@link #getDuals()},
+     * which is the LP optimum unless the simplex hit its iteration cap or deadline.
+     */
+    double getBound() {
+        return bound;
+    }
+
+    /**
+     * @return Whether the solve reached the LP optimum, so that {@link #getBound()} is as tight as it gets.
+     */
+    boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * @return The optimal real quantities; at most four of them lie strictly between their bounds.
+     */
+    double[] getQuantities() {
+        return quantities;
+    }
+
+    /**
+     * @return Shadow price of the production, marketing and logistics budgets and the shelf limit, all >= 0.
+     */
+    double[] getDuals() {
+        return duals;
+    }
+
+    /**
+     * Variables 0..n-1 are the products and n..n+3 the slacks of the four rows. Nonbasic variables sit at one of
+     * their bounds; slacks have no upper bound.
+     */
+    private static final class Simplex {
+
+        private final double[] profit;
+        private final double[][] usage;
+        private final double[] limit;
+        private final double[] upper;
+        private final Long deadline;
+        private final int n;
+
+        private final int[] basis = new int[RESOURCES];
+        private final double[][] inverse = new double[RESOURCES][RESOURCES];
+        private final byte[] state;
+        private final double[] value;
+        private final double[] rhs = new double[RESOURCES]; // Limits minus the use of products at their upper bound
+
+        private int cursor; // Where partial pricing resumes
+        private int leavingRow; // Result of the last ratio test
+        private boolean leavesAtUpper;
+        private boolean optimal;
+
+        Simplex(double[] profit, double[][] usage, double[] limit, double[] upper, Long deadline) {
+            this.profit = profit;
+            this.usage = usage;
+            this.limit = limit;
+            this.upper = upper;
+            this.deadline = deadline;
+            this.n = profit.length;
+            this.state = new byte[n + RESOURCES];
+            this.value = new double[n + RESOURCES];
+        }
+
+        LinearRelaxation run() {
+            // Start from the slack basis with every product at zero, which is feasible for non-negative limits
+            for (int k = 0; k < RESOURCES; k++) {
+                basis[k] = n + k;
+                state[n + k] = BASIC;
+                inverse[k][k] = 1.0;
+            }
+            System.arraycopy(limit, 0, rhs, 0, RESOURCES);
+            crash();
+            computeBasicValues();
+
+            double[] y = new double[RESOURCES];
+            double[] alpha = new double[RESOURCES];
+            int columns = n + RESOURCES;
+            int blockSize = Math.max(MIN_PRICING_BLOCK, (int) Math.sqrt(columns));
+            int maxIterations = 50 * columns + 1000;
+            int degenerateSteps = 0;
+            int pivots = 0;
+            int iteration = 0;
+            for (; iteration < maxIterations; iteration++) {
+                if (iteration % REINVERT_INTERVAL == 0 && isPast(deadline)) {
+                    break;
+                }
+                computeDuals(y);
+                int entering = degenerateSteps >= DEGENERATE_STEPS_BEFORE_BLAND
+                        ? chooseEnteringBland(y)
+                        : chooseEntering(y, blockSize, alpha);
+                if (entering < 0) {
+                    optimal = true;
+                    break; // No improving direction: optimal
+                }
+                double direction = state[entering] == AT_LOWER ? 1.0 : -1.0;
+                column(entering, alpha);
+                multiply(alpha);
+                double step = ratioTest(entering, direction, alpha);
+                if (step == Double.POSITIVE_INFINITY) {
+                    throw new IllegalStateException("LP relaxation is unbounded"); // Cannot happen with bounded products
+                }
+                degenerateSteps = step <= EPSILON ? degenerateSteps + 1 : 0;
+
+                if (leavingRow < 0) {
+                    flip(entering); // The entering variable reaches its other bound before any basic variable does
+                    continue;
+                }
+                int leaving = basis[leavingRow];
+                if (state[entering] == AT_UPPER) {
+                    moveBound(entering, 1.0); // No longer held at its upper bound
+                }
+                state[leaving] = leavesAtUpper ? AT_UPPER : AT_LOWER;
+                value[leaving] = leavesAtUpper ? upperOf(leaving) : 0.0;
+                if (leavesAtUpper) {
+                    moveBound(leaving, -1.0);
+                }
+                basis[leavingRow] = entering;
+                state[entering] = BASIC;
+                if (++pivots % REINVERT_INTERVAL == 0) {
+                    reinvert();
+                } else {
+                    pivot(leavingRow, alpha);
+                }
+                computeBasicValues();
+            }
+
+            double[] quantities = new double[n];
+            for (int i = 0; i < n; i++) {
+                quantities[i] = Math.min(upper[i], Math.max(0.0, value[i]));
+            }
+            computeDuals(y);
+            for (int k = 0; k < RESOURCES; k++) {
+                y[k] = Math.max(0.0, y[k]);
+            }
+            if (!optimal) {
+                logger.debug("LP relaxation stopped after " + iteration + " iterations, using its dual bound");
+            }
+            return new LinearRelaxation(dualBound(profit, usage, limit, upper, y), quantities, y, optimal);
+        }
+
+        /**
+         * Crash start: moves products to their cap greedily, best profit per unit of scarce resource first, as long
+         * as every limit still holds. A resource weighs in by how far the caps overshoot its limit, so resources
+         * that suffice for every cap cost nothing. The simplex then only corrects the products the greedy order got
+         * wrong, instead of moving every product through the basis.
+         */
+        private void crash() {
+            double[] weight = new double[RESOURCES];
+            for (int k = 0; k < RESOURCES; k++) {
+                double demand = 0.0;
+                for (int i = 0; i < n; i++) {
+                    if (profit[i] > 0) {
+                        demand += Math.max(0.0, usage[k][i]) * upper[i];
+                    }
+                }
+                weight[k] = demand > limit[k] ? (demand - limit[k]) / (limit[k] * Math.max(limit[k], EPSILON)) : 0.0;
+            }
+            List<Integer> order = new ArrayList<>();
+            double[] ratio = new double[n];
+            for (int i = 0; i < n; i++) {
+                if (profit[i] > 0 && upper[i] > 0) {
+                    double scarce = 0.0;
+                    for (int k = 0; k < RESOURCES; k++) {
+                        scarce += weight[k] * Math.max(0.0, usage[k][i]);
+                    }
+                    ratio[i] = scarce > 0 ? profit[i] / scarce : Double.POSITIVE_INFINITY;
+                    order.add(i);
+                }
+            }
+            order.sort((a, b) -> Double.compare(ratio[b], ratio[a]));
+            for (int i : order) {
+                boolean fits = true;
+                for (int k = 0; k < RESOURCES && fits; k++) {
+                    fits = rhs[k] - usage[k][i] * upper[i] >= 0;
+                }
+                if (fits) {
+                    state[i] = AT_UPPER;
+                    value[i] = upper[i];
+                    moveBound(i, -1.0);
+                }
+            }
+        }
+
+        /**
+         * Partial pricing: scans blocks of columns from where the last scan stopped and returns the best improving
+         * column of the first block that has one. Improving products whose full move to their other bound keeps
+         * the basis feasible are flipped on the spot; the prices do not change with the basis, so a whole pass
+         * of flips costs no pivots.
+         * @return The entering column, or -1 if a full pass found none, so the basis is optimal.
+         */
+        private int chooseEntering(double[] y, int blockSize, double[] alpha) {
+            int columns = n + RESOURCES;
+            int entering = -1;
+            double bestGain = EPSILON;
+            for (int scanned = 0; scanned < columns && entering < 0; ) {
+                int blockEnd = Math.min(scanned + blockSize, columns);
+                for (; scanned < blockEnd; scanned++) {
+                    int j = cursor;
+                    cursor = cursor + 1 == columns ? 0 : cursor + 1;
+                    double gain = gain(j, y);
+                    if (gain <= EPSILON) {
+                        continue;
+                    }
+                    if (j < n) {
+                        column(j, alpha);
+                        multiply(alpha);
+                        ratioTest(j, state[j] == AT_LOWER ? 1.0 : -1.0, alpha);
+                        if (leavingRow < 0) {
+                            flip(j);
+                            continue;
+                        }
+                    }
+                    if (gain > bestGain) {
+                        entering = j;
+                        bestGain = gain;
+                    }
+                }
+            }
+            return entering;
+        }
+
+        /**
+         * Bland's rule, used after a run of degenerate steps to avoid cycling: the lowest improving index.
+         */
+        private int chooseEnteringBland(double[] y) {
+            for (int j = 0; j < n + RESOURCES; j++) {
+                if (gain(j, y) > EPSILON) {
+                    return j;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return How much the objective grows per unit of moving nonbasic variable {@code j} off its bound, or 0
+         * if it is basic or cannot move.
+         */
+        private double gain(int j, double[] y) {
+            if (state[j] == BASIC || upperOf(j) <= 0) {
+                return 0.0;
+            }
+            double reducedCost = j < n ? profit[j] - dot(y, j) : -y[j - n];
+            return state[j] == AT_LOWER ? reducedCost : -reducedCost;
+        }
+
+        /**
+         * Finds how far variable {@code j} can move in {@code direction} before it or a basic variable hits a
+         * bound, and records the blocking row in {@link #leavingRow} (-1 if {@code j} reaches its other bound first).
+         * @param alpha Column of {@code j} multiplied by the basis inverse.
+         */
+        private double ratioTest(int j, double direction, double[] alpha) {
+            double step = upperOf(j);
+            leavingRow = -1;
+            leavesAtUpper = false;
+            for (int r = 0; r < RESOURCES; r++) {
+                double rate = direction * alpha[r]; // Basic variable r falls by rate per unit step
+                int b = basis[r];
+                if (rate > EPSILON) {
+                    double limitStep = Math.max(0.0, value[b]) / rate;
+                    if (limitStep < step) {
+                        step = limitStep;
+                        leavingRow = r;
+                        leavesAtUpper = false;
+                    }
+                } else if (rate < -EPSILON && upperOf(b) < Double.POSITIVE_INFINITY) {
+                    double limitStep = Math.max(0.0, upperOf(b) - value[b]) / -rate;
+                    if (limitStep < step) {
+                        step = limitStep;
+                        leavingRow = r;
+                        leavesAtUpper = true;
+                    }
+                }
+            }
+            return step;
+        }
+
+        /**
+         * Moves nonbasic product {@code j} to its other bound and updates the basic values.
+         */
+        private void flip(int j) {
+            if (state[j] == AT_LOWER) {
+                state[j] = AT_UPPER;
+                value[j] = upper[j];
+                moveBound(j, -1.0);
+            } else {
+                state[j] = AT_LOWER;
+                value[j] = 0.0;
+                moveBound(j, 1.0);
+            }
+            computeBasicValues();
+        }
+
+        /**
+         * Adds {@code sign} times what product {@code j} uses at its upper bound to the right-hand side.
+         */
+        private void moveBound(int j, double sign) {
+            if (j >= n) {
+                return;
+            }
+            for (int k = 0; k < RESOURCES; k++) {
+                rhs[k] += sign * usage[k][j] * upper[j];
+            }
+        }
+
+        private double upperOf(int j) {
+            return j < n ? upper[j] : Double.POSITIVE_INFINITY;
+        }
+
+        private double costOf(int j) {
+            return j < n ? profit[j] : 0.0;
+        }
+
+        private double dot(double[] y, int j) {
+            return LinearRelaxation.dot(y, usage, j);
+        }
+
+        private void column(int j, double[] out) {
+            for (int k = 0; k < RESOURCES; k++) {
+                out[k] = j < n ? usage[k][j] : (j - n == k ? 1.0 : 0.0);
+            }
+        }
+
+        private void multiply(double[] vector) {
+            double[] result = new double[RESOURCES];
+            for (int r = 0; r < RESOURCES; r++) {
+                for (int k = 0; k < RESOURCES; k++) {
+                    result[r] += inverse[r][k] * vector[k];
+                }
+            }
+            System.arraycopy(result, 0, vector, 0, RESOURCES);
+        }
+
+        private void computeDuals(double[] y) {
+            for (int k = 0; k < RESOURCES; k++) {
+                double sum = 0.0;
+                for (int r = 0; r < RESOURCES; r++) {
+                    sum += costOf(basis[r]) * inverse[r][k];
+                }
+                y[k] = sum;
+            }
+        }
+
+        /**
+         * Basic values from the limits minus what the nonbasic variables at their upper bound use, which
+         * {@link #rhs} keeps up to date as variables change bounds.
+         */
+        private void computeBasicValues() {
+            double[] values = rhs.clone();
+            multiply(values);
+            for (int r = 0; r < RESOURCES; r++) {
+                value[basis[r]] = values[r];
+            }
+        }
+
+        /**
+         * Updates the inverse after the variable with column {@code alpha} (already multiplied by the old inverse)
+         * replaced the basic variable of {@code row}.
+         */
+        private void pivot(int row, double[] alpha) {
+            double pivot = alpha[row];
+            for (int k = 0; k < RESOURCES; k++) {
+                inverse[row][k] /= pivot;
+            }
+            for (int r = 0; r < RESOURCES; r++) {
+                if (r == row || alpha[r] == 0.0) {
+                    continue;
+                }
+                double factor = alpha[r];
+                for (int k = 0; k < RESOURCES; k++) {
+                    inverse[r][k] -= factor * inverse[row][k];
+                }
+            }
+        }
+
+        /**
+         * Rebuilds the inverse from the basis columns by Gauss-Jordan elimination, to stop rounding errors piling up.
+         */
+        private void reinvert() {
+            double[][] matrix = new double[RESOURCES][2 * RESOURCES];
+            double[] col = new double[RESOURCES];
+            for (int r = 0; r < RESOURCES; r++) {
+                column(basis[r], col);
+                for (int k = 0; k < RESOURCES; k++) {
+                    matrix[k][r] = col[k];
+                }
+                matrix[r][RESOURCES + r] = 1.0;
+            }
+            for (int c = 0; c < RESOURCES; c++) {
+                int pivotRow = c;
+                for (int r = c + 1; r < RESOURCES; r++) {
+                    if (Math.abs(matrix[r][c]) > Math.abs(matrix[pivotRow][c])) {
+                        pivotRow = r;
+                    }
+                }
+                double[] swap = matrix[c];
+                matrix[c] = matrix[pivotRow];
+                matrix[pivotRow] = swap;
+                double pivot = matrix[c][c];
+                for (int k = 0; k < 2 * RESOURCES; k++) {
+                    matrix[c][k] /= pivot;
+                }
+                for (int r = 0; r < RESOURCES; r++) {
+                    if (r != c && matrix[r][c] != 0.0) {
+                        double factor = matrix[r][c];
+                        for (int k = 0; k < 2 * RESOURCES; k++) {
+                            matrix[r][k] -= factor * matrix[c][k];
+                        }
+                    }
+                }
+            }
+            for (int r = 0; r < RESOURCES; r++) {
+                System.arraycopy(matrix[r], RESOURCES, inverse[r], 0, RESOURCES);
+            }
+        }
+    }
+}
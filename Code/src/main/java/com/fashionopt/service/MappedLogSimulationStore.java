@@ -0,0 +1,467 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationState;
+import com.fashionopt.dto.SimulationStatus;
+import com.fashionopt.dto.SimulationSummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Default {@link SimulationStore}: an append-only log of {@link SimulationStatusCodec} records in a memory-mapped
+ * file, plus an index in memory from simulation ID to its latest record. A status is decoded straight from the
+ * mapped file whenever it is read, so stored results take no heap between reads.
+ * <p>
+ * A record is {@code [payload length][CRC32][type][payload]}. The length is written last, so a record torn by a
+ * crash reads as the end of the log; on start-up the log is replayed up to the first record whose checksum does
+ * not match. Every save of a simulation makes its earlier record garbage, as does a delete. Once garbage is more
+ * than {@code fashionopt.store.compaction-garbage-percent} of the log, {@link #compact()} copies the live records
+ * into the next generation of the file ({@code simulations-<generation>.log}) and deletes the old one. Saving a
+ * finished simulation forces the log up to its record to disk; the rest reaches it when the OS writes the
+ * mapping back. The store holds a lock on {@code simulations.lock} while it is open, so a second server cannot
+ * open the same directory.
+ */
+@Component
+@ConditionalOnExpression("'${fashionopt.store.type:log}'.equalsIgnoreCase('log')"
+        + " and !'${fashionopt.cluster.role:standalone}'.equalsIgnoreCase('worker')")
+public class MappedLogSimulationStore implements SimulationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedLogSimulationStore.class);
+
+    private static final int HEADER_BYTES = 9; // Payload length, CRC32 and record type
+    private static final byte STATUS_RECORD = 1;
+    private static final byte DELETE_RECORD = 2; // Payload is the simulation ID
+    private static final Pattern LOG_FILE = Pattern.compile("simulations-(\\d+)\\.log");
+
+    @Value("${fashionopt.store.dir:}")
+    private String storeDir;
+
+    // Size the log is first mapped with; the mapping doubles whenever it is full
+    @Value("${fashionopt.store.initial-megabytes:16}")
+    private int initialMegabytes;
+
+    @Value("${fashionopt.store.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${fashionopt.store.compaction-garbage-percent:50}")
+    private int compactionGarbagePercent;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> index = new HashMap<>();
+    private final Tombstones tombstones = new Tombstones();
+    private Path directory;
+    private long generation;
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int end; // Where the next record goes
+    private int forcedTo; // The log before this offset is on disk
+    private long liveBytes; // Size of the records in the index
+
+    /**
+     * The latest record of a simulation, with what {@link #history} filters and sorts by.
+     */
+    private record Entry(int offset, int length, SimulationState state, long version, long updatedAt) {
+        int size() {
+            return HEADER_BYTES + length;
+        }
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = SimulationStore.directory(storeDir);
+        lock();
+        generation = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = LOG_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    generation = Math.max(generation, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        generation = Math.max(generation, 0);
+        // Older generations and temporary files are left over from a compaction that was interrupted
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher matcher = LOG_FILE.matcher(name);
+                if ((matcher.matches() && Long.parseLong(matcher.group(1)) != generation)
+                        || (name.startsWith("simulations-") && name.endsWith(".log.tmp"))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+
+        Path file = logFile(generation);
+        lock.writeLock().lock();
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map(Math.max(channel.size(), initialBytes()));
+            replay();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Opened simulation store " + file + " with " + index.size() + " simulations in " + end + " bytes");
+    }
+
+    /**
+     * Takes the directory's lock before anything in it is touched: a second store would delete the generation the
+     * first one is writing, and each would take the other's unfinished simulations for ones a restart cut short.
+     */
+    private void lock() throws IOException {
+        Path lockFile = directory.resolve("simulations.lock");
+        lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null; // Held by another store in this JVM
+        }
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new IOException("Simulation store " + directory + " is already open in another server,"
+                    + " give each server its own fashionopt.store.dir");
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                buffer.force();
+                channel.close();
+                channel = null;
+                fileLock.release();
+                lockChannel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void save(SimulationStatus status) throws IOException {
+        byte[] payload = SimulationStatusCodec.encode(status);
+        lock.writeLock().lock();
+        try {
+            Entry previous = index.get(status.getSimulationId());
+            if (previous != null && previous.version() >= status.getVersion()) {
+                return; // A later snapshot was saved first
+            }
+            if (tombstones.covers(status.getSimulationId(), status.getVersion())) {
+                return; // Deleted while this snapshot was being saved
+            }
+            int offset = append(STATUS_RECORD, payload);
+            index(status.getSimulationId(), new Entry(offset, payload.length, status.getOverallStatus(),
+                    status.getVersion(), status.getUpdatedAt()));
+            if (status.getOverallStatus().isTerminal()) {
+                // Everything before the record too, so that its earlier records and deletes are not lost either
+                buffer.force(forcedTo, end - forcedTo);
+                forcedTo = end;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public SimulationStatus load(String simulationId) throws IOException {
+        lock.readLock().lock();
+        try {
+            Entry entry = index.get(simulationId);
+            return entry == null ? null : SimulationStatusCodec.decode(payload(entry));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(String simulationId, long version) throws IOException {
+        lock.writeLock().lock();
+        try {
+            // Only in memory: a save still under way when the server stops cannot reach the log after a restart
+            tombstones.add(simulationId, version);
+            if (unindex(simulationId) != null) {
+                append(DELETE_RECORD, simulationId.getBytes(StandardCharsets.UTF_8));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SimulationStatus> loadUnfinished() throws IOException {
+        lock.readLock().lock();
+        try {
+            List<SimulationStatus> unfinished = new ArrayList<>();
+            for (Entry entry : index.values()) {
+                if (!entry.state().isTerminal()) {
+                    unfinished.add(SimulationStatusCodec.decode(payload(entry)));
+                }
+            }
+            return unfinished;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SimulationSummary> history(SimulationState state, int limit) throws IOException {
+        lock.readLock().lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (Entry entry : index.values()) {
+                if (state == null || entry.state() == state) {
+                    entries.add(entry);
+                }
+            }
+            entries.sort(Comparator.comparingLong(Entry::updatedAt).reversed());
+            List<SimulationSummary> summaries = new ArrayList<>();
+            for (int i = 0; i < entries.size() && i < limit; i++) {
+                summaries.add(SimulationStatusCodec.decodeSummary(payload(entries.get(i))));
+            }
+            return summaries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int compact() throws IOException {
+        long cutoff = System.currentTimeMillis() - retentionDays * 86_400_000L;
+        lock.writeLock().lock();
+        try {
+            tombstones.rotate();
+            Set<String> expired = new HashSet<>();
+            for (Map.Entry<String, Entry> entry : index.entrySet()) {
+                if (entry.getValue().state().isTerminal() && entry.getValue().updatedAt() < cutoff) {
+                    expired.add(entry.getKey());
+                }
+            }
+            long garbage = end - liveBytes;
+            if (expired.isEmpty() && (garbage == 0 || garbage * 100 < (long) end * compactionGarbagePercent)) {
+                return 0;
+            }
+            int before = end;
+            rewrite(expired);
+            logger.info("Compacted simulation store from " + before + " to " + end + " bytes, " + expired.size()
+                    + " expired simulations deleted");
+            return expired.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long sizeBytes() {
+        lock.readLock().lock();
+        try {
+            return end;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the log, stopping at its end or at the first damaged record. Anything after a
+     * damaged record is zeroed, so records appended later are never followed by stale ones.
+     */
+    private void replay() throws IOException {
+        index.clear();
+        liveBytes = 0;
+        int position = 0;
+        while (position <= buffer.capacity() - HEADER_BYTES) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > buffer.capacity() - position - HEADER_BYTES
+                    || checksum(position, length) != buffer.getInt(position + 4) || !apply(position, length)) {
+                logger.warn("Simulation store " + logFile(generation) + " is damaged at byte " + position
+                        + ", dropping the records after it");
+                for (int i = position; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        end = position;
+        forcedTo = position;
+    }
+
+    /**
+     * @return false if the record cannot be read.
+     */
+    private boolean apply(int position, int length) {
+        ByteBuffer payload = buffer.slice(position + HEADER_BYTES, length);
+        byte type = buffer.get(position + 8);
+        try {
+            if (type == STATUS_RECORD) {
+                SimulationStatusCodec.Header header = SimulationStatusCodec.readHeader(payload);
+                Entry previous = index.get(header.simulationId());
+                if (previous == null || previous.version() < header.version()) {
+                    index(header.simulationId(), new Entry(position, length, header.state(), header.version(),
+                            header.updatedAt()));
+                }
+                return true;
+            } else if (type == DELETE_RECORD) {
+                byte[] simulationId = new byte[length];
+                payload.get(simulationId);
+                unindex(new String(simulationId, StandardCharsets.UTF_8));
+                return true;
+            }
+        } catch (IOException e) {
+            logger.warn("Unreadable simulation store record at byte " + position + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    private int checksum(int position, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position + 8, length + 1)); // Type and payload
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @return The offset of the new record.
+     */
+    private int append(byte type, byte[] payload) throws IOException {
+        int size = HEADER_BYTES + payload.length;
+        if ((long) end + size > buffer.capacity()) {
+            long capacity = buffer.capacity();
+            while (capacity < (long) end + size) {
+                capacity *= 2;
+            }
+            if (capacity > Integer.MAX_VALUE) {
+                if ((long) end + size > Integer.MAX_VALUE) {
+                    throw new IOException("Simulation store is full, lower fashionopt.store.retention-days");
+                }
+                capacity = Integer.MAX_VALUE;
+            }
+            map(capacity);
+        }
+        int offset = end;
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        buffer.put(offset + 8, type);
+        buffer.put(offset + HEADER_BYTES, payload);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, payload.length); // Last, so a torn record reads as the end of the log
+        end += size;
+        return offset;
+    }
+
+    /**
+     * Copies the live records, except those of {@code skipped} simulations, into the next generation of the log
+     * and switches to it. The new file only replaces the old one once it is complete and on disk.
+     */
+    private void rewrite(Set<String> skipped) throws IOException {
+        long nextGeneration = generation + 1;
+        Path target = logFile(nextGeneration);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Map<String, Entry> moved = new HashMap<>();
+        int position = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Entry> live : index.entrySet()) {
+                if (skipped.contains(live.getKey())) {
+                    continue;
+                }
+                Entry entry = live.getValue();
+                ByteBuffer record = buffer.slice(entry.offset(), entry.size());
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+                moved.put(live.getKey(), new Entry(position, entry.length(), entry.state(), entry.version(),
+                        entry.updatedAt()));
+                position += entry.size();
+            }
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        Path previousFile = logFile(generation);
+        FileChannel previous = channel;
+        channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        generation = nextGeneration;
+        map(Math.max(initialBytes(), Math.min(Integer.MAX_VALUE, 2L * position)));
+        index.clear();
+        index.putAll(moved);
+        liveBytes = position;
+        end = position;
+        forcedTo = position;
+        previous.close();
+        Files.deleteIfExists(previousFile);
+    }
+
+    private void map(long capacity) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private ByteBuffer payload(Entry entry) {
+        return buffer.slice(entry.offset() + HEADER_BYTES, entry.length());
+    }
+
+    private void index(String simulationId, Entry entry) {
+        Entry previous = index.put(simulationId, entry);
+        liveBytes += entry.size() - (previous == null ? 0 : previous.size());
+    }
+
+    private Entry unindex(String simulationId) {
+        Entry previous = index.remove(simulationId);
+        if (previous != null) {
+            liveBytes -= previous.size();
+        }
+        return previous;
+    }
+
+    private long initialBytes() {
+        return Math.min(Integer.MAX_VALUE, Math.max(64 * 1024, (long) initialMegabytes * 1024 * 1024));
+    }
+
+    private Path logFile(long logGeneration) {
+        return directory.resolve("simulations-" + logGeneration + ".log");
+    }
+}
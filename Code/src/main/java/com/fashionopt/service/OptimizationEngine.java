@@ -0,0 +1,41 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationResult;
+
+/**
+ * An optimization algorithm that runs inside the JVM against an already loaded {@link OptimizationProblem}.
+ */
+public interface OptimizationEngine {
+
+    /**
+     * @return The algorithm type reported to {@link SimulationStatusService} ("GA", "ACO" or "EXACT").
+     */
+    String getAlgorithmType();
+
+    /**
+     * Runs the optimization and returns the best plan found.
+     * @param problem The product catalog and budgets to optimize against.
+     * @param progressListener Receives progress updates while the engine runs.
+     * @return The best solution found, converted to the result format shown by the frontend.
+     */
+    default SimulationResult optimize(OptimizationProblem problem, ProgressListener progressListener) {
+        return optimize(problem, progressListener, CancellationToken.NONE);
+    }
+
+    /**
+     * Runs the optimization until it finishes or the token is cancelled.
+     * @param cancellation Checked between generations or iterations.
+     * @throws java.util.concurrent.CancellationException If the token was cancelled before the run finished.
+     */
+    SimulationResult optimize(OptimizationProblem problem, ProgressListener progressListener, CancellationToken cancellation);
+
+    /**
+     * @return Generations (GA), iterations (ACO) or search nodes (EXACT) completed by the last run, for throughput metrics.
+     */
+    long getCompletedIterations();
+
+    /**
+     * @return Candidate solutions whose fitness the last run evaluated.
+     */
+    long getEvaluations();
+}
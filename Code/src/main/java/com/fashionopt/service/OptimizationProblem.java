@@ -0,0 +1,391 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.ProductResult;
+import com.fashionopt.dto.SimulationRequest;
+import com.fashionopt.dto.SimulationResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, array-backed view of a product catalog together with the budgets of one simulation.
+ * Engines read the arrays directly, so they must never be modified after construction. One instance is built per
+ * simulation and shared by its engines, so derived data such as the LP bound is only computed once.
+ */
+public final class OptimizationProblem {
+
+    private final String[] names;
+    private final double[] price;
+    private final double[] unitCost;
+    private final double[] productionCost;
+    private final double[] marketingCost;
+    private final double[] logisticsCost;
+    private final double[] shelfSpace;
+    private final double[] stock;
+    private final double[] netProfit; // Profit per unit after the age/stock discount penalty
+    private final int[] maxQuantity; // Expected demand minus remaining stock, never negative
+
+    private final double productionBudget;
+    private final double marketingBudget;
+    private final double logisticsBudget;
+    private final double shelfCapacity;
+    private final double existingShelfUse; // Shelf space already taken by remaining stock
+    private final Map<Double, Double> upperBounds = new ConcurrentHashMap<>(); // LP bound by shelf limit, solved on first use
+
+    // Set on a problem reduced by Presolve: the catalog it was cut from and the catalog index of each product
+    private final OptimizationProblem parent;
+    private final int[] parentIndex;
+
+    private OptimizationProblem(String[] names, double[] price, double[] unitCost, double[] productionCost,
+                                double[] marketingCost, double[] logisticsCost, double[] shelfSpace, double[] stock,
+                                double[] netProfit, int[] maxQuantity, double productionBudget, double marketingBudget,
+                                double logisticsBudget, double shelfCapacity) {
+        this(names, price, unitCost, productionCost, marketingCost, logisticsCost, shelfSpace, stock, netProfit,
+                maxQuantity, productionBudget, marketingBudget, logisticsBudget, shelfCapacity,
+                shelfUse(shelfSpace, stock), null, null);
+    }
+
+    private OptimizationProblem(String[] names, double[] price, double[] unitCost, double[] productionCost,
+                                double[] marketingCost, double[] logisticsCost, double[] shelfSpace, double[] stock,
+                                double[] netProfit, int[] maxQuantity, double productionBudget, double marketingBudget,
+                                double logisticsBudget, double shelfCapacity, double existingShelfUse,
+                                OptimizationProblem parent, int[] parentIndex) {
+        this.names = names;
+        this.price = price;
+        this.unitCost = unitCost;
+        this.productionCost = productionCost;
+        this.marketingCost = marketingCost;
+        this.logisticsCost = logisticsCost;
+        this.shelfSpace = shelfSpace;
+        this.stock = stock;
+        this.netProfit = netProfit;
+        this.maxQuantity = maxQuantity;
+        this.productionBudget = productionBudget;
+        this.marketingBudget = marketingBudget;
+        this.logisticsBudget = logisticsBudget;
+        this.shelfCapacity = shelfCapacity;
+        this.existingShelfUse = existingShelfUse;
+        this.parent = parent;
+        this.parentIndex = parentIndex;
+    }
+
+    private static double shelfUse(double[] shelfSpace, double[] stock) {
+        double used = 0.0;
+        for (int i = 0; i < shelfSpace.length; i++) {
+            used += shelfSpace[i] * stock[i];
+        }
+        return used;
+    }
+
+    /**
+     * Builds a problem from raw catalog columns, applying the same discount penalty as GA.py and ant.py:
+     * pe = d_base * (age / max_age) * (remaining / total_remaining).
+     */
+    public static OptimizationProblem fromCatalog(String[] names, double[] price, double[] productionCost,
+                                                  double[] marketingCost, double[] logisticsCost, double[] shelfCost,
+                                                  double[] age, double[] stock, double[] demand, double[] shelfSpace,
+                                                  SimulationRequest request) {
+        int n = names.length;
+        double ageMax = 0.0;
+        double storageSum = 0.0;
+        for (int i = 0; i < n; i++) {
+            ageMax = Math.max(ageMax, age[i]);
+            storageSum += stock[i];
+        }
+
+        double[] unitCost = new double[n];
+        double[] netProfit = new double[n];
+        int[] maxQuantity = new int[n];
+        for (int i = 0; i < n; i++) {
+            unitCost[i] = productionCost[i] + marketingCost[i] + logisticsCost[i] + shelfCost[i];
+            // Guard against division by zero exactly like the Python scripts do
+            double ageFactor = ageMax > 0 ? age[i] / ageMax : 0.0;
+            double storageFactor = storageSum > 0 ? stock[i] / storageSum : 0.0;
+            double penalty = request.getDiscountBase() * ageFactor * storageFactor;
+            netProfit[i] = (price[i] - unitCost[i]) * (1 - penalty);
+            maxQuantity[i] = (int) Math.max(0.0, demand[i] - stock[i]);
+        }
+
+        return new OptimizationProblem(names, price, unitCost, productionCost, marketingCost, logisticsCost,
+                shelfSpace, stock, netProfit, maxQuantity, request.getProductionBudget(), request.getMarketingBudget(),
+                request.getLogisticsBudget(), request.getShelfSpace());
+    }
+
+    /**
+     * @return The same catalog under other budgets and shelf capacity. The product arrays are shared rather than
+     * copied, which is what lets a parameter sweep build one problem per point cheaply.
+     * @throws IllegalStateException If this problem was reduced by {@link Presolve}, whose caps depend on its limits.
+     */
+    public OptimizationProblem withLimits(double productionBudget, double marketingBudget, double logisticsBudget,
+                                          double shelfCapacity) {
+        if (parent != null) {
+            throw new IllegalStateException("A pre-solved problem cannot change its limits");
+        }
+        return new OptimizationProblem(names, price, unitCost, productionCost, marketingCost, logisticsCost,
+                shelfSpace, stock, netProfit, maxQuantity, productionBudget, marketingBudget, logisticsBudget,
+                shelfCapacity, existingShelfUse, null, null);
+    }
+
+    /**
+     * Rebuilds a problem from the arrays and limits of another one, such as a job shipped to a cluster worker. A
+     * problem reduced by {@link Presolve} comes back as a catalog of just its own products, with the shelf space
+     * taken by existing stock still that of the whole catalog.
+     */
+    static OptimizationProblem of(String[] names, double[] price, double[] unitCost, double[] productionCost,
+                                  double[] marketingCost, double[] logisticsCost, double[] shelfSpace, double[] stock,
+                                  double[] netProfit, int[] maxQuantity, double productionBudget, double marketingBudget,
+                                  double logisticsBudget, double shelfCapacity, double existingShelfUse) {
+        int n = names.length;
+        for (double[] column : new double[][]{price, unitCost, productionCost, marketingCost, logisticsCost,
+                shelfSpace, stock, netProfit}) {
+            if (column.length != n) {
+                throw new IllegalArgumentException("Every product column must have " + n + " entries");
+            }
+        }
+        if (maxQuantity.length != n) {
+            throw new IllegalArgumentException("Every product column must have " + n + " entries");
+        }
+        return new OptimizationProblem(names, price, unitCost, productionCost, marketingCost, logisticsCost,
+                shelfSpace, stock, netProfit, maxQuantity, productionBudget, marketingBudget, logisticsBudget,
+                shelfCapacity, existingShelfUse, null, null);
+    }
+
+    /**
+     * Keeps only some products, fixing the others at 0. Budgets, shelf capacity and the shelf space taken by
+     * existing stock stay those of the whole catalog, and results are reported for the whole catalog.
+     * @param keep Indices of the products to keep, in increasing order.
+     * @param maxQuantity Quantity cap of each kept product, at most its cap in this problem.
+     */
+    OptimizationProblem restrict(int[] keep, int[] maxQuantity) {
+        int n = keep.length;
+        String[] names = new String[n];
+        double[] price = new double[n];
+        double[] unitCost = new double[n];
+        double[] productionCost = new double[n];
+        double[] marketingCost = new double[n];
+        double[] logisticsCost = new double[n];
+        double[] shelfSpace = new double[n];
+        double[] stock = new double[n];
+        double[] netProfit = new double[n];
+        int[] index = new int[n];
+        for (int j = 0; j < n; j++) {
+            int i = keep[j];
+            names[j] = this.names[i];
+            price[j] = this.price[i];
+            unitCost[j] = this.unitCost[i];
+            productionCost[j] = this.productionCost[i];
+            marketingCost[j] = this.marketingCost[i];
+            logisticsCost[j] = this.logisticsCost[i];
+            shelfSpace[j] = this.shelfSpace[i];
+            stock[j] = this.stock[i];
+            netProfit[j] = this.netProfit[i];
+            index[j] = parentIndex != null ? parentIndex[i] : i;
+        }
+        return new OptimizationProblem(names, price, unitCost, productionCost, marketingCost, logisticsCost,
+                shelfSpace, stock, netProfit, maxQuantity, productionBudget, marketingBudget, logisticsBudget,
+                shelfCapacity, existingShelfUse, parent != null ? parent : this, index);
+    }
+
+    /**
+     * @return The whole catalog if this problem was reduced by {@link Presolve}, otherwise this problem.
+     */
+    public OptimizationProblem getCatalog() {
+        return parent != null ? parent : this;
+    }
+
+    /**
+     * @return Index in {@link #getCatalog()} of product j of this problem.
+     */
+    int catalogIndex(int j) {
+        return parentIndex != null ? parentIndex[j] : j;
+    }
+
+    /**
+     * Converts a quantity vector into the result format returned by the Python scripts.
+     * Total profit is the real profit without the discount penalty, as shown to the user.
+     * A reduced problem reports every product of the catalog, with the ones it fixed at 0.
+     */
+    public SimulationResult toResult(int[] quantities) {
+        if (parent != null) {
+            int[] full = new int[parent.size()];
+            for (int j = 0; j < quantities.length; j++) {
+                full[parentIndex[j]] = quantities[j];
+            }
+            return parent.toResult(full);
+        }
+        List<ProductResult> products = new ArrayList<>(size());
+        double totalProfit = 0.0;
+        for (int i = 0; i < size(); i++) {
+            int quantity = quantities[i];
+            double profitPerUnit = price[i] - unitCost[i];
+
+            ProductResult pr = new ProductResult();
+            pr.setName(names[i]);
+            pr.setQuantity(quantity);
+            pr.setPrice(price[i]);
+            pr.setUnitCost(unitCost[i]);
+            pr.setProfitPerUnit(profitPerUnit);
+            pr.setTotalProfit(profitPerUnit * quantity);
+            pr.setTotalCost(unitCost[i] * quantity);
+            products.add(pr);
+            totalProfit += profitPerUnit * quantity;
+        }
+
+        SimulationResult result = new SimulationResult();
+        result.setTotalProfit(totalProfit);
+        result.setProductCount(products.size());
+        result.setProducts(products);
+        return result;
+    }
+
+    /**
+     * @return Penalised profit of a quantity vector, the objective both engines maximise.
+     */
+    public double objective(int[] quantities) {
+        double total = 0.0;
+        for (int i = 0; i < size(); i++) {
+            total += netProfit[i] * quantities[i];
+        }
+        return total;
+    }
+
+    /**
+     * Attaches the LP upper bound and the plan's relative gap to it. The gap is only set when the result lists
+     * every product of this problem in order, which the Python scripts do unless rows were skipped.
+     * @param shelfLimit Shelf space the engine that produced the result allows for new quantities.
+     */
+    public SimulationResult withBound(SimulationResult result, double shelfLimit) {
+        if (parent != null) {
+            return parent.withBound(result, shelfLimit);
+        }
+        double bound = getUpperBound(shelfLimit);
+        if (Double.isNaN(bound)) {
+            return result;
+        }
+        result.setUpperBound(bound);
+        List<ProductResult> products = result.getProducts();
+        if (products == null || products.size() != size()) {
+            return result;
+        }
+        double objective = 0.0;
+        for (int i = 0; i < size(); i++) {
+            if (!names[i].equals(products.get(i).getName())) {
+                return result;
+            }
+            objective += netProfit[i] * products.get(i).getQuantity();
+        }
+        result.setOptimalityGap(bound > 0 ? Math.max(0.0, (bound - objective) / bound * 100) : 0.0);
+        return result;
+    }
+
+    /**
+     * The GA and the exact solver count the remaining stock against the shelf capacity and ACO does not, so a
+     * simulation solves at most two relaxations; each is solved once and shared by every engine that asks for it.
+     * @param shelfLimit Shelf space the engine allows for new quantities.
+     * @return Upper bound on the penalised profit of any plan that fits the budgets and shelfLimit, or NaN if a
+     * budget or the shelf limit is negative and no plan fits at all. A reduced problem has the same optimum as its
+     * catalog, so it shares the catalog's bound.
+     */
+    public double getUpperBound(double shelfLimit) {
+        if (parent != null) {
+            return parent.getUpperBound(shelfLimit);
+        }
+        return upperBounds.computeIfAbsent(shelfLimit, limit -> {
+            try {
+                return LinearRelaxation.solve(this, limit).getBound();
+            } catch (IllegalArgumentException e) {
+                return Double.NaN;
+            }
+        });
+    }
+
+    /**
+     * Like {@link #getUpperBound(double)}, but the solve stops at {@code deadline}. A bound cut short is valid but
+     * looser than the LP optimum, so it is returned without being kept for the other engines.
+     * @param deadline {@link System#nanoTime()} value by which the bound must be known, or null for no limit.
+     */
+    public double getUpperBound(double shelfLimit, Long deadline) {
+        if (parent != null) {
+            return parent.getUpperBound(shelfLimit, deadline);
+        }
+        Double known = upperBounds.get(shelfLimit);
+        if (known != null || deadline == null) {
+            return known != null ? known : getUpperBound(shelfLimit);
+        }
+        try {
+            LinearRelaxation relaxation = LinearRelaxation.solve(this, shelfLimit, deadline);
+            if (relaxation.isOptimal()) {
+                upperBounds.putIfAbsent(shelfLimit, relaxation.getBound());
+            }
+            return relaxation.getBound();
+        } catch (IllegalArgumentException e) {
+            return Double.NaN;
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    String[] getNames() {
+        return names;
+    }
+
+    double[] getPrice() {
+        return price;
+    }
+
+    double[] getUnitCost() {
+        return unitCost;
+    }
+
+    double[] getProductionCost() {
+        return productionCost;
+    }
+
+    double[] getMarketingCost() {
+        return marketingCost;
+    }
+
+    double[] getLogisticsCost() {
+        return logisticsCost;
+    }
+
+    double[] getShelfSpace() {
+        return shelfSpace;
+    }
+
+    double[] getStock() {
+        return stock;
+    }
+
+    double[] getNetProfit() {
+        return netProfit;
+    }
+
+    int[] getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    public double getProductionBudget() {
+        return productionBudget;
+    }
+
+    public double getMarketingBudget() {
+        return marketingBudget;
+    }
+
+    public double getLogisticsBudget() {
+        return logisticsBudget;
+    }
+
+    public double getShelfCapacity() {
+        return shelfCapacity;
+    }
+
+    public double getExistingShelfUse() {
+        return existingShelfUse;
+    }
+}
@@ -0,0 +1,146 @@
+package com.fashionopt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Shrinks a problem before any engine runs, without changing its optimum:
+ * <ul>
+ *     <li>products with no profit per unit or no room for a single unit are fixed at 0,</li>
+ *     <li>each quantity cap is lowered to what the tightest budget or the shelf alone allows, e.g.
+ *     {@code floor(productionBudget / productionCost)},</li>
+ *     <li>a product is fixed at 0 when another one earns at least as much per unit, uses no more of any resource,
+ *     and would already use up one of the resources by itself at its cap; the latter can always take the former's
+ *     units instead.</li>
+ * </ul>
+ * Limits are those of the most permissive engine (the whole shelf, as ACO counts it), so the reduced problem is
+ * valid for every engine. It keeps the catalog's budgets and existing shelf use and reports its results for the
+ * whole catalog, see {@link OptimizationProblem#restrict}.
+ */
+public final class Presolve {
+
+    private static final Logger logger = LoggerFactory.getLogger(Presolve.class);
+
+    private static final int RESOURCES = 4;
+    private static final double EPSILON = 1e-9;
+    // Only the most efficient products are tried as dominators, which keeps the check linear in the catalog size
+    private static final int DOMINATOR_CANDIDATES = 32;
+
+    private Presolve() {
+    }
+
+    /**
+     * @param quantityCap Largest quantity every engine can give a single product (the GA's chromosome segment
+     *                    limit); a product only dominates others with as many units as this allows.
+     * @return The reduced problem, or {@code problem} itself if nothing could be removed or tightened.
+     */
+    public static OptimizationProblem reduce(OptimizationProblem problem, int quantityCap) {
+        int n = problem.size();
+        double[] limit = {problem.getProductionBudget(), problem.getMarketingBudget(), problem.getLogisticsBudget(),
+                problem.getShelfCapacity()};
+        for (double l : limit) {
+            if (l < 0) {
+                return problem; // No plan fits at all; leave the error to the engines
+            }
+        }
+        double[][] usage = {problem.getProductionCost(), problem.getMarketingCost(), problem.getLogisticsCost(),
+                problem.getShelfSpace()};
+        double[] netProfit = problem.getNetProfit();
+        int[] maxQuantity = problem.getMaxQuantity();
+
+        int[] cap = new int[n];
+        int unprofitable = 0;
+        int tightened = 0;
+        for (int i = 0; i < n; i++) {
+            if (!(netProfit[i] > 0)) {
+                unprofitable++;
+                continue;
+            }
+            double c = maxQuantity[i];
+            for (int k = 0; k < RESOURCES; k++) {
+                if (usage[k][i] > 0) {
+                    c = Math.min(c, Math.floor(limit[k] / usage[k][i] + EPSILON));
+                }
+            }
+            cap[i] = (int) c;
+            if (cap[i] < maxQuantity[i]) {
+                tightened++;
+            }
+        }
+
+        boolean[] dominated = markDominated(netProfit, usage, limit, cap, quantityCap);
+        int[] keep = IntStream.range(0, n).filter(i -> cap[i] > 0 && !dominated[i]).toArray();
+        int dominatedCount = 0;
+        for (boolean d : dominated) {
+            dominatedCount += d ? 1 : 0;
+        }
+        int noRoom = n - unprofitable - dominatedCount - keep.length;
+
+        logger.info("Pre-solve kept " + keep.length + " of " + n + " products (" + unprofitable + " unprofitable, "
+                + noRoom + " without room for a unit, " + dominatedCount + " dominated) and tightened "
+                + tightened + " quantity caps");
+        if (keep.length == n && tightened == 0) {
+            return problem;
+        }
+        int[] keptCap = new int[keep.length];
+        for (int j = 0; j < keep.length; j++) {
+            keptCap[j] = cap[keep[j]];
+        }
+        return problem.restrict(keep, keptCap);
+    }
+
+    /**
+     * Dominators are never removed themselves, so every removed product keeps a dominator to move its units to.
+     */
+    private static boolean[] markDominated(double[] netProfit, double[][] usage, double[] limit, int[] cap,
+                                           int quantityCap) {
+        int n = cap.length;
+        boolean[] dominated = new boolean[n];
+        double[] score = new double[n];
+        for (int i = 0; i < n; i++) {
+            double relativeUsage = 0.0;
+            for (int k = 0; k < RESOURCES; k++) {
+                relativeUsage += Math.max(0.0, usage[k][i]) / Math.max(limit[k], EPSILON);
+            }
+            score[i] = netProfit[i] / Math.max(relativeUsage, EPSILON);
+        }
+        int[] candidates = IntStream.range(0, n).filter(i -> cap[i] > 0).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -score[i]).thenComparingInt(i -> i))
+                .limit(DOMINATOR_CANDIDATES).mapToInt(Integer::intValue).toArray();
+        boolean[] isCandidate = new boolean[n];
+        for (int c : candidates) {
+            isCandidate[c] = true;
+        }
+
+        for (int j = 0; j < n; j++) {
+            if (cap[j] == 0 || isCandidate[j]) {
+                continue;
+            }
+            for (int i : candidates) {
+                if (dominates(i, j, netProfit, usage, limit, Math.min(cap[i], quantityCap))) {
+                    dominated[j] = true;
+                    break;
+                }
+            }
+        }
+        return dominated;
+    }
+
+    private static boolean dominates(int i, int j, double[] netProfit, double[][] usage, double[] limit, int capI) {
+        if (netProfit[i] < netProfit[j]) {
+            return false;
+        }
+        boolean fillsResource = false;
+        for (int k = 0; k < RESOURCES; k++) {
+            if (usage[k][i] > usage[k][j]) {
+                return false;
+            }
+            // With i at its cap, not even one unit of j fits any more
+            fillsResource |= capI * usage[k][i] + usage[k][j] > limit[k] * (1 + EPSILON);
+        }
+        return fillsResource;
+    }
+}
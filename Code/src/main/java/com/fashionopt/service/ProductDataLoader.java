@@ -0,0 +1,244 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationRequest;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an uploaded CSV or Excel catalog into a {@link ProductTable} in a single pass. CSV files are read
+ * line by line and XLSX files are streamed with POI's SAX reader, so neither is held in memory as a whole.
+ * Column lookup and error messages follow the Python scripts so both paths fail the same way.
+ */
+@Service
+public class ProductDataLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductDataLoader.class);
+
+    public ProductTable load(Path filePath, SimulationRequest request) throws IOException {
+        Map<String, String> colMap = columnMapping(request);
+        String[] numericColumns = new String[ProductTable.Column.values().length];
+        for (ProductTable.Column column : ProductTable.Column.values()) {
+            numericColumns[column.ordinal()] = colMap.get(column.key);
+        }
+        ProductTable.Builder builder = new ProductTable.Builder(colMap.get("name"), numericColumns);
+
+        String fileName = filePath.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".csv")) {
+            readCsv(filePath, builder);
+        } else if (fileName.endsWith(".xls")) {
+            readWorkbook(filePath, builder);
+        } else {
+            readXlsx(filePath, builder);
+        }
+        if (!builder.hasHeader()) {
+            throw new IllegalArgumentException("The uploaded file is empty.");
+        }
+
+        ProductTable table = builder.build();
+        logger.info("Loaded " + table.size() + " products from " + filePath.getFileName());
+        return table;
+    }
+
+    private Map<String, String> columnMapping(SimulationRequest request) {
+        Map<String, String> colMap = new LinkedHashMap<>();
+        colMap.put("name", request.getColName());
+        colMap.put("price", request.getColPrice());
+        colMap.put("cp", request.getColCp());
+        colMap.put("cm", request.getColCm());
+        colMap.put("cl", request.getColCl());
+        colMap.put("cs", request.getColShelfCost());
+        colMap.put("age", request.getColAge());
+        colMap.put("stock", request.getColStock());
+        colMap.put("shelf", request.getColShelf());
+        colMap.put("demand", request.getColDemand());
+
+        // Validate that no 'null' strings were passed for required columns
+        for (Map.Entry<String, String> entry : colMap.entrySet()) {
+            String value = entry.getValue();
+            if (value == null || value.isEmpty() || "null".equals(value)) {
+                throw new IllegalArgumentException("Column mapping for '" + entry.getKey()
+                        + "' is missing or invalid (received '" + value + "'). Please select all required columns in the UI.");
+            }
+        }
+        return colMap;
+    }
+
+    private void readCsv(Path filePath, ProductTable.Builder builder) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (builder.hasHeader()) {
+                    builder.row(splitCsvLine(line), lineNumber);
+                } else {
+                    builder.header(splitCsvLine(line));
+                }
+            }
+        }
+    }
+
+    private List<String> splitCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"'); // Escaped quote inside a quoted cell
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                cells.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        cells.add(current.toString().trim());
+        return cells;
+    }
+
+    /**
+     * Streams the first sheet of an XLSX file through POI's SAX reader, one row at a time.
+     */
+    private void readXlsx(Path filePath, ProductTable.Builder builder) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(filePath.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+                    new ReadOnlySharedStringsTable(pkg), new RowCollector(builder), new RawNumberFormatter(), false));
+            try (InputStream sheet = sheets.next()) {
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            if (e.getCause() instanceof IllegalArgumentException cause) {
+                throw cause;
+            }
+            throw new IOException("Could not read Excel file " + filePath.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Legacy .xls files have no streaming reader in the user model, so they are read through a workbook.
+     */
+    private void readWorkbook(Path filePath, ProductTable.Builder builder) throws IOException {
+        DataFormatter formatter = new DataFormatter();
+        try (InputStream in = Files.newInputStream(filePath); Workbook workbook = WorkbookFactory.create(in)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (Row row : sheet) {
+                List<String> cells = new ArrayList<>();
+                for (int c = 0; c < row.getLastCellNum(); c++) {
+                    Cell cell = row.getCell(c);
+                    if (cell == null) {
+                        cells.add("");
+                    } else if (cell.getCellType() == CellType.NUMERIC) {
+                        cells.add(String.valueOf(cell.getNumericCellValue()));
+                    } else {
+                        cells.add(formatter.formatCellValue(cell).trim());
+                    }
+                }
+                if (builder.hasHeader()) {
+                    builder.row(cells, row.getRowNum() + 1);
+                } else {
+                    builder.header(cells);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the cells of each streamed row by column and hands the row to the builder when it ends.
+     */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final ProductTable.Builder builder;
+        private final List<String> cells = new ArrayList<>();
+        private int nextColumn;
+
+        RowCollector(ProductTable.Builder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (cells.isEmpty()) {
+                return;
+            }
+            if (builder.hasHeader()) {
+                builder.row(cells, rowNum + 1);
+            } else {
+                builder.header(cells);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            while (cells.size() < column) {
+                cells.add(""); // Empty cells are not present in the sheet XML
+            }
+            cells.add(formattedValue == null ? "" : formattedValue.trim());
+            nextColumn = column + 1;
+        }
+    }
+
+    /**
+     * Reports numeric cells as their plain value rather than their display format, so "1,250.00" or "45%"
+     * formatting does not change what is parsed.
+     */
+    private static final class RawNumberFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar copy of an uploaded catalog, holding only the columns selected in the request's column mapping.
+ * The file is parsed once into this table, which then serves request validation and both in-process engines.
+ * Columns are never modified after the table is built.
+ */
+public final class ProductTable {
+
+    private final String[] names;
+    private final double[] price;
+    private final double[] productionCost;
+    private final double[] marketingCost;
+    private final double[] logisticsCost;
+    private final double[] shelfCost;
+    private final double[] age;
+    private final double[] stock;
+    private final double[] demand;
+    private final double[] shelfSpace;
+    private final double totalShelfSpace;
+
+    private ProductTable(String[] names, double[][] columns) {
+        this.names = names;
+        this.price = columns[Column.PRICE.ordinal()];
+        this.productionCost = columns[Column.PRODUCTION_COST.ordinal()];
+        this.marketingCost = columns[Column.MARKETING_COST.ordinal()];
+        this.logisticsCost = columns[Column.LOGISTICS_COST.ordinal()];
+        this.shelfCost = columns[Column.SHELF_COST.ordinal()];
+        this.age = columns[Column.AGE.ordinal()];
+        this.stock = columns[Column.STOCK.ordinal()];
+        this.demand = columns[Column.DEMAND.ordinal()];
+        this.shelfSpace = columns[Column.SHELF_SPACE.ordinal()];
+        double total = 0.0;
+        for (double s : shelfSpace) {
+            total += s;
+        }
+        this.totalShelfSpace = total;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return The sum of the shelf space column, checked against the requested shelf capacity.
+     */
+    public double getTotalShelfSpace() {
+        return totalShelfSpace;
+    }
+
+    /**
+     * @return Approximate heap size of the table, used to cap the dataset cache.
+     */
+    public long estimatedBytes() {
+        long bytes = 10L * 16 + 9L * 8 * names.length; // Array headers and the numeric columns
+        for (String name : names) {
+            bytes += 48 + name.length(); // String and array headers plus compact Latin-1 contents
+        }
+        return bytes;
+    }
+
+    /**
+     * Combines the catalog with the budgets and discount base of one simulation. The problem shares this
+     * table's column arrays instead of copying them.
+     */
+    public OptimizationProblem toProblem(SimulationRequest request) {
+        return OptimizationProblem.fromCatalog(names, price, productionCost, marketingCost, logisticsCost, shelfCost,
+                age, stock, demand, shelfSpace, request);
+    }
+
+    /**
+     * The numeric columns of a catalog, in the order the column mapping lists them.
+     */
+    enum Column {
+        PRICE("price"), PRODUCTION_COST("cp"), MARKETING_COST("cm"), LOGISTICS_COST("cl"), SHELF_COST("cs"),
+        AGE("age"), STOCK("stock"), SHELF_SPACE("shelf"), DEMAND("demand");
+
+        final String key; // Key of the column in the Python scripts' col_map
+
+        Column(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Appends rows to growable primitive columns, parsing only the mapped cells of each row.
+     */
+    static final class Builder {
+        private final String nameColumn;
+        private final String[] numericColumns;
+        private int nameIndex = -1;
+        private final int[] numericIndex = new int[Column.values().length];
+        private final List<String> names = new ArrayList<>();
+        private double[][] columns = new double[Column.values().length][64];
+        private int size;
+
+        /**
+         * @param numericColumns Header of each {@link Column}, indexed by its ordinal.
+         */
+        Builder(String nameColumn, String[] numericColumns) {
+            this.nameColumn = nameColumn;
+            this.numericColumns = numericColumns;
+        }
+
+        /**
+         * Resolves the mapped columns against the header row.
+         * @throws IllegalArgumentException If a mapped column is not in the header, with the message GA.py uses.
+         */
+        void header(List<String> header) {
+            List<String> missing = new ArrayList<>();
+            nameIndex = header.indexOf(nameColumn);
+            if (nameIndex < 0) {
+                missing.add(nameColumn);
+            }
+            for (int k = 0; k < numericColumns.length; k++) {
+                numericIndex[k] = header.indexOf(numericColumns[k]);
+                if (numericIndex[k] < 0) {
+                    missing.add(numericColumns[k]);
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Missing required columns in Excel/CSV: " + missing
+                        + ". Please check your file and column mappings.");
+            }
+        }
+
+        boolean hasHeader() {
+            return nameIndex >= 0;
+        }
+
+        /**
+         * @param cells Cell values of one data row; missing trailing cells are read as empty.
+         * @param rowNumber One-based row number in the file, used in error messages.
+         */
+        void row(List<String> cells, int rowNumber) {
+            if (size == columns[0].length) {
+                for (int k = 0; k < columns.length; k++) {
+                    columns[k] = Arrays.copyOf(columns[k], size * 2);
+                }
+            }
+            names.add(cellAt(cells, nameIndex));
+            for (int k = 0; k < numericIndex.length; k++) {
+                columns[k][size] = parseNumber(cellAt(cells, numericIndex[k]), numericColumns[k], rowNumber);
+            }
+            size++;
+        }
+
+        ProductTable build() {
+            double[][] trimmed = new double[columns.length][];
+            for (int k = 0; k < columns.length; k++) {
+                trimmed[k] = Arrays.copyOf(columns[k], size);
+            }
+            return new ProductTable(names.toArray(new String[0]), trimmed);
+        }
+
+        private static String cellAt(List<String> cells, int index) {
+            return index < cells.size() ? cells.get(index) : "";
+        }
+
+        private static double parseNumber(String value, String column, int rowNumber) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid numeric value '" + value + "' in column '" + column
+                        + "' at row " + rowNumber + ".");
+            }
+        }
+    }
+}
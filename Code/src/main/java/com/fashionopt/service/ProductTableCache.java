@@ -0,0 +1,98 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of parsed catalogs keyed by upload content hash plus column mapping, so running the same sheet
+ * again with different budgets skips parsing. Bounded both by entry count and by the estimated size of the
+ * cached tables; tables are immutable and shared between simulations.
+ */
+@Service
+public class ProductTableCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductTableCache.class);
+
+    @Autowired
+    private ProductDataLoader productDataLoader;
+
+    @Autowired
+    private SimulationMetrics simulationMetrics;
+
+    @Value("${fashionopt.dataset-cache.max-entries:32}")
+    private int maxEntries;
+
+    @Value("${fashionopt.dataset-cache.max-megabytes:256}")
+    private long maxMegabytes;
+
+    // Access-ordered, so iteration starts at the least recently used table
+    private final LinkedHashMap<String, ProductTable> tables = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes, long maxBytes) {
+    }
+
+    public ProductTable load(StoredUpload upload, SimulationRequest request) throws IOException {
+        String key = upload.contentHash() + "|" + columnKey(request);
+        synchronized (this) {
+            ProductTable cached = tables.get(key);
+            if (cached != null) {
+                hits++;
+                logger.debug("Dataset cache hit for " + upload.contentHash());
+                return cached;
+            }
+            misses++;
+        }
+
+        // Parsed outside the lock; two concurrent misses for the same key both parse and the last one is kept
+        long startTime = System.nanoTime();
+        ProductTable table = productDataLoader.load(upload.path(), request);
+        simulationMetrics.recordParse(table.size(), System.nanoTime() - startTime);
+        long size = table.estimatedBytes();
+        long maxBytes = maxMegabytes * 1024 * 1024;
+        if (size > maxBytes) {
+            logger.info("Catalog " + upload.contentHash() + " is larger than the dataset cache, not caching it");
+            return table;
+        }
+        synchronized (this) {
+            ProductTable previous = tables.put(key, table);
+            bytes += size - (previous != null ? previous.estimatedBytes() : 0);
+            Iterator<Map.Entry<String, ProductTable>> eldest = tables.entrySet().iterator();
+            while ((tables.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                Map.Entry<String, ProductTable> entry = eldest.next();
+                if (entry.getValue() == table) {
+                    continue;
+                }
+                bytes -= entry.getValue().estimatedBytes();
+                eldest.remove();
+                evictions++;
+            }
+        }
+        return table;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, tables.size(), bytes, maxMegabytes * 1024 * 1024);
+    }
+
+    private static String columnKey(SimulationRequest request) {
+        // Header names cannot contain a NUL, so the joined key is unambiguous
+        return String.join("\u0000", String.valueOf(request.getColName()), String.valueOf(request.getColPrice()),
+                String.valueOf(request.getColCp()), String.valueOf(request.getColCm()), String.valueOf(request.getColCl()),
+                String.valueOf(request.getColShelfCost()), String.valueOf(request.getColAge()),
+                String.valueOf(request.getColStock()), String.valueOf(request.getColShelf()),
+                String.valueOf(request.getColDemand()));
+    }
+}
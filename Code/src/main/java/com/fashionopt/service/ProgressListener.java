@@ -0,0 +1,24 @@
+package com.fashionopt.service;
+
+/**
+ * Callback used by in-process optimization engines to report how far a run has progressed.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    ProgressListener NONE = (progress, estimatedTimeRemaining) -> { };
+
+    /**
+     * @param progress Percentage progress (0-100).
+     * @param estimatedTimeRemaining Estimated time remaining in seconds.
+     */
+    void onProgress(double progress, double estimatedTimeRemaining);
+
+    /**
+     * Called when the engine has found a better feasible plan than any it reported before.
+     * @param objective Penalised profit of the plan.
+     * @param quantities Quantity of each product; owned by the engine, so copy it if it is kept.
+     */
+    default void onIncumbent(double objective, int[] quantities) {
+    }
+}
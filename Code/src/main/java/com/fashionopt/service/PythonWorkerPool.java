@@ -0,0 +1,389 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of long-lived python_worker.py processes. Python is located once at boot and each worker imports
+ * pandas/numpy once, then takes GA/ACO jobs as line-delimited JSON on stdin and streams progress and results
+ * back on stdout. Crashed workers are restarted, and idle workers are pinged periodically.
+ */
+@Component
+public class PythonWorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(PythonWorkerPool.class);
+
+    private static final String[] PYTHON_COMMANDS = {"python3.11", "python3", "python"};
+    private static final String WORKER_SCRIPT = "python_worker.py";
+    private static final int DIAGNOSTIC_LINES = 20;
+
+    @Autowired
+    private SimulationMetrics simulationMetrics;
+
+    @Value("${fashionopt.python.pool.size:2}")
+    private int poolSize;
+
+    @Value("${fashionopt.python.pool.startup-timeout-seconds:60}")
+    private long startupTimeoutSeconds;
+
+    @Value("${fashionopt.python.pool.health-check-interval-seconds:30}")
+    private long healthCheckIntervalSeconds;
+
+    @Value("${fashionopt.engine.ga:java}")
+    private String gaEngineMode;
+
+    @Value("${fashionopt.engine.aco:java}")
+    private String acoEngineMode;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+    private final List<Worker> allWorkers = new ArrayList<>();
+    private ScheduledExecutorService healthChecker;
+    private String pythonExecutable;
+
+    @PostConstruct
+    public void start() {
+        if (!"python".equalsIgnoreCase(gaEngineMode) && !"python".equalsIgnoreCase(acoEngineMode)) {
+            logger.info("Python worker pool not started, both engines run in-process");
+            return;
+        }
+
+        pythonExecutable = findPythonExecutable();
+        if (pythonExecutable == null) {
+            logger.error("No Python executable found, Python engines will fail. Tried: " + String.join(", ", PYTHON_COMMANDS));
+            return;
+        }
+
+        for (int slot = 0; slot < poolSize; slot++) {
+            Worker worker = new Worker(slot);
+            try {
+                worker.start();
+            } catch (IOException e) {
+                // The slot stays in the pool and is started again on first use
+                logger.error("Failed to start Python worker " + slot + ": " + e.getMessage());
+            }
+            allWorkers.add(worker);
+            idleWorkers.add(worker);
+        }
+        logger.info("Started " + poolSize + " Python workers using " + pythonExecutable);
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "python-worker-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckIntervalSeconds,
+                healthCheckIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Worker worker : allWorkers) {
+            worker.stop();
+        }
+    }
+
+    /**
+     * Runs one GA or ACO job on the next free worker, blocking until a worker becomes available. Cancelling the
+     * token kills the worker's process tree and starts a fresh worker in its slot.
+     * @param algorithmType "GA" or "ACO".
+     * @param stoppingRule Sent to the script as {@code stop_at} and {@code deadline_ms}, so it can end the run
+     *                     early as the in-process engines do.
+     * @return The script's result object, or an object with an "error" field if the script reported one.
+     * @throws IOException If no worker could be started or the worker died while running the job.
+     * @throws java.util.concurrent.CancellationException If the token was cancelled while waiting or running.
+     */
+    public JsonNode execute(String simulationId, String algorithmType, Path filePath, SimulationRequest request,
+                            StoppingRule stoppingRule, ProgressListener progressListener,
+                            CancellationToken cancellation) throws IOException, InterruptedException {
+        if (pythonExecutable == null) {
+            throw new IOException("No Python executable found. Please install Python and ensure it's in your system PATH. Tried: "
+                    + String.join(", ", PYTHON_COMMANDS));
+        }
+
+        ObjectNode job = mapper.createObjectNode();
+        job.put("type", "job");
+        job.put("id", simulationId + "-" + algorithmType);
+        job.put("algorithm", algorithmType);
+        job.put("file_path", filePath.toString());
+        job.put("bp", request.getProductionBudget());
+        job.put("bm", request.getMarketingBudget());
+        job.put("bl", request.getLogisticsBudget());
+        job.put("s_max", request.getShelfSpace());
+        job.put("d_base", request.getDiscountBase());
+        job.put("chromosome_bits", request.getChromosomeBits());
+        if (stoppingRule.getTarget() != null) {
+            job.put("stop_at", stoppingRule.getTarget());
+        }
+        if (stoppingRule.getRemainingMillis() != null) {
+            job.put("deadline_ms", stoppingRule.getRemainingMillis()); // The script starts its clock when it gets the job
+        }
+        ObjectNode colMap = job.putObject("col_map");
+        colMap.put("name", request.getColName());
+        colMap.put("price", request.getColPrice());
+        colMap.put("cp", request.getColCp());
+        colMap.put("cm", request.getColCm());
+        colMap.put("cl", request.getColCl());
+        colMap.put("cs", request.getColShelfCost());
+        colMap.put("age", request.getColAge());
+        colMap.put("stock", request.getColStock());
+        colMap.put("shelf", request.getColShelf());
+        colMap.put("demand", request.getColDemand());
+
+        Worker worker;
+        while ((worker = idleWorkers.poll(1, TimeUnit.SECONDS)) == null) {
+            cancellation.throwIfCancelled();
+        }
+        Runnable unregister = () -> { };
+        try {
+            cancellation.throwIfCancelled();
+            if (!worker.isAlive()) {
+                logger.warn("Python worker " + worker.slot + " is not running, restarting it");
+                worker.restart();
+            }
+            unregister = cancellation.onCancel(worker::stop);
+            return worker.run(job, progressListener);
+        } catch (IOException e) {
+            if (cancellation.isCancelled()) {
+                // The worker was killed on purpose; bring the slot back now rather than on the next job
+                logger.info("Killed Python worker " + worker.slot + " running cancelled job " + job.get("id").asText());
+                restartQuietly(worker);
+                cancellation.throwIfCancelled();
+            }
+            worker.stop(); // Restarted by the next job or health check
+            throw e;
+        } finally {
+            unregister.run();
+            idleWorkers.add(worker);
+        }
+    }
+
+    private void checkHealth() {
+        List<Worker> checked = new ArrayList<>();
+        idleWorkers.drainTo(checked);
+        for (Worker worker : checked) {
+            try {
+                if (!worker.isAlive() || !worker.ping()) {
+                    logger.warn("Python worker " + worker.slot + " failed its health check, restarting it");
+                    worker.restart();
+                }
+            } catch (IOException e) {
+                logger.error("Failed to restart Python worker " + worker.slot + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                idleWorkers.add(worker);
+            }
+        }
+    }
+
+    private void restartQuietly(Worker worker) {
+        try {
+            worker.restart();
+        } catch (IOException e) {
+            // The slot stays in the pool and is started again on next use
+            logger.error("Failed to restart Python worker " + worker.slot + ": " + e.getMessage());
+        }
+    }
+
+    private String findPythonExecutable() {
+        // Find the first available Python executable
+        for (String cmd : PYTHON_COMMANDS) {
+            try {
+                Process testProcess = new ProcessBuilder(cmd, "--version").start();
+                if (testProcess.waitFor() == 0) {
+                    logger.info("Found Python executable: " + cmd);
+                    return cmd;
+                }
+            } catch (Exception e) {
+                // Continue to next command
+                logger.debug("Python command '" + cmd + "' not found: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One pool slot. The process behind it may be replaced when it crashes; a reader thread turns its
+     * stdout into protocol messages so callers can wait on them with a timeout.
+     */
+    private final class Worker {
+        private final int slot;
+        private final Deque<String> recentOutput = new ArrayDeque<>();
+        private volatile Process process; // Also stopped from the thread that cancels a job
+        private BufferedWriter stdin;
+        private BlockingQueue<JsonNode> messages;
+        private boolean ready;
+
+        Worker(int slot) {
+            this.slot = slot;
+        }
+
+        void start() throws IOException {
+            String scriptDir = System.getProperty("user.dir");
+            ProcessBuilder pb = new ProcessBuilder(pythonExecutable, "-u", scriptDir + File.separator + WORKER_SCRIPT);
+            pb.directory(new File(scriptDir));
+            pb.redirectErrorStream(true);
+            long startTime = System.nanoTime();
+            process = pb.start();
+            stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            messages = new LinkedBlockingQueue<>();
+            ready = false;
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            BlockingQueue<JsonNode> sink = messages;
+            Thread readerThread = new Thread(() -> readOutput(reader, sink, startTime), "python-worker-" + slot);
+            readerThread.setDaemon(true);
+            readerThread.start();
+        }
+
+        void restart() throws IOException {
+            stop();
+            start();
+        }
+
+        /**
+         * Kills the worker together with any processes it started.
+         */
+        void stop() {
+            Process current = process;
+            if (current != null) {
+                current.descendants().forEach(ProcessHandle::destroyForcibly);
+                current.destroyForcibly();
+                process = null;
+            }
+        }
+
+        boolean isAlive() {
+            return process != null && process.isAlive();
+        }
+
+        boolean ping() throws IOException, InterruptedException {
+            awaitReady();
+            send(mapper.createObjectNode().put("type", "ping"));
+            JsonNode reply = messages.poll(5, TimeUnit.SECONDS);
+            return reply != null && "pong".equals(reply.path("type").asText());
+        }
+
+        JsonNode run(ObjectNode job, ProgressListener progressListener) throws IOException, InterruptedException {
+            awaitReady();
+            send(job);
+            while (true) {
+                JsonNode message = messages.take();
+                switch (message.path("type").asText()) {
+                    case "progress" -> progressListener.onProgress(message.path("progress").asDouble(),
+                            message.path("eta").asDouble());
+                    case "result" -> {
+                        return message.path("result");
+                    }
+                    case "error" -> {
+                        return mapper.createObjectNode().put("error", message.path("message").asText());
+                    }
+                    case "exit" -> throw new IOException("Python worker exited while running the job." + diagnostics());
+                    default -> logger.debug("Ignoring Python worker message: " + message);
+                }
+            }
+        }
+
+        private void awaitReady() throws IOException, InterruptedException {
+            while (!ready) {
+                JsonNode message = messages.poll(startupTimeoutSeconds, TimeUnit.SECONDS);
+                if (message == null) {
+                    throw new IOException("Python worker did not start within " + startupTimeoutSeconds + "s." + diagnostics());
+                }
+                if ("exit".equals(message.path("type").asText())) {
+                    throw new IOException("Python worker exited during start-up." + diagnostics());
+                }
+                ready = "ready".equals(message.path("type").asText());
+            }
+        }
+
+        private void send(JsonNode message) throws IOException {
+            stdin.write(mapper.writeValueAsString(message));
+            stdin.newLine();
+            stdin.flush();
+        }
+
+        /**
+         * @param startTime When the process was started, so the time until it reports ready can be recorded.
+         */
+        private void readOutput(BufferedReader reader, BlockingQueue<JsonNode> sink, long startTime) {
+            try (reader) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    JsonNode message = null;
+                    if (line.startsWith("{")) {
+                        try {
+                            message = mapper.readTree(line);
+                        } catch (IOException e) {
+                            // Not a protocol message, treat it as plain output
+                        }
+                    }
+                    if (message != null && message.has("type")) {
+                        if ("ready".equals(message.path("type").asText())) {
+                            simulationMetrics.recordWorkerSpawn(System.nanoTime() - startTime);
+                        }
+                        sink.add(message);
+                    } else {
+                        // Log Python output at DEBUG level to avoid flooding console for normal runs
+                        logger.debug("Python worker " + slot + " output: " + line);
+                        synchronized (recentOutput) {
+                            recentOutput.addLast(line);
+                            if (recentOutput.size() > DIAGNOSTIC_LINES) {
+                                recentOutput.removeFirst();
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Python worker " + slot + " output closed: " + e.getMessage());
+            }
+            sink.add(mapper.createObjectNode().put("type", "exit"));
+        }
+
+        private String diagnostics() {
+            String output;
+            synchronized (recentOutput) {
+                output = String.join("\n", recentOutput);
+            }
+            String message = "";
+            if (output.contains("Traceback")) {
+                message += " Python script encountered an unhandled error (traceback detected).";
+            }
+            if (output.contains("ModuleNotFoundError")) {
+                message += " Missing Python dependencies. Please install required modules.";
+            }
+            return message;
+        }
+    }
+}
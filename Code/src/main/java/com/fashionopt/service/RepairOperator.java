@@ -0,0 +1,30 @@
+package com.fashionopt.service;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Repair step shared by the engines. Operators only hold data derived from the problem, so one instance can
+ * be used by several threads at once.
+ */
+interface RepairOperator {
+
+    /**
+     * Changes the quantities in {@code state} until the budgets and shelf limit hold, if possible.
+     * @param changed Called with the index of every product whose quantity was changed.
+     */
+    void repair(SolutionState state, IntConsumer changed);
+
+    /**
+     * @param upperBound Largest quantity the engine can represent for each product.
+     * @param cancellation Polled by operators whose running time grows with the excess.
+     * @return The operator for the policy, or null for {@link RepairPolicy#NONE}.
+     */
+    static RepairOperator forPolicy(RepairPolicy policy, OptimizationProblem problem, int[] upperBound,
+                                    CancellationToken cancellation) {
+        return switch (policy) {
+            case UNIT_DECREMENT -> new UnitDecrementRepair(problem, cancellation);
+            case GREEDY -> new GreedyRepair(problem, upperBound);
+            case NONE -> null;
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.fashionopt.service;
+
+/**
+ * How an engine turns a solution that breaks the budgets or shelf capacity into a feasible one.
+ */
+public enum RepairPolicy {
+    /**
+     * Take one unit at a time from the product with the largest cost share, as Chromosome.repair in GA.py.
+     */
+    UNIT_DECREMENT,
+    /**
+     * Remove whole blocks of the least profitable units per resource used, then spend any spare budget on
+     * the most profitable ones.
+     */
+    GREEDY,
+    /**
+     * Leave infeasible solutions as they are; the ACO engine discards them, as ant.py does.
+     */
+    NONE
+}
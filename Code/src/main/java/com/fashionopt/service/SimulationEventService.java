@@ -0,0 +1,274 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationResult;
+import com.fashionopt.dto.SimulationState;
+import com.fashionopt.dto.SimulationStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Pushes simulation updates to clients over Server-Sent Events. Each subscriber receives:
+ * <ul>
+ *     <li>{@code state} when the overall status, error message or queue position changes,</li>
+ *     <li>{@code progress} with the algorithm, progress and ETA when one of them changes,</li>
+ *     <li>{@code incumbent} with the algorithm and its best plan so far whenever it improves,</li>
+ *     <li>{@code complete} once, with the full status and result, after which the stream is closed.</li>
+ * </ul>
+ * Publishing only hands the snapshot to the subscription; {@code fashionopt.sse.sender-threads} threads write
+ * the events, so engine and progress threads never wait for a client. A subscription holds at most one snapshot
+ * waiting to be sent and a newer one replaces it, so a client that falls behind skips the intermediate progress
+ * and incumbents but still gets the latest state and the final {@code complete} event.
+ */
+@Service
+public class SimulationEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulationEventService.class);
+
+    @Value("${fashionopt.sse.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${fashionopt.sse.sender-threads:4}")
+    private int senderThreads;
+
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void start() {
+        sender = Executors.newFixedThreadPool(Math.max(1, senderThreads), r -> {
+            Thread thread = new Thread(r, "sse-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * Opens a stream for a simulation and sends its current state right away.
+     */
+    public SseEmitter subscribe(SimulationStatus status) {
+        SseEmitter emitter = new SseEmitter(timeoutMinutes * 60_000);
+        Subscription subscription = new Subscription(emitter);
+        String simulationId = status.getSimulationId();
+        subscriptions.computeIfAbsent(simulationId, id -> new CopyOnWriteArrayList<>()).add(subscription);
+        Runnable remove = () -> unsubscribe(simulationId, subscription);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        offer(simulationId, subscription, status);
+        return emitter;
+    }
+
+    /**
+     * Sends whatever changed since the last event to every subscriber of the simulation.
+     */
+    public void publish(SimulationStatus status) {
+        List<Subscription> subscribers = subscriptions.get(status.getSimulationId());
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscription subscription : subscribers) {
+            offer(status.getSimulationId(), subscription, status);
+        }
+    }
+
+    /**
+     * Ends all streams of a simulation whose status was removed.
+     */
+    public void close(String simulationId) {
+        List<Subscription> subscribers = subscriptions.remove(simulationId);
+        if (subscribers != null) {
+            // Completed by the sender, since the emitter is locked while a send to a slow client blocks
+            for (Subscription subscription : subscribers) {
+                synchronized (subscription) {
+                    subscription.closeRequested = true;
+                }
+                schedule(simulationId, subscription);
+            }
+        }
+    }
+
+    /**
+     * Leaves the snapshot for the subscription's sender, replacing an older one that is still waiting.
+     */
+    private void offer(String simulationId, Subscription subscription, SimulationStatus status) {
+        synchronized (subscription) {
+            // Snapshots can be published slightly out of order by concurrent updates; older ones are skipped
+            if (subscription.closed || (subscription.pending != null
+                    && status.getVersion() < subscription.pending.getVersion())) {
+                return;
+            }
+            subscription.pending = status;
+        }
+        schedule(simulationId, subscription);
+    }
+
+    private void schedule(String simulationId, Subscription subscription) {
+        synchronized (subscription) {
+            if (subscription.draining) {
+                return; // The running drain picks the new snapshot up
+            }
+            subscription.draining = true;
+        }
+        try {
+            sender.execute(() -> drain(simulationId, subscription));
+        } catch (RejectedExecutionException e) {
+            synchronized (subscription) {
+                subscription.draining = false; // Shutting down
+            }
+        }
+    }
+
+    /**
+     * Sends the waiting snapshots until there is none left. Only one drain runs per subscription at a time, so
+     * the events of a stream keep their order.
+     */
+    private void drain(String simulationId, Subscription subscription) {
+        while (true) {
+            SimulationStatus status;
+            boolean complete;
+            synchronized (subscription) {
+                status = subscription.pending;
+                subscription.pending = null;
+                complete = subscription.closeRequested && !subscription.closed;
+                if (complete) {
+                    subscription.closed = true;
+                }
+                if (status == null && !complete) {
+                    subscription.draining = false;
+                    return;
+                }
+            }
+            if (complete) {
+                subscription.emitter.complete();
+            } else {
+                send(simulationId, subscription, status);
+            }
+        }
+    }
+
+    /**
+     * Only called by the subscription's drain, which owns the values already sent.
+     */
+    private void send(String simulationId, Subscription subscription, SimulationStatus status) {
+        if (subscription.closed || status.getVersion() < subscription.version) {
+            return;
+        }
+        subscription.version = status.getVersion();
+        try {
+            if (!Objects.equals(status.getOverallStatus(), subscription.overallStatus)
+                    || !Objects.equals(status.getErrorMessage(), subscription.errorMessage)
+                    || !Objects.equals(status.getQueuePosition(), subscription.queuePosition)) {
+                subscription.overallStatus = status.getOverallStatus();
+                subscription.errorMessage = status.getErrorMessage();
+                subscription.queuePosition = status.getQueuePosition();
+                Map<String, Object> state = new LinkedHashMap<>();
+                state.put("overallStatus", status.getOverallStatus());
+                state.put("errorMessage", status.getErrorMessage());
+                state.put("queuePosition", status.getQueuePosition());
+                subscription.emitter.send(SseEmitter.event().name("state").data(state, MediaType.APPLICATION_JSON));
+            }
+            if (!Objects.equals(status.getGaProgress(), subscription.gaProgress)
+                    || !Objects.equals(status.getGaEstimatedTimeRemaining(), subscription.gaEta)) {
+                subscription.gaProgress = status.getGaProgress();
+                subscription.gaEta = status.getGaEstimatedTimeRemaining();
+                sendProgress(subscription, "GA", subscription.gaProgress, subscription.gaEta);
+            }
+            if (!Objects.equals(status.getAcoProgress(), subscription.acoProgress)
+                    || !Objects.equals(status.getAcoEstimatedTimeRemaining(), subscription.acoEta)) {
+                subscription.acoProgress = status.getAcoProgress();
+                subscription.acoEta = status.getAcoEstimatedTimeRemaining();
+                sendProgress(subscription, "ACO", subscription.acoProgress, subscription.acoEta);
+            }
+            if (status.getGaIncumbent() != null && status.getGaIncumbent() != subscription.gaIncumbent) {
+                subscription.gaIncumbent = status.getGaIncumbent();
+                sendIncumbent(subscription, "GA", subscription.gaIncumbent);
+            }
+            if (status.getAcoIncumbent() != null && status.getAcoIncumbent() != subscription.acoIncumbent) {
+                subscription.acoIncumbent = status.getAcoIncumbent();
+                sendIncumbent(subscription, "ACO", subscription.acoIncumbent);
+            }
+            if (status.getOverallStatus().isTerminal()) {
+                subscription.closed = true;
+                subscription.emitter.send(SseEmitter.event().name("complete").data(status, MediaType.APPLICATION_JSON));
+                subscription.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the emitter callbacks remove the subscription
+            logger.debug("Dropping event stream for simulation " + simulationId + ": " + e.getMessage());
+            subscription.closed = true;
+            unsubscribe(simulationId, subscription);
+        }
+    }
+
+    private void sendProgress(Subscription subscription, String algorithm, Double progress, Double eta) throws IOException {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("algorithm", algorithm);
+        delta.put("progress", progress);
+        delta.put("eta", eta);
+        subscription.emitter.send(SseEmitter.event().name("progress").data(delta, MediaType.APPLICATION_JSON));
+    }
+
+    private void sendIncumbent(Subscription subscription, String algorithm, SimulationResult incumbent) throws IOException {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("algorithm", algorithm);
+        delta.put("result", incumbent);
+        subscription.emitter.send(SseEmitter.event().name("incumbent").data(delta, MediaType.APPLICATION_JSON));
+    }
+
+    private void unsubscribe(String simulationId, Subscription subscription) {
+        subscriptions.computeIfPresent(simulationId, (id, subscribers) -> {
+            subscribers.remove(subscription);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * One open stream and the values it has already been sent.
+     */
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private long version = -1;
+        private SimulationState overallStatus;
+        private String errorMessage;
+        private Integer queuePosition;
+        private Double gaProgress;
+        private Double gaEta;
+        private Double acoProgress;
+        private Double acoEta;
+        private SimulationResult gaIncumbent; // Compared by identity: each improvement is a new result
+        private SimulationResult acoIncumbent;
+        // Set by the drain, read by publishers
+        private volatile boolean closed;
+        // Guarded by this
+        private SimulationStatus pending;
+        private boolean draining;
+        private boolean closeRequested;
+
+        Subscription(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
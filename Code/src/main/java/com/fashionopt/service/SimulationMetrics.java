@@ -0,0 +1,145 @@
+package com.fashionopt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Timers and counters for each stage of the simulation pipeline, from storing the upload to an engine's
+ * result. Meters are tagged with the algorithm ({@code engine}) and a catalog size bucket ({@code catalog_size})
+ * so hardware can be sized per workload and slowdowns show up against comparable runs.
+ */
+@Component
+public class SimulationMetrics {
+
+    public static final String UNKNOWN_SIZE = "unknown";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * @return The catalog size bucket used as the {@code catalog_size} tag. Buckets grow by powers of ten
+     * so the number of tag values stays small.
+     */
+    public static String catalogSize(int products) {
+        if (products <= 100) {
+            return "0-100";
+        } else if (products <= 1_000) {
+            return "101-1k";
+        } else if (products <= 10_000) {
+            return "1k-10k";
+        } else if (products <= 100_000) {
+            return "10k-100k";
+        }
+        return "100k+";
+    }
+
+    /**
+     * Time taken to hash and store an upload, tagged once the catalog is parsed (or {@link #UNKNOWN_SIZE}).
+     */
+    public void recordUpload(String catalogSize, long nanos) {
+        Timer.builder("fashionopt.upload.store")
+                .description("Hashing and storing an uploaded catalog")
+                .tag("catalog_size", catalogSize)
+                .register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time taken to parse a catalog that was not in the dataset cache.
+     */
+    public void recordParse(int products, long nanos) {
+        Timer.builder("fashionopt.catalog.parse")
+                .description("Parsing an uploaded CSV or Excel catalog")
+                .tag("catalog_size", catalogSize(products))
+                .register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time from starting a Python worker process until it reports ready.
+     */
+    public void recordWorkerSpawn(long nanos) {
+        Timer.builder("fashionopt.python.worker.spawn")
+                .description("Starting a Python worker until it has imported its engines")
+                .register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time a simulation's task waited in the scheduler before an engine thread picked it up.
+     */
+    public void recordQueueWait(String engine, int products, long nanos) {
+        Timer.builder("fashionopt.simulation.queue.wait")
+                .description("Time from submission until the engine task starts")
+                .tags("engine", engine, "catalog_size", catalogSize(products))
+                .register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time from receiving the request until the engine's result (or error) was recorded.
+     */
+    public void recordEndToEnd(String engine, int products, String outcome, long nanos) {
+        Timer.builder("fashionopt.simulation.latency")
+                .description("Time from receiving a simulation request until the engine finished")
+                .tags("engine", engine, "catalog_size", catalogSize(products), "outcome", outcome)
+                .register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the work done by one in-process engine run: generations (GA) or iterations (ACO) and fitness
+     * evaluations as running totals, plus the rate this run achieved while it was actually running.
+     */
+    public void recordEngineRun(OptimizationEngine engine, int products, long nanos) {
+        String[] tags = {"engine", engine.getAlgorithmType(), "catalog_size", catalogSize(products)};
+        long iterations = engine.getCompletedIterations();
+        long evaluations = engine.getEvaluations();
+        Counter.builder("fashionopt.engine.iterations")
+                .description("Generations (GA) or iterations (ACO) completed")
+                .tags(tags).register(meterRegistry).increment(iterations);
+        Counter.builder("fashionopt.engine.evaluations")
+                .description("Candidate solutions whose fitness was evaluated")
+                .tags(tags).register(meterRegistry).increment(evaluations);
+        if (nanos <= 0) {
+            return;
+        }
+        double seconds = nanos / 1e9;
+        DistributionSummary.builder("fashionopt.engine.iterations.rate")
+                .description("Generations or iterations per second of a single run")
+                .baseUnit("iterations/s")
+                .tags(tags).register(meterRegistry).record(iterations / seconds);
+        DistributionSummary.builder("fashionopt.engine.evaluations.rate")
+                .description("Fitness evaluations per second of a single run")
+                .baseUnit("evaluations/s")
+                .tags(tags).register(meterRegistry).record(evaluations / seconds);
+    }
+
+    /**
+     * Wraps a progress listener so the first update the engine reports is timed from now.
+     */
+    public ProgressListener timeToFirstProgress(String engine, int products, ProgressListener listener) {
+        long start = System.nanoTime();
+        AtomicBoolean reported = new AtomicBoolean();
+        Timer timer = Timer.builder("fashionopt.engine.first.progress")
+                .description("Time from an engine starting until it reports its first progress")
+                .tags("engine", engine, "catalog_size", catalogSize(products))
+                .register(meterRegistry);
+        return new ProgressListener() {
+            @Override
+            public void onProgress(double progress, double estimatedTimeRemaining) {
+                if (reported.compareAndSet(false, true)) {
+                    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                listener.onProgress(progress, estimatedTimeRemaining);
+            }
+
+            @Override
+            public void onIncumbent(double objective, int[] quantities) {
+                listener.onIncumbent(objective, quantities);
+            }
+        };
+    }
+}
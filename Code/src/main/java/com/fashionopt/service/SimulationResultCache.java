@@ -0,0 +1,142 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.CombinedSimulationResult;
+import com.fashionopt.dto.SimulationRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Memoizes finished simulations by a fingerprint of the dataset, every parameter that affects the result and
+ * the seed, and coalesces identical submissions while the first one is still running. Finished results expire
+ * after a TTL and the least recently used ones are evicted beyond the size limit.
+ */
+@Service
+public class SimulationResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulationResultCache.class);
+
+    @Value("${fashionopt.result-cache.max-entries:100}")
+    private int maxEntries;
+
+    @Value("${fashionopt.result-cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private final Map<String, String> inFlight = new HashMap<>(); // Fingerprint -> running simulation ID
+    private final LinkedHashMap<String, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long coalesced;
+    private long misses;
+
+    private record CachedResult(CombinedSimulationResult result, long storedAt) {
+    }
+
+    /**
+     * What to do with a new submission: reuse a finished result, attach to a running simulation, or run
+     * it (both fields null, and the submission is now registered as in flight).
+     */
+    public record Lookup(CombinedSimulationResult cachedResult, String runningSimulationId) {
+    }
+
+    public record Stats(long hits, long coalesced, long misses, int entries, int inFlight) {
+    }
+
+    /**
+     * @return A canonical SHA-256 fingerprint of the uploaded dataset and every request setting that changes
+     * the outcome. Unseeded requests share a fingerprint, so identical unseeded runs are coalesced as well.
+     */
+    public String fingerprint(StoredUpload upload, SimulationRequest request) {
+        Object[] parts = {
+                upload.contentHash(),
+                request.getColName(), request.getColPrice(), request.getColCp(), request.getColCm(), request.getColCl(),
+                request.getColShelfCost(), request.getColAge(), request.getColStock(), request.getColShelf(),
+                request.getColDemand(),
+                request.getProductionBudget(), request.getMarketingBudget(), request.getLogisticsBudget(),
+                request.getDiscountBase(), request.getShelfSpace(), request.getChromosomeBits(),
+                upper(request.getGaMode()), request.getIslandCount(), request.getMigrationInterval(),
+                upper(request.getMigrationTopology()), upper(request.getAcoMode()), upper(request.getRepairPolicy()),
+                request.getOptimalityGap(), request.getDeadlineMillis(), request.getSeed(),
+                request.getBaseSimulationId()
+        };
+        StringBuilder canonical = new StringBuilder();
+        for (Object part : parts) {
+            canonical.append(Objects.toString(part, "")).append('\u0000');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public synchronized Lookup lookup(String fingerprint, String simulationId) {
+        evictExpired();
+        CachedResult cached = results.get(fingerprint);
+        if (cached != null) {
+            hits++;
+            return new Lookup(cached.result(), null);
+        }
+        String running = inFlight.get(fingerprint);
+        if (running != null) {
+            coalesced++;
+            logger.info("Simulation " + simulationId + " attached to identical running simulation " + running);
+            return new Lookup(null, running);
+        }
+        misses++;
+        inFlight.put(fingerprint, simulationId);
+        return new Lookup(null, null);
+    }
+
+    /**
+     * Stores the result of a finished simulation and releases its in-flight entry.
+     */
+    public synchronized void complete(String fingerprint, String simulationId, CombinedSimulationResult result) {
+        inFlight.remove(fingerprint, simulationId);
+        results.put(fingerprint, new CachedResult(result, System.currentTimeMillis()));
+        Iterator<CachedResult> eldest = results.values().iterator();
+        while (results.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Releases the in-flight entry of a simulation that failed or was terminated, without caching anything.
+     */
+    public synchronized void abandon(String simulationId) {
+        inFlight.values().removeIf(simulationId::equals);
+    }
+
+    public synchronized Stats getStats() {
+        evictExpired();
+        return new Stats(hits, coalesced, misses, results.size(), inFlight.size());
+    }
+
+    /**
+     * Drops finished results older than the TTL. Also called periodically, so results nobody asks for again
+     * do not stay in memory until the next lookup.
+     * @return The number of results dropped.
+     */
+    public synchronized int evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000;
+        int before = results.size();
+        results.values().removeIf(cached -> cached.storedAt() < cutoff);
+        return before - results.size();
+    }
+
+    private static String upper(String value) {
+        return value == null || value.isEmpty() ? null : value.toUpperCase();
+    }
+}
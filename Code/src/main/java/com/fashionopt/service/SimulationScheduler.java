@@ -0,0 +1,314 @@
+package com.fashionopt.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Admits simulations into a bounded queue and runs their GA and ACO halves with a fixed concurrency per
+ * engine. Waiting work is kept in one lane per {@link Priority} and each engine always starts the oldest
+ * task of the highest non-empty lane. When the queue is full, new simulations are rejected straight away
+ * instead of piling up.
+ */
+@Service
+public class SimulationScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulationScheduler.class);
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    /**
+     * Thrown when the queue already holds {@code fashionopt.scheduler.queue-capacity} waiting simulations.
+     */
+    public static class SchedulerSaturatedException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterSeconds;
+
+        SchedulerSaturatedException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    @Autowired
+    private SimulationStatusService simulationStatusService;
+
+    @Value("${fashionopt.scheduler.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${fashionopt.scheduler.ga-concurrency:1}")
+    private int gaConcurrency;
+
+    @Value("${fashionopt.scheduler.aco-concurrency:1}")
+    private int acoConcurrency;
+
+    @Value("${fashionopt.scheduler.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    @Value("${fashionopt.cluster.role:standalone}")
+    private String clusterRole;
+
+    // A coordinator's engine threads only wait for cluster workers, so each engine runs this many tasks at once
+    @Value("${fashionopt.cluster.dispatch-concurrency:16}")
+    private int dispatchConcurrency;
+
+    private EngineQueue gaQueue;
+    private EngineQueue acoQueue;
+    private final Set<String> waiting = new LinkedHashSet<>(); // Simulations with at least one task not started
+    private final Set<String> started = new LinkedHashSet<>(); // Left the queue since positions were last published
+    private boolean positionsChanged;
+    private boolean publishingPositions; // One thread at a time publishes, always the latest positions
+
+    @PostConstruct
+    public void start() {
+        boolean coordinator = "coordinator".equalsIgnoreCase(clusterRole);
+        gaQueue = new EngineQueue("GA", coordinator ? dispatchConcurrency : gaConcurrency);
+        acoQueue = new EngineQueue("ACO", coordinator ? dispatchConcurrency : acoConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gaQueue.executor.shutdownNow();
+        acoQueue.executor.shutdownNow();
+    }
+
+    /**
+     * Queues both halves of a simulation.
+     * @return A future completed once both tasks have run or been cancelled.
+     * @throws SchedulerSaturatedException If the queue is full; the caller should ask the client to retry later.
+     */
+    public CompletableFuture<Void> submit(String simulationId, Priority priority, Runnable gaTask,
+                                          Runnable acoTask) throws SchedulerSaturatedException {
+        Task ga = new Task(simulationId, gaTask);
+        Task aco = new Task(simulationId, acoTask);
+        synchronized (this) {
+            if (waiting.size() >= queueCapacity) {
+                throw new SchedulerSaturatedException("Simulation queue is full (" + queueCapacity
+                        + " waiting). Please retry in " + retryAfterSeconds + " seconds.", retryAfterSeconds);
+            }
+            gaQueue.lanes[priority.ordinal()].addLast(ga);
+            acoQueue.lanes[priority.ordinal()].addLast(aco);
+            waiting.add(simulationId);
+            logger.info("Queued simulation " + simulationId + " with " + priority + " priority");
+            dispatch();
+        }
+        publishQueuePositions();
+        return CompletableFuture.allOf(ga.done, aco.done);
+    }
+
+    /**
+     * Drops the tasks of a simulation that have not started yet.
+     * @return true if anything was removed.
+     */
+    public boolean cancel(String simulationId) {
+        List<Task> removed = new ArrayList<>();
+        synchronized (this) {
+            gaQueue.remove(simulationId, removed);
+            acoQueue.remove(simulationId, removed);
+            if (!removed.isEmpty()) {
+                waiting.remove(simulationId);
+                positionsChanged = true;
+            }
+        }
+        // Completed without the lock, since whoever waits for the simulation runs its callbacks on this thread
+        for (Task task : removed) {
+            task.done.complete(null);
+        }
+        publishQueuePositions();
+        return !removed.isEmpty();
+    }
+
+    public synchronized int getQueuedCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Called with the lock held; the caller publishes the new queue positions once it has released it.
+     */
+    private void dispatch() {
+        gaQueue.startAvailable();
+        acoQueue.startAvailable();
+        Iterator<String> ids = waiting.iterator();
+        while (ids.hasNext()) {
+            String id = ids.next();
+            if (!gaQueue.contains(id) && !acoQueue.contains(id)) {
+                ids.remove();
+                started.add(id);
+            }
+        }
+        positionsChanged = true;
+    }
+
+    /**
+     * A simulation's queue position is the later of its two tasks' positions in their engine queues,
+     * or null once both have started. Called with the lock held.
+     */
+    private Map<String, Integer> queuePositions() {
+        Map<String, Integer> positions = new HashMap<>();
+        for (EngineQueue queue : new EngineQueue[]{gaQueue, acoQueue}) {
+            int position = 0;
+            for (Deque<Task> lane : queue.lanes) {
+                for (Task task : lane) {
+                    positions.merge(task.simulationId, ++position, Math::max);
+                }
+            }
+        }
+        Map<String, Integer> updates = new LinkedHashMap<>();
+        for (String simulationId : started) {
+            updates.put(simulationId, null);
+        }
+        started.clear();
+        for (String simulationId : waiting) {
+            updates.put(simulationId, positions.get(simulationId));
+        }
+        return updates;
+    }
+
+    /**
+     * Hands the queue positions to the status service without holding the lock, since each update is streamed to
+     * the simulation's subscribers. If another thread is already publishing, it picks up the latest positions
+     * when it is done, so updates never arrive out of order.
+     */
+    private void publishQueuePositions() {
+        while (true) {
+            Map<String, Integer> updates;
+            synchronized (this) {
+                if (publishingPositions || !positionsChanged) {
+                    return;
+                }
+                publishingPositions = true;
+                positionsChanged = false;
+                updates = queuePositions();
+            }
+            try {
+                updates.forEach(simulationStatusService::updateQueuePosition);
+            } finally {
+                synchronized (this) {
+                    publishingPositions = false;
+                }
+            }
+        }
+    }
+
+    private void finished(EngineQueue queue) {
+        synchronized (this) {
+            queue.running--;
+            dispatch();
+        }
+        publishQueuePositions();
+    }
+
+    private static final class Task {
+        final String simulationId;
+        final Runnable work;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Task(String simulationId, Runnable work) {
+            this.simulationId = simulationId;
+            this.work = work;
+        }
+    }
+
+    /**
+     * Waiting tasks of one engine, by priority lane, and the threads that run at most {@code concurrency} of them.
+     */
+    private final class EngineQueue {
+        final String engine;
+        final int concurrency;
+        final ExecutorService executor;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final Deque<Task>[] lanes = new Deque[Priority.values().length];
+        int running;
+
+        EngineQueue(String engine, int concurrency) {
+            this.engine = engine;
+            this.concurrency = Math.max(1, concurrency);
+            this.executor = Executors.newFixedThreadPool(this.concurrency, r -> {
+                Thread thread = new Thread(r, "simulation-" + engine.toLowerCase());
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int p = 0; p < lanes.length; p++) {
+                lanes[p] = new ArrayDeque<>();
+            }
+        }
+
+        void startAvailable() {
+            while (running < concurrency) {
+                Task task = next();
+                if (task == null) {
+                    return;
+                }
+                running++;
+                executor.execute(() -> {
+                    try {
+                        task.work.run();
+                    } catch (RuntimeException e) {
+                        logger.error(engine + " task of simulation " + task.simulationId + " failed: " + e.getMessage(), e);
+                    } finally {
+                        task.done.complete(null);
+                        finished(this);
+                    }
+                });
+            }
+        }
+
+        private Task next() {
+            for (Deque<Task> lane : lanes) {
+                if (!lane.isEmpty()) {
+                    return lane.pollFirst();
+                }
+            }
+            return null;
+        }
+
+        boolean contains(String simulationId) {
+            for (Deque<Task> lane : lanes) {
+                for (Task task : lane) {
+                    if (task.simulationId.equals(simulationId)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        void remove(String simulationId, List<Task> removed) {
+            for (Deque<Task> lane : lanes) {
+                Iterator<Task> tasks = lane.iterator();
+                while (tasks.hasNext()) {
+                    Task task = tasks.next();
+                    if (task.simulationId.equals(simulationId)) {
+                        tasks.remove();
+                        removed.add(task);
+                    }
+                }
+            }
+        }
+    }
+}
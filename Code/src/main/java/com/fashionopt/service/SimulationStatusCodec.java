@@ -0,0 +1,337 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.CombinedSimulationResult;
+import com.fashionopt.dto.ProductResult;
+import com.fashionopt.dto.SimulationResult;
+import com.fashionopt.dto.SimulationState;
+import com.fashionopt.dto.SimulationStatus;
+import com.fashionopt.dto.SimulationSummary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of a {@link SimulationStatus}, shared by the {@link SimulationStore} implementations.
+ * <p>
+ * The header (ID, state, version, update time, flags, progress and error message) comes first, followed by the
+ * totals of each result and only then by the product lists, so the header and a {@link SimulationSummary} can be
+ * read without decoding any products. Product names are written once per record, and a product's profit per
+ * unit, total profit and total cost are left out whenever they follow from its price, unit cost and quantity, as
+ * they do for every in-process engine. Incumbents are not stored; they only exist while an engine runs.
+ */
+final class SimulationStatusCodec {
+
+    private static final byte FORMAT = 1;
+
+    // Flags of the header
+    private static final int GA_FINISHED = 1;
+    private static final int ACO_FINISHED = 1 << 1;
+    private static final int GA_HAS_ERROR = 1 << 2;
+    private static final int ACO_HAS_ERROR = 1 << 3;
+
+    // Flags of a product: which values are derived rather than stored
+    private static final int DERIVED_PROFIT_PER_UNIT = 1;
+    private static final int DERIVED_TOTAL_PROFIT = 1 << 1;
+    private static final int DERIVED_TOTAL_COST = 1 << 2;
+
+    private SimulationStatusCodec() {
+    }
+
+    /**
+     * The fields a store indexes a record by.
+     */
+    record Header(String simulationId, SimulationState state, long version, long updatedAt) {
+    }
+
+    static byte[] encode(SimulationStatus status) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT);
+        writeString(out, status.getSimulationId());
+        writeString(out, status.getOverallStatus().name());
+        out.writeLong(status.getVersion());
+        out.writeLong(status.getUpdatedAt());
+        out.writeByte((status.isGaFinished() ? GA_FINISHED : 0) | (status.isAcoFinished() ? ACO_FINISHED : 0)
+                | (status.isGaHasError() ? GA_HAS_ERROR : 0) | (status.isAcoHasError() ? ACO_HAS_ERROR : 0));
+        writeDouble(out, status.getGaProgress());
+        writeDouble(out, status.getGaEstimatedTimeRemaining());
+        writeDouble(out, status.getAcoProgress());
+        writeDouble(out, status.getAcoEstimatedTimeRemaining());
+        writeString(out, status.getErrorMessage());
+        writeVarint(out, status.getQueuePosition() == null ? 0 : status.getQueuePosition() + 1);
+
+        SimulationResult[] results = results(status.getResult());
+        out.writeByte(status.getResult() == null ? 0 : 1);
+        for (SimulationResult result : results) {
+            out.writeByte(result == null ? 0 : 1);
+            if (result != null) {
+                out.writeDouble(result.getTotalProfit());
+                writeVarint(out, result.getProductCount());
+                writeBoolean(out, result.getOptimal());
+                writeDouble(out, result.getUpperBound());
+                writeDouble(out, result.getOptimalityGap());
+                writeBoolean(out, result.getPartial());
+                writeVarint(out, result.getProducts() == null ? 0 : result.getProducts().size() + 1);
+            }
+        }
+
+        Map<String, Integer> nameIndex = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (SimulationResult result : results) {
+            if (result != null && result.getProducts() != null) {
+                for (ProductResult product : result.getProducts()) {
+                    if (nameIndex.putIfAbsent(nullToEmpty(product.getName()), names.size()) == null) {
+                        names.add(nullToEmpty(product.getName()));
+                    }
+                }
+            }
+        }
+        writeVarint(out, names.size());
+        for (String name : names) {
+            writeString(out, name);
+        }
+        for (SimulationResult result : results) {
+            if (result != null && result.getProducts() != null) {
+                for (ProductResult product : result.getProducts()) {
+                    writeProduct(out, product, nameIndex.get(nullToEmpty(product.getName())));
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static SimulationStatus decode(ByteBuffer in) throws IOException {
+        try {
+            Header header = readHeader(in);
+            SimulationStatus.SimulationStatusBuilder status = readDetails(in, header);
+            boolean hasResult = in.get() != 0;
+            SimulationResult[] results = new SimulationResult[3];
+            int[] productCounts = new int[3];
+            for (int r = 0; r < results.length; r++) {
+                if (in.get() != 0) {
+                    results[r] = readTotals(in);
+                    productCounts[r] = readVarint(in) - 1;
+                }
+            }
+            String[] names = new String[readVarint(in)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = readString(in);
+            }
+            for (int r = 0; r < results.length; r++) {
+                if (results[r] != null && productCounts[r] >= 0) {
+                    List<ProductResult> products = new ArrayList<>(productCounts[r]);
+                    for (int i = 0; i < productCounts[r]; i++) {
+                        products.add(readProduct(in, names));
+                    }
+                    results[r].setProducts(products);
+                }
+            }
+            if (hasResult) {
+                CombinedSimulationResult combined = new CombinedSimulationResult();
+                combined.setGaResult(results[0]);
+                combined.setAntColonyResult(results[1]);
+                combined.setExactResult(results[2]);
+                status.result(combined);
+            }
+            return status.build();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt simulation status record", e);
+        }
+    }
+
+    /**
+     * Reads the header and the result totals only.
+     */
+    static SimulationSummary decodeSummary(ByteBuffer in) throws IOException {
+        try {
+            Header header = readHeader(in);
+            SimulationStatus details = readDetails(in, header).build();
+            in.get();
+            Double[] profits = new Double[3];
+            for (int r = 0; r < profits.length; r++) {
+                if (in.get() != 0) {
+                    profits[r] = readTotals(in).getTotalProfit();
+                    readVarint(in);
+                }
+            }
+            return SimulationSummary.builder()
+                    .simulationId(header.simulationId())
+                    .overallStatus(header.state())
+                    .updatedAt(header.updatedAt())
+                    .gaProfit(profits[0])
+                    .acoProfit(profits[1])
+                    .exactProfit(profits[2])
+                    .errorMessage(details.getErrorMessage())
+                    .build();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt simulation status record", e);
+        }
+    }
+
+    static Header readHeader(ByteBuffer in) throws IOException {
+        try {
+            byte format = in.get();
+            if (format != FORMAT) {
+                throw new IOException("Unknown simulation status format " + format);
+            }
+            return new Header(readString(in), SimulationState.valueOf(readString(in)), in.getLong(), in.getLong());
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt simulation status record", e);
+        }
+    }
+
+    private static SimulationStatus.SimulationStatusBuilder readDetails(ByteBuffer in, Header header) {
+        int flags = in.get();
+        SimulationStatus.SimulationStatusBuilder status = SimulationStatus.builder()
+                .simulationId(header.simulationId())
+                .overallStatus(header.state())
+                .version(header.version())
+                .updatedAt(header.updatedAt())
+                .gaFinished((flags & GA_FINISHED) != 0)
+                .acoFinished((flags & ACO_FINISHED) != 0)
+                .gaHasError((flags & GA_HAS_ERROR) != 0)
+                .acoHasError((flags & ACO_HAS_ERROR) != 0)
+                .gaProgress(readDouble(in))
+                .gaEstimatedTimeRemaining(readDouble(in))
+                .acoProgress(readDouble(in))
+                .acoEstimatedTimeRemaining(readDouble(in))
+                .errorMessage(readString(in));
+        int queuePosition = readVarint(in);
+        return status.queuePosition(queuePosition == 0 ? null : queuePosition - 1);
+    }
+
+    private static SimulationResult readTotals(ByteBuffer in) {
+        SimulationResult result = new SimulationResult();
+        result.setTotalProfit(in.getDouble());
+        result.setProductCount(readVarint(in));
+        result.setOptimal(readBoolean(in));
+        result.setUpperBound(readDouble(in));
+        result.setOptimalityGap(readDouble(in));
+        result.setPartial(readBoolean(in));
+        return result;
+    }
+
+    private static SimulationResult[] results(CombinedSimulationResult combined) {
+        if (combined == null) {
+            return new SimulationResult[3];
+        }
+        return new SimulationResult[]{combined.getGaResult(), combined.getAntColonyResult(), combined.getExactResult()};
+    }
+
+    private static void writeProduct(DataOutputStream out, ProductResult product, int nameIndex) throws IOException {
+        int quantity = product.getQuantity();
+        boolean derivedProfitPerUnit = same(product.getProfitPerUnit(), product.getPrice() - product.getUnitCost());
+        boolean derivedTotalProfit = same(product.getTotalProfit(), product.getProfitPerUnit() * quantity);
+        boolean derivedTotalCost = same(product.getTotalCost(), product.getUnitCost() * quantity);
+        writeVarint(out, nameIndex);
+        writeVarint(out, (quantity << 1) ^ (quantity >> 31)); // Zigzag, in case a script reports a negative quantity
+        out.writeDouble(product.getPrice());
+        out.writeDouble(product.getUnitCost());
+        out.writeByte((derivedProfitPerUnit ? DERIVED_PROFIT_PER_UNIT : 0) | (derivedTotalProfit ? DERIVED_TOTAL_PROFIT : 0)
+                | (derivedTotalCost ? DERIVED_TOTAL_COST : 0));
+        if (!derivedProfitPerUnit) {
+            out.writeDouble(product.getProfitPerUnit());
+        }
+        if (!derivedTotalProfit) {
+            out.writeDouble(product.getTotalProfit());
+        }
+        if (!derivedTotalCost) {
+            out.writeDouble(product.getTotalCost());
+        }
+    }
+
+    private static ProductResult readProduct(ByteBuffer in, String[] names) {
+        ProductResult product = new ProductResult();
+        product.setName(names[readVarint(in)]);
+        int zigzag = readVarint(in);
+        int quantity = (zigzag >>> 1) ^ -(zigzag & 1);
+        product.setQuantity(quantity);
+        product.setPrice(in.getDouble());
+        product.setUnitCost(in.getDouble());
+        int flags = in.get();
+        product.setProfitPerUnit((flags & DERIVED_PROFIT_PER_UNIT) != 0 ? product.getPrice() - product.getUnitCost() : in.getDouble());
+        product.setTotalProfit((flags & DERIVED_TOTAL_PROFIT) != 0 ? product.getProfitPerUnit() * quantity : in.getDouble());
+        product.setTotalCost((flags & DERIVED_TOTAL_COST) != 0 ? product.getUnitCost() * quantity : in.getDouble());
+        return product;
+    }
+
+    private static boolean same(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    /**
+     * Length-prefixed UTF-8, with length 0 for null, so error messages are not capped at 64 KB like writeUTF.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarint(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeByte(value == null ? 0 : 1);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(ByteBuffer in) {
+        return in.get() == 0 ? null : in.getDouble();
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    private static Boolean readBoolean(ByteBuffer in) {
+        byte value = in.get();
+        return value == 0 ? null : value == 2;
+    }
+}
@@ -1,129 +1,283 @@
 package com.fashionopt.service;
 
 import com.fashionopt.dto.CombinedSimulationResult;
+import com.fashionopt.dto.SimulationState;
 import com.fashionopt.dto.SimulationStatus;
 import com.fashionopt.dto.SimulationResult;
+import com.fashionopt.dto.SimulationSummary;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
 
+/**
+ * Keeps one immutable {@link SimulationStatus} snapshot per simulation. Every change builds a new snapshot
+ * inside {@link ConcurrentHashMap#computeIfPresent}, so updates from the GA and ACO threads are applied one at
+ * a time per simulation while readers just fetch the current snapshot without locking. Changes must follow
+ * {@link SimulationState#canTransitionTo}; once a simulation reaches a terminal state its snapshot is final, and
+ * exactly one update performs that transition.
+ * <p>
+ * Snapshots that change the state, the result or the error message are also saved to the {@link SimulationStore}.
+ * A finished simulation is dropped from memory as soon as its final snapshot is stored, and read back from the
+ * store from then on.
+ */
 @Service
 public class SimulationStatusService {
 
     private final Map<String, SimulationStatus> simulationStatuses = new ConcurrentHashMap<>();
 
+    @Autowired
+    private SimulationEventService simulationEventService;
+
+    @Autowired
+    private SimulationStore simulationStore;
+    // Clients watching a simulation beyond its submitter, added when identical submissions are coalesced
+    private final Map<String, Integer> extraWatchers = new ConcurrentHashMap<>();
+    // Clients that terminated a simulation others still watch; their own cleanup has nothing left to release
+    private final Map<String, Integer> detachedWatchers = new ConcurrentHashMap<>();
+    // Cancelled when a simulation is terminated or cleaned up, so its engines and Python jobs stop
+    private final Map<String, CancellationToken> cancellationTokens = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Value("${fashionopt.status.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${fashionopt.status.max-entries:1000}")
+    private int maxEntries;
+
+    // Improving plans are stored and streamed at most this often per algorithm; the final result always is
+    @Value("${fashionopt.status.incumbent-interval-ms:250}")
+    private long incumbentIntervalMillis;
+
+    /**
+     * Simulations that were pending or running when the server stopped cannot be resumed, so their stored
+     * snapshots are finished with an error.
+     */
+    @PostConstruct
+    public void recoverUnfinished() {
+        try {
+            List<SimulationStatus> unfinished = simulationStore.loadUnfinished();
+            for (SimulationStatus status : unfinished) {
+                String currentError = status.getErrorMessage() == null ? "" : status.getErrorMessage() + "\n";
+                simulationStore.save(status.toBuilder()
+                        .overallStatus(SimulationState.ERROR)
+                        .errorMessage(currentError + "Server restarted before the simulation finished")
+                        .queuePosition(null)
+                        .gaFinished(true).acoFinished(true)
+                        .version(status.getVersion() + 1)
+                        .updatedAt(System.currentTimeMillis())
+                        .build());
+            }
+            if (!unfinished.isEmpty()) {
+                System.out.println("Marked " + unfinished.size() + " simulations interrupted by the restart as failed");
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to recover stored simulations: " + e.getMessage());
+        }
+    }
+
     /**
      * Creates a new simulation entry and returns a unique ID.
      * @return Unique simulation ID.
      */
     public String createSimulation() {
         String simulationId = UUID.randomUUID().toString();
-        // Initialize new fields
-        SimulationStatus status = new SimulationStatus(
-                simulationId,
-                "PENDING", // Initial overall status
-                0.0, 0.0, // GA progress, ETA
-                0.0, 0.0, // ACO progress, ETA
-                null, null, // Combined Result, Error Message
-                false, false, // gaFinished, acoFinished initialized to false
-                false, false  // gaHasError, acoHasError initialized to false
-        );
+        SimulationStatus status = SimulationStatus.builder()
+                .simulationId(simulationId)
+                .overallStatus(SimulationState.PENDING)
+                .gaProgress(0.0).gaEstimatedTimeRemaining(0.0)
+                .acoProgress(0.0).acoEstimatedTimeRemaining(0.0)
+                .updatedAt(System.currentTimeMillis())
+                .build();
+        cancellationTokens.put(simulationId, new CancellationToken());
         simulationStatuses.put(simulationId, status);
+        persist(null, status);
         System.out.println("Created new simulation: " + simulationId);
         return simulationId;
     }
 
     /**
-     * Updates the progress of a specific algorithm for a given simulation.
+     * Updates the progress of a specific algorithm for a given simulation, moving it from PENDING to RUNNING.
      * @param simulationId The ID of the simulation.
      * @param algorithmType "GA" or "ACO".
      * @param progress Percentage progress (0-100).
      * @param estimatedTimeRemaining Estimated time remaining in seconds.
      */
     public void updateProgress(String simulationId, String algorithmType, double progress, double estimatedTimeRemaining) {
-        SimulationStatus status = simulationStatuses.get(simulationId);
-        if (status != null) {
+        SimulationStatus status = transition(simulationId, current -> {
+            SimulationStatus.SimulationStatusBuilder next = current.toBuilder().overallStatus(SimulationState.RUNNING);
             if ("GA".equalsIgnoreCase(algorithmType)) {
-                status.setGaProgress(progress);
-                status.setGaEstimatedTimeRemaining(estimatedTimeRemaining);
+                next.gaProgress(progress).gaEstimatedTimeRemaining(estimatedTimeRemaining);
             } else if ("ACO".equalsIgnoreCase(algorithmType)) {
-                status.setAcoProgress(progress);
-                status.setAcoEstimatedTimeRemaining(estimatedTimeRemaining);
-            }
-            // If overall status is PENDING, change to RUNNING.
-            // If it's already RUNNING or ERROR/COMPLETED, don't change it.
-            if ("PENDING".equals(status.getOverallStatus())) {
-                status.setOverallStatus("RUNNING");
+                next.acoProgress(progress).acoEstimatedTimeRemaining(estimatedTimeRemaining);
             }
+            return next.build();
+        });
+        if (status != null) {
             System.out.println("Update Progress for " + simulationId + " - " + algorithmType + ": " + progress + "%, ETA: " + estimatedTimeRemaining + "s");
         }
     }
 
     /**
-     * Stores the final result for a specific algorithm and updates overall status based on completion.
+     * @param shelfLimit Shelf limit the engine works with, for the LP bound attached to its incumbents.
+     * @return A listener that records an in-process engine's progress and its improving plans for the simulation.
+     */
+    public ProgressListener progressListener(String simulationId, String algorithmType, OptimizationProblem problem,
+                                             double shelfLimit) {
+        return new ProgressListener() {
+            private long lastIncumbentAt;
+            private boolean incumbentSent;
+
+            @Override
+            public void onProgress(double progress, double estimatedTimeRemaining) {
+                updateProgress(simulationId, algorithmType, progress, estimatedTimeRemaining);
+            }
+
+            @Override
+            public void onIncumbent(double objective, int[] quantities) {
+                long now = System.nanoTime();
+                if (incumbentSent && now - lastIncumbentAt < incumbentIntervalMillis * 1_000_000) {
+                    return;
+                }
+                incumbentSent = true;
+                lastIncumbentAt = now;
+                updateIncumbent(simulationId, algorithmType, problem.withBound(problem.toResult(quantities), shelfLimit));
+            }
+        };
+    }
+
+    /**
+     * Stores the best plan an algorithm has found so far, while it is still running.
+     * @param simulationId The ID of the simulation.
+     * @param algorithmType "GA" or "ACO".
+     * @param incumbent The plan, in the same format as the final result.
+     */
+    public void updateIncumbent(String simulationId, String algorithmType, SimulationResult incumbent) {
+        transition(simulationId, current -> {
+            if ("GA".equalsIgnoreCase(algorithmType) && !current.isGaFinished()) {
+                return current.toBuilder().gaIncumbent(incumbent).build();
+            } else if ("ACO".equalsIgnoreCase(algorithmType) && !current.isAcoFinished()) {
+                return current.toBuilder().acoIncumbent(incumbent).build();
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Records where a simulation waits in the scheduler queue.
+     * @param simulationId The ID of the simulation.
+     * @param queuePosition 1-based queue position, or null once its algorithms have started.
+     */
+    public void updateQueuePosition(String simulationId, Integer queuePosition) {
+        transition(simulationId, current -> Objects.equals(current.getQueuePosition(), queuePosition)
+                ? current
+                : current.toBuilder().queuePosition(queuePosition).build());
+    }
+
+    /**
+     * Stores the final result for a specific algorithm and settles the overall status once both have finished.
      * This method is called by the algorithm services (GA/ACO) upon their successful completion.
      * @param simulationId The ID of the simulation.
      * @param algorithmType "GA" or "ACO".
      * @param result The final SimulationResult.
      */
     public void updateResult(String simulationId, String algorithmType, SimulationResult result) {
-        SimulationStatus status = simulationStatuses.get(simulationId);
-        if (status != null) {
-            CombinedSimulationResult combinedResult = status.getResult();
-            if (combinedResult == null) {
-                combinedResult = new CombinedSimulationResult();
-                status.setResult(combinedResult);
-            }
-
+        SimulationStatus status = transition(simulationId, current -> {
+            CombinedSimulationResult combinedResult = copyResult(current);
+            SimulationStatus.SimulationStatusBuilder next = current.toBuilder().result(combinedResult);
             if ("GA".equalsIgnoreCase(algorithmType)) {
                 combinedResult.setGaResult(result);
-                status.setGaProgress(100.0); // Mark as complete
-                status.setGaEstimatedTimeRemaining(0.0);
-                status.setGaFinished(true); // Mark GA as finished
-                System.out.println("GA finished processing for simulation " + simulationId);
+                next.gaProgress(100.0).gaEstimatedTimeRemaining(0.0).gaFinished(true).gaIncumbent(null);
             } else if ("ACO".equalsIgnoreCase(algorithmType)) {
                 combinedResult.setAntColonyResult(result);
-                status.setAcoProgress(100.0); // Mark as complete
-                status.setAcoEstimatedTimeRemaining(0.0);
-                status.setAcoFinished(true); // Mark ACO as finished
-                System.out.println("ACO finished processing for simulation " + simulationId);
-            }
-
-            // Determine overall status only when both algorithms have finished their processing
-            // (either successfully or with an error, as indicated by their 'finished' flags)
-            if (status.isGaFinished() && status.isAcoFinished()) {
-                if (status.isGaHasError() || status.isAcoHasError()) {
-                    status.setOverallStatus("ERROR");
-                    System.err.println("Simulation " + simulationId + " overall status set to ERROR (one or more algorithms failed).");
-                } else {
-                    // Check for special cases before marking as completed
-                    checkForSpecialCases(status, combinedResult);
-                }
+                next.acoProgress(100.0).acoEstimatedTimeRemaining(0.0).acoFinished(true).acoIncumbent(null);
             }
+            return settle(next.build());
+        });
+        if (status != null) {
             System.out.println("Update Result for " + simulationId + " - " + algorithmType + ": Overall Status now " + status.getOverallStatus());
         }
     }
 
     /**
-     * Check for special cases like "Invisible Solution" and shelf space validation
+     * Stores the exact solver's reference result. It does not finish either algorithm or change the overall status.
+     * @param simulationId The ID of the simulation.
+     * @param result The branch-and-bound result.
+     */
+    public void updateReference(String simulationId, SimulationResult result) {
+        SimulationStatus status = transition(simulationId, current -> {
+            CombinedSimulationResult combinedResult = copyResult(current);
+            combinedResult.setExactResult(result);
+            return current.toBuilder().result(combinedResult).build();
+        });
+        if (status != null) {
+            System.out.println("Update Reference for " + simulationId + ": profit " + result.getTotalProfit()
+                    + (Boolean.TRUE.equals(result.getOptimal()) ? " (optimal)" : " (not proven optimal)"));
+        }
+    }
+
+    /**
+     * The combined result is shared with readers of earlier snapshots, so it is copied, not modified.
+     */
+    private static CombinedSimulationResult copyResult(SimulationStatus status) {
+        CombinedSimulationResult combinedResult = new CombinedSimulationResult();
+        if (status.getResult() != null) {
+            combinedResult.setGaResult(status.getResult().getGaResult());
+            combinedResult.setAntColonyResult(status.getResult().getAntColonyResult());
+            combinedResult.setExactResult(status.getResult().getExactResult());
+        }
+        return combinedResult;
+    }
+
+    /**
+     * Completes a simulation with the result of an earlier identical simulation, without running anything.
+     * @param simulationId The ID of the new simulation.
+     * @param cachedResult The combined result of the earlier simulation.
      */
-    private void checkForSpecialCases(SimulationStatus status, CombinedSimulationResult combinedResult) {
-        // Check if either algorithm returned 0 or negative profit (Invisible Solution)
-        boolean gaZeroOrNegative = combinedResult.getGaResult() != null && 
-                                   combinedResult.getGaResult().getTotalProfit() <= 0.0;
-        boolean acoZeroOrNegative = combinedResult.getAntColonyResult() != null && 
-                                    combinedResult.getAntColonyResult().getTotalProfit() <= 0.0;
+    public void completeFromCache(String simulationId, CombinedSimulationResult cachedResult) {
+        if (cachedResult.getExactResult() != null) {
+            updateReference(simulationId, cachedResult.getExactResult());
+        }
+        updateResult(simulationId, "GA", cachedResult.getGaResult());
+        updateResult(simulationId, "ACO", cachedResult.getAntColonyResult());
+        System.out.println("Simulation " + simulationId + " served from the result cache.");
+    }
 
+    /**
+     * Determines the terminal state once both algorithms have finished (either successfully or with an error,
+     * as indicated by their 'finished' flags). Overall is ERROR if any algorithm failed, INVISIBLE_SOLUTION if
+     * either returned zero or negative profit, and COMPLETED otherwise.
+     */
+    private static SimulationStatus settle(SimulationStatus status) {
+        if (!status.isGaFinished() || !status.isAcoFinished()) {
+            return status;
+        }
+        if (status.isGaHasError() || status.isAcoHasError()) {
+            return status.toBuilder().overallStatus(SimulationState.ERROR).build();
+        }
+        CombinedSimulationResult combinedResult = status.getResult();
+        boolean gaZeroOrNegative = combinedResult != null && combinedResult.getGaResult() != null
+                && combinedResult.getGaResult().getTotalProfit() <= 0.0;
+        boolean acoZeroOrNegative = combinedResult != null && combinedResult.getAntColonyResult() != null
+                && combinedResult.getAntColonyResult().getTotalProfit() <= 0.0;
         if (gaZeroOrNegative || acoZeroOrNegative) {
-            status.setOverallStatus("INVISIBLE_SOLUTION");
-            status.setErrorMessage("Infeasible Solution - One or both algorithms returned zero or negative profit");
-            System.out.println("Simulation " + status.getSimulationId() + " resulted in Infeasible Solution.");
-        } else {
-            status.setOverallStatus("COMPLETED");
-            System.out.println("Simulation " + status.getSimulationId() + " completed successfully.");
+            return status.toBuilder()
+                    .overallStatus(SimulationState.INVISIBLE_SOLUTION)
+                    .errorMessage("Infeasible Solution - One or both algorithms returned zero or negative profit")
+                    .build();
         }
+        return status.toBuilder().overallStatus(SimulationState.COMPLETED).build();
     }
 
     /**
@@ -143,15 +297,12 @@ public class SimulationStatusService {
      * @param requiredShelfSpace The required shelf space
      */
     public void setShelfSpaceError(String simulationId, double totalShelfSpace, double requiredShelfSpace) {
-        SimulationStatus status = simulationStatuses.get(simulationId);
-        if (status != null) {
-            status.setOverallStatus("SHELF_SPACE_ERROR");
-            status.setErrorMessage("No Space in total shelf space. Required: " + requiredShelfSpace + 
-                                 ", Available: " + totalShelfSpace);
-            status.setGaFinished(true);
-            status.setAcoFinished(true);
-            System.err.println("Simulation " + simulationId + " failed due to insufficient shelf space.");
-        }
+        String errorMessage = "No Space in total shelf space. Required: " + requiredShelfSpace + ", Available: " + totalShelfSpace;
+        transition(simulationId, current -> current.toBuilder()
+                .overallStatus(SimulationState.SHELF_SPACE_ERROR)
+                .errorMessage(errorMessage)
+                .gaFinished(true).acoFinished(true)
+                .build());
     }
 
     /**
@@ -160,91 +311,226 @@ public class SimulationStatusService {
      * @param errorMessage The validation error message
      */
     public void setValidationError(String simulationId, String errorMessage) {
-        SimulationStatus status = simulationStatuses.get(simulationId);
-        if (status != null) {
-            status.setOverallStatus("VALIDATION_ERROR");
-            status.setErrorMessage(errorMessage);
-            status.setGaFinished(true);
-            status.setAcoFinished(true);
-            System.err.println("Simulation " + simulationId + " failed due to validation error: " + errorMessage);
-        }
+        transition(simulationId, current -> current.toBuilder()
+                .overallStatus(SimulationState.VALIDATION_ERROR)
+                .errorMessage(errorMessage)
+                .gaFinished(true).acoFinished(true)
+                .build());
     }
 
     /**
-     * Sets the simulation status to ERROR for a specific algorithm.
-     * This method is called by the algorithm services (GA/ACO) upon their failure.
+     * Records an error for a specific algorithm and marks it finished; the simulation ends in ERROR once both
+     * algorithms have finished. This method is called by the algorithm services (GA/ACO) upon their failure.
      * @param simulationId The ID of the simulation.
-     * @param algorithmType "GA" or "ACO".
+     * @param algorithmType "GA" or "ACO"; any other type only adds to the error message.
      * @param errorMessage The error message.
      */
     public void updateError(String simulationId, String algorithmType, String errorMessage) {
-        SimulationStatus status = simulationStatuses.get(simulationId);
-        if (status != null) {
+        System.err.println("Simulation " + simulationId + " encountered an error in " + algorithmType + ": " + errorMessage);
+        SimulationStatus status = transition(simulationId, current -> {
             // Append error message to the overall error message
-            String currentError = status.getErrorMessage() == null ? "" : status.getErrorMessage() + "\n";
-            status.setErrorMessage(currentError + algorithmType + " Error: " + errorMessage);
-            System.err.println("Simulation " + simulationId + " encountered an error in " + algorithmType + ": " + errorMessage);
-
-            // Mark the specific algorithm as having an error and being finished
+            String currentError = current.getErrorMessage() == null ? "" : current.getErrorMessage() + "\n";
+            SimulationStatus.SimulationStatusBuilder next = current.toBuilder()
+                    .errorMessage(currentError + algorithmType + " Error: " + errorMessage);
+            // Progress goes to 100% on error to indicate the algorithm is done processing
             if ("GA".equalsIgnoreCase(algorithmType)) {
-                status.setGaHasError(true);
-                status.setGaFinished(true);
-                status.setGaProgress(100.0); // Set progress to 100% on error to indicate it's done processing
-                status.setGaEstimatedTimeRemaining(0.0);
+                next.gaHasError(true).gaFinished(true).gaProgress(100.0).gaEstimatedTimeRemaining(0.0);
             } else if ("ACO".equalsIgnoreCase(algorithmType)) {
-                status.setAcoHasError(true);
-                status.setAcoFinished(true);
-                status.setAcoProgress(100.0); // Set progress to 100% on error to indicate it's done processing
-                status.setAcoEstimatedTimeRemaining(0.0);
-            }
-
-            // Determine overall status only when both algorithms have finished their processing
-            if (status.isGaFinished() && status.isAcoFinished()) {
-                status.setOverallStatus("ERROR"); // Overall is ERROR if any algorithm finished with an error
-                System.err.println("Simulation " + simulationId + " overall status set to ERROR due to " + algorithmType + " failure.");
+                next.acoHasError(true).acoFinished(true).acoProgress(100.0).acoEstimatedTimeRemaining(0.0);
             }
+            return settle(next.build());
+        });
+        if (status != null) {
             System.out.println("Update Error for " + simulationId + " - " + algorithmType + ": Overall Status now " + status.getOverallStatus());
         }
     }
 
     /**
-     * Retrieves the current status of a simulation.
+     * Retrieves the current status of a simulation, from memory while it runs and from the store once finished.
      * @param simulationId The ID of the simulation.
-     * @return The SimulationStatus object, or null if not found.
+     * @return The latest snapshot, or null if not found.
      */
     public SimulationStatus getStatus(String simulationId) {
-        return simulationStatuses.get(simulationId);
+        SimulationStatus status = simulationStatuses.get(simulationId);
+        if (status != null) {
+            return status;
+        }
+        try {
+            return simulationStore.load(simulationId);
+        } catch (IOException e) {
+            System.err.println("Failed to load simulation " + simulationId + ": " + e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * Removes a simulation's status from memory (e.g., after client retrieves final result).
+     * Lists stored simulations, finished or not.
+     * @param state Only list simulations in this state, or null for all.
+     * @param limit Maximum number of simulations.
+     * @return Summaries of the most recently updated simulations, newest first.
+     */
+    public List<SimulationSummary> getHistory(SimulationState state, int limit) throws IOException {
+        return simulationStore.history(state, limit);
+    }
+
+    /**
+     * Returns the token that the engines of a simulation poll to find out it was terminated.
+     * @param simulationId The ID of the simulation.
+     * @return The simulation's token, or an already cancelled one if the simulation no longer exists.
+     */
+    public CancellationToken getCancellationToken(String simulationId) {
+        CancellationToken token = cancellationTokens.get(simulationId);
+        if (token == null) {
+            token = new CancellationToken();
+            token.cancel();
+        }
+        return token;
+    }
+
+    /**
+     * Registers one more client watching a simulation, so its status survives until that client cleans up too.
+     * @param simulationId The ID of the running simulation.
+     * @return false if the simulation no longer exists.
+     */
+    public boolean attachWatcher(String simulationId) {
+        if (!simulationStatuses.containsKey(simulationId)) {
+            return false;
+        }
+        extraWatchers.merge(simulationId, 1, Integer::sum);
+        return true;
+    }
+
+    /**
+     * Removes a simulation's status from memory (e.g., after client retrieves final result). A simulation that
+     * has not finished is deleted from the store too; a finished one stays there as history.
+     * A coalesced simulation is only removed once every client watching it has cleaned up.
      * @param simulationId The ID of the simulation to clean up.
      */
     public void cleanupSimulation(String simulationId) {
-        simulationStatuses.remove(simulationId);
+        if (release(detachedWatchers, simulationId) || release(extraWatchers, simulationId)) {
+            return; // Another client still polls this simulation
+        }
+        remove(simulationId);
         System.out.println("Cleaned up simulation: " + simulationId);
     }
 
     /**
-     * Terminates a running simulation by setting its status to TERMINATED.
+     * @return true if the simulation had a watcher counted in {@code watchers}, which is now one fewer.
+     */
+    private static boolean release(Map<String, Integer> watchers, String simulationId) {
+        boolean[] released = {false};
+        watchers.computeIfPresent(simulationId, (id, count) -> {
+            released[0] = true;
+            return count > 1 ? count - 1 : null;
+        });
+        return released[0];
+    }
+
+    /**
+     * Removes the statuses of simulations that have not changed for the TTL, then, while more than the maximum
+     * number of statuses are kept, the least recently updated finished ones. Simulations that are still running
+     * are only removed by the TTL, i.e. when they have stopped reporting progress.
+     * @return The number of statuses removed.
+     */
+    public int evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000;
+        int evicted = 0;
+        for (SimulationStatus status : simulationStatuses.values()) {
+            if (status.getUpdatedAt() < cutoff) {
+                remove(status.getSimulationId());
+                evicted++;
+            }
+        }
+
+        int excess = simulationStatuses.size() - maxEntries;
+        if (excess > 0) {
+            List<SimulationStatus> finished = new ArrayList<>();
+            for (SimulationStatus status : simulationStatuses.values()) {
+                if (status.getOverallStatus().isTerminal()) {
+                    finished.add(status);
+                }
+            }
+            finished.sort(Comparator.comparingLong(SimulationStatus::getUpdatedAt));
+            for (int i = 0; i < excess && i < finished.size(); i++) {
+                remove(finished.get(i).getSimulationId());
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            evictions.addAndGet(evicted);
+            System.out.println("Evicted " + evicted + " expired simulation statuses, " + simulationStatuses.size() + " left");
+        }
+        return evicted;
+    }
+
+    /**
+     * @return The number of simulation statuses currently kept in memory.
+     */
+    public int getTrackedCount() {
+        return simulationStatuses.size();
+    }
+
+    /**
+     * @return The number of statuses removed by {@link #evictExpired()} since start-up.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private void remove(String simulationId) {
+        SimulationStatus removed = simulationStatuses.remove(simulationId);
+        if (removed != null && !removed.getOverallStatus().isTerminal()) {
+            try {
+                simulationStore.delete(simulationId, removed.getVersion());
+            } catch (IOException e) {
+                System.err.println("Failed to delete stored simulation " + simulationId + ": " + e.getMessage());
+            }
+        }
+        extraWatchers.remove(simulationId);
+        detachedWatchers.remove(simulationId);
+        CancellationToken token = cancellationTokens.remove(simulationId);
+        if (token != null) {
+            token.cancel(); // Nobody is left to read the result
+        }
+        simulationEventService.close(simulationId);
+    }
+
+    /**
+     * Terminates a pending or running simulation and cancels its token, which stops the in-process engines at
+     * their next check and kills a running Python job. The TERMINATED snapshot is final, so results that
+     * arrive afterwards are dropped.
+     * <p>
+     * A coalesced simulation is shared by every client that submitted it, so only the last of them to terminate
+     * it does; until then, a client that terminates it just stops watching, and its cleanup afterwards leaves
+     * the simulation to the others.
      * @param simulationId The ID of the simulation to terminate.
-     * @return true if the simulation was successfully terminated, false if not found or already finished.
+     * @return Whether the simulation was terminated, only left by this client, or not found or already finished.
      */
-    public boolean terminateSimulation(String simulationId) {
+    public Termination terminateSimulation(String simulationId) {
         SimulationStatus status = simulationStatuses.get(simulationId);
-        if (status != null && "RUNNING".equals(status.getOverallStatus())) {
-            status.setOverallStatus("TERMINATED");
-            status.setErrorMessage("Simulation was terminated by user");
-            status.setGaFinished(true);
-            status.setAcoFinished(true);
-            status.setGaProgress(100.0);
-            status.setAcoProgress(100.0);
-            status.setGaEstimatedTimeRemaining(0.0);
-            status.setAcoEstimatedTimeRemaining(0.0);
-            System.out.println("Simulation " + simulationId + " was terminated by user");
-            return true;
+        if (status == null || status.getOverallStatus().isTerminal()) {
+            return Termination.NOT_RUNNING;
+        }
+        if (release(extraWatchers, simulationId)) {
+            detachedWatchers.merge(simulationId, 1, Integer::sum);
+            System.out.println("Client left simulation " + simulationId + ", which other clients still watch");
+            return Termination.DETACHED;
         }
-        return false;
+        // Taken first, as storing the TERMINATED snapshot drops the simulation's token
+        CancellationToken token = getCancellationToken(simulationId);
+        status = transition(simulationId, current -> current.toBuilder()
+                .overallStatus(SimulationState.TERMINATED)
+                .queuePosition(null)
+                .errorMessage("Simulation was terminated by user")
+                .gaFinished(true).acoFinished(true)
+                .gaProgress(100.0).acoProgress(100.0)
+                .gaEstimatedTimeRemaining(0.0).acoEstimatedTimeRemaining(0.0)
+                .build());
+        if (status == null) {
+            return Termination.NOT_RUNNING;
+        }
+        token.cancel();
+        return Termination.TERMINATED;
     }
 
     /**
@@ -254,9 +540,80 @@ public class SimulationStatusService {
      */
     public boolean isSimulationRunning(String simulationId) {
         SimulationStatus status = simulationStatuses.get(simulationId);
-        return status != null && "RUNNING".equals(status.getOverallStatus());
+        return status != null && status.getOverallStatus() == SimulationState.RUNNING;
+    }
+
+    /**
+     * Atomically replaces a simulation's snapshot with {@code change} applied to it and pushes the new snapshot
+     * to the simulation's event streams. Nothing happens if the simulation is unknown, its current state is
+     * terminal, {@code change} returns the snapshot unchanged, or the state change is not allowed.
+     * @return The new snapshot, or null if nothing was changed.
+     */
+    private SimulationStatus transition(String simulationId, UnaryOperator<SimulationStatus> change) {
+        SimulationStatus[] previous = new SimulationStatus[1];
+        SimulationStatus[] applied = new SimulationStatus[1];
+        simulationStatuses.computeIfPresent(simulationId, (id, current) -> {
+            if (current.getOverallStatus().isTerminal()) {
+                return current;
+            }
+            SimulationStatus next = change.apply(current);
+            if (next == current || !current.getOverallStatus().canTransitionTo(next.getOverallStatus())) {
+                return current;
+            }
+            previous[0] = current;
+            applied[0] = next.toBuilder()
+                    .version(current.getVersion() + 1)
+                    .updatedAt(System.currentTimeMillis())
+                    .build();
+            return applied[0];
+        });
+
+        SimulationStatus status = applied[0];
+        if (status == null) {
+            return null;
+        }
+        if (status.getOverallStatus().isTerminal()) {
+            // Only the update that made the transition gets here, so this runs exactly once per simulation
+            System.out.println("Simulation " + simulationId + " finished with status " + status.getOverallStatus());
+        }
+        persist(previous[0], status);
+        simulationEventService.publish(status);
+        return status;
     }
 
+    /**
+     * Saves a snapshot that changes the state, the result or the error message; progress, incumbents and queue
+     * positions are not worth a write. Once the final snapshot is stored, the simulation is dropped from memory.
+     * If the store fails, the simulation simply stays in memory until it expires.
+     * @param previous The snapshot {@code status} replaces, or null for a new simulation.
+     */
+    private void persist(SimulationStatus previous, SimulationStatus status) {
+        if (previous != null && previous.getOverallStatus() == status.getOverallStatus()
+                && previous.getResult() == status.getResult()
+                && Objects.equals(previous.getErrorMessage(), status.getErrorMessage())) {
+            return;
+        }
+        String simulationId = status.getSimulationId();
+        try {
+            simulationStore.save(status);
+        } catch (IOException e) {
+            System.err.println("Failed to store simulation " + simulationId + ": " + e.getMessage());
+            return;
+        }
+        if (status.getOverallStatus().isTerminal()) {
+            simulationStatuses.remove(simulationId, status);
+            extraWatchers.remove(simulationId); // Cleaning up no longer removes anything
+            detachedWatchers.remove(simulationId);
+            cancellationTokens.remove(simulationId);
+        }
+    }
 
+    /**
+     * Outcome of {@link #terminateSimulation(String)}.
+     */
+    public enum Termination {
+        TERMINATED, // The simulation was stopped
+        DETACHED, // Only this client stopped watching; the simulation keeps running for the others
+        NOT_RUNNING // Not found or already finished
+    }
 }
-
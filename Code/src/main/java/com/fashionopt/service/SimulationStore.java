@@ -0,0 +1,81 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationState;
+import com.fashionopt.dto.SimulationStatus;
+import com.fashionopt.dto.SimulationSummary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Durable copy of the simulation statuses, so simulations survive a restart and finished ones can be listed as
+ * history. {@link SimulationStatusService} saves a snapshot whenever a simulation changes state, gets a result
+ * or an error; progress, incumbents and queue positions only live in memory. Once a simulation has finished,
+ * its snapshot is read from the store alone.
+ * <p>
+ * {@code fashionopt.store.type} selects the implementation: {@code log} for the memory-mapped
+ * {@link MappedLogSimulationStore} (default), {@code jdbc} for the embedded database of
+ * {@link JdbcSimulationStore} or {@code none} for the {@link InMemorySimulationStore}, which does not survive a
+ * restart and which cluster workers always use. Implementations are thread-safe.
+ */
+public interface SimulationStore {
+
+    /**
+     * @param storeDir {@code fashionopt.store.dir}, or blank for {@code .fashionopt/store} in the user's home
+     *                 directory; unlike the temporary directory, it is not cleared on reboot.
+     * @return The directory, created if needed.
+     */
+    static Path directory(String storeDir) throws IOException {
+        return Files.createDirectories(storeDir == null || storeDir.isBlank()
+                ? Path.of(System.getProperty("user.home"), ".fashionopt", "store")
+                : Path.of(storeDir));
+    }
+
+    /**
+     * Stores a snapshot, unless the same or a newer version of the simulation is already stored.
+     */
+    void save(SimulationStatus status) throws IOException;
+
+    /**
+     * @return The latest stored snapshot, or null if the simulation is not stored.
+     */
+    SimulationStatus load(String simulationId) throws IOException;
+
+    /**
+     * Deletes a simulation, and ignores any later save of it at or below {@code version}: a save that was already
+     * under way when the simulation was deleted must not store it again.
+     * @param version The version of the simulation when it was deleted.
+     */
+    void delete(String simulationId, long version) throws IOException;
+
+    /**
+     * @return The stored snapshots that are not in a terminal state, i.e. of simulations that were pending or
+     * running when the server stopped.
+     */
+    List<SimulationStatus> loadUnfinished() throws IOException;
+
+    /**
+     * @param state Only list simulations in this state, or null for all.
+     * @return Summaries of the most recently updated simulations, newest first.
+     */
+    List<SimulationSummary> history(SimulationState state, int limit) throws IOException;
+
+    /**
+     * Deletes finished simulations older than {@code fashionopt.store.retention-days} and reclaims the space of
+     * superseded and deleted records.
+     * @return The number of simulations deleted.
+     */
+    int compact() throws IOException;
+
+    /**
+     * @return The number of stored simulations.
+     */
+    int size();
+
+    /**
+     * @return The space the store takes, in bytes.
+     */
+    long sizeBytes();
+}
@@ -0,0 +1,159 @@
+package com.fashionopt.service;
+
+import java.util.Arrays;
+
+/**
+ * A quantity vector together with running totals of everything the constraint checks and the fitness need:
+ * production, marketing and logistics cost, shelf use and penalised profit. Changing one quantity updates
+ * the totals in O(1), so engines never re-scan the whole catalog to evaluate or check a solution.
+ * <p>
+ * The totals are rebuilt from scratch once enough updates have accumulated to bound floating-point drift;
+ * the rebuild is O(n) but only happens every few n updates, so updates stay O(1) amortised.
+ */
+final class SolutionState {
+
+    private final OptimizationProblem problem;
+    private final double shelfLimit;
+    private final int[] quantities;
+
+    private double productionCost;
+    private double marketingCost;
+    private double logisticsCost;
+    private double shelfUsed;
+    private double objective;
+    private int updatesSinceRefresh;
+
+    /**
+     * @param shelfLimit Shelf space available to the new quantities. GA.py counts remaining stock against
+     *                   the shelf capacity while ant.py does not, so each engine passes its own limit.
+     */
+    SolutionState(OptimizationProblem problem, double shelfLimit) {
+        this.problem = problem;
+        this.shelfLimit = shelfLimit;
+        this.quantities = new int[problem.size()];
+    }
+
+    private SolutionState(SolutionState other) {
+        this.problem = other.problem;
+        this.shelfLimit = other.shelfLimit;
+        this.quantities = other.quantities.clone();
+        this.productionCost = other.productionCost;
+        this.marketingCost = other.marketingCost;
+        this.logisticsCost = other.logisticsCost;
+        this.shelfUsed = other.shelfUsed;
+        this.objective = other.objective;
+        this.updatesSinceRefresh = other.updatesSinceRefresh;
+    }
+
+    SolutionState copy() {
+        return new SolutionState(this);
+    }
+
+    OptimizationProblem getProblem() {
+        return problem;
+    }
+
+    int size() {
+        return quantities.length;
+    }
+
+    int get(int i) {
+        return quantities[i];
+    }
+
+    /**
+     * @return The live quantity array; callers must not modify it.
+     */
+    int[] quantities() {
+        return quantities;
+    }
+
+    void set(int i, int quantity) {
+        int delta = quantity - quantities[i];
+        if (delta == 0) {
+            return;
+        }
+        quantities[i] = quantity;
+        productionCost += problem.getProductionCost()[i] * delta;
+        marketingCost += problem.getMarketingCost()[i] * delta;
+        logisticsCost += problem.getLogisticsCost()[i] * delta;
+        shelfUsed += problem.getShelfSpace()[i] * delta;
+        objective += problem.getNetProfit()[i] * delta;
+        if (++updatesSinceRefresh > 4 * quantities.length + 64) {
+            refresh();
+        }
+    }
+
+    void clear() {
+        Arrays.fill(quantities, 0);
+        productionCost = 0.0;
+        marketingCost = 0.0;
+        logisticsCost = 0.0;
+        shelfUsed = 0.0;
+        objective = 0.0;
+        updatesSinceRefresh = 0;
+    }
+
+    /**
+     * Recomputes all totals from the quantities.
+     */
+    void refresh() {
+        double[] cp = problem.getProductionCost();
+        double[] cm = problem.getMarketingCost();
+        double[] cl = problem.getLogisticsCost();
+        double[] shelf = problem.getShelfSpace();
+        double[] netProfit = problem.getNetProfit();
+        productionCost = 0.0;
+        marketingCost = 0.0;
+        logisticsCost = 0.0;
+        shelfUsed = 0.0;
+        objective = 0.0;
+        for (int i = 0; i < quantities.length; i++) {
+            int q = quantities[i];
+            productionCost += cp[i] * q;
+            marketingCost += cm[i] * q;
+            logisticsCost += cl[i] * q;
+            shelfUsed += shelf[i] * q;
+            objective += netProfit[i] * q;
+        }
+        updatesSinceRefresh = 0;
+    }
+
+    boolean withinBudgets() {
+        return productionCost <= problem.getProductionBudget()
+                && marketingCost <= problem.getMarketingBudget()
+                && logisticsCost <= problem.getLogisticsBudget();
+    }
+
+    boolean withinShelf() {
+        return shelfUsed <= shelfLimit;
+    }
+
+    boolean isFeasible() {
+        return withinBudgets() && withinShelf();
+    }
+
+    double getObjective() {
+        return objective;
+    }
+
+    double getProductionCost() {
+        return productionCost;
+    }
+
+    double getMarketingCost() {
+        return marketingCost;
+    }
+
+    double getLogisticsCost() {
+        return logisticsCost;
+    }
+
+    double getShelfUsed() {
+        return shelfUsed;
+    }
+
+    double getShelfLimit() {
+        return shelfLimit;
+    }
+}
@@ -0,0 +1,123 @@
+package com.fashionopt.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically expires simulation statuses, cached results, warm-start engine states, finished batches and
+ * stored uploads, and compacts the simulation store, so a long-running server does not keep growing its heap,
+ * upload directory and store. What is kept and what was reclaimed is published as metrics.
+ */
+@Component
+public class StateSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(StateSweeper.class);
+
+    @Autowired
+    private SimulationStatusService simulationStatusService;
+
+    @Autowired
+    private SimulationResultCache simulationResultCache;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private EngineStateStore engineStateStore;
+
+    @Autowired
+    private BatchSweepService batchSweepService;
+
+    @Autowired
+    private SimulationStore simulationStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fashionopt.sweeper.interval-seconds:60}")
+    private long intervalSeconds;
+
+    private final AtomicLong uploadFiles = new AtomicLong();
+    private final AtomicLong uploadBytes = new AtomicLong();
+    private final AtomicLong expiredResults = new AtomicLong();
+    private final AtomicLong expiredStored = new AtomicLong();
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        Gauge.builder("fashionopt.simulations.tracked", simulationStatusService, SimulationStatusService::getTrackedCount)
+                .description("Simulation statuses kept in memory").register(meterRegistry);
+        FunctionCounter.builder("fashionopt.simulations.evicted", simulationStatusService, SimulationStatusService::getEvictionCount)
+                .description("Simulation statuses removed after their TTL or beyond the maximum").register(meterRegistry);
+        Gauge.builder("fashionopt.result.cache.entries", simulationResultCache, cache -> cache.getStats().entries())
+                .description("Finished simulation results kept for reuse").register(meterRegistry);
+        FunctionCounter.builder("fashionopt.result.cache.expired", expiredResults, AtomicLong::get)
+                .description("Cached results dropped after their TTL").register(meterRegistry);
+        Gauge.builder("fashionopt.warmstart.states", engineStateStore, EngineStateStore::size)
+                .description("Engine states kept for warm-started reruns").register(meterRegistry);
+        Gauge.builder("fashionopt.uploads.files", uploadFiles, AtomicLong::get)
+                .description("Stored uploads as of the last sweep").register(meterRegistry);
+        Gauge.builder("fashionopt.uploads.bytes", uploadBytes, AtomicLong::get)
+                .description("Size of the stored uploads as of the last sweep").baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("fashionopt.uploads.deleted", fileStorageService, FileStorageService::getDeletedCount)
+                .description("Stored uploads deleted after their TTL").register(meterRegistry);
+        Gauge.builder("fashionopt.store.simulations", simulationStore, SimulationStore::size)
+                .description("Simulations in the simulation store").register(meterRegistry);
+        Gauge.builder("fashionopt.store.bytes", simulationStore, SimulationStore::sizeBytes)
+                .description("Size of the simulation store").baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("fashionopt.store.expired", expiredStored, AtomicLong::get)
+                .description("Stored simulations deleted after the retention period").register(meterRegistry);
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "state-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    void sweep() {
+        // A failing step must not cancel the schedule, so every step catches its own errors
+        try {
+            simulationStatusService.evictExpired();
+            expiredResults.addAndGet(simulationResultCache.evictExpired());
+            engineStateStore.evictExpired();
+            batchSweepService.evictExpired();
+        } catch (RuntimeException e) {
+            logger.error("Failed to expire simulation state: " + e.getMessage(), e);
+        }
+        try {
+            FileStorageService.Usage usage = fileStorageService.deleteExpired();
+            uploadFiles.set(usage.files());
+            uploadBytes.set(usage.bytes());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to delete expired uploads: " + e.getMessage(), e);
+        }
+        try {
+            expiredStored.addAndGet(simulationStore.compact());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to compact the simulation store: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.fashionopt.service;
+
+/**
+ * Tells an engine when to stop before its fixed generation or iteration count: once its best plan's penalised
+ * profit is within a relative gap of the problem's LP upper bound, or once the simulation's wall-clock deadline
+ * has passed. A plan returned because of the deadline is the best found so far and is flagged as partial.
+ */
+public final class StoppingRule {
+
+    /**
+     * Never stops early.
+     */
+    public static final StoppingRule NONE = new StoppingRule(Double.POSITIVE_INFINITY, false, 0L);
+
+    private final double target;
+    private final boolean hasDeadline;
+    private final long deadline; // System.nanoTime() value
+
+    private StoppingRule(double target, boolean hasDeadline, long deadline) {
+        this.target = target;
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+    }
+
+    /**
+     * @param upperBound Upper bound on the penalised profit, see {@link OptimizationProblem#getUpperBound(double)}.
+     * @param gapPercent Largest acceptable distance to the bound, as a percentage of the bound; 0 stops only
+     *                   when the bound itself is reached.
+     * @return A rule that is satisfied by any plan worth at least {@code upperBound * (1 - gapPercent / 100)},
+     * or {@link #NONE} if there is no usable bound.
+     */
+    public static StoppingRule withinGap(double upperBound, double gapPercent) {
+        if (Double.isNaN(upperBound) || Double.isInfinite(upperBound) || upperBound <= 0) {
+            return NONE;
+        }
+        return new StoppingRule(upperBound * (1 - Math.max(0.0, gapPercent) / 100), false, 0L);
+    }
+
+    /**
+     * @param deadline {@link System#nanoTime()} value by which the simulation must finish, or null.
+     * @return The time by which the LP bound behind a gap target must be solved: a tenth of the time left, so that
+     * solving it never eats up the engine's deadline, or null if there is no deadline.
+     */
+    public static Long boundDeadline(Long deadline) {
+        return deadline == null ? null : System.nanoTime() + Math.max(0L, deadline - System.nanoTime()) / 10;
+    }
+
+    /**
+     * @param target Penalised profit that satisfies the rule, as returned by {@link #getTarget()}, or null.
+     * @return A rule with the same target as the one that produced {@code target}, e.g. on a cluster worker.
+     */
+    static StoppingRule atTarget(Double target) {
+        return target == null ? NONE : new StoppingRule(target, false, 0L);
+    }
+
+    /**
+     * @param deadlineNanos {@link System#nanoTime()} value after which the engine returns its best plan so far,
+     *                      or null for no deadline.
+     * @return This rule with the deadline added.
+     */
+    public StoppingRule withDeadline(Long deadlineNanos) {
+        return deadlineNanos == null ? this : new StoppingRule(target, true, deadlineNanos);
+    }
+
+    /**
+     * @param bestObjective Penalised profit of the best feasible plan found so far.
+     */
+    public boolean isSatisfied(double bestObjective) {
+        return bestObjective >= target;
+    }
+
+    /**
+     * @return The penalised profit that satisfies the rule, or null if it never stops early.
+     */
+    public Double getTarget() {
+        return Double.isInfinite(target) ? null : target;
+    }
+
+    public boolean isPastDeadline() {
+        return hasDeadline && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * @return Milliseconds left until the deadline (0 once it has passed), or null if there is none.
+     */
+    public Long getRemainingMillis() {
+        return hasDeadline ? Math.max(0L, (deadline - System.nanoTime()) / 1_000_000) : null;
+    }
+
+    /**
+     * @param estimatedSeconds An engine's own estimate of its remaining run time.
+     * @return The estimate, shortened to the time left until the deadline.
+     */
+    public double capEstimate(double estimatedSeconds) {
+        return hasDeadline ? Math.min(estimatedSeconds, getRemainingMillis() / 1000.0) : estimatedSeconds;
+    }
+}
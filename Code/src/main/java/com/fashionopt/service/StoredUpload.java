@@ -0,0 +1,10 @@
+package com.fashionopt.service;
+
+import java.nio.file.Path;
+
+/**
+ * An uploaded file in the content-addressed upload store.
+ * @param contentHash Hex SHA-256 of the file's bytes; identical uploads share the same hash and path.
+ */
+public record StoredUpload(Path path, String contentHash) {
+}
@@ -0,0 +1,37 @@
+package com.fashionopt.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The versions at which simulations were deleted from a {@link SimulationStore}, so that a save of one of those
+ * versions that was already under way when the delete ran does not store the simulation again.
+ * <p>
+ * Such saves finish within moments of the delete, so tombstones are only kept for two {@link #rotate() rotations}:
+ * the stores rotate them on every compaction. Not thread-safe; each store guards its tombstones with its own lock.
+ */
+final class Tombstones {
+
+    private Map<String, Long> current = new HashMap<>();
+    private Map<String, Long> previous = new HashMap<>();
+
+    void add(String simulationId, long version) {
+        current.merge(simulationId, version, Math::max);
+    }
+
+    /**
+     * @return true if the simulation was deleted at this version or a later one.
+     */
+    boolean covers(String simulationId, long version) {
+        return current.getOrDefault(simulationId, -1L) >= version
+                || previous.getOrDefault(simulationId, -1L) >= version;
+    }
+
+    /**
+     * Forgets the tombstones added before the previous rotation.
+     */
+    void rotate() {
+        previous = current;
+        current = new HashMap<>();
+    }
+}
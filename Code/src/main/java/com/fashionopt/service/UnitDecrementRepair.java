@@ -0,0 +1,72 @@
+package com.fashionopt.service;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Chromosome.repair from GA.py: the product with the largest cost share loses one unit at a time until the
+ * budgets hold, and again (now including shelf space) until the full constraint set holds. The largest share
+ * is kept in a heap ordered like Python's max(), so each step costs O(log n) instead of a scan over the
+ * catalog, but the number of steps still grows with the excess.
+ */
+final class UnitDecrementRepair implements RepairOperator {
+
+    private static final int CANCELLATION_CHECK_MASK = 0xFFFF; // Poll the token every 65536 units removed
+
+    private final double[] budgetWeight;
+    private final double[] shelfWeight;
+    private final CancellationToken cancellation;
+
+    UnitDecrementRepair(OptimizationProblem problem, CancellationToken cancellation) {
+        this.cancellation = cancellation;
+        double[] cp = problem.getProductionCost();
+        double[] cm = problem.getMarketingCost();
+        double[] cl = problem.getLogisticsCost();
+        double[] shelf = problem.getShelfSpace();
+        int n = problem.size();
+        budgetWeight = new double[n];
+        shelfWeight = new double[n];
+        for (int i = 0; i < n; i++) {
+            budgetWeight[i] = cp[i] + cm[i] + cl[i];
+            shelfWeight[i] = budgetWeight[i] + shelf[i];
+        }
+    }
+
+    @Override
+    public void repair(SolutionState state, IntConsumer changed) {
+        if (state.isFeasible()) {
+            return;
+        }
+        int n = state.size();
+        long steps = 0;
+
+        // Budget repair, then feasibility repair including shelf space
+        for (int pass = 0; pass < 2; pass++) {
+            boolean includeShelf = pass == 1;
+            if (state.withinBudgets() && (!includeShelf || state.withinShelf())) {
+                continue;
+            }
+            double[] weight = includeShelf ? shelfWeight : budgetWeight;
+            double[] share = new double[n]; // Negated, the heap keeps the smallest key on top
+            int[] items = new int[n];
+            for (int i = 0; i < n; i++) {
+                share[i] = -(state.get(i) * weight[i]);
+                items[i] = i;
+            }
+            IndexHeap heap = new IndexHeap(share, items, n);
+            while (!state.withinBudgets() || (includeShelf && !state.withinShelf())) {
+                int idx = heap.peek();
+                int q = state.get(idx);
+                if (q <= 0) {
+                    break;
+                }
+                if ((++steps & CANCELLATION_CHECK_MASK) == 0) {
+                    cancellation.throwIfCancelled();
+                }
+                state.set(idx, q - 1);
+                changed.accept(idx);
+                share[idx] = -((q - 1) * weight[idx]);
+                heap.topChanged();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.fashionopt.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Engine state a finished run leaves behind, so that a rerun with slightly different settings can start from it
+ * instead of from scratch: the GA's best plan and ACO's final pheromone table. Both are indexed by catalog
+ * product and matched to a rerun's products by name, so the rerun may pre-solve to a different set of products
+ * or even use an edited catalog. Instances are immutable.
+ */
+public final class WarmStart {
+
+    private final String[] names; // Catalog product names
+    private final int[] quantities; // GA: best plan per catalog product, or null
+    private final double[][] pheromone; // ACO: final pheromone per catalog product and quantity, or null
+
+    private WarmStart(String[] names, int[] quantities, double[][] pheromone) {
+        this.names = names;
+        this.quantities = quantities;
+        this.pheromone = pheromone;
+    }
+
+    /**
+     * @param quantities The GA's best plan over the products of {@code problem}.
+     */
+    static WarmStart ofPlan(OptimizationProblem problem, int[] quantities) {
+        OptimizationProblem catalog = problem.getCatalog();
+        int[] plan = new int[catalog.size()];
+        for (int j = 0; j < quantities.length; j++) {
+            plan[problem.catalogIndex(j)] = quantities[j];
+        }
+        return new WarmStart(catalog.getNames(), plan, null);
+    }
+
+    /**
+     * @param pheromone ACO's final pheromone over the quantities {@code 0..n} of each product of {@code problem},
+     *                  or null for a product pinned at 0.
+     */
+    static WarmStart ofPheromone(OptimizationProblem problem, double[][] pheromone) {
+        OptimizationProblem catalog = problem.getCatalog();
+        double[][] table = new double[catalog.size()][];
+        for (int j = 0; j < pheromone.length; j++) {
+            table[problem.catalogIndex(j)] = pheromone[j];
+        }
+        return new WarmStart(catalog.getNames(), null, table);
+    }
+
+    /**
+     * @param quantities A plan over the products of {@code problem}, or null.
+     * @param pheromone A pheromone table over the products of {@code problem}, or null.
+     * @return The state holding whichever of the two is given, or null if neither is.
+     */
+    static WarmStart of(OptimizationProblem problem, int[] quantities, double[][] pheromone) {
+        if (quantities == null) {
+            return pheromone != null ? ofPheromone(problem, pheromone) : null;
+        }
+        WarmStart plan = ofPlan(problem, quantities);
+        return pheromone != null ? plan.merge(ofPheromone(problem, pheromone)) : plan;
+    }
+
+    /**
+     * @return This state with the parts {@code other} has and this one lacks; {@code other} wins if both have a
+     * part and were recorded for a different catalog.
+     */
+    WarmStart merge(WarmStart other) {
+        if (!Arrays.equals(names, other.names)) {
+            return other;
+        }
+        return new WarmStart(names, other.quantities != null ? other.quantities : quantities,
+                other.pheromone != null ? other.pheromone : pheromone);
+    }
+
+    /**
+     * @return The GA plan for the products of {@code problem}, capped by their quantity caps, or null if there is
+     * none or no product matches.
+     */
+    int[] seedPlan(OptimizationProblem problem) {
+        if (quantities == null) {
+            return null;
+        }
+        int[] index = indexIn(problem);
+        if (index == null) {
+            return null;
+        }
+        int[] plan = new int[problem.size()];
+        for (int j = 0; j < plan.length; j++) {
+            plan[j] = index[j] < 0 ? 0 : Math.min(quantities[index[j]], problem.getMaxQuantity()[j]);
+        }
+        return plan;
+    }
+
+    /**
+     * @return The pheromone over the quantities of each product of {@code problem}, with a null row for products
+     * without one, or null if there is no table or no product matches.
+     */
+    double[][] seedPheromone(OptimizationProblem problem) {
+        if (pheromone == null) {
+            return null;
+        }
+        int[] index = indexIn(problem);
+        if (index == null) {
+            return null;
+        }
+        double[][] rows = new double[problem.size()][];
+        for (int j = 0; j < rows.length; j++) {
+            rows[j] = index[j] < 0 ? null : pheromone[index[j]];
+        }
+        return rows;
+    }
+
+    /**
+     * @return Catalog index of each product of {@code problem} in this state, -1 where it has none, or null if
+     * none of them has one.
+     */
+    private int[] indexIn(OptimizationProblem problem) {
+        String[] catalogNames = problem.getCatalog().getNames();
+        int[] index = new int[problem.size()];
+        boolean sameCatalog = Arrays.equals(catalogNames, names);
+        Map<String, Integer> byName = null;
+        if (!sameCatalog) {
+            byName = new HashMap<>(names.length * 2);
+            for (int c = 0; c < names.length; c++) {
+                byName.putIfAbsent(names[c], c);
+            }
+        }
+        boolean matched = false;
+        for (int j = 0; j < index.length; j++) {
+            int c = problem.catalogIndex(j);
+            index[j] = sameCatalog ? c : byName.getOrDefault(catalogNames[c], -1);
+            matched |= index[j] >= 0;
+        }
+        return matched ? index : null;
+    }
+
+    /**
+     * @return Rough heap size, to bound how much state is retained.
+     */
+    long estimatedBytes() {
+        long bytes = 16L * names.length;
+        if (quantities != null) {
+            bytes += 4L * quantities.length;
+        }
+        if (pheromone != null) {
+            for (double[] row : pheromone) {
+                bytes += 16 + (row != null ? 8L * row.length : 0);
+            }
+        }
+        return bytes;
+    }
+}
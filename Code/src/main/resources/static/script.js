@@ -106,6 +106,7 @@ document.addEventListener("DOMContentLoaded", () => {
     let currentSimResults = null;
     let currentSimulationId = null; // To store the ID of the ongoing simulation
     let statusPollingIntervalId = null; // To store the interval ID for polling
+    let statusEventSource = null; // Event stream of the active simulation, when the browser supports it
     let isSimulationActive = false; // New flag to prevent multiple simultaneous simulations
 
     const chartDefaultOptions = {
@@ -895,6 +896,7 @@ document.addEventListener("DOMContentLoaded", () => {
             statusPollingIntervalId = null;
             console.log("Cleared a leftover polling interval before starting a new simulation.");
         }
+        closeStatusStream();
         // --- End of FIX ---
 
         if (!validateInputs()) {
@@ -992,8 +994,8 @@ document.addEventListener("DOMContentLoaded", () => {
             overallStatusEl.classList.add("running");
             showResultsMessage("Simulation is running...", "info"); // Show a general message too
 
-            // Start polling for status updates
-            statusPollingIntervalId = setInterval(() => pollSimulationStatus(currentSimulationId), STATUS_POLLING_INTERVAL);
+            // Follow status updates over the event stream (polling is the fallback)
+            startStatusUpdates(currentSimulationId);
 
         } catch (error) {
             console.error("Error during simulation setup:", error);
@@ -1004,6 +1006,7 @@ document.addEventListener("DOMContentLoaded", () => {
                 clearInterval(statusPollingIntervalId);
                 statusPollingIntervalId = null;
             }
+            closeStatusStream();
             // Reset simulation active flag and re-enable button on setup error
             isSimulationActive = false;
             buttonText.textContent = "Run Simulation";
@@ -1069,131 +1072,198 @@ document.addEventListener("DOMContentLoaded", () => {
                 return;
             }
 
-            // Update overall status display
-            overallStatusEl.textContent = status.overallStatus || "Unknown";
-            overallStatusEl.className = `status-text ${status.overallStatus ? status.overallStatus.toLowerCase() : 'unknown'}`;
+            renderSimulationStatus(status);
 
-            // Update GA progress
-            if (status.gaProgress !== null && typeof status.gaProgress === 'number') {
-                gaProgressBar.style.width = `${status.gaProgress}%`;
-                gaProgressText.textContent = `${status.gaProgress.toFixed(1)}%`;
-                gaEta.textContent = (status.gaEstimatedTimeRemaining !== null && typeof status.gaEstimatedTimeRemaining === 'number' && status.gaEstimatedTimeRemaining > 0) ?
-                    `ETA: ${status.gaEstimatedTimeRemaining.toFixed(1)}s` : "ETA: Done";
-            } else {
-                gaProgressBar.style.width = `0%`;
-                gaProgressText.textContent = `0%`;
-                gaEta.textContent = "ETA: Calculating...";
-            }
+        } catch (error) {
+            console.error("Error polling simulation status:", error);
+            const displayMessage = typeof error.message === 'string' ? error.message : String(error);
+            stopPolling(`Error fetching status: ${displayMessage}`, "error");
+            simulationErrorMessage.textContent = `Error fetching status: ${displayMessage}`;
+            simulationErrorMessage.classList.remove("hidden");
+            showResultsMessage(`An error occurred during simulation status update.`, "error");
+        }
+    }
 
-            // Update ACO progress
-            if (status.acoProgress !== null && typeof status.acoProgress === 'number') {
-                acoProgressBar.style.width = `${status.acoProgress}%`;
-                acoProgressText.textContent = `${status.acoProgress.toFixed(1)}%`;
-                acoEta.textContent = (status.acoEstimatedTimeRemaining !== null && typeof status.acoEstimatedTimeRemaining === 'number' && status.acoEstimatedTimeRemaining > 0) ?
-                    `ETA: ${status.acoEstimatedTimeRemaining.toFixed(1)}s` : "ETA: Done";
-            } else {
-                acoProgressBar.style.width = `0%`;
-                acoProgressText.textContent = `0%`;
-                acoEta.textContent = "ETA: Calculating...";
-            }
+    /**
+     * Updates the progress area from a full SimulationStatus, received either from the event stream's
+     * "complete" event or from the status endpoint when polling.
+     * @param {object} status The simulation status.
+     */
+    function renderSimulationStatus(status) {
+        updateOverallStatus(status.overallStatus, status.queuePosition);
 
-            // Handle individual algorithm errors if they occur
-            if (status.gaHasError) {
-                // Ensure error message is shown only once or accumulated properly
-                if (!simulationErrorMessage.textContent.includes("Genetic Algorithm Error")) {
-                    simulationErrorMessage.textContent += (simulationErrorMessage.textContent ? "\n" : "") + `Genetic Algorithm Error: ${status.errorMessage || "An unknown GA error occurred."}`;
-                }
-                simulationErrorMessage.classList.remove("hidden");
+        updateAlgorithmProgress("GA", status.gaProgress, status.gaEstimatedTimeRemaining);
+        updateAlgorithmProgress("ACO", status.acoProgress, status.acoEstimatedTimeRemaining);
+
+        // Handle individual algorithm errors if they occur
+        if (status.gaHasError) {
+            // Ensure error message is shown only once or accumulated properly
+            if (!simulationErrorMessage.textContent.includes("Genetic Algorithm Error")) {
+                simulationErrorMessage.textContent += (simulationErrorMessage.textContent ? "\n" : "") + `Genetic Algorithm Error: ${status.errorMessage || "An unknown GA error occurred."}`;
             }
-            if (status.acoHasError) {
-                // Ensure error message is shown only once or accumulated properly
-                if (!simulationErrorMessage.textContent.includes("Ant Colony Optimization Error")) {
-                    simulationErrorMessage.textContent += (simulationErrorMessage.textContent ? "\n" : "") + `Ant Colony Optimization Error: ${status.errorMessage || "An unknown ACO error occurred."}`;
-                }
-                simulationErrorMessage.classList.remove("hidden");
+            simulationErrorMessage.classList.remove("hidden");
+        }
+        if (status.acoHasError) {
+            // Ensure error message is shown only once or accumulated properly
+            if (!simulationErrorMessage.textContent.includes("Ant Colony Optimization Error")) {
+                simulationErrorMessage.textContent += (simulationErrorMessage.textContent ? "\n" : "") + `Ant Colony Optimization Error: ${status.errorMessage || "An unknown ACO error occurred."}`;
             }
+            simulationErrorMessage.classList.remove("hidden");
+        }
 
-            // Check if both algorithms have finished processing (either successfully or with error)
-            if (status.gaFinished && status.acoFinished) {
-                let finalMessage = `Simulation finished with overall status: ${status.overallStatus}`;
-                let messageType = status.overallStatus.toLowerCase();
-
-                // Handle special status cases
-                if (status.overallStatus === "INVISIBLE_SOLUTION") {
-                    finalMessage = "Invisible Solution - One or both algorithms returned zero or negative profit. This may indicate insufficient budget or unfavorable market conditions.";
-                    messageType = "warning";
-                } else if (status.overallStatus === "SHELF_SPACE_ERROR") {
-                    finalMessage = status.errorMessage || "No Space in total shelf space - Required shelf space exceeds available capacity.";
-                    messageType = "error";
-                } else if (status.overallStatus === "VALIDATION_ERROR") {
-                    finalMessage = status.errorMessage || "Validation error - Please check your input parameters.";
-                    messageType = "error";
-                } else if (status.overallStatus === "ERROR") {
-                    finalMessage = status.errorMessage || "Simulation completed with errors. Please check the error details below.";
-                    messageType = "error";
-                } else if (status.overallStatus === "COMPLETED") {
-                    finalMessage = "Simulation completed successfully! Results are displayed below.";
-                    messageType = "success";
-                }
+        // Check if both algorithms have finished processing (either successfully or with error)
+        if (status.gaFinished && status.acoFinished) {
+            let finalMessage = `Simulation finished with overall status: ${status.overallStatus}`;
+            let messageType = status.overallStatus.toLowerCase();
+
+            // Handle special status cases
+            if (status.overallStatus === "INVISIBLE_SOLUTION") {
+                finalMessage = "Invisible Solution - One or both algorithms returned zero or negative profit. This may indicate insufficient budget or unfavorable market conditions.";
+                messageType = "warning";
+            } else if (status.overallStatus === "SHELF_SPACE_ERROR") {
+                finalMessage = status.errorMessage || "No Space in total shelf space - Required shelf space exceeds available capacity.";
+                messageType = "error";
+            } else if (status.overallStatus === "VALIDATION_ERROR") {
+                finalMessage = status.errorMessage || "Validation error - Please check your input parameters.";
+                messageType = "error";
+            } else if (status.overallStatus === "ERROR") {
+                finalMessage = status.errorMessage || "Simulation completed with errors. Please check the error details below.";
+                messageType = "error";
+            } else if (status.overallStatus === "COMPLETED") {
+                finalMessage = "Simulation completed successfully! Results are displayed below.";
+                messageType = "success";
+            }
+
+            stopPolling(finalMessage, messageType);
+
+            // Only try to update results if we have a successful completion or invisible solution
+            if (status.overallStatus === "COMPLETED" || status.overallStatus === "INVISIBLE_SOLUTION") {
+                if (status.result) {
+                    currentSimResults = status.result; // Store final combined results
+
+                    // Update dashboard metrics with GA results (for backward compatibility)
+                    dashboardProfitMetricEl.textContent = "$" + (currentSimResults.gaResult && currentSimResults.gaResult.totalProfit !== undefined ? currentSimResults.gaResult.totalProfit.toFixed(2) : "0.00");
+                    dashboardProductsMetricEl.textContent = currentSimResults.gaResult && currentSimResults.gaResult.products ? currentSimResults.gaResult.products.length : 0;
 
-                stopPolling(finalMessage, messageType);
-
-                // Only try to update results if we have a successful completion or invisible solution
-                if (status.overallStatus === "COMPLETED" || status.overallStatus === "INVISIBLE_SOLUTION") {
-                    if (status.result) {
-                        currentSimResults = status.result; // Store final combined results
-
-                        // Update dashboard metrics with GA results (for backward compatibility)
-                        dashboardProfitMetricEl.textContent = "$" + (currentSimResults.gaResult && currentSimResults.gaResult.totalProfit !== undefined ? currentSimResults.gaResult.totalProfit.toFixed(2) : "0.00");
-                        dashboardProductsMetricEl.textContent = currentSimResults.gaResult && currentSimResults.gaResult.products ? currentSimResults.gaResult.products.length : 0;
-
-                        // Update results for both algorithms (will handle null/empty internally)
-                        updateGAResults(currentSimResults.gaResult || { products: [] });
-                        updateACOResults(currentSimResults.antColonyResult || { products: [] });
-                        updateComparisonResults(currentSimResults.gaResult || { products: [] }, currentSimResults.antColonyResult || { products: [] });
-
-                        resultsContentWrapper.classList.remove("hidden"); // Show the results content
-                        resultsMessageArea.classList.add("hidden"); // Hide the running message
-
-                        // For Infeasible solution, show additional guidance
-                        if (status.overallStatus === "INVISIBLE_SOLUTION") {
-                            showResultsMessage("Infeasible Solution detected (zero or negative profit). Consider adjusting budget parameters or reviewing product data.", "warning");
-                        }
-                    } else {
-                        // This case indicates a deeper issue if finished but no results object
-                        console.error("Simulation finished but results object is null:", status);
-                        showResultsMessage("Simulation finished, but no results data was received. Please check server logs for detailed errors.", "error");
+                    // Update results for both algorithms (will handle null/empty internally)
+                    updateGAResults(currentSimResults.gaResult || { products: [] });
+                    updateACOResults(currentSimResults.antColonyResult || { products: [] });
+                    updateComparisonResults(currentSimResults.gaResult || { products: [] }, currentSimResults.antColonyResult || { products: [] });
+
+                    resultsContentWrapper.classList.remove("hidden"); // Show the results content
+                    resultsMessageArea.classList.add("hidden"); // Hide the running message
+
+                    // For Infeasible solution, show additional guidance
+                    if (status.overallStatus === "INVISIBLE_SOLUTION") {
+                        showResultsMessage("Infeasible Solution detected (zero or negative profit). Consider adjusting budget parameters or reviewing product data.", "warning");
                     }
                 } else {
-                    // For error cases, don't show results content
-                    resultsContentWrapper.classList.add("hidden");
-                    resultsMessageArea.classList.remove("hidden");
+                    // This case indicates a deeper issue if finished but no results object
+                    console.error("Simulation finished but results object is null:", status);
+                    showResultsMessage("Simulation finished, but no results data was received. Please check server logs for detailed errors.", "error");
                 }
+            } else {
+                // For error cases, don't show results content
+                resultsContentWrapper.classList.add("hidden");
+                resultsMessageArea.classList.remove("hidden");
+            }
 
-                // Update chat data status if data sharing is enabled
-                if (isChatDataSharingEnabled) {
-                    updateChatDataStatus(true);
-                }
+            // Update chat data status if data sharing is enabled
+            if (isChatDataSharingEnabled) {
+                updateChatDataStatus(true);
+            }
 
-            } else {
-                // If not yet finished, show the running message with time estimates
-                let runningMessage = "Simulation is running...";
-                if (status.gaEstimatedTimeRemaining > 0 || status.acoEstimatedTimeRemaining > 0) {
-                    const maxEta = Math.max(status.gaEstimatedTimeRemaining || 0, status.acoEstimatedTimeRemaining || 0);
-                    if (maxEta > 0) {
-                        runningMessage += ` Estimated time remaining: ${maxEta.toFixed(0)} seconds`;
-                    }
+        } else {
+            // If not yet finished, show the running message with time estimates
+            let runningMessage = "Simulation is running...";
+            if (status.gaEstimatedTimeRemaining > 0 || status.acoEstimatedTimeRemaining > 0) {
+                const maxEta = Math.max(status.gaEstimatedTimeRemaining || 0, status.acoEstimatedTimeRemaining || 0);
+                if (maxEta > 0) {
+                    runningMessage += ` Estimated time remaining: ${maxEta.toFixed(0)} seconds`;
                 }
-                showResultsMessage(runningMessage, "info");
             }
+            showResultsMessage(runningMessage, "info");
+        }
+    }
 
-        } catch (error) {
-            console.error("Error polling simulation status:", error);
-            const displayMessage = typeof error.message === 'string' ? error.message : String(error);
-            stopPolling(`Error fetching status: ${displayMessage}`, "error");
-            simulationErrorMessage.textContent = `Error fetching status: ${displayMessage}`;
-            simulationErrorMessage.classList.remove("hidden");
-            showResultsMessage(`An error occurred during simulation status update.`, "error");
+    function updateOverallStatus(overallStatus, queuePosition) {
+        // A queued simulation stays PENDING until the scheduler starts it
+        overallStatusEl.textContent = overallStatus === "PENDING" && queuePosition
+            ? `QUEUED (#${queuePosition})`
+            : overallStatus || "Unknown";
+        overallStatusEl.className = `status-text ${overallStatus ? overallStatus.toLowerCase() : 'unknown'}`;
+    }
+
+    /**
+     * Updates one algorithm's progress bar and ETA.
+     * @param {string} algorithm "GA" or "ACO".
+     */
+    function updateAlgorithmProgress(algorithm, progress, eta) {
+        const bar = algorithm === "GA" ? gaProgressBar : acoProgressBar;
+        const text = algorithm === "GA" ? gaProgressText : acoProgressText;
+        const etaEl = algorithm === "GA" ? gaEta : acoEta;
+        if (progress !== null && typeof progress === 'number') {
+            bar.style.width = `${progress}%`;
+            text.textContent = `${progress.toFixed(1)}%`;
+            etaEl.textContent = (eta !== null && typeof eta === 'number' && eta > 0) ?
+                `ETA: ${eta.toFixed(1)}s` : "ETA: Done";
+        } else {
+            bar.style.width = `0%`;
+            text.textContent = `0%`;
+            etaEl.textContent = "ETA: Calculating...";
+        }
+    }
+
+    /**
+     * Follows a simulation over the server-sent event stream, which only carries changes. Falls back to
+     * polling the status endpoint if the browser has no EventSource or the stream drops before completion.
+     * @param {string} simId The ID of the simulation to follow.
+     */
+    function startStatusUpdates(simId) {
+        if (typeof EventSource === "undefined") {
+            statusPollingIntervalId = setInterval(() => pollSimulationStatus(simId), STATUS_POLLING_INTERVAL);
+            return;
+        }
+
+        const source = new EventSource(`${API_URL}/simulate/stream/${simId}`);
+        statusEventSource = source;
+        const etas = { GA: 0, ACO: 0 };
+
+        source.addEventListener("state", event => {
+            if (simId !== currentSimulationId) return;
+            const state = JSON.parse(event.data);
+            updateOverallStatus(state.overallStatus, state.queuePosition);
+        });
+
+        source.addEventListener("progress", event => {
+            if (simId !== currentSimulationId) return;
+            const delta = JSON.parse(event.data);
+            updateAlgorithmProgress(delta.algorithm, delta.progress, delta.eta);
+            etas[delta.algorithm] = delta.eta || 0;
+            const maxEta = Math.max(etas.GA, etas.ACO);
+            showResultsMessage("Simulation is running..." + (maxEta > 0 ? ` Estimated time remaining: ${maxEta.toFixed(0)} seconds` : ""), "info");
+        });
+
+        source.addEventListener("complete", event => {
+            closeStatusStream();
+            if (simId !== currentSimulationId) return;
+            renderSimulationStatus(JSON.parse(event.data));
+        });
+
+        source.onerror = () => {
+            if (statusEventSource !== source) return; // Already closed on completion
+            console.warn(`Event stream for simulation ${simId} dropped, falling back to polling.`);
+            closeStatusStream();
+            if (simId === currentSimulationId && !statusPollingIntervalId) {
+                statusPollingIntervalId = setInterval(() => pollSimulationStatus(simId), STATUS_POLLING_INTERVAL);
+            }
+        };
+    }
+
+    function closeStatusStream() {
+        if (statusEventSource) {
+            statusEventSource.close();
+            statusEventSource = null;
         }
     }
 
@@ -1202,6 +1272,7 @@ document.addEventListener("DOMContentLoaded", () => {
             clearInterval(statusPollingIntervalId);
             statusPollingIntervalId = null;
         }
+        closeStatusStream();
 
         // --- FIX: Add cleanup call ---
         if (currentSimulationId) {
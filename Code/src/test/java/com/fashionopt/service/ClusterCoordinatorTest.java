@@ -0,0 +1,90 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterCoordinatorTest {
+
+    private ClusterCoordinator coordinator;
+    private ExecutorService dispatcher;
+    private CancellationToken cancellation;
+
+    @BeforeEach
+    void setUp() {
+        coordinator = new ClusterCoordinator();
+        ReflectionTestUtils.setField(coordinator, "role", "coordinator");
+        ReflectionTestUtils.setField(coordinator, "token", "");
+        ReflectionTestUtils.setField(coordinator, "heartbeatTimeoutSeconds", 15L);
+        ReflectionTestUtils.setField(coordinator, "pollWaitSeconds", 1L);
+        ReflectionTestUtils.setField(coordinator, "maxAttempts", 3);
+        ReflectionTestUtils.setField(coordinator, "dispatchTimeoutSeconds", 1L);
+        dispatcher = Executors.newSingleThreadExecutor();
+        cancellation = new CancellationToken();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cancellation.cancel();
+        dispatcher.shutdownNow();
+    }
+
+    @Test
+    void queuedJobFailsWhenNoWorkerConnectsWithinDispatchTimeout() throws Exception {
+        Future<EngineRun> run = dispatch();
+        Thread.sleep(1100);
+
+        coordinator.checkWorkers();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> run.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, failure.getCause());
+        assertTrue(failure.getCause().getMessage().contains("No cluster worker connected"), failure.getCause().getMessage());
+        assertEquals(0, coordinator.getQueuedCount());
+    }
+
+    @Test
+    void queuedJobWaitsWhileWorkerIsConnected() throws Exception {
+        coordinator.heartbeat(new ClusterProtocol.Heartbeat("w1", 0, List.of()));
+        Future<EngineRun> run = dispatch();
+        Thread.sleep(1100);
+
+        coordinator.checkWorkers();
+
+        assertFalse(run.isDone());
+        assertEquals(1, coordinator.getQueuedCount());
+        cancellation.cancel();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> run.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CancellationException.class, failure.getCause());
+    }
+
+    /**
+     * Starts a GA run on the coordinator and waits until its job is queued.
+     */
+    private Future<EngineRun> dispatch() throws InterruptedException {
+        OptimizationProblem problem = RandomCatalogs.generate(new Random(7), 10, 5);
+        Future<EngineRun> run = dispatcher.submit(() -> coordinator.execute("sim-1", "GA", problem,
+                new SimulationRequest(), StoppingRule.NONE, null, ProgressListener.NONE, cancellation));
+        while (coordinator.getQueuedCount() == 0) {
+            Thread.sleep(10);
+        }
+        return run;
+    }
+}
@@ -0,0 +1,76 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.ProductResult;
+import com.fashionopt.dto.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExactKnapsackEngineTest {
+
+    @Test
+    void matchesBruteForceOnSmallCatalogs() {
+        Random random = new Random(1);
+        for (int t = 0; t < 300; t++) {
+            OptimizationProblem problem = RandomCatalogs.generate(random, 2 + random.nextInt(5), 6);
+            double shelfLimit = problem.getShelfCapacity() - problem.getExistingShelfUse();
+
+            SimulationResult result = new ExactKnapsackEngine(1_000_000).optimize(problem, ProgressListener.NONE);
+
+            SolutionState plan = plan(problem, shelfLimit, result);
+            assertTrue(plan.isFeasible(), "catalog " + t + " plan is infeasible");
+            assertTrue(result.getOptimal(), "catalog " + t + " not proved optimal");
+            assertEquals(RandomCatalogs.bestObjective(problem, shelfLimit), plan.getObjective(), 1e-6, "catalog " + t);
+        }
+    }
+
+    @Test
+    void returnsFeasiblePartialPlanPastDeadline() {
+        Random random = new Random(2);
+        for (int t = 0; t < 10; t++) {
+            OptimizationProblem problem = correlated(random, 100);
+            StoppingRule passed = StoppingRule.NONE.withDeadline(System.nanoTime());
+
+            SimulationResult result = new ExactKnapsackEngine(1_000_000, passed).optimize(problem, ProgressListener.NONE);
+
+            assertTrue(plan(problem, 0.0, result).isFeasible(), "catalog " + t + " plan is infeasible");
+            assertTrue(result.getPartial(), "catalog " + t + " not flagged partial");
+            assertFalse(result.getOptimal(), "catalog " + t + " claims the optimum despite the deadline");
+        }
+    }
+
+    /**
+     * Profit tracking cost closely under one budget of half the total cost is the classic hard knapsack: the
+     * search takes far more nodes than the first deadline check.
+     */
+    private static OptimizationProblem correlated(Random random, int products) {
+        String[] names = new String[products];
+        double[] cost = new double[products];
+        double[] profit = new double[products];
+        double[] none = new double[products];
+        int[] maxQuantity = new int[products];
+        double total = 0.0;
+        for (int i = 0; i < products; i++) {
+            names[i] = "P" + i;
+            cost[i] = 1 + random.nextInt(1000);
+            profit[i] = cost[i] + 100;
+            maxQuantity[i] = 1;
+            total += cost[i];
+        }
+        return OptimizationProblem.of(names, profit, none, cost, none, none, none, none, profit, maxQuantity,
+                Math.floor(total / 2), 0, 0, 0, 0);
+    }
+
+    private static SolutionState plan(OptimizationProblem problem, double shelfLimit, SimulationResult result) {
+        SolutionState plan = new SolutionState(problem, shelfLimit);
+        for (int i = 0; i < problem.size(); i++) {
+            ProductResult product = result.getProducts().get(i);
+            plan.set(i, product.getQuantity());
+        }
+        return plan;
+    }
+}
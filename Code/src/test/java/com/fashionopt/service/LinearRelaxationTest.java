@@ -0,0 +1,109 @@
+package com.fashionopt.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinearRelaxationTest {
+
+    private static final int SIFTED = 4000; // Catalogs from this size are solved by sifting
+
+    @Test
+    void boundCoversEveryFeasiblePlan() {
+        Random random = new Random(3);
+        for (int t = 0; t < 200; t++) {
+            OptimizationProblem problem = RandomCatalogs.generate(random, 1 + random.nextInt(5), 6);
+            double shelfLimit = problem.getShelfCapacity();
+
+            LinearRelaxation relaxation = LinearRelaxation.solve(problem, shelfLimit);
+
+            double best = RandomCatalogs.bestObjective(problem, shelfLimit);
+            assertTrue(relaxation.isOptimal(), "catalog " + t + " not solved to the optimum");
+            assertTrue(relaxation.getBound() >= best - 1e-6, "catalog " + t + " bound " + relaxation.getBound()
+                    + " below the best plan " + best);
+            assertOptimalQuantities(problem, shelfLimit, relaxation, "catalog " + t);
+        }
+    }
+
+    @Test
+    void boundCoversEveryFeasiblePlanPastDeadline() {
+        Random random = new Random(4);
+        for (int t = 0; t < 200; t++) {
+            OptimizationProblem problem = RandomCatalogs.generate(random, 1 + random.nextInt(5), 6);
+            double shelfLimit = problem.getShelfCapacity();
+
+            LinearRelaxation relaxation = LinearRelaxation.solve(problem, shelfLimit, System.nanoTime());
+
+            double best = RandomCatalogs.bestObjective(problem, shelfLimit);
+            assertFalse(relaxation.isOptimal(), "catalog " + t + " claims the optimum despite the deadline");
+            assertTrue(relaxation.getBound() >= best - 1e-6, "catalog " + t + " bound " + relaxation.getBound()
+                    + " below the best plan " + best);
+        }
+    }
+
+    @Test
+    void siftedBoundPastDeadlineCoversTheOptimum() {
+        Random random = new Random(5);
+        for (int t = 0; t < 6; t++) {
+            OptimizationProblem problem = RandomCatalogs.generate(random, SIFTED + random.nextInt(4000), 100);
+            double shelfLimit = problem.getShelfCapacity();
+            double optimum = LinearRelaxation.solve(problem, shelfLimit).getBound();
+
+            // Already passed, and one that cuts the solve somewhere along the way
+            for (long delay : new long[]{0L, 1_000_000L}) {
+                LinearRelaxation relaxation = LinearRelaxation.solve(problem, shelfLimit, System.nanoTime() + delay);
+                assertTrue(relaxation.getBound() >= optimum - 1e-7 * (1 + Math.abs(optimum)), "catalog " + t
+                        + " bound " + relaxation.getBound() + " below the LP optimum " + optimum);
+            }
+        }
+    }
+
+    @Test
+    void siftingAgreesWithPlainSimplex() {
+        Random random = new Random(6);
+        for (int t = 0; t < 6; t++) {
+            OptimizationProblem problem = RandomCatalogs.generate(random, SIFTED + random.nextInt(6000), 100);
+            double shelfLimit = problem.getShelfCapacity();
+
+            LinearRelaxation sifted = LinearRelaxation.solve(problem, shelfLimit);
+            LinearRelaxation plain = LinearRelaxation.solveWithoutSifting(problem, shelfLimit);
+
+            assertTrue(sifted.isOptimal(), "catalog " + t + " not sifted to the optimum");
+            assertTrue(plain.isOptimal(), "catalog " + t + " not solved to the optimum");
+            assertEquals(plain.getBound(), sifted.getBound(), 1e-7 * (1 + Math.abs(plain.getBound())), "catalog " + t);
+            assertOptimalQuantities(problem, shelfLimit, sifted, "catalog " + t);
+        }
+    }
+
+    /**
+     * The quantities must respect every bound and limit, and by strong duality reach the bound.
+     */
+    private static void assertOptimalQuantities(OptimizationProblem problem, double shelfLimit,
+                                                LinearRelaxation relaxation, String label) {
+        double[][] usage = {problem.getProductionCost(), problem.getMarketingCost(), problem.getLogisticsCost(),
+                problem.getShelfSpace()};
+        double[] limit = {problem.getProductionBudget(), problem.getMarketingBudget(), problem.getLogisticsBudget(),
+                shelfLimit};
+        double tolerance = 1e-7 * (1 + Math.abs(relaxation.getBound()));
+        double[] quantities = relaxation.getQuantities();
+        double[] used = new double[limit.length];
+        double objective = 0.0;
+        for (int i = 0; i < problem.size(); i++) {
+            assertTrue(quantities[i] >= 0 && quantities[i] <= problem.getMaxQuantity()[i], label + " product " + i
+                    + " quantity " + quantities[i] + " outside its bounds");
+            objective += problem.getNetProfit()[i] * quantities[i];
+            for (int k = 0; k < limit.length; k++) {
+                used[k] += usage[k][i] * quantities[i];
+            }
+        }
+        for (int k = 0; k < limit.length; k++) {
+            assertTrue(used[k] <= limit[k] + tolerance, label + " resource " + k + " uses " + used[k]
+                    + " of " + limit[k]);
+        }
+        assertEquals(relaxation.getBound(), objective, tolerance, label + " quantities do not reach the bound");
+    }
+}
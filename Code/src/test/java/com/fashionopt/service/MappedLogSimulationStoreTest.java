@@ -0,0 +1,238 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.CombinedSimulationResult;
+import com.fashionopt.dto.SimulationResult;
+import com.fashionopt.dto.SimulationState;
+import com.fashionopt.dto.SimulationStatus;
+import com.fashionopt.dto.SimulationSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedLogSimulationStoreTest {
+
+    private static final int HEADER_BYTES = 9; // Payload length, CRC32 and record type
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenReplaysLatestRecordOfEachSimulation() throws IOException {
+        MappedLogSimulationStore store = open();
+        store.save(status("a", SimulationState.RUNNING, 1, 1000));
+        store.save(status("a", SimulationState.COMPLETED, 2, 2000));
+        store.save(status("a", SimulationState.RUNNING, 1, 1000)); // Stale, ignored
+        store.save(status("b", SimulationState.RUNNING, 1, 3000));
+        store.save(status("c", SimulationState.ERROR, 1, 4000));
+        store.delete("c", 1);
+        store.close();
+
+        store = open();
+        assertEquals(2, store.size());
+        SimulationStatus a = store.load("a");
+        assertEquals(SimulationState.COMPLETED, a.getOverallStatus());
+        assertEquals(2, a.getVersion());
+        assertEquals(2000.0, a.getResult().getGaResult().getTotalProfit());
+        assertNull(store.load("c"));
+        assertEquals(List.of("b"), store.loadUnfinished().stream().map(SimulationStatus::getSimulationId).toList());
+        assertEquals(List.of("b", "a"), store.history(null, 10).stream().map(SimulationSummary::getSimulationId).toList());
+        store.close();
+    }
+
+    @Test
+    void saveAlreadyUnderWayWhenDeletedIsIgnored() throws IOException {
+        MappedLogSimulationStore store = open();
+        store.save(status("a", SimulationState.RUNNING, 1, 1000));
+        store.delete("a", 2);
+
+        // The snapshot the deleted version came from, saved by a transition that raced the delete
+        store.save(status("a", SimulationState.RUNNING, 2, 2000));
+        assertNull(store.load("a"));
+        assertEquals(0, store.size());
+        store.save(status("a", SimulationState.COMPLETED, 3, 3000));
+        assertEquals(3, store.load("a").getVersion());
+
+        // A tombstone outlives one compaction, not two
+        store.delete("b", 1);
+        store.compact();
+        store.save(status("b", SimulationState.RUNNING, 1, 4000));
+        assertNull(store.load("b"));
+        store.compact();
+        store.save(status("b", SimulationState.RUNNING, 1, 4000));
+        assertEquals(1, store.load("b").getVersion());
+        store.close();
+    }
+
+    @Test
+    void tornTailIsDroppedAtReplay() throws IOException {
+        SimulationStatus a = status("a", SimulationState.COMPLETED, 1, 1000);
+        SimulationStatus b = status("b", SimulationState.COMPLETED, 1, 2000);
+        MappedLogSimulationStore store = open();
+        store.save(a);
+        store.save(b);
+        store.close();
+
+        // A crash after the length of b reached the disk but only half of its payload did
+        int bOffset = recordSize(a);
+        try (FileChannel log = FileChannel.open(logFile(0), StandardOpenOption.WRITE)) {
+            log.truncate(bOffset + HEADER_BYTES + payloadLength(b) / 2);
+        }
+
+        store = open();
+        assertEquals(1, store.size());
+        assertEquals(SimulationState.COMPLETED, store.load("a").getOverallStatus());
+        assertNull(store.load("b"));
+        assertEquals(bOffset, store.sizeBytes());
+        // Records appended after the dropped tail replay too
+        store.save(status("d", SimulationState.COMPLETED, 1, 3000));
+        store.close();
+
+        store = open();
+        assertEquals(2, store.size());
+        assertEquals(1, store.load("d").getVersion());
+        store.close();
+    }
+
+    @Test
+    void checksumMismatchDropsRecordAndEverythingAfter() throws IOException {
+        SimulationStatus a = status("a", SimulationState.COMPLETED, 1, 1000);
+        SimulationStatus b = status("b", SimulationState.COMPLETED, 1, 2000);
+        SimulationStatus c = status("c", SimulationState.COMPLETED, 1, 3000);
+        MappedLogSimulationStore store = open();
+        store.save(a);
+        store.save(b);
+        store.save(c);
+        store.close();
+
+        int corrupted = recordSize(a) + HEADER_BYTES + payloadLength(b) - 1; // Last byte of b's payload
+        try (FileChannel log = FileChannel.open(logFile(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            log.read(value, corrupted);
+            value.put(0, (byte) (value.get(0) ^ 0x55)).rewind();
+            log.write(value, corrupted);
+        }
+
+        store = open();
+        assertEquals(1, store.size());
+        assertNull(store.load("b"));
+        assertNull(store.load("c"));
+        store.save(status("d", SimulationState.COMPLETED, 1, 4000));
+        store.close();
+
+        // c was zeroed along with b, so it does not come back between b and d
+        store = open();
+        assertEquals(2, store.size());
+        assertNull(store.load("c"));
+        assertEquals(SimulationState.COMPLETED, store.load("d").getOverallStatus());
+        store.close();
+    }
+
+    @Test
+    void compactionCarriesLiveRecordsAcrossGenerations() throws IOException {
+        long now = System.currentTimeMillis();
+        MappedLogSimulationStore store = open();
+        for (int version = 1; version <= 20; version++) {
+            store.save(status("a", SimulationState.RUNNING, version, now));
+        }
+        store.save(status("expired", SimulationState.COMPLETED, 1, now - 31L * 86_400_000L));
+        store.save(status("kept", SimulationState.COMPLETED, 1, now));
+        long before = store.sizeBytes();
+
+        assertEquals(1, store.compact());
+        assertTrue(Files.exists(logFile(1)));
+        assertFalse(Files.exists(logFile(0)));
+        assertTrue(store.sizeBytes() < before);
+        assertNull(store.load("expired"));
+        assertEquals(20, store.load("a").getVersion());
+
+        for (int version = 21; version <= 40; version++) {
+            store.save(status("a", SimulationState.RUNNING, version, now));
+        }
+        assertEquals(0, store.compact());
+        assertTrue(Files.exists(logFile(2)));
+        assertFalse(Files.exists(logFile(1)));
+        store.save(status("a", SimulationState.COMPLETED, 41, now));
+        store.close();
+
+        store = open();
+        assertEquals(2, store.size());
+        assertEquals(41, store.load("a").getVersion());
+        assertEquals(SimulationState.COMPLETED, store.load("kept").getOverallStatus());
+        assertTrue(store.loadUnfinished().isEmpty());
+        store.close();
+    }
+
+    @Test
+    void compactionWithLittleGarbageKeepsTheLog() throws IOException {
+        MappedLogSimulationStore store = open();
+        store.save(status("a", SimulationState.COMPLETED, 1, System.currentTimeMillis()));
+        store.save(status("b", SimulationState.COMPLETED, 1, System.currentTimeMillis()));
+
+        assertEquals(0, store.compact());
+        assertTrue(Files.exists(logFile(0)));
+        assertFalse(Files.exists(logFile(1)));
+        store.close();
+    }
+
+    @Test
+    void secondStoreOnTheSameDirectoryIsRefused() throws IOException {
+        MappedLogSimulationStore store = open();
+        assertThrows(IOException.class, this::open);
+        store.close();
+
+        open().close(); // The lock is released with the store
+    }
+
+    private MappedLogSimulationStore open() throws IOException {
+        MappedLogSimulationStore store = new MappedLogSimulationStore();
+        ReflectionTestUtils.setField(store, "storeDir", directory.toString());
+        ReflectionTestUtils.setField(store, "initialMegabytes", 1);
+        ReflectionTestUtils.setField(store, "retentionDays", 30L);
+        ReflectionTestUtils.setField(store, "compactionGarbagePercent", 50);
+        store.open();
+        return store;
+    }
+
+    private Path logFile(long generation) {
+        return directory.resolve("simulations-" + generation + ".log");
+    }
+
+    private static int recordSize(SimulationStatus status) throws IOException {
+        return HEADER_BYTES + payloadLength(status);
+    }
+
+    private static int payloadLength(SimulationStatus status) throws IOException {
+        return SimulationStatusCodec.encode(status).length;
+    }
+
+    /**
+     * A snapshot whose GA profit is its update time, so that a record read back can be told apart.
+     */
+    private static SimulationStatus status(String simulationId, SimulationState state, long version, long updatedAt) {
+        SimulationResult ga = new SimulationResult();
+        ga.setTotalProfit(updatedAt);
+        CombinedSimulationResult result = new CombinedSimulationResult();
+        result.setGaResult(ga);
+        return SimulationStatus.builder()
+                .simulationId(simulationId)
+                .overallStatus(state)
+                .result(result)
+                .version(version)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
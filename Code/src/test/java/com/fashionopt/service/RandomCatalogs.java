@@ -0,0 +1,67 @@
+package com.fashionopt.service;
+
+import java.util.Random;
+
+/**
+ * Random catalogs for the solver tests. Budgets and shelf space are a random fraction of what every demand cap
+ * together would use, so any of the four constraints can bind, and some products lose money.
+ */
+final class RandomCatalogs {
+
+    private RandomCatalogs() {
+    }
+
+    static OptimizationProblem generate(Random random, int products, int maxCap) {
+        String[] names = new String[products];
+        double[] price = new double[products];
+        double[] unitCost = new double[products];
+        double[] productionCost = new double[products];
+        double[] marketingCost = new double[products];
+        double[] logisticsCost = new double[products];
+        double[] shelfSpace = new double[products];
+        double[] netProfit = new double[products];
+        int[] maxQuantity = new int[products];
+        double[] demand = new double[4];
+        for (int i = 0; i < products; i++) {
+            names[i] = "P" + i;
+            productionCost[i] = 1 + random.nextInt(20);
+            marketingCost[i] = random.nextInt(10);
+            logisticsCost[i] = random.nextInt(10);
+            shelfSpace[i] = random.nextInt(4);
+            unitCost[i] = productionCost[i] + marketingCost[i] + logisticsCost[i];
+            price[i] = unitCost[i] + random.nextInt(30) - 5;
+            netProfit[i] = (price[i] - unitCost[i]) * (1 - 0.3 * random.nextDouble());
+            maxQuantity[i] = random.nextInt(maxCap + 1);
+            demand[0] += productionCost[i] * maxQuantity[i];
+            demand[1] += marketingCost[i] * maxQuantity[i];
+            demand[2] += logisticsCost[i] * maxQuantity[i];
+            demand[3] += shelfSpace[i] * maxQuantity[i];
+        }
+        double[] limit = new double[4];
+        for (int k = 0; k < limit.length; k++) {
+            limit[k] = Math.floor(demand[k] * (0.1 + 0.8 * random.nextDouble()));
+        }
+        return OptimizationProblem.of(names, price, unitCost, productionCost, marketingCost, logisticsCost,
+                shelfSpace, new double[products], netProfit, maxQuantity, limit[0], limit[1], limit[2], limit[3], 0.0);
+    }
+
+    /**
+     * @return The best penalised profit of any feasible integer plan, by enumerating all of them.
+     */
+    static double bestObjective(OptimizationProblem problem, double shelfLimit) {
+        return enumerate(new SolutionState(problem, shelfLimit), 0);
+    }
+
+    private static double enumerate(SolutionState state, int product) {
+        if (product == state.size()) {
+            return state.isFeasible() ? state.getObjective() : Double.NEGATIVE_INFINITY;
+        }
+        double best = Double.NEGATIVE_INFINITY;
+        for (int quantity = 0; quantity <= state.getProblem().getMaxQuantity()[product]; quantity++) {
+            state.set(product, quantity);
+            best = Math.max(best, enumerate(state, product + 1));
+        }
+        state.set(product, 0);
+        return best;
+    }
+}
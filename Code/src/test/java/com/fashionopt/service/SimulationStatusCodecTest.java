@@ -0,0 +1,164 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.CombinedSimulationResult;
+import com.fashionopt.dto.ProductResult;
+import com.fashionopt.dto.SimulationResult;
+import com.fashionopt.dto.SimulationState;
+import com.fashionopt.dto.SimulationStatus;
+import com.fashionopt.dto.SimulationSummary;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SimulationStatusCodecTest {
+
+    @Test
+    void roundTripKeepsEveryField() throws IOException {
+        SimulationResult ga = result(1234.5, true, 1300.0, 5.0, false,
+                derived("Coat", 4, 80.0, 55.5), derived("Scarf été", 0, 12.0, 9.75), derived("Boots", -2, 60.0, 70.0));
+        // Values the scripts report rather than derive, which the codec must store as they are
+        ProductResult reported = derived("Coat", 3, 80.0, 55.5);
+        reported.setProfitPerUnit(24.0);
+        reported.setTotalProfit(70.0);
+        reported.setTotalCost(170.25);
+        SimulationResult aco = result(980.0, null, null, null, true, reported, derived("Hat", 7, 20.0, 0.1 + 0.2));
+        SimulationResult exact = result(1250.0, false, 1300.0, 3.8, null);
+        SimulationStatus status = status(SimulationState.COMPLETED, combined(ga, aco, exact)).toBuilder()
+                .gaProgress(100.0)
+                .gaEstimatedTimeRemaining(0.0)
+                .acoProgress(87.5)
+                .acoEstimatedTimeRemaining(null)
+                .errorMessage("ACO: worker — timed out")
+                .gaFinished(true)
+                .acoHasError(true)
+                .queuePosition(0)
+                .build();
+
+        SimulationStatus decoded = roundTrip(status);
+
+        assertStatusEquals(status, decoded);
+    }
+
+    @Test
+    void roundTripKeepsNullsAndMissingResults() throws IOException {
+        SimulationStatus pending = status(SimulationState.PENDING, null).toBuilder().queuePosition(3).build();
+        assertStatusEquals(pending, roundTrip(pending));
+
+        SimulationResult withoutProducts = result(10.0, null, null, null, null);
+        withoutProducts.setProducts(null);
+        SimulationStatus partial = status(SimulationState.RUNNING,
+                combined(null, withoutProducts, result(0.0, null, null, null, null))).toBuilder()
+                .acoFinished(true)
+                .gaHasError(true)
+                .build();
+        assertStatusEquals(partial, roundTrip(partial));
+    }
+
+    @Test
+    void summaryReadsTotalsWithoutProducts() throws IOException {
+        SimulationStatus status = status(SimulationState.INVISIBLE_SOLUTION,
+                combined(result(42.0, null, null, null, null, derived("Coat", 1, 80.0, 38.0)), null,
+                        result(44.0, true, 44.0, 0.0, false))).toBuilder()
+                .errorMessage("No plan")
+                .build();
+
+        SimulationSummary summary = SimulationStatusCodec.decodeSummary(ByteBuffer.wrap(SimulationStatusCodec.encode(status)));
+
+        assertEquals(status.getSimulationId(), summary.getSimulationId());
+        assertEquals(status.getOverallStatus(), summary.getOverallStatus());
+        assertEquals(status.getUpdatedAt(), summary.getUpdatedAt());
+        assertEquals(42.0, summary.getGaProfit());
+        assertNull(summary.getAcoProfit());
+        assertEquals(44.0, summary.getExactProfit());
+        assertEquals("No plan", summary.getErrorMessage());
+    }
+
+    @Test
+    void truncatedRecordIsRejected() throws IOException {
+        byte[] record = SimulationStatusCodec.encode(status(SimulationState.COMPLETED,
+                combined(result(1.0, null, null, null, null, derived("Coat", 1, 80.0, 79.0)), null, null)));
+        for (int length = 0; length < record.length; length++) {
+            ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(record, length));
+            assertThrows(IOException.class, () -> SimulationStatusCodec.decode(truncated), "length " + length);
+        }
+    }
+
+    @Test
+    void unknownFormatIsRejected() throws IOException {
+        byte[] record = SimulationStatusCodec.encode(status(SimulationState.RUNNING, null));
+        record[0] = 99;
+        assertThrows(IOException.class, () -> SimulationStatusCodec.decode(ByteBuffer.wrap(record)));
+    }
+
+    private static SimulationStatus roundTrip(SimulationStatus status) throws IOException {
+        return SimulationStatusCodec.decode(ByteBuffer.wrap(SimulationStatusCodec.encode(status)));
+    }
+
+    /**
+     * CombinedSimulationResult has no equals, so the statuses are compared without it and its results one by one.
+     */
+    private static void assertStatusEquals(SimulationStatus expected, SimulationStatus actual) {
+        assertEquals(expected.toBuilder().result(null).build(), actual.toBuilder().result(null).build());
+        if (expected.getResult() == null) {
+            assertNull(actual.getResult());
+            return;
+        }
+        assertEquals(expected.getResult().getGaResult(), actual.getResult().getGaResult());
+        assertEquals(expected.getResult().getAntColonyResult(), actual.getResult().getAntColonyResult());
+        assertEquals(expected.getResult().getExactResult(), actual.getResult().getExactResult());
+    }
+
+    private static SimulationStatus status(SimulationState state, CombinedSimulationResult result) {
+        return SimulationStatus.builder()
+                .simulationId("sim-1")
+                .overallStatus(state)
+                .result(result)
+                .version(17)
+                .updatedAt(1_700_000_000_000L)
+                .build();
+    }
+
+    private static CombinedSimulationResult combined(SimulationResult ga, SimulationResult aco, SimulationResult exact) {
+        CombinedSimulationResult combined = new CombinedSimulationResult();
+        combined.setGaResult(ga);
+        combined.setAntColonyResult(aco);
+        combined.setExactResult(exact);
+        return combined;
+    }
+
+    private static SimulationResult result(double totalProfit, Boolean optimal, Double upperBound, Double gap,
+                                           Boolean partial, ProductResult... products) {
+        SimulationResult result = new SimulationResult();
+        result.setTotalProfit(totalProfit);
+        result.setProductCount(products.length);
+        result.setProducts(new ArrayList<>(List.of(products)));
+        result.setOptimal(optimal);
+        result.setUpperBound(upperBound);
+        result.setOptimalityGap(gap);
+        result.setPartial(partial);
+        return result;
+    }
+
+    /**
+     * A product as the in-process engines report it, with the totals following from price, cost and quantity.
+     */
+    private static ProductResult derived(String name, int quantity, double price, double unitCost) {
+        ProductResult product = new ProductResult();
+        product.setName(name);
+        product.setQuantity(quantity);
+        product.setPrice(price);
+        product.setUnitCost(unitCost);
+        product.setProfitPerUnit(price - unitCost);
+        product.setTotalProfit(product.getProfitPerUnit() * quantity);
+        product.setTotalCost(unitCost * quantity);
+        return product;
+    }
+}
@@ -0,0 +1,77 @@
+package com.fashionopt.service;
+
+import com.fashionopt.dto.SimulationState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationStatusServiceTest {
+
+    private SimulationStatusService service;
+
+    @BeforeEach
+    void setUp() {
+        InMemorySimulationStore store = new InMemorySimulationStore();
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        service = new SimulationStatusService();
+        ReflectionTestUtils.setField(service, "simulationStore", store);
+        ReflectionTestUtils.setField(service, "simulationEventService", new SimulationEventService());
+        ReflectionTestUtils.setField(service, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(service, "maxEntries", 1000);
+        ReflectionTestUtils.setField(service, "incumbentIntervalMillis", 250L);
+    }
+
+    @Test
+    void terminateBySoleWatcherStopsSimulation() {
+        String simulationId = running();
+        CancellationToken token = service.getCancellationToken(simulationId);
+
+        assertEquals(SimulationStatusService.Termination.TERMINATED, service.terminateSimulation(simulationId));
+        assertEquals(SimulationState.TERMINATED, service.getStatus(simulationId).getOverallStatus());
+        assertTrue(token.isCancelled());
+        assertEquals(SimulationStatusService.Termination.NOT_RUNNING, service.terminateSimulation(simulationId));
+    }
+
+    @Test
+    void coalescedSimulationRunsUntilLastWatcherTerminates() {
+        String simulationId = running();
+        CancellationToken token = service.getCancellationToken(simulationId);
+        assertTrue(service.attachWatcher(simulationId));
+
+        assertEquals(SimulationStatusService.Termination.DETACHED, service.terminateSimulation(simulationId));
+        assertEquals(SimulationState.RUNNING, service.getStatus(simulationId).getOverallStatus());
+        assertFalse(token.isCancelled());
+
+        assertEquals(SimulationStatusService.Termination.TERMINATED, service.terminateSimulation(simulationId));
+        assertEquals(SimulationState.TERMINATED, service.getStatus(simulationId).getOverallStatus());
+        assertTrue(token.isCancelled());
+    }
+
+    @Test
+    void cleanupAfterLeavingKeepsSimulationForOtherWatcher() {
+        String simulationId = running();
+        CancellationToken token = service.getCancellationToken(simulationId);
+        assertTrue(service.attachWatcher(simulationId));
+
+        // The client that left cleans up as soon as it stops polling
+        assertEquals(SimulationStatusService.Termination.DETACHED, service.terminateSimulation(simulationId));
+        service.cleanupSimulation(simulationId);
+        assertEquals(SimulationState.RUNNING, service.getStatus(simulationId).getOverallStatus());
+        assertFalse(token.isCancelled());
+
+        service.cleanupSimulation(simulationId);
+        assertNull(service.getStatus(simulationId));
+        assertTrue(token.isCancelled());
+    }
+
+    private String running() {
+        String simulationId = service.createSimulation();
+        service.updateProgress(simulationId, "GA", 10.0, 5.0);
+        return simulationId;
+    }
+}